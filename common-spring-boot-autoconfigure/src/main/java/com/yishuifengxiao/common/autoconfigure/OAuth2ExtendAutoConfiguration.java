@@ -1,8 +1,19 @@
 package com.yishuifengxiao.common.autoconfigure;
 
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -20,18 +31,42 @@ import org.springframework.security.oauth2.provider.error.WebResponseExceptionTr
 import org.springframework.security.oauth2.provider.request.DefaultOAuth2RequestFactory;
 import org.springframework.security.oauth2.provider.token.AuthorizationServerTokenServices;
 import org.springframework.security.oauth2.provider.token.ConsumerTokenServices;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.security.oauth2.provider.token.TokenEnhancer;
 import org.springframework.security.oauth2.provider.token.TokenStore;
-import org.springframework.security.oauth2.provider.token.store.InMemoryTokenStore;
 import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.util.Assert;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.yishuifengxiao.common.properties.Oauth2Properties;
+import com.yishuifengxiao.common.properties.SecurityProperties;
 import com.yishuifengxiao.common.security.extractor.CustomTokenExtractor;
 import com.yishuifengxiao.common.security.filter.TokenEndpointAuthenticationFilter;
 import com.yishuifengxiao.common.security.oauth2.enhancer.CustomeTokenEnhancer;
+import com.yishuifengxiao.common.security.oauth2.enhancer.JwsTokenEnhancer;
+import com.yishuifengxiao.common.security.oauth2.token.AuthenticationCache;
+import com.yishuifengxiao.common.security.oauth2.token.CachingRemoteTokenServices;
+import com.yishuifengxiao.common.security.oauth2.token.CustomInMemoryTokenStore;
 import com.yishuifengxiao.common.security.oauth2.token.CustomTokenServices;
+import com.yishuifengxiao.common.security.oauth2.token.JwsTokenCodec;
+import com.yishuifengxiao.common.security.oauth2.token.MappedFileTokenStore;
+import com.yishuifengxiao.common.security.oauth2.token.MeteredTokenStore;
+import com.yishuifengxiao.common.security.oauth2.token.MicrometerTokenMetrics;
+import com.yishuifengxiao.common.security.oauth2.token.SecureRandomTokenValueGenerator;
+import com.yishuifengxiao.common.security.oauth2.token.SingleFlightTokenLock;
+import com.yishuifengxiao.common.security.oauth2.token.TokenLock;
+import com.yishuifengxiao.common.security.oauth2.token.TokenMetrics;
+import com.yishuifengxiao.common.security.oauth2.token.TokenRevocationList;
+import com.yishuifengxiao.common.security.oauth2.token.TokenValueGenerator;
+import com.yishuifengxiao.common.security.oauth2.token.UuidTokenValueGenerator;
 import com.yishuifengxiao.common.security.oauth2.translator.Auth2ResponseExceptionTranslator;
+import com.yishuifengxiao.common.security.service.CachingClientDetailsService;
 import com.yishuifengxiao.common.security.service.ClientDetailsServiceImpl;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
 import com.yishuifengxiao.common.security.utils.TokenUtils;
 
 /**
@@ -46,10 +81,40 @@ import com.yishuifengxiao.common.security.utils.TokenUtils;
 @AutoConfigureBefore(WebMvcAutoConfiguration.class)
 public class OAuth2ExtendAutoConfiguration {
 
+	private final static Logger log = LoggerFactory.getLogger(OAuth2ExtendAutoConfiguration.class);
+
 	@ConditionalOnMissingBean(name = { "tokenStore" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token", name = "store", havingValue = "memory", matchIfMissing = true)
 	@Bean("tokenStore")
-	public TokenStore tokenStore() {
-		return new InMemoryTokenStore();
+	public CustomInMemoryTokenStore tokenStore(Oauth2Properties oauth2Properties) {
+		Oauth2Properties.ReaperProperties reaper = oauth2Properties.getToken().getReaper();
+		CustomInMemoryTokenStore tokenStore = new CustomInMemoryTokenStore();
+		tokenStore.setReapInterval(reaper.getInterval());
+		tokenStore.setReapBatchSize(reaper.getBatchSize());
+		return tokenStore;
+	}
+
+	/**
+	 * 基于本地文件的token存储，重启后通过重放日志恢复所有有效的token
+	 * 
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = { "tokenStore" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token", name = "store", havingValue = "file")
+	@Bean("tokenStore")
+	public CustomInMemoryTokenStore fileTokenStore(Oauth2Properties oauth2Properties) {
+		Oauth2Properties.ReaperProperties reaper = oauth2Properties.getToken().getReaper();
+		Oauth2Properties.FileStoreProperties file = oauth2Properties.getToken().getFile();
+		Assert.isTrue(StringUtils.isNotBlank(file.getDirectory()),
+				"token存储方式为file时必须配置 yishuifengxiao.security.oauth2.token.file.directory");
+		MappedFileTokenStore tokenStore = new MappedFileTokenStore(new File(file.getDirectory()));
+		tokenStore.setSegmentSize(file.getSegmentSize());
+		tokenStore.setCompactThreshold(file.getCompactThreshold());
+		tokenStore.setMaintainInterval(file.getMaintainInterval());
+		tokenStore.setReapInterval(reaper.getInterval());
+		tokenStore.setReapBatchSize(reaper.getBatchSize());
+		return tokenStore;
 	}
 
 	/**
@@ -69,23 +134,77 @@ public class OAuth2ExtendAutoConfiguration {
 	/**
 	 * 生成自定义token
 	 * 
+	 * @param oauth2Properties
 	 * @return
 	 */
 	@Bean("customeTokenEnhancer")
 	@ConditionalOnMissingBean(name = "customeTokenEnhancer")
-	public TokenEnhancer tokenEnhancer() {
-		return new CustomeTokenEnhancer();
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token", name = "format", havingValue = "opaque", matchIfMissing = true)
+	public TokenEnhancer tokenEnhancer(Oauth2Properties oauth2Properties) {
+		return new CustomeTokenEnhancer(oauth2Properties.getToken().getSecretKey());
+	}
+
+	/**
+	 * 签名token的编解码工具
+	 * 
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@Bean("jwsTokenCodec")
+	@ConditionalOnMissingBean(name = "jwsTokenCodec")
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token", name = "format", havingValue = "jws")
+	public JwsTokenCodec jwsTokenCodec(Oauth2Properties oauth2Properties) {
+		Oauth2Properties.JwsProperties jws = oauth2Properties.getToken().getJws();
+		Map<String, String> keys = new LinkedHashMap<>(jws.getKeys());
+		if (keys.isEmpty()) {
+			log.warn("没有配置签名token的密钥，将使用随机生成的密钥，该密钥仅在当前节点有效，重启后之前签发的token全部失效");
+			keys.put("default", new SecureRandomTokenValueGenerator(32).generate());
+		}
+		String activeKid = StringUtils.isNotBlank(jws.getActiveKid()) ? jws.getActiveKid()
+				: keys.keySet().iterator().next();
+		return new JwsTokenCodec(keys, activeKid);
+	}
+
+	/**
+	 * 生成签名token
+	 * 
+	 * @param jwsTokenCodec
+	 * @return
+	 */
+	@Bean("customeTokenEnhancer")
+	@ConditionalOnMissingBean(name = "customeTokenEnhancer")
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token", name = "format", havingValue = "jws")
+	public TokenEnhancer jwsTokenEnhancer(@Qualifier("jwsTokenCodec") JwsTokenCodec jwsTokenCodec) {
+		return new JwsTokenEnhancer(jwsTokenCodec);
+	}
+
+	/**
+	 * token值生成器
+	 * 
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@Bean("tokenValueGenerator")
+	@ConditionalOnMissingBean(name = "tokenValueGenerator")
+	public TokenValueGenerator tokenValueGenerator(Oauth2Properties oauth2Properties) {
+		if ("secure-random".equals(oauth2Properties.getToken().getGenerator())) {
+			return new SecureRandomTokenValueGenerator();
+		}
+		return new UuidTokenValueGenerator();
 	}
 
 	/**
 	 * 自定义token提取器
 	 * 
+	 * @param attributeStore
 	 * @return
 	 */
 	@Bean("tokenExtractor")
 	@ConditionalOnMissingBean(name = "tokenExtractor")
-	public TokenExtractor tokenExtractor() {
-		return new CustomTokenExtractor();
+	public TokenExtractor tokenExtractor(ObjectProvider<SecurityAttributeStore> attributeStore) {
+		CustomTokenExtractor tokenExtractor = new CustomTokenExtractor();
+		attributeStore.ifAvailable(tokenExtractor::setAttributeStore);
+		return tokenExtractor;
 	}
 
 	/**
@@ -95,24 +214,113 @@ public class OAuth2ExtendAutoConfiguration {
 	 * @param clientDetailsService
 	 * @param accessTokenEnhancer
 	 * @param authenticationManager
+	 * @param authenticationCache
+	 * @param tokenLock
+	 * @param tokenValueGenerator
+	 * @param jwsTokenCodec
+	 * @param revocationList
+	 * @param tokenMetrics
 	 * @return
 	 */
 	@Bean("authorizationServerTokenServices")
 	@ConditionalOnMissingBean(name = "authorizationServerTokenServices")
+	@ConditionalOnExpression("'${yishuifengxiao.security.oauth2.resource.check-token-uri:}' == ''")
 	public AuthorizationServerTokenServices authorizationServerTokenServices(TokenStore tokenStore,
-			ClientDetailsService clientDetailsService, TokenEnhancer accessTokenEnhancer,
-			AuthenticationManager authenticationManager,ApplicationContext context) {
+			@Qualifier("cachingClientDetailsService") ClientDetailsService clientDetailsService, TokenEnhancer accessTokenEnhancer,
+			AuthenticationManager authenticationManager,ApplicationContext context,
+			ObjectProvider<AuthenticationCache> authenticationCache, ObjectProvider<TokenLock> tokenLock,
+			@Qualifier("tokenValueGenerator") TokenValueGenerator tokenValueGenerator,
+			ObjectProvider<JwsTokenCodec> jwsTokenCodec, ObjectProvider<TokenRevocationList> revocationList,
+			ObjectProvider<TokenMetrics> tokenMetrics) {
+		TokenMetrics metrics = tokenMetrics.getIfAvailable(() -> TokenMetrics.NONE);
 		CustomTokenServices tokenServices = new CustomTokenServices();
-		tokenServices.setTokenStore(tokenStore);
+		// 只有开启监控时才包装token存储，未开启时没有任何额外开销
+		tokenServices.setTokenStore(metrics.isEnabled() ? new MeteredTokenStore(tokenStore, metrics) : tokenStore);
+		tokenServices.setMetrics(metrics);
 		tokenServices.setClientDetailsService(clientDetailsService);
-		tokenServices.setTokenStore(tokenStore);
+		tokenServices.setTokenEnhancer(accessTokenEnhancer);
+		tokenServices.setTokenValueGenerator(tokenValueGenerator);
+		tokenServices.setJwsTokenCodec(jwsTokenCodec.getIfAvailable());
+		tokenServices.setRevocationList(revocationList.getIfAvailable());
 		tokenServices.setAuthenticationManager(authenticationManager);
 		tokenServices.setContext(context);
+		tokenServices.setAuthenticationCache(authenticationCache.getIfAvailable());
+		tokenServices.setTokenLock(tokenLock.getIfAvailable());
 		return tokenServices;
 	}
 
 	/**
-	 * token生成工具
+	 * token生成和刷新时的并发控制工具，合并本节点内相同的并发请求
+	 * 
+	 * @return
+	 */
+	@Bean("tokenLock")
+	@ConditionalOnMissingBean(name = "tokenLock")
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token.lock", name = "mode", havingValue = "local", matchIfMissing = true)
+	public TokenLock tokenLock() {
+		return new SingleFlightTokenLock();
+	}
+
+	/**
+	 * 与授权服务器分开部署的资源服务器通过授权服务器校验token，校验结果缓存在本地<br/>
+	 * 此时不再创建授权服务器的token服务，资源服务器的配置中明确使用此服务校验token
+	 * 
+	 * @param oauth2Properties
+	 * @param revocationList
+	 * @return
+	 */
+	@Bean("remoteTokenServices")
+	@ConditionalOnMissingBean(name = "remoteTokenServices")
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.resource", name = "check-token-uri")
+	public ResourceServerTokenServices remoteTokenServices(Oauth2Properties oauth2Properties,
+			ObjectProvider<TokenRevocationList> revocationList) {
+		Oauth2Properties.RemoteResourceProperties resource = oauth2Properties.getResource();
+		CachingRemoteTokenServices tokenServices = new CachingRemoteTokenServices(resource.getCheckTokenUri(),
+				resource.getClientId(), resource.getClientSecret());
+		tokenServices.setRestTemplate(CachingRemoteTokenServices.createRestTemplate(resource.getConnectTimeout(),
+				resource.getReadTimeout(), resource.getMaxConnections(), resource.getMaxConnectionsPerRoute()));
+		tokenServices.setMaxSize(resource.getMaxSize());
+		tokenServices.setTtl(resource.getTtl());
+		tokenServices.setNegativeTtl(resource.getNegativeTtl());
+		tokenServices.setRevocationList(revocationList.getIfAvailable());
+		return tokenServices;
+	}
+
+	/**
+	 * token吊销列表，token的格式为jws时总是开启，签名token在本地校验，被删除后只能通过吊销列表拒绝
+	 * 
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@Bean("tokenRevocationList")
+	@ConditionalOnMissingBean(name = "tokenRevocationList")
+	@ConditionalOnExpression("${yishuifengxiao.security.oauth2.token.revocation.enabled:false} or '${yishuifengxiao.security.oauth2.token.format:opaque}' == 'jws'")
+	public TokenRevocationList tokenRevocationList(Oauth2Properties oauth2Properties) {
+		Oauth2Properties.RevocationProperties revocation = oauth2Properties.getToken().getRevocation();
+		TokenRevocationList revocationList = new TokenRevocationList(revocation.getExpectedInsertions(),
+				revocation.getFpp());
+		revocationList.setDefaultTtl(revocation.getDefaultTtl());
+		revocationList.setPurgeInterval(revocation.getPurgeInterval());
+		revocationList.setSyncInterval(revocation.getSyncInterval());
+		return revocationList;
+	}
+
+	/**
+	 * 认证信息本地缓存，token的格式为jws时总是开启，用于缓存签名的校验结果
+	 * 
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@Bean("authenticationCache")
+	@ConditionalOnMissingBean(name = "authenticationCache")
+	@ConditionalOnExpression("${yishuifengxiao.security.oauth2.token.near-cache.enabled:false} or '${yishuifengxiao.security.oauth2.token.format:opaque}' == 'jws'")
+	public AuthenticationCache authenticationCache(Oauth2Properties oauth2Properties) {
+		Oauth2Properties.NearCacheProperties nearCache = oauth2Properties.getToken().getNearCache();
+		return new AuthenticationCache(nearCache.getMaxSize(), nearCache.getTtl());
+	}
+
+	/**
+	 * token生成工具，只有部署了授权服务器的token服务时才存在
 	 * 
 	 * @param clientDetailsService
 	 * @param authorizationServerTokenServices
@@ -121,9 +329,11 @@ public class OAuth2ExtendAutoConfiguration {
 	 */
 	@Bean
 	@ConditionalOnMissingBean
-	public TokenUtils tokenUtils(ClientDetailsService clientDetailsService,
+	@ConditionalOnExpression("'${yishuifengxiao.security.oauth2.resource.check-token-uri:}' == ''")
+	public TokenUtils tokenUtils(@Qualifier("cachingClientDetailsService") ClientDetailsService clientDetailsService,
 			AuthorizationServerTokenServices authorizationServerTokenServices,TokenExtractor tokenExtractor,
-			ConsumerTokenServices consumerTokenServices,UserDetailsService userDetailsService,PasswordEncoder passwordEncoder) {
+			ConsumerTokenServices consumerTokenServices,UserDetailsService userDetailsService,PasswordEncoder passwordEncoder,
+			TokenStore tokenStore, ApplicationContext context) {
 		TokenUtils tokenUtils = new TokenUtils();
 		tokenUtils.setClientDetailsService(clientDetailsService);
 		tokenUtils.setUserDetailsService(userDetailsService);
@@ -131,6 +341,8 @@ public class OAuth2ExtendAutoConfiguration {
 		tokenUtils.setPasswordEncoder(passwordEncoder);
 		tokenUtils.setConsumerTokenServices(consumerTokenServices);
 		tokenUtils.setTokenExtractor(tokenExtractor);
+		tokenUtils.setTokenStore(tokenStore);
+		tokenUtils.setContext(context);
 		return tokenUtils;
 	}
 
@@ -154,11 +366,14 @@ public class OAuth2ExtendAutoConfiguration {
 	@Bean("tokenEndpointAuthenticationFilter")
 	@ConditionalOnMissingBean(name = "tokenEndpointAuthenticationFilter")
 	public TokenEndpointAuthenticationFilter tokenEndpointAuthenticationFilter(ApplicationContext contentx,
-			ClientDetailsService clientDetailsService, PasswordEncoder passwordEncoder) {
+			@Qualifier("cachingClientDetailsService") ClientDetailsService clientDetailsService,
+			PasswordEncoder passwordEncoder, SecurityProperties securityProperties) {
 		TokenEndpointAuthenticationFilter tokenEndpointAuthenticationFilter = new TokenEndpointAuthenticationFilter();
 		tokenEndpointAuthenticationFilter.setClientDetailsService(clientDetailsService);
 		tokenEndpointAuthenticationFilter.setPasswordEncoder(passwordEncoder);
 		tokenEndpointAuthenticationFilter.setContentx(contentx);
+		tokenEndpointAuthenticationFilter
+				.setStateless(Boolean.TRUE.equals(securityProperties.getSession().getStateless()));
 		return tokenEndpointAuthenticationFilter;
 	}
 
@@ -171,7 +386,7 @@ public class OAuth2ExtendAutoConfiguration {
 	 */
 	@Bean
 	public TokenStoreUserApprovalHandler userApprovalHandler(TokenStore tokenStore,
-			ClientDetailsService clientDetailsService) {
+			@Qualifier("cachingClientDetailsService") ClientDetailsService clientDetailsService) {
 		TokenStoreUserApprovalHandler handler = new TokenStoreUserApprovalHandler();
 		handler.setTokenStore(tokenStore);
 		handler.setRequestFactory(new DefaultOAuth2RequestFactory(clientDetailsService));
@@ -194,12 +409,92 @@ public class OAuth2ExtendAutoConfiguration {
 		return store;
 	}
 
+	/**
+	 * 默认的终端信息查询服务，终端信息来源于配置属性或终端信息文件
+	 * 
+	 * @param passwordEncoder
+	 * @param oauth2Properties
+	 * @return
+	 */
 	@Bean("customClientDetailsService")
 	@ConditionalOnMissingBean(name = "customClientDetailsService")
-	public ClientDetailsService customClientDetailsService(PasswordEncoder passwordEncoder) {
+	public ClientDetailsService customClientDetailsService(PasswordEncoder passwordEncoder,
+			Oauth2Properties oauth2Properties) {
 		ClientDetailsServiceImpl customClientDetailsService = new ClientDetailsServiceImpl();
 		customClientDetailsService.setPasswordEncoder(passwordEncoder);
+		customClientDetailsService.setOauth2Properties(oauth2Properties);
 		return customClientDetailsService;
 	}
 
+	/**
+	 * 在终端信息查询服务之前增加一层缓存，token生成、token端点过滤器和TokenUtils均通过此服务查询终端信息
+	 * 
+	 * @param customClientDetailsService 真实的终端信息查询服务
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@Bean("cachingClientDetailsService")
+	@ConditionalOnMissingBean(name = "cachingClientDetailsService")
+	public ClientDetailsService cachingClientDetailsService(
+			@Qualifier("customClientDetailsService") ClientDetailsService customClientDetailsService,
+			Oauth2Properties oauth2Properties) {
+		Oauth2Properties.ClientCacheProperties cache = oauth2Properties.getClientCache();
+		if (!Boolean.TRUE.equals(cache.getEnabled())) {
+			return customClientDetailsService;
+		}
+		return new CachingClientDetailsService(customClientDetailsService, cache.getMaxSize(), cache.getTtl());
+	}
+
+	/**
+	 * 存在micrometer时输出token相关的指标
+	 * 
+	 * @author yishui
+	 * @date 2019年11月19日
+	 * @version 1.0.0
+	 */
+	@Configuration
+	@ConditionalOnClass(MeterBinder.class)
+	static class TokenStoreMetricsConfiguration {
+
+		/**
+		 * token服务和token存储各个操作的耗时以及发放的token的数量，不存在MeterRegistry时不记录
+		 * 
+		 * @param meterRegistry
+		 * @return
+		 */
+		@Bean("tokenMetrics")
+		@ConditionalOnMissingBean(name = "tokenMetrics")
+		@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+		public TokenMetrics tokenMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+			MeterRegistry registry = meterRegistry.getIfAvailable();
+			return null == registry ? TokenMetrics.NONE : new MicrometerTokenMetrics(registry);
+		}
+
+		/**
+		 * 内存中access token和refresh token的数量，token存储不是 CustomInMemoryTokenStore 时不记录<br/>
+		 * 按 TokenStore 类型查找，不依赖token存储声明的类型和创建的顺序
+		 * 
+		 * @param tokenStore
+		 * @return
+		 */
+		@Bean("tokenStoreMeterBinder")
+		@ConditionalOnMissingBean(name = "tokenStoreMeterBinder")
+		public MeterBinder tokenStoreMeterBinder(ObjectProvider<TokenStore> tokenStore) {
+			return registry -> {
+				TokenStore candidate = tokenStore.getIfUnique();
+				if (candidate instanceof MeteredTokenStore) {
+					candidate = ((MeteredTokenStore) candidate).getDelegate();
+				}
+				if (!(candidate instanceof CustomInMemoryTokenStore)) {
+					return;
+				}
+				CustomInMemoryTokenStore store = (CustomInMemoryTokenStore) candidate;
+				Gauge.builder("yishuifengxiao.oauth2.tokens", store, CustomInMemoryTokenStore::getAccessTokenCount)
+						.tag("type", "access").description("内存中有效的access token的数量").register(registry);
+				Gauge.builder("yishuifengxiao.oauth2.tokens", store, CustomInMemoryTokenStore::getRefreshTokenCount)
+						.tag("type", "refresh").description("内存中有效的refresh token的数量").register(registry);
+			};
+		}
+	}
+
 }
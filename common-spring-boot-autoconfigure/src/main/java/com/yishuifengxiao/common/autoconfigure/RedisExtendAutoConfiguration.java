@@ -11,6 +11,7 @@ import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
@@ -32,6 +33,8 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import com.yishuifengxiao.common.validation.repository.CodeRepository;
 import com.yishuifengxiao.common.validation.repository.impl.RedisCodeRepository;
+import com.yishuifengxiao.common.validation.ticket.NonceStore;
+import com.yishuifengxiao.common.validation.ticket.impl.RedisNonceStore;
 /**
  * 注入redis相关的配置
  * @author yishui
@@ -134,6 +137,19 @@ public class RedisExtendAutoConfiguration {
 		return new RedisCodeRepository(redisTemplate);
 	}
 
+	/**
+	 * 已使用验证码凭证的redis管理器
+	 * 
+	 * @return
+	 */
+	@ConditionalOnBean(name = "redisTemplate")
+	@ConditionalOnMissingBean(name = { "codeNonceStore" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.code.ticket", name = "enabled", havingValue = "true")
+	@Bean("codeNonceStore")
+	public NonceStore redisNonceStore(RedisTemplate<String, Object> redisTemplate) {
+		return new RedisNonceStore(redisTemplate);
+	}
+
 	@PostConstruct
 	public void checkConfig() {
 
@@ -1,37 +1,55 @@
 package com.yishuifengxiao.common.autoconfigure;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 //gitee.com/zhiyubujian/common-starter.git
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yishuifengxiao.common.autoconfigure.mail.MailExtendAutoConfiguration;
 import com.yishuifengxiao.common.properties.CodeProperties;
 import com.yishuifengxiao.common.validation.CodeProcessorHolder;
 import com.yishuifengxiao.common.validation.code.email.EmailCodeGenerator;
 import com.yishuifengxiao.common.validation.code.email.EmailCodeProcessor;
+import com.yishuifengxiao.common.validation.code.image.GlyphAtlasImageCodeGenerator;
+import com.yishuifengxiao.common.validation.code.image.ImageCodeEncoder;
 import com.yishuifengxiao.common.validation.code.image.ImageCodeGenerator;
+import com.yishuifengxiao.common.validation.code.image.ImageCodePool;
 import com.yishuifengxiao.common.validation.code.image.ImageCodeProcessor;
 import com.yishuifengxiao.common.validation.code.sms.SmsCodeGenerator;
 import com.yishuifengxiao.common.validation.code.sms.SmsCodeProcessor;
 import com.yishuifengxiao.common.validation.entity.EmailCode;
 import com.yishuifengxiao.common.validation.entity.SmsCode;
+import com.yishuifengxiao.common.validation.eunm.ImageRenderer;
 import com.yishuifengxiao.common.validation.generator.CodeGenerator;
 import com.yishuifengxiao.common.validation.processor.CodeProcessor;
 import com.yishuifengxiao.common.validation.repository.CodeRepository;
 import com.yishuifengxiao.common.validation.repository.impl.DefaultCodeRepository;
 import com.yishuifengxiao.common.validation.sender.CodeSender;
+import com.yishuifengxiao.common.validation.ticket.CodeTicketManager;
+import com.yishuifengxiao.common.validation.ticket.NonceStore;
+import com.yishuifengxiao.common.validation.ticket.impl.LocalNonceStore;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 /**
  * 验证码启动类
  * 
@@ -67,18 +85,102 @@ public class ValidateCodeAutoConfiguration {
 	 */
 	@ConditionalOnMissingBean(name = {"redisTemplate","codeRepository"})
 	@Bean("codeRepository")
-	public CodeRepository codeRepository() {
-		return new DefaultCodeRepository();
+	public DefaultCodeRepository codeRepository() {
+		CodeProperties.RepositoryProperties repository = codeProperties.getRepository();
+		DefaultCodeRepository codeRepository = new DefaultCodeRepository(repository.getMaxSize());
+		codeRepository.setReapInterval(repository.getReapInterval());
+		codeRepository.setReapBatchSize(repository.getReapBatchSize());
+		return codeRepository;
+	}
+
+	/**
+	 * 已使用验证码凭证的内存管理器
+	 * 
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = { "redisTemplate", "codeNonceStore" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.code.ticket", name = "enabled", havingValue = "true")
+	@Bean("codeNonceStore")
+	public LocalNonceStore codeNonceStore() {
+		return new LocalNonceStore(codeProperties.getTicket().getMaxNonces());
+	}
+
+	/**
+	 * 无状态验证码凭证管理器
+	 * 
+	 * @param codeNonceStore
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = "codeTicketManager")
+	@ConditionalOnProperty(prefix = "yishuifengxiao.code.ticket", name = "enabled", havingValue = "true")
+	@Bean("codeTicketManager")
+	public CodeTicketManager codeTicketManager(NonceStore codeNonceStore) {
+		String secret = codeProperties.getTicket().getSecret();
+		byte[] key;
+		if (StringUtils.isBlank(secret)) {
+			logger.warn("没有配置验证码凭证的密钥 yishuifengxiao.code.ticket.secret ，使用随机生成的密钥，"
+					+ "重启之后之前签发的凭证会失效，多个实例部署时必须配置");
+			key = new byte[32];
+			new SecureRandom().nextBytes(key);
+		} else {
+			key = secret.getBytes(StandardCharsets.UTF_8);
+		}
+		return new CodeTicketManager(key, codeNonceStore);
+	}
+
+	/**
+	 * 图形验证码编码器
+	 * 
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = "imageCodeEncoder")
+	@Bean("imageCodeEncoder")
+	public ImageCodeEncoder imageCodeEncoder() {
+		return new ImageCodeEncoder(codeProperties.getImage().getFormat(), codeProperties.getImage().getQuality());
+	}
+
+	/**
+	 * 图形验证码池，后台预先生成图形验证码
+	 * 
+	 * @param imageCodeEncoder
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = "imageCodePool")
+	@ConditionalOnProperty(prefix = "yishuifengxiao.code.image.pool", name = "enabled", havingValue = "true")
+	@Bean("imageCodePool")
+	public ImageCodePool imageCodePool(ImageCodeEncoder imageCodeEncoder) {
+		CodeProperties.ImageCodeProperties image = codeProperties.getImage();
+		CodeProperties.ImagePoolProperties pool = image.getPool();
+		ImageCodePool imageCodePool = new ImageCodePool(this.createImageCodeGenerator(), imageCodeEncoder,
+				pool.getCapacity(), image.getWidth(), image.getHeight());
+		imageCodePool.setRefillInterval(pool.getRefillInterval());
+		imageCodePool.setThreads(pool.getThreads());
+		return imageCodePool;
 	}
 
 	/**
 	 * 图形验证码生成器
 	 * 
+	 * @param imageCodePool
 	 * @return
 	 */
 	@ConditionalOnMissingBean(name = "imageCodeGenerator")
 	@Bean("imageCodeGenerator")
-	public CodeGenerator imageCodeGenerator() {
+	public CodeGenerator imageCodeGenerator(ObjectProvider<ImageCodePool> imageCodePool) {
+		ImageCodeGenerator imageCodeGenerator = this.createImageCodeGenerator();
+		imageCodeGenerator.setPool(imageCodePool.getIfAvailable());
+		return imageCodeGenerator;
+	}
+
+	/**
+	 * 根据配置的绘制方式创建图形验证码生成器
+	 * 
+	 * @return
+	 */
+	private ImageCodeGenerator createImageCodeGenerator() {
+		if (ImageRenderer.GLYPH_ATLAS == codeProperties.getImage().getRenderer()) {
+			return new GlyphAtlasImageCodeGenerator(codeProperties);
+		}
 		return new ImageCodeGenerator(codeProperties);
 	}
 
@@ -87,12 +189,21 @@ public class ValidateCodeAutoConfiguration {
 	 * 
 	 * @param codeGenerators
 	 * @param codeRepository
+	 * @param imageCodeEncoder
+	 * @param objectMapper
+	 * @param codeTicketManager
 	 * @return
 	 */
 	@ConditionalOnMissingBean(name = "imageCodeProcessor")
 	@Bean("imageCodeProcessor")
-	public CodeProcessor imageCodeProcessor(Map<String, CodeGenerator> codeGenerators, CodeRepository codeRepository) {
-		return new ImageCodeProcessor(codeGenerators, codeRepository, codeProperties);
+	public CodeProcessor imageCodeProcessor(Map<String, CodeGenerator> codeGenerators, CodeRepository codeRepository,
+			ImageCodeEncoder imageCodeEncoder, ObjectProvider<ObjectMapper> objectMapper,
+			ObjectProvider<CodeTicketManager> codeTicketManager) {
+		ImageCodeProcessor imageCodeProcessor = new ImageCodeProcessor(codeGenerators, codeRepository, codeProperties);
+		imageCodeProcessor.setEncoder(imageCodeEncoder);
+		imageCodeProcessor.setObjectMapper(objectMapper.getIfAvailable());
+		imageCodeProcessor.setTicketManager(codeTicketManager.getIfAvailable());
+		return imageCodeProcessor;
 	}
 
 	/**
@@ -113,14 +224,18 @@ public class ValidateCodeAutoConfiguration {
 	 * @param codeGenerators
 	 * @param codeRepository
 	 * @param smsCodeSender
+	 * @param codeTicketManager
 	 * @return
 	 */
 	@ConditionalOnMissingBean(name = "smsCodeProcessor")
 	@Bean("smsCodeProcessor")
 	@ConditionalOnBean(name = "smsCodeSender")
 	public CodeProcessor smsCodeProcessor(Map<String, CodeGenerator> codeGenerators, CodeRepository codeRepository,
-			CodeSender<SmsCode> smsCodeSender) {
-		return new SmsCodeProcessor(codeGenerators, codeRepository, codeProperties, smsCodeSender);
+			CodeSender<SmsCode> smsCodeSender, ObjectProvider<CodeTicketManager> codeTicketManager) {
+		SmsCodeProcessor smsCodeProcessor = new SmsCodeProcessor(codeGenerators, codeRepository, codeProperties,
+				smsCodeSender);
+		smsCodeProcessor.setTicketManager(codeTicketManager.getIfAvailable());
+		return smsCodeProcessor;
 	}
 
 
@@ -141,14 +256,18 @@ public class ValidateCodeAutoConfiguration {
 	 * 
 	 * @param codeGenerators
 	 * @param repository
+	 * @param codeTicketManager
 	 * @return
 	 */
 	@ConditionalOnMissingBean(name = "emailCodeProcessor")
 	@ConditionalOnBean(name = "emailCodeSender")
 	@Bean("emailCodeProcessor")
 	public CodeProcessor emailCodeProcessor(Map<String, CodeGenerator> codeGenerators, CodeRepository repository,
-			CodeSender<EmailCode> emailCodeSender) {
-		return new EmailCodeProcessor(codeGenerators, repository, codeProperties, emailCodeSender);
+			CodeSender<EmailCode> emailCodeSender, ObjectProvider<CodeTicketManager> codeTicketManager) {
+		EmailCodeProcessor emailCodeProcessor = new EmailCodeProcessor(codeGenerators, repository, codeProperties,
+				emailCodeSender);
+		emailCodeProcessor.setTicketManager(codeTicketManager.getIfAvailable());
+		return emailCodeProcessor;
 	}
 	@PostConstruct
 	public void checkConfig() {
@@ -156,4 +275,89 @@ public class ValidateCodeAutoConfiguration {
 		logger.debug("开启验证码相关的配置");
 	}
 
+	/**
+	 * 存在micrometer时输出验证码内存管理器、已使用凭证的内存管理器和图形验证码池的指标
+	 * 
+	 * @author yishui
+	 * @date 2019年11月26日
+	 * @version 1.0.0
+	 */
+	@Configuration
+	@ConditionalOnClass(MeterBinder.class)
+	static class ValidateCodeMetricsConfiguration {
+
+		/**
+		 * 内存中验证码的数量以及被淘汰和过期清理的验证码的数量，使用redis保存验证码时不记录
+		 * 
+		 * @param codeRepository
+		 * @return
+		 */
+		@Bean("codeRepositoryMeterBinder")
+		@ConditionalOnMissingBean(name = "codeRepositoryMeterBinder")
+		public MeterBinder codeRepositoryMeterBinder(ObjectProvider<DefaultCodeRepository> codeRepository) {
+			return registry -> {
+				DefaultCodeRepository repository = codeRepository.getIfAvailable();
+				if (null == repository) {
+					return;
+				}
+				Gauge.builder("yishuifengxiao.code.repository.size", repository, DefaultCodeRepository::size)
+						.description("内存中保存的验证码的数量").register(registry);
+				FunctionCounter.builder("yishuifengxiao.code.repository.removed", repository,
+						DefaultCodeRepository::getEvictionCount).tag("cause", "eviction")
+						.description("因为数量达到上限而被淘汰的验证码的数量").register(registry);
+				FunctionCounter.builder("yishuifengxiao.code.repository.removed", repository,
+						DefaultCodeRepository::getExpirationCount).tag("cause", "expired")
+						.description("因为过期而被清理的验证码的数量").register(registry);
+			};
+		}
+
+		/**
+		 * 内存中已使用凭证的数量以及被淘汰的凭证和重复提交的次数，使用redis记录凭证时不记录
+		 * 
+		 * @param codeNonceStore
+		 * @return
+		 */
+		@Bean("codeNonceStoreMeterBinder")
+		@ConditionalOnMissingBean(name = "codeNonceStoreMeterBinder")
+		public MeterBinder codeNonceStoreMeterBinder(ObjectProvider<LocalNonceStore> codeNonceStore) {
+			return registry -> {
+				LocalNonceStore nonceStore = codeNonceStore.getIfAvailable();
+				if (null == nonceStore) {
+					return;
+				}
+				Gauge.builder("yishuifengxiao.code.ticket.nonces.size", nonceStore, LocalNonceStore::size)
+						.description("内存中记录的已使用凭证的数量").register(registry);
+				FunctionCounter.builder("yishuifengxiao.code.ticket.nonces.evicted", nonceStore,
+						LocalNonceStore::getEvictionCount).description("因为数量达到上限而在失效之前被淘汰的凭证的数量")
+						.register(registry);
+				FunctionCounter.builder("yishuifengxiao.code.ticket.nonces.rejected", nonceStore,
+						LocalNonceStore::getRejectionCount).description("因为凭证已经使用过而拒绝校验的次数")
+						.register(registry);
+			};
+		}
+
+		/**
+		 * 图形验证码池中剩余的验证码的数量以及取到和没有取到验证码的次数，未开启图形验证码池时不记录
+		 * 
+		 * @param imageCodePool
+		 * @return
+		 */
+		@Bean("imageCodePoolMeterBinder")
+		@ConditionalOnMissingBean(name = "imageCodePoolMeterBinder")
+		public MeterBinder imageCodePoolMeterBinder(ObjectProvider<ImageCodePool> imageCodePool) {
+			return registry -> {
+				ImageCodePool pool = imageCodePool.getIfAvailable();
+				if (null == pool) {
+					return;
+				}
+				Gauge.builder("yishuifengxiao.code.image.pool.depth", pool, ImageCodePool::getDepth)
+						.description("图形验证码池中剩余的验证码的数量").register(registry);
+				FunctionCounter.builder("yishuifengxiao.code.image.pool.requests", pool, ImageCodePool::getHitCount)
+						.tag("result", "hit").description("从图形验证码池中取到验证码的次数").register(registry);
+				FunctionCounter.builder("yishuifengxiao.code.image.pool.requests", pool, ImageCodePool::getMissCount)
+						.tag("result", "miss").description("图形验证码池中没有可用验证码的次数").register(registry);
+			};
+		}
+	}
+
 }
@@ -1,5 +1,13 @@
 package com.yishuifengxiao.common.autoconfigure.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -24,6 +32,9 @@ import com.yishuifengxiao.common.security.handler.CustomAuthenticationSuccessHan
 import com.yishuifengxiao.common.security.handler.CustomLogoutSuccessHandler;
 import com.yishuifengxiao.common.security.processor.ProcessHandler;
 import com.yishuifengxiao.common.security.processor.impl.DefaultProcessHandler;
+import com.yishuifengxiao.common.security.session.HttpSessionSecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.StatelessSecurityAttributeStore;
 /**
  * 配置spring security 处理器
  * @author yishui
@@ -34,6 +45,7 @@ import com.yishuifengxiao.common.security.processor.impl.DefaultProcessHandler;
 @ConditionalOnClass({ DefaultAuthenticationEventPublisher.class, EnableWebSecurity.class,
 	WebSecurityConfigurerAdapter.class })
 public class SecurityHandlerAutoConfiguration {
+	private final static Logger log = LoggerFactory.getLogger(SecurityHandlerAutoConfiguration.class);
 
 	/**
 	 * 自定义属性配置
@@ -41,18 +53,48 @@ public class SecurityHandlerAutoConfiguration {
 	@Autowired
 	private SecurityProperties securityProperties;
 
+	/**
+	 * 处理器之间传递信息的存储方式，无状态模式下使用请求属性和签名cookie，否则使用session
+	 * 
+	 * @return
+	 * @throws NoSuchAlgorithmException
+	 */
+	@Bean("securityAttributeStore")
+	@ConditionalOnMissingBean(name = "securityAttributeStore")
+	public SecurityAttributeStore securityAttributeStore() throws NoSuchAlgorithmException {
+		if (!Boolean.TRUE.equals(securityProperties.getSession().getStateless())) {
+			HttpSessionSecurityAttributeStore attributeStore = new HttpSessionSecurityAttributeStore();
+			attributeStore.setMaxAge(securityProperties.getSession().getCookieMaxAge());
+			return attributeStore;
+		}
+		byte[] secret;
+		if (StringUtils.isNotBlank(securityProperties.getSecretKey())) {
+			secret = MessageDigest.getInstance("SHA-256")
+					.digest(securityProperties.getSecretKey().getBytes(StandardCharsets.UTF_8));
+		} else {
+			log.warn("【安全配置】无状态模式下未配置 yishuifengxiao.security.secret-key ，使用随机密钥签名cookie，多个节点之间签名的cookie不能通用");
+			secret = new byte[32];
+			new SecureRandom().nextBytes(secret);
+		}
+		StatelessSecurityAttributeStore attributeStore = new StatelessSecurityAttributeStore(secret);
+		attributeStore.setCookieMaxAge(securityProperties.getSession().getCookieMaxAge());
+		return attributeStore;
+	}
+
 	/**
 	 * 自定义处理
 	 * 
 	 * @param objectMapper
+	 * @param attributeStore
 	 * @return
 	 */
 	@Bean
 	@ConditionalOnMissingBean
-	public ProcessHandler handlerProcessor(ObjectMapper objectMapper) {
+	public ProcessHandler handlerProcessor(ObjectMapper objectMapper, SecurityAttributeStore attributeStore) {
 		DefaultProcessHandler customHandle = new DefaultProcessHandler();
 		customHandle.setObjectMapper(objectMapper);
 		customHandle.setSecurityProperties(securityProperties);
+		customHandle.setAttributeStore(attributeStore);
 		return customHandle;
 	}
 
@@ -64,11 +106,14 @@ public class SecurityHandlerAutoConfiguration {
 	@Bean
 	@ConditionalOnMissingBean
 	public AuthenticationFailureHandler authenticationFailureHandler(ProcessHandler customHandle,
-			ApplicationContext context) {
+			ApplicationContext context, SecurityAttributeStore attributeStore) {
 		CustomAuthenticationFailureHandler hanler = new CustomAuthenticationFailureHandler();
 		hanler.setSecurityProperties(securityProperties);
 		hanler.setCustomHandle(customHandle);
 		hanler.setContext(context);
+		hanler.setAttributeStore(attributeStore);
+		// 无状态模式下默认处理方式也不创建session
+		hanler.setAllowSessionCreation(!Boolean.TRUE.equals(securityProperties.getSession().getStateless()));
 		return hanler;
 	}
 
@@ -80,11 +125,12 @@ public class SecurityHandlerAutoConfiguration {
 	@Bean
 	@ConditionalOnMissingBean
 	public AuthenticationSuccessHandler authenticationSuccessHandler(ProcessHandler customHandle,
-			ApplicationContext context) {
+			ApplicationContext context, SecurityAttributeStore attributeStore) {
 		CustomAuthenticationSuccessHandler hanler = new CustomAuthenticationSuccessHandler();
 		hanler.setSecurityProperties(securityProperties);
 		hanler.setCustomHandle(customHandle);
 		hanler.setContext(context);
+		hanler.setAttributeStore(attributeStore);
 		return hanler;
 	}
 
@@ -111,11 +157,12 @@ public class SecurityHandlerAutoConfiguration {
 	@Bean("exceptionAuthenticationEntryPoint")
 	@ConditionalOnMissingBean(name = "exceptionAuthenticationEntryPoint")
 	public AuthenticationEntryPoint exceptionAuthenticationEntryPoint(ProcessHandler customHandle,
-			ApplicationContext context) {
+			ApplicationContext context, SecurityAttributeStore attributeStore) {
 		ExceptionAuthenticationEntryPoint point = new ExceptionAuthenticationEntryPoint();
 		point.setCustomHandle(customHandle);
 		point.setSecurityProperties(securityProperties);
 		point.setContext(context);
+		point.setAttributeStore(attributeStore);
 		return point;
 	}
 
@@ -126,11 +173,13 @@ public class SecurityHandlerAutoConfiguration {
 	 */
 	@Bean("accessDeniedHandler")
 	@ConditionalOnMissingBean(name = "accessDeniedHandler")
-	public AccessDeniedHandler accessDeniedHandler(ProcessHandler customHandle, ApplicationContext context) {
+	public AccessDeniedHandler accessDeniedHandler(ProcessHandler customHandle, ApplicationContext context,
+			SecurityAttributeStore attributeStore) {
 		CustomAccessDeniedHandler handler = new CustomAccessDeniedHandler();
 		handler.setSecurityProperties(securityProperties);
 		handler.setCustomHandle(customHandle);
 		handler.setContext(context);
+		handler.setAttributeStore(attributeStore);
 		return handler;
 	}
 
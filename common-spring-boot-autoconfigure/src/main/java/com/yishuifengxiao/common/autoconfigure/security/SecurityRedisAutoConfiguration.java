@@ -1,17 +1,31 @@
 package com.yishuifengxiao.common.autoconfigure.security;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableAuthorizationServer;
 import org.springframework.security.oauth2.provider.token.TokenStore;
-import org.springframework.security.oauth2.provider.token.store.redis.RedisTokenStore;
+
+import com.yishuifengxiao.common.properties.Oauth2Properties;
+import com.yishuifengxiao.common.security.oauth2.token.AuthenticationCache;
+import com.yishuifengxiao.common.security.oauth2.token.IndexedRedisTokenStore;
+import com.yishuifengxiao.common.security.oauth2.token.PipelinedRedisTokenStore;
+import com.yishuifengxiao.common.security.oauth2.token.RedisTokenInvalidationBroadcaster;
+import com.yishuifengxiao.common.security.oauth2.token.RedisTokenLock;
+import com.yishuifengxiao.common.security.oauth2.token.RedisTokenRevocationSynchronizer;
+import com.yishuifengxiao.common.security.oauth2.token.TokenLock;
+import com.yishuifengxiao.common.security.oauth2.token.TokenRevocationList;
 
 /**
  * 配置spring security密钥存储
@@ -25,10 +39,103 @@ import org.springframework.security.oauth2.provider.token.store.redis.RedisToken
 		WebSecurityConfigurerAdapter.class, RedisOperations.class, EnableAuthorizationServer.class })
 public class SecurityRedisAutoConfiguration {
 
+	/**
+	 * 使用redis存储token，数据与 RedisTokenStore 相同，额外维护按用户名的索引，支持批量删除某个用户的所有token
+	 * 
+	 * @param connectionFactory
+	 * @param oauth2Properties
+	 * @return
+	 */
 	@ConditionalOnMissingBean(name = { "tokenStore" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token", name = "store", havingValue = "redis")
 	@Bean("tokenStore")
-	public TokenStore tokenStore(RedisConnectionFactory connectionFactory) {
-		return new RedisTokenStore(connectionFactory);
+	public TokenStore tokenStore(RedisConnectionFactory connectionFactory, Oauth2Properties oauth2Properties) {
+		IndexedRedisTokenStore tokenStore = new IndexedRedisTokenStore(connectionFactory);
+		tokenStore.setPrefix(oauth2Properties.getToken().getRedisPrefix());
+		return tokenStore;
+	}
+
+	/**
+	 * 使用redis存储token，一次操作涉及的所有命令通过管道一次性发送，并使用紧凑的序列化方式
+	 * 
+	 * @param connectionFactory
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = { "tokenStore" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token", name = "store", havingValue = "pipelined-redis")
+	@Bean("tokenStore")
+	public TokenStore pipelinedTokenStore(RedisConnectionFactory connectionFactory,
+			Oauth2Properties oauth2Properties) {
+		PipelinedRedisTokenStore tokenStore = new PipelinedRedisTokenStore(connectionFactory);
+		tokenStore.setPrefix(oauth2Properties.getToken().getRedisPrefix());
+		return tokenStore;
+	}
+
+	/**
+	 * 集群环境下token生成和刷新时的并发控制工具，本地合并相同的请求后再通过redis分布式锁互斥
+	 * 
+	 * @param connectionFactory
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = { "tokenLock" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token.lock", name = "mode", havingValue = "redis")
+	@Bean("tokenLock")
+	public TokenLock tokenLock(RedisConnectionFactory connectionFactory, Oauth2Properties oauth2Properties) {
+		Oauth2Properties.LockProperties lock = oauth2Properties.getToken().getLock();
+		return new RedisTokenLock(new StringRedisTemplate(connectionFactory), lock.getKeyPrefix(), lock.getLockTime(),
+				lock.getWaitTime());
+	}
+
+	/**
+	 * 开启认证信息本地缓存时，通过redis的发布/订阅功能在各个节点之间同步缓存失效的消息
+	 * 
+	 * @param connectionFactory
+	 * @param authenticationCache
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = { "tokenInvalidationListenerContainer" })
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.oauth2.token.near-cache", name = "enabled", havingValue = "true")
+	@Bean("tokenInvalidationListenerContainer")
+	public RedisMessageListenerContainer tokenInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+			AuthenticationCache authenticationCache, Oauth2Properties oauth2Properties) {
+		String channel = oauth2Properties.getToken().getNearCache().getChannel();
+		StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+		RedisTokenInvalidationBroadcaster broadcaster = new RedisTokenInvalidationBroadcaster(redisTemplate, channel,
+				authenticationCache);
+		authenticationCache.setBroadcaster(broadcaster);
+
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(broadcaster, new ChannelTopic(channel));
+		return container;
+	}
+
+	/**
+	 * 开启token吊销列表(token的格式为jws时总是开启)时，通过redis在各个节点之间同步吊销记录
+	 * 
+	 * @param connectionFactory
+	 * @param revocationList
+	 * @param oauth2Properties
+	 * @return
+	 */
+	@ConditionalOnMissingBean(name = { "tokenRevocationListenerContainer" })
+	@ConditionalOnExpression("${yishuifengxiao.security.oauth2.token.revocation.enabled:false} or '${yishuifengxiao.security.oauth2.token.format:opaque}' == 'jws'")
+	@Bean("tokenRevocationListenerContainer")
+	public RedisMessageListenerContainer tokenRevocationListenerContainer(RedisConnectionFactory connectionFactory,
+			TokenRevocationList revocationList, Oauth2Properties oauth2Properties) {
+		Oauth2Properties.RevocationProperties revocation = oauth2Properties.getToken().getRevocation();
+		StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+		RedisTokenRevocationSynchronizer synchronizer = new RedisTokenRevocationSynchronizer(redisTemplate,
+				revocation.getChannel(), revocation.getKey(), revocationList);
+		revocationList.setSynchronizer(synchronizer);
+
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(synchronizer, new ChannelTopic(revocation.getChannel()));
+		return container;
 	}
 
 }
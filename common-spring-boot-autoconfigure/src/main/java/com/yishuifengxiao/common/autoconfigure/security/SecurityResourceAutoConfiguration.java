@@ -1,9 +1,11 @@
 package com.yishuifengxiao.common.autoconfigure.security;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
@@ -13,6 +15,7 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import com.yishuifengxiao.common.properties.Oauth2Properties;
 import com.yishuifengxiao.common.properties.SecurityProperties;
 import com.yishuifengxiao.common.properties.SocialProperties;
+import com.yishuifengxiao.common.security.authorize.custom.CachingCustomResourceProvider;
 import com.yishuifengxiao.common.security.authorize.custom.CustomResourceProvider;
 import com.yishuifengxiao.common.security.authorize.custom.impl.DefaultCustomResourceProvider;
 import com.yishuifengxiao.common.security.authorize.ignore.DefaultIgnoreResourceProvider;
@@ -22,6 +25,10 @@ import com.yishuifengxiao.common.security.authorize.intercept.DefaultAuthorizeRe
 import com.yishuifengxiao.common.security.provider.AuthorizeProvider;
 import com.yishuifengxiao.common.security.provider.impl.CustomAuthorizeProvider;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 /**
  * 授权资源配置
  * @author yishui
@@ -80,19 +87,81 @@ public class SecurityResourceAutoConfiguration {
 		return customAuthority;
 	}
 
+	/**
+	 * 带有结果缓存的自定义授权，包装名为 customAuthority 的授权行为实体
+	 * 
+	 * @param customAuthority
+	 * @return
+	 */
+	@Bean("cachingCustomAuthority")
+	@ConditionalOnMissingBean(name = "cachingCustomAuthority")
+	@ConditionalOnProperty(prefix = "yishuifengxiao.security.custom.cache", name = "enabled", havingValue = "true")
+	public CachingCustomResourceProvider cachingCustomAuthority(
+			@Qualifier("customAuthority") CustomResourceProvider customAuthority) {
+		SecurityProperties.CustomAuthCacheProperties cache = securityProperties.getCustom().getCache();
+		return new CachingCustomResourceProvider(customAuthority, securityProperties.getCustom().getAll(),
+				cache.getMaxSize(), cache.getTtl());
+	}
+
 	/**
 	 * 自定义授权提供器
 	 * 
 	 * @param customAuthority
+	 * @param cachingCustomAuthority
 	 * @return
 	 */
 	@Bean("customAuthorizeProvider")
 	@ConditionalOnMissingBean(name = "customAuthorizeProvider")
-	public AuthorizeProvider customAuthorizeProvider(@Qualifier("customAuthority") CustomResourceProvider customAuthority) {
+	public AuthorizeProvider customAuthorizeProvider(@Qualifier("customAuthority") CustomResourceProvider customAuthority,
+			ObjectProvider<CachingCustomResourceProvider> cachingCustomAuthority) {
 		CustomAuthorizeProvider customAuthorizeProvider = new CustomAuthorizeProvider();
 		customAuthorizeProvider.setCustomAuthority(customAuthority);
 		customAuthorizeProvider.setSecurityProperties(securityProperties);
+		customAuthorizeProvider.setDirectVote(!Boolean.FALSE.equals(securityProperties.getCustom().getDirectVote()));
+		CachingCustomResourceProvider caching = cachingCustomAuthority.getIfAvailable();
+		if (null != caching) {
+			customAuthorizeProvider.setCustomAuthority(caching);
+			customAuthorizeProvider.setAuthorityBeanName("cachingCustomAuthority");
+		}
 		return customAuthorizeProvider;
 	}
 
+	/**
+	 * 存在micrometer时输出自定义授权结果缓存的指标
+	 * 
+	 * @author yishui
+	 * @date 2019年11月25日
+	 * @version 1.0.0
+	 */
+	@Configuration
+	@ConditionalOnClass(MeterBinder.class)
+	static class CustomAuthorityMetricsConfiguration {
+
+		/**
+		 * 自定义授权结果缓存的命中次数、未命中次数和缓存数量，未开启缓存时不记录
+		 * 
+		 * @param cachingCustomAuthority
+		 * @return
+		 */
+		@Bean("customAuthorityMeterBinder")
+		@ConditionalOnMissingBean(name = "customAuthorityMeterBinder")
+		public MeterBinder customAuthorityMeterBinder(
+				ObjectProvider<CachingCustomResourceProvider> cachingCustomAuthority) {
+			return registry -> {
+				CachingCustomResourceProvider cache = cachingCustomAuthority.getIfAvailable();
+				if (null == cache) {
+					return;
+				}
+				FunctionCounter.builder("yishuifengxiao.security.custom.cache", cache,
+						CachingCustomResourceProvider::getHitCount).tag("result", "hit")
+						.description("自定义授权结果缓存的命中次数").register(registry);
+				FunctionCounter.builder("yishuifengxiao.security.custom.cache", cache,
+						CachingCustomResourceProvider::getMissCount).tag("result", "miss")
+						.description("自定义授权结果缓存的未命中次数").register(registry);
+				Gauge.builder("yishuifengxiao.security.custom.cache.size", cache, CachingCustomResourceProvider::size)
+						.description("自定义授权结果缓存的数量").register(registry);
+			};
+		}
+	}
+
 }
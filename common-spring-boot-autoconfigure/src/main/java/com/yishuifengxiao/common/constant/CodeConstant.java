@@ -35,6 +35,14 @@ public final class CodeConstant {
 	 * 默认的短信验证码的高度
 	 */
 	public final static int DEFAULT_IMAGE_CODE_HEIGHT = 28;
+	/**
+	 * 图形验证码的最大宽度
+	 */
+	public final static int MAX_IMAGE_CODE_WIDTH = 400;
+	/**
+	 * 图形验证码的最大高度
+	 */
+	public final static int MAX_IMAGE_CODE_HEIGHT = 200;
 	/**
 	 * 是否生成干扰条纹背景，默认为false
 	 */
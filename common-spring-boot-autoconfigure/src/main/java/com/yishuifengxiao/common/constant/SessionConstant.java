@@ -1,7 +1,9 @@
 package com.yishuifengxiao.common.constant;
 
 /**
- * 存储到session中的key的常量集合
+ * 存储到session中的key的常量集合<br/>
+ * 值为 ResultSnapshot 的消息只需要读取一次，应该通过 SecurityAttributeStore.consumeAttribute 读取，读取后即被删除；
+ * 登录成功时会清除之前的失败消息，超过有效时间的消息也不会再被读取
  * 
  * @author yishui
  * @date 2019年10月25日
@@ -9,9 +11,14 @@ package com.yishuifengxiao.common.constant;
  */
 public final class SessionConstant {
 	/**
-	 * 存储导致权限异常信息的消息的键
+	 * 存储导致权限异常信息的消息的键，值为 ResultSnapshot
 	 */
 	public final static String EXCEPTION_MSG = "yishuifengxiao.msg.exception";
+
+	/**
+	 * 重定向时存储处理结果的消息的键，值为 ResultSnapshot
+	 */
+	public final static String RESULT_MSG = "yishuifengxiao.msg.result";
 	
 	/**
 	 * 存储导致权限异常的URL的消息的键
@@ -19,7 +26,7 @@ public final class SessionConstant {
 	public final static String EXCEPTION_URL = "yishuifengxiao.exception.url";
 	
 	/**
-	 * 存储导致权限拒绝信息的消息的键
+	 * 存储导致权限拒绝信息的消息的键，值为 ResultSnapshot
 	 */
 	public final static String DENIE_MSG = "yishuifengxiao.msg.denie";
 	
@@ -30,7 +37,7 @@ public final class SessionConstant {
 	
 	
 	/**
-	 * 存储导致认证失败信息的消息的键
+	 * 存储导致认证失败信息的消息的键，值为 ResultSnapshot
 	 */
 	public final static String FAIL_MSG = "yishuifengxiao.msg.fail";
 	
@@ -6,6 +6,8 @@ package com.yishuifengxiao.common.properties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import com.yishuifengxiao.common.constant.CodeConstant;
+import com.yishuifengxiao.common.validation.eunm.ImageFormat;
+import com.yishuifengxiao.common.validation.eunm.ImageRenderer;
 
 /**
  * 验证码相关的属性配置
@@ -28,6 +30,14 @@ public class CodeProperties {
 	 * 邮箱验证码的相关配置
 	 */
 	private EmailCodeProperties email = new EmailCodeProperties();
+	/**
+	 * 验证码内存管理器的相关配置
+	 */
+	private RepositoryProperties repository = new RepositoryProperties();
+	/**
+	 * 无状态验证码凭证的相关配置
+	 */
+	private TicketProperties ticket = new TicketProperties();
 
 	public ImageCodeProperties getImage() {
 		return image;
@@ -53,6 +63,148 @@ public class CodeProperties {
 		this.email = email;
 	}
 
+	public RepositoryProperties getRepository() {
+		return repository;
+	}
+
+	public void setRepository(RepositoryProperties repository) {
+		this.repository = repository;
+	}
+
+	public TicketProperties getTicket() {
+		return ticket;
+	}
+
+	public void setTicket(TicketProperties ticket) {
+		this.ticket = ticket;
+	}
+
+	/**
+	 * 无状态验证码凭证的相关配置<br/>
+	 * 开启后生成验证码时不再保存到验证码管理器，而是通过响应头和cookie返回一个签名的凭证，校验时客户端需要带上这个凭证
+	 * 
+	 * @author yishui
+	 * @date 2019年11月28日
+	 * @version 1.0.0
+	 */
+	public static class TicketProperties {
+		/**
+		 * 是否开启无状态验证码凭证，默认为关闭
+		 */
+		private Boolean enabled = false;
+
+		/**
+		 * 签名使用的密钥，不能少于16个字节，多个实例部署时必须配置为相同的值；不配置时每次启动随机生成
+		 */
+		private String secret;
+
+		/**
+		 * 传递凭证的请求头和响应头的名称，默认为 X-Code-Ticket
+		 */
+		private String headerName = "X-Code-Ticket";
+
+		/**
+		 * 是否同时通过cookie传递凭证，默认为true，cookie的名称为 code_ticket_验证码类型
+		 */
+		private Boolean cookie = true;
+
+		/**
+		 * 内存中记录的已使用凭证的最大数量，默认为100000，只在没有使用redis时生效<br/>
+		 * 达到上限时提前淘汰最早失效的凭证，被淘汰的凭证在失效之前可以再提交一次，多实例部署时应该使用redis
+		 */
+		private Integer maxNonces = 100000;
+
+		public Boolean getEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(Boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getSecret() {
+			return secret;
+		}
+
+		public void setSecret(String secret) {
+			this.secret = secret;
+		}
+
+		public String getHeaderName() {
+			return headerName;
+		}
+
+		public void setHeaderName(String headerName) {
+			this.headerName = headerName;
+		}
+
+		public Boolean getCookie() {
+			return cookie;
+		}
+
+		public void setCookie(Boolean cookie) {
+			this.cookie = cookie;
+		}
+
+		public Integer getMaxNonces() {
+			return maxNonces;
+		}
+
+		public void setMaxNonces(Integer maxNonces) {
+			this.maxNonces = maxNonces;
+		}
+
+	}
+
+	/**
+	 * 验证码内存管理器的相关配置，只在没有使用redis保存验证码时生效
+	 * 
+	 * @author yishui
+	 * @date 2019年11月26日
+	 * @version 1.0.0
+	 */
+	public static class RepositoryProperties {
+		/**
+		 * 内存中最多保存的验证码的数量，默认为100000
+		 */
+		private Integer maxSize = 100000;
+
+		/**
+		 * 清理过期验证码的时间间隔，单位为秒，默认为1秒，小于等于0时只在读取和数量达到上限时清理
+		 */
+		private Integer reapInterval = 1;
+
+		/**
+		 * 每次最多清理的过期验证码的数量，默认为10000
+		 */
+		private Integer reapBatchSize = 10000;
+
+		public Integer getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(Integer maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Integer getReapInterval() {
+			return reapInterval;
+		}
+
+		public void setReapInterval(Integer reapInterval) {
+			this.reapInterval = reapInterval;
+		}
+
+		public Integer getReapBatchSize() {
+			return reapBatchSize;
+		}
+
+		public void setReapBatchSize(Integer reapBatchSize) {
+			this.reapBatchSize = reapBatchSize;
+		}
+
+	}
+
 	/**
 	 * 邮件验证码相关的配置
 	 * 
@@ -135,11 +287,46 @@ public class CodeProperties {
 		 */
 		private Integer height = CodeConstant.DEFAULT_IMAGE_CODE_HEIGHT;
 
+		/**
+		 * 请求中允许的最大宽度
+		 */
+		private Integer maxWidth = CodeConstant.MAX_IMAGE_CODE_WIDTH;
+
+		/**
+		 * 请求中允许的最大高度
+		 */
+		private Integer maxHeight = CodeConstant.MAX_IMAGE_CODE_HEIGHT;
+
 		/**
 		 * 是否生成干扰条纹背景，默认为false
 		 */
 		private Boolean fringe = CodeConstant.IS_FRINGE;
 
+		/**
+		 * 图形验证码池的相关配置
+		 */
+		private ImagePoolProperties pool = new ImagePoolProperties();
+
+		/**
+		 * 图形验证码的输出格式，默认为JPEG
+		 */
+		private ImageFormat format = ImageFormat.JPEG;
+
+		/**
+		 * JPEG格式的压缩质量，取值范围为0到1，默认为0.75
+		 */
+		private Float quality = 0.75f;
+
+		/**
+		 * 是否以json格式输出base64编码的图片，默认为false
+		 */
+		private Boolean base64 = false;
+
+		/**
+		 * 图形验证码的绘制方式，默认为JAVA2D
+		 */
+		private ImageRenderer renderer = ImageRenderer.JAVA2D;
+
 		public ImageCodeProperties() {
 			// 设置验证码的标识符为 image
 			this.setCodeKey(CodeConstant.CODE_IMAGE_KEY);
@@ -173,6 +360,32 @@ public class CodeProperties {
 			this.height = height;
 		}
 
+		/**
+		 * 请求中允许的最大宽度，默认为400，请求中的宽度超过后按照此值生成
+		 * 
+		 * @return
+		 */
+		public Integer getMaxWidth() {
+			return maxWidth;
+		}
+
+		public void setMaxWidth(Integer maxWidth) {
+			this.maxWidth = maxWidth;
+		}
+
+		/**
+		 * 请求中允许的最大高度，默认为200，请求中的高度超过后按照此值生成
+		 * 
+		 * @return
+		 */
+		public Integer getMaxHeight() {
+			return maxHeight;
+		}
+
+		public void setMaxHeight(Integer maxHeight) {
+			this.maxHeight = maxHeight;
+		}
+
 		/**
 		 * 获取是否生成干扰条纹背景，默认为false
 		 * 
@@ -191,6 +404,132 @@ public class CodeProperties {
 			this.fringe = fringe;
 		}
 
+		public ImagePoolProperties getPool() {
+			return pool;
+		}
+
+		public void setPool(ImagePoolProperties pool) {
+			this.pool = pool;
+		}
+
+		/**
+		 * 图形验证码的输出格式，默认为JPEG，PNG和GIF格式会先转换为索引色，输出的图片更小
+		 * 
+		 * @return
+		 */
+		public ImageFormat getFormat() {
+			return format;
+		}
+
+		public void setFormat(ImageFormat format) {
+			this.format = format;
+		}
+
+		/**
+		 * JPEG格式的压缩质量，取值范围为0到1，默认为0.75
+		 * 
+		 * @return
+		 */
+		public Float getQuality() {
+			return quality;
+		}
+
+		public void setQuality(Float quality) {
+			this.quality = quality;
+		}
+
+		/**
+		 * 是否以json格式输出base64编码的图片，默认为false<br/>
+		 * 开启后输出 {"image":"data:image/jpeg;base64,...","expireIn":60} ，适用于前后端分离的页面
+		 * 
+		 * @return
+		 */
+		public Boolean getBase64() {
+			return base64;
+		}
+
+		public void setBase64(Boolean base64) {
+			this.base64 = base64;
+		}
+
+		/**
+		 * 图形验证码的绘制方式，默认为JAVA2D<br/>
+		 * 并发较高时建议使用 GLYPH_ATLAS ，不经过Java2D的字体光栅化，吞吐量可以随CPU核数增长
+		 * 
+		 * @return
+		 */
+		public ImageRenderer getRenderer() {
+			return renderer;
+		}
+
+		public void setRenderer(ImageRenderer renderer) {
+			this.renderer = renderer;
+		}
+
+	}
+
+	/**
+	 * 图形验证码池的相关配置<br/>
+	 * 开启后由后台线程预先生成并编码好配置的尺寸( width x height )的图形验证码，请求时直接取出，
+	 * 请求其他尺寸时在请求线程中生成
+	 * 
+	 * @author yishui
+	 * @date 2019年11月26日
+	 * @version 1.0.0
+	 */
+	public static class ImagePoolProperties {
+		/**
+		 * 是否开启图形验证码池，默认为关闭
+		 */
+		private Boolean enabled = false;
+
+		/**
+		 * 预先生成的验证码的数量，默认为200
+		 */
+		private Integer capacity = 200;
+
+		/**
+		 * 补充验证码的时间间隔，单位为毫秒，默认为100毫秒
+		 */
+		private Long refillInterval = 100L;
+
+		/**
+		 * 后台生成验证码的线程数，默认为1
+		 */
+		private Integer threads = 1;
+
+		public Boolean getEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(Boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Integer getCapacity() {
+			return capacity;
+		}
+
+		public void setCapacity(Integer capacity) {
+			this.capacity = capacity;
+		}
+
+		public Long getRefillInterval() {
+			return refillInterval;
+		}
+
+		public void setRefillInterval(Long refillInterval) {
+			this.refillInterval = refillInterval;
+		}
+
+		public Integer getThreads() {
+			return threads;
+		}
+
+		public void setThreads(Integer threads) {
+			this.threads = threads;
+		}
+
 	}
 
 	/**
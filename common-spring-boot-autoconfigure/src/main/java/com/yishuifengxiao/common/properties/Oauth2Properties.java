@@ -2,6 +2,7 @@ package com.yishuifengxiao.common.properties;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -9,6 +10,8 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import com.yishuifengxiao.common.constant.Oauth2Constant;
+
 /**
  * oauth2相关的配置
  * 
@@ -44,6 +47,35 @@ public class Oauth2Properties {
 	 */
 	private Map<String, String> map = new HashMap<>();
 
+	/**
+	 * 终端信息缓存相关的配置
+	 */
+	private ClientCacheProperties clientCache = new ClientCacheProperties();
+
+	/**
+	 * 注册的终端信息，key为终端id(clientId)。没有配置任何终端时任意clientId均使用默认配置
+	 */
+	private Map<String, ClientProperties> clients = new HashMap<>();
+
+	/**
+	 * 终端信息文件的位置，例如 file:/etc/oauth2/clients.json ，文件内容为以clientId为键的json对象，与clients属性的结构一致
+	 */
+	private String clientsLocation;
+
+	/**
+	 * 检查终端信息文件是否变化的时间间隔，单位为秒，默认为30秒，小于等于0时不检查
+	 */
+	private Integer clientsRefreshInterval = 30;
+
+	/**
+	 * token相关的配置
+	 */
+	private TokenProperties token = new TokenProperties();
+
+	/**
+	 * 与授权服务器分开部署的资源服务器相关的配置
+	 */
+	private RemoteResourceProperties resource = new RemoteResourceProperties();
 
 	public String getCheckTokenAccess() {
 		return this.checkTokenAccess;
@@ -101,5 +133,923 @@ public class Oauth2Properties {
 		return excludeUrls.stream().distinct().collect(Collectors.toList());
 	}
 
+	/**
+	 * 终端信息缓存相关的配置
+	 * 
+	 * @return
+	 */
+	public ClientCacheProperties getClientCache() {
+		return clientCache;
+	}
+
+	public void setClientCache(ClientCacheProperties clientCache) {
+		this.clientCache = clientCache;
+	}
+
+	/**
+	 * 注册的终端信息，key为终端id(clientId)
+	 * 
+	 * @return
+	 */
+	public Map<String, ClientProperties> getClients() {
+		return clients;
+	}
+
+	public void setClients(Map<String, ClientProperties> clients) {
+		this.clients = clients;
+	}
+
+	/**
+	 * 终端信息文件的位置
+	 * 
+	 * @return
+	 */
+	public String getClientsLocation() {
+		return clientsLocation;
+	}
+
+	public void setClientsLocation(String clientsLocation) {
+		this.clientsLocation = clientsLocation;
+	}
+
+	/**
+	 * 检查终端信息文件是否变化的时间间隔，单位为秒
+	 * 
+	 * @return
+	 */
+	public Integer getClientsRefreshInterval() {
+		return clientsRefreshInterval;
+	}
+
+	public void setClientsRefreshInterval(Integer clientsRefreshInterval) {
+		this.clientsRefreshInterval = clientsRefreshInterval;
+	}
+
+	/**
+	 * token相关的配置
+	 * 
+	 * @return
+	 */
+	public TokenProperties getToken() {
+		return token;
+	}
+
+	public void setToken(TokenProperties token) {
+		this.token = token;
+	}
+
+	public RemoteResourceProperties getResource() {
+		return resource;
+	}
+
+	public void setResource(RemoteResourceProperties resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * 终端信息缓存相关的配置
+	 * 
+	 * @author yishui
+	 * @date 2019年11月14日
+	 * @version 1.0.0
+	 */
+	public static class ClientCacheProperties {
+		/**
+		 * 是否开启终端信息缓存，默认为开启
+		 */
+		private Boolean enabled = true;
+
+		/**
+		 * 最多缓存的终端的数量，默认为1000
+		 */
+		private Integer maxSize = 1000;
+
+		/**
+		 * 终端信息缓存的存活时间，单位为秒，默认为300秒
+		 */
+		private Integer ttl = 300;
+
+		public Boolean getEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(Boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Integer getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(Integer maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Integer getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Integer ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
+
+	/**
+	 * 单个终端的配置信息
+	 * 
+	 * @author yishui
+	 * @date 2019年11月15日
+	 * @version 1.0.0
+	 */
+	public static class ClientProperties {
+		/**
+		 * 终端的原始密码，加载时统一加密
+		 */
+		private String secret;
+
+		/**
+		 * 终端支持的授权类型，多个类型之间用半角逗号(,)隔开
+		 */
+		private String grantTypes = Oauth2Constant.DEFAULT_GRANT_TYPE;
+
+		/**
+		 * 终端的授权范围，多个范围之间用半角逗号(,)隔开
+		 */
+		private String scopes = Oauth2Constant.DEFAULT_SCOPE;
+
+		/**
+		 * 终端的重定向地址，多个地址之间用半角逗号(,)隔开
+		 */
+		private String redirectUris = Oauth2Constant.DEFAULT_URL;
+
+		/**
+		 * 终端拥有的权限，多个权限之间用半角逗号(,)隔开
+		 */
+		private String authorities = Oauth2Constant.DEFAULT_AUTHORTY;
+
+		/**
+		 * 终端自动授权的范围，多个范围之间用半角逗号(,)隔开，为true时表示全部自动授权
+		 */
+		private String autoApprove = Oauth2Constant.DEFAULT_APPROVE_SCOPE;
+
+		/**
+		 * 终端可以访问的资源id，多个id之间用半角逗号(,)隔开
+		 */
+		private String resourceIds;
+
+		/**
+		 * access token的有效时间，单位为秒
+		 */
+		private Integer accessTokenValiditySeconds = Oauth2Constant.TOKEN_VALID_TIME;
+
+		/**
+		 * refresh token的有效时间，单位为秒
+		 */
+		private Integer refreshTokenValiditySeconds = Oauth2Constant.TOKEN_REDRESH_TIME;
+
+		public String getSecret() {
+			return secret;
+		}
+
+		public void setSecret(String secret) {
+			this.secret = secret;
+		}
+
+		public String getGrantTypes() {
+			return grantTypes;
+		}
+
+		public void setGrantTypes(String grantTypes) {
+			this.grantTypes = grantTypes;
+		}
+
+		public String getScopes() {
+			return scopes;
+		}
+
+		public void setScopes(String scopes) {
+			this.scopes = scopes;
+		}
+
+		public String getRedirectUris() {
+			return redirectUris;
+		}
+
+		public void setRedirectUris(String redirectUris) {
+			this.redirectUris = redirectUris;
+		}
+
+		public String getAuthorities() {
+			return authorities;
+		}
+
+		public void setAuthorities(String authorities) {
+			this.authorities = authorities;
+		}
+
+		public String getAutoApprove() {
+			return autoApprove;
+		}
+
+		public void setAutoApprove(String autoApprove) {
+			this.autoApprove = autoApprove;
+		}
+
+		public String getResourceIds() {
+			return resourceIds;
+		}
+
+		public void setResourceIds(String resourceIds) {
+			this.resourceIds = resourceIds;
+		}
+
+		public Integer getAccessTokenValiditySeconds() {
+			return accessTokenValiditySeconds;
+		}
+
+		public void setAccessTokenValiditySeconds(Integer accessTokenValiditySeconds) {
+			this.accessTokenValiditySeconds = accessTokenValiditySeconds;
+		}
+
+		public Integer getRefreshTokenValiditySeconds() {
+			return refreshTokenValiditySeconds;
+		}
+
+		public void setRefreshTokenValiditySeconds(Integer refreshTokenValiditySeconds) {
+			this.refreshTokenValiditySeconds = refreshTokenValiditySeconds;
+		}
+
+	}
+
+	/**
+	 * token相关的配置
+	 * 
+	 * @author yishui
+	 * @date 2019年11月16日
+	 * @version 1.0.0
+	 */
+	public static class TokenProperties {
+
+		/**
+		 * token的存储方式，可选值为 memory(内存)、file(内存+本地日志文件)、redis(IndexedRedisTokenStore)和pipelined-redis(PipelinedRedisTokenStore)，默认为memory
+		 */
+		private String store = "memory";
+
+		/**
+		 * 使用redis存储token时键名的前缀
+		 */
+		private String redisPrefix = "";
+
+		/**
+		 * token值的生成方式，可选值为 uuid(UUID.randomUUID)和secure-random(每个线程独立的随机数生成器)，默认为uuid
+		 */
+		private String generator = "uuid";
+
+		/**
+		 * 自定义token的加密密钥，至少8个字符，为空时使用默认密钥
+		 */
+		private String secretKey;
+
+		/**
+		 * token的格式，可选值为 opaque(随机值，通过token存储校验)和jws(签名token，资源服务器在本地校验)，默认为opaque
+		 */
+		private String format = "opaque";
+
+		/**
+		 * 签名token相关的配置，仅在token的格式为jws时生效
+		 */
+		private JwsProperties jws = new JwsProperties();
+
+		/**
+		 * token吊销列表相关的配置
+		 */
+		private RevocationProperties revocation = new RevocationProperties();
+
+		/**
+		 * 认证信息本地缓存相关的配置
+		 */
+		private NearCacheProperties nearCache = new NearCacheProperties();
+
+		/**
+		 * 内存中过期token清理相关的配置
+		 */
+		private ReaperProperties reaper = new ReaperProperties();
+
+		/**
+		 * 基于本地文件的token存储相关的配置
+		 */
+		private FileStoreProperties file = new FileStoreProperties();
+
+		/**
+		 * token生成和刷新时的并发控制相关的配置
+		 */
+		private LockProperties lock = new LockProperties();
+
+		public String getStore() {
+			return store;
+		}
+
+		public void setStore(String store) {
+			this.store = store;
+		}
+
+		public String getRedisPrefix() {
+			return redisPrefix;
+		}
+
+		public void setRedisPrefix(String redisPrefix) {
+			this.redisPrefix = redisPrefix;
+		}
+
+		public String getGenerator() {
+			return generator;
+		}
+
+		public void setGenerator(String generator) {
+			this.generator = generator;
+		}
+
+		public String getSecretKey() {
+			return secretKey;
+		}
+
+		public void setSecretKey(String secretKey) {
+			this.secretKey = secretKey;
+		}
+
+		public String getFormat() {
+			return format;
+		}
+
+		public void setFormat(String format) {
+			this.format = format;
+		}
+
+		public JwsProperties getJws() {
+			return jws;
+		}
+
+		public void setJws(JwsProperties jws) {
+			this.jws = jws;
+		}
+
+		public RevocationProperties getRevocation() {
+			return revocation;
+		}
+
+		public void setRevocation(RevocationProperties revocation) {
+			this.revocation = revocation;
+		}
+
+		public NearCacheProperties getNearCache() {
+			return nearCache;
+		}
+
+		public void setNearCache(NearCacheProperties nearCache) {
+			this.nearCache = nearCache;
+		}
+
+		public FileStoreProperties getFile() {
+			return file;
+		}
+
+		public void setFile(FileStoreProperties file) {
+			this.file = file;
+		}
+
+		public ReaperProperties getReaper() {
+			return reaper;
+		}
+
+		public void setReaper(ReaperProperties reaper) {
+			this.reaper = reaper;
+		}
+
+		public LockProperties getLock() {
+			return lock;
+		}
+
+		public void setLock(LockProperties lock) {
+			this.lock = lock;
+		}
+
+	}
+
+	/**
+	 * 基于本地文件的token存储相关的配置，仅在token存储方式为file时生效
+	 * 
+	 * @author yishui
+	 * @date 2019年11月20日
+	 * @version 1.0.0
+	 */
+	public static class FileStoreProperties {
+		/**
+		 * 日志文件所在的目录，token存储方式为file时必须明确配置<br/>
+		 * 日志中保存的是明文的token，应当配置为只有应用本身可以访问的目录
+		 */
+		private String directory;
+
+		/**
+		 * 每一段日志文件的大小，单位为字节，默认为32MB
+		 */
+		private Integer segmentSize = 32 * 1024 * 1024;
+
+		/**
+		 * 触发压缩的已写满的段的数量，默认为4
+		 */
+		private Integer compactThreshold = 4;
+
+		/**
+		 * 刷盘和检查是否需要压缩的时间间隔，单位为秒，默认为60秒
+		 */
+		private Integer maintainInterval = 60;
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public Integer getSegmentSize() {
+			return segmentSize;
+		}
+
+		public void setSegmentSize(Integer segmentSize) {
+			this.segmentSize = segmentSize;
+		}
+
+		public Integer getCompactThreshold() {
+			return compactThreshold;
+		}
+
+		public void setCompactThreshold(Integer compactThreshold) {
+			this.compactThreshold = compactThreshold;
+		}
+
+		public Integer getMaintainInterval() {
+			return maintainInterval;
+		}
+
+		public void setMaintainInterval(Integer maintainInterval) {
+			this.maintainInterval = maintainInterval;
+		}
+
+	}
+
+	/**
+	 * 内存中过期token清理相关的配置，仅在token存储方式为memory或file时生效
+	 * 
+	 * @author yishui
+	 * @date 2019年11月19日
+	 * @version 1.0.0
+	 */
+	public static class ReaperProperties {
+		/**
+		 * 清理过期token的时间间隔，单位为秒，小于等于0时不清理，默认为5秒
+		 */
+		private Integer interval = 5;
+
+		/**
+		 * 每次最多清理的token数量，默认为2000
+		 */
+		private Integer batchSize = 2000;
+
+		public Integer getInterval() {
+			return interval;
+		}
+
+		public void setInterval(Integer interval) {
+			this.interval = interval;
+		}
+
+		public Integer getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(Integer batchSize) {
+			this.batchSize = batchSize;
+		}
+
+	}
+
+	/**
+	 * token生成和刷新时的并发控制相关的配置
+	 * 
+	 * @author yishui
+	 * @date 2019年11月17日
+	 * @version 1.0.0
+	 */
+	public static class LockProperties {
+		/**
+		 * 并发控制的方式，可选值为 none(不控制)、local(本地合并相同的请求)和redis(本地合并后再通过redis分布式锁互斥)，默认为local
+		 */
+		private String mode = "local";
+
+		/**
+		 * 分布式锁的最长持有时间，单位为毫秒，默认为5000毫秒
+		 */
+		private Long lockTime = 5000L;
+
+		/**
+		 * 获取分布式锁的最长等待时间，单位为毫秒，默认为3000毫秒
+		 */
+		private Long waitTime = 3000L;
+
+		/**
+		 * 分布式锁的键的前缀
+		 */
+		private String keyPrefix = "yishuifengxiao:oauth2:lock:";
+
+		public String getMode() {
+			return mode;
+		}
+
+		public void setMode(String mode) {
+			this.mode = mode;
+		}
+
+		public Long getLockTime() {
+			return lockTime;
+		}
+
+		public void setLockTime(Long lockTime) {
+			this.lockTime = lockTime;
+		}
+
+		public Long getWaitTime() {
+			return waitTime;
+		}
+
+		public void setWaitTime(Long waitTime) {
+			this.waitTime = waitTime;
+		}
+
+		public String getKeyPrefix() {
+			return keyPrefix;
+		}
+
+		public void setKeyPrefix(String keyPrefix) {
+			this.keyPrefix = keyPrefix;
+		}
+
+	}
+
+	/**
+	 * 认证信息本地缓存相关的配置<br/>
+	 * 开启后根据token解析出的认证信息会缓存在本地，存在redis时通过redis的发布/订阅功能通知其他节点删除失效的缓存
+	 * 
+	 * @author yishui
+	 * @date 2019年11月16日
+	 * @version 1.0.0
+	 */
+	public static class NearCacheProperties {
+		/**
+		 * 是否开启认证信息本地缓存，默认为关闭
+		 */
+		private Boolean enabled = false;
+
+		/**
+		 * 最多缓存的认证信息的数量，默认为10000
+		 */
+		private Integer maxSize = 10000;
+
+		/**
+		 * 认证信息缓存的存活时间，单位为秒，默认为60秒，实际存活时间不会超过token的剩余有效时间
+		 */
+		private Integer ttl = 60;
+
+		/**
+		 * 通知其他节点删除缓存的redis频道名称
+		 */
+		private String channel = "yishuifengxiao:oauth2:token:invalidate";
+
+		public Boolean getEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(Boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Integer getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(Integer maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Integer getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Integer ttl) {
+			this.ttl = ttl;
+		}
+
+		public String getChannel() {
+			return channel;
+		}
+
+		public void setChannel(String channel) {
+			this.channel = channel;
+		}
+
+	}
+
+	/**
+	 * 签名token相关的配置
+	 * 
+	 * @author yishui
+	 * @date 2019年11月20日
+	 * @version 1.0.0
+	 */
+	public static class JwsProperties {
+		/**
+		 * 所有可用于校验签名的密钥，键为 kid，值为至少32个字节的密钥；轮换密钥时先加入新密钥，旧密钥签发的token全部过期后再删除
+		 */
+		private Map<String, String> keys = new LinkedHashMap<>();
+
+		/**
+		 * 当前签名使用的密钥的 kid，为空时使用第一个密钥
+		 */
+		private String activeKid;
+
+		public Map<String, String> getKeys() {
+			return keys;
+		}
+
+		public void setKeys(Map<String, String> keys) {
+			this.keys = keys;
+		}
+
+		public String getActiveKid() {
+			return activeKid;
+		}
+
+		public void setActiveKid(String activeKid) {
+			this.activeKid = activeKid;
+		}
+
+	}
+
+	/**
+	 * token吊销列表相关的配置
+	 * 
+	 * @author yishui
+	 * @date 2019年11月21日
+	 * @version 1.0.0
+	 */
+	public static class RevocationProperties {
+		/**
+		 * 是否开启token吊销列表，开启后在本地校验的token(签名token或本地缓存的认证信息)被删除后立即失效，默认为关闭<br/>
+		 * token的格式为jws时无论如何配置都会开启
+		 */
+		private Boolean enabled = false;
+
+		/**
+		 * 预期的吊销记录数量，默认为1000000
+		 */
+		private Long expectedInsertions = 1000000L;
+
+		/**
+		 * 布隆过滤器的误判率，默认为0.01
+		 */
+		private Double fpp = 0.01;
+
+		/**
+		 * 没有过期时间的token的吊销记录的保留时间，单位为秒，默认为12小时
+		 */
+		private Integer defaultTtl = 60 * 60 * 12;
+
+		/**
+		 * 清理过期吊销记录的时间间隔，单位为秒，默认为60秒
+		 */
+		private Integer purgeInterval = 60;
+
+		/**
+		 * 从redis全量快照同步的时间间隔，单位为秒，小于等于0时不同步，默认为300秒
+		 */
+		private Integer syncInterval = 300;
+
+		/**
+		 * 通知其他节点吊销记录的redis频道名称
+		 */
+		private String channel = "yishuifengxiao:oauth2:token:revoke";
+
+		/**
+		 * 保存吊销记录全量快照的redis键
+		 */
+		private String key = "yishuifengxiao:oauth2:token:revoked";
+
+		public Boolean getEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(Boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Long getExpectedInsertions() {
+			return expectedInsertions;
+		}
+
+		public void setExpectedInsertions(Long expectedInsertions) {
+			this.expectedInsertions = expectedInsertions;
+		}
+
+		public Double getFpp() {
+			return fpp;
+		}
+
+		public void setFpp(Double fpp) {
+			this.fpp = fpp;
+		}
+
+		public Integer getDefaultTtl() {
+			return defaultTtl;
+		}
+
+		public void setDefaultTtl(Integer defaultTtl) {
+			this.defaultTtl = defaultTtl;
+		}
+
+		public Integer getPurgeInterval() {
+			return purgeInterval;
+		}
+
+		public void setPurgeInterval(Integer purgeInterval) {
+			this.purgeInterval = purgeInterval;
+		}
+
+		public Integer getSyncInterval() {
+			return syncInterval;
+		}
+
+		public void setSyncInterval(Integer syncInterval) {
+			this.syncInterval = syncInterval;
+		}
+
+		public String getChannel() {
+			return channel;
+		}
+
+		public void setChannel(String channel) {
+			this.channel = channel;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public void setKey(String key) {
+			this.key = key;
+		}
+
+	}
+
+	/**
+	 * 与授权服务器分开部署的资源服务器相关的配置
+	 * 
+	 * @author yishui
+	 * @date 2019年11月21日
+	 * @version 1.0.0
+	 */
+	public static class RemoteResourceProperties {
+		/**
+		 * 授权服务器的token校验地址，例如 http://auth-server/oauth/check_token ，配置后资源服务器通过该地址校验token
+		 */
+		private String checkTokenUri;
+
+		/**
+		 * 访问token校验地址时使用的终端id
+		 */
+		private String clientId;
+
+		/**
+		 * 访问token校验地址时使用的终端密码
+		 */
+		private String clientSecret;
+
+		/**
+		 * 最多缓存的校验结果的数量，默认为10000
+		 */
+		private Integer maxSize = 10000;
+
+		/**
+		 * 有效token的校验结果的缓存时间，单位为秒，默认为30秒，实际缓存时间不会超过token的剩余有效时间
+		 */
+		private Integer ttl = 30;
+
+		/**
+		 * 无效token的校验结果的缓存时间，单位为秒，默认为5秒，小于等于0时不缓存
+		 */
+		private Integer negativeTtl = 5;
+
+		/**
+		 * 连接授权服务器的超时时间，单位为毫秒，默认为2000
+		 */
+		private Integer connectTimeout = 2000;
+
+		/**
+		 * 读取校验结果的超时时间，单位为毫秒，默认为5000
+		 */
+		private Integer readTimeout = 5000;
+
+		/**
+		 * 连接池的最大连接数，默认为200，仅在存在 apache httpclient 时生效
+		 */
+		private Integer maxConnections = 200;
+
+		/**
+		 * 连接池中每个地址的最大连接数，默认为50，仅在存在 apache httpclient 时生效
+		 */
+		private Integer maxConnectionsPerRoute = 50;
+
+		public String getCheckTokenUri() {
+			return checkTokenUri;
+		}
+
+		public void setCheckTokenUri(String checkTokenUri) {
+			this.checkTokenUri = checkTokenUri;
+		}
+
+		public String getClientId() {
+			return clientId;
+		}
+
+		public void setClientId(String clientId) {
+			this.clientId = clientId;
+		}
+
+		public String getClientSecret() {
+			return clientSecret;
+		}
+
+		public void setClientSecret(String clientSecret) {
+			this.clientSecret = clientSecret;
+		}
+
+		public Integer getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(Integer maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Integer getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Integer ttl) {
+			this.ttl = ttl;
+		}
+
+		public Integer getNegativeTtl() {
+			return negativeTtl;
+		}
+
+		public void setNegativeTtl(Integer negativeTtl) {
+			this.negativeTtl = negativeTtl;
+		}
+
+		public Integer getConnectTimeout() {
+			return connectTimeout;
+		}
+
+		public void setConnectTimeout(Integer connectTimeout) {
+			this.connectTimeout = connectTimeout;
+		}
+
+		public Integer getReadTimeout() {
+			return readTimeout;
+		}
+
+		public void setReadTimeout(Integer readTimeout) {
+			this.readTimeout = readTimeout;
+		}
+
+		public Integer getMaxConnections() {
+			return maxConnections;
+		}
+
+		public void setMaxConnections(Integer maxConnections) {
+			this.maxConnections = maxConnections;
+		}
+
+		public Integer getMaxConnectionsPerRoute() {
+			return maxConnectionsPerRoute;
+		}
+
+		public void setMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+		}
+
+	}
 
 }
\ No newline at end of file
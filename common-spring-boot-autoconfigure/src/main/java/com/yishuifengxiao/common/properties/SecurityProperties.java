@@ -457,6 +457,16 @@ public class SecurityProperties {
 		 * session失效时跳转的地址
 		 */
 		private String sessionInvalidUrl = SecurityConstant.DEFAULT_SESSION_INVALID_URL;
+		/**
+		 * 是否开启无状态模式，默认为false<br/>
+		 * 开启后spring security不再创建session，处理器之间传递的信息保存在请求属性和签名cookie中，
+		 * 签名使用 yishuifengxiao.security.secret-key ，同时并发登录控制不再生效
+		 */
+		private Boolean stateless = false;
+		/**
+		 * 无状态模式下签名cookie的有效时间，同时也是session中处理结果快照的有效时间，单位为秒，默认为300
+		 */
+		private Integer cookieMaxAge = 300;
 
 		/**
 		 * 同一个用户在系统中的最大session数，默认1
@@ -490,6 +500,28 @@ public class SecurityProperties {
 		public void setSessionInvalidUrl(String sessionInvalidUrl) {
 			this.sessionInvalidUrl = sessionInvalidUrl;
 		}
+
+		/**
+		 * 是否开启无状态模式，默认为false
+		 */
+		public Boolean getStateless() {
+			return stateless;
+		}
+
+		public void setStateless(Boolean stateless) {
+			this.stateless = stateless;
+		}
+
+		/**
+		 * 无状态模式下签名cookie的有效时间，同时也是session中处理结果快照的有效时间，单位为秒，默认为300
+		 */
+		public Integer getCookieMaxAge() {
+			return cookieMaxAge;
+		}
+
+		public void setCookieMaxAge(Integer cookieMaxAge) {
+			this.cookieMaxAge = cookieMaxAge;
+		}
 	}
 
 	/**
@@ -508,6 +540,16 @@ public class SecurityProperties {
 		 */
 		private Map<String, String> map = new HashMap<>();
 
+		/**
+		 * 自定义授权结果缓存相关的配置
+		 */
+		private CustomAuthCacheProperties cache = new CustomAuthCacheProperties();
+
+		/**
+		 * 是否由投票器直接调用 customAuthority 判断，默认为是；为否时使用SpEL表达式判断
+		 */
+		private Boolean directVote = true;
+
 		/**
 		 * 获取所有需要设置自定义权限的路径
 		 * 
@@ -547,6 +589,73 @@ public class SecurityProperties {
 			return list;
 		}
 
+		public CustomAuthCacheProperties getCache() {
+			return cache;
+		}
+
+		public void setCache(CustomAuthCacheProperties cache) {
+			this.cache = cache;
+		}
+
+		public Boolean getDirectVote() {
+			return directVote;
+		}
+
+		public void setDirectVote(Boolean directVote) {
+			this.directVote = directVote;
+		}
+
+	}
+
+	/**
+	 * 自定义授权结果缓存相关的配置<br/>
+	 * 开启后以 请求方法 + 匹配到的自定义授权路径 + 权限集合 为键缓存 customAuthority 的判断结果，
+	 * 只适用于授权结果只取决于用户权限集合的 customAuthority
+	 * 
+	 * @author yishui
+	 * @date 2019年11月25日
+	 * @version 1.0.0
+	 */
+	public static class CustomAuthCacheProperties {
+		/**
+		 * 是否开启自定义授权结果缓存，默认为关闭
+		 */
+		private Boolean enabled = false;
+
+		/**
+		 * 最多缓存的判断结果的数量，默认为10000
+		 */
+		private Integer maxSize = 10000;
+
+		/**
+		 * 判断结果的缓存时间，单位为秒，默认为60秒
+		 */
+		private Integer ttl = 60;
+
+		public Boolean getEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(Boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Integer getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(Integer maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Integer getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Integer ttl) {
+			this.ttl = ttl;
+		}
+
 	}
 
 	/**
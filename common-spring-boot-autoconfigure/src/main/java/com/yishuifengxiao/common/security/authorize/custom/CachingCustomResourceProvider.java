@@ -0,0 +1,236 @@
+package com.yishuifengxiao.common.security.authorize.custom;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.security.event.CustomAuthorityChangeEvent;
+import com.yishuifengxiao.common.security.matcher.PathPatternIndex;
+
+/**
+ * 带有结果缓存的自定义授权<br/>
+ * 以 请求方法 + 匹配到的自定义授权路径 + 权限集合 为键缓存被包装的 CustomResourceProvider 的判断结果，
+ * 使用匹配到的路径而不是原始的请求路径，缓存的数量只与配置的路径数量和权限组合的数量有关。<br/>
+ * 【注意】只适用于授权结果只取决于用户的权限集合的实现，结果与具体用户或请求参数有关时不能开启缓存。<br/>
+ * 权限数据发生变化时调用 invalidate 方法或发布 CustomAuthorityChangeEvent 事件删除受影响的缓存
+ *
+ * @author yishui
+ * @date 2019年11月25日
+ * @version 1.0.0
+ */
+public class CachingCustomResourceProvider
+		implements CustomResourceProvider, ApplicationListener<CustomAuthorityChangeEvent> {
+
+	private final static Logger log = LoggerFactory.getLogger(CachingCustomResourceProvider.class);
+
+	/**
+	 * 被包装的自定义授权
+	 */
+	private final CustomResourceProvider delegate;
+
+	/**
+	 * 所有自定义授权的路径
+	 */
+	private final PathPatternIndex<String> patterns;
+
+	/**
+	 * 缓存的最大数量
+	 */
+	private final int maxSize;
+
+	/**
+	 * 缓存的存活时间，单位为毫秒
+	 */
+	private final long ttl;
+
+	/**
+	 * 缓存的判断结果
+	 */
+	private final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 *
+	 * @param delegate 被包装的自定义授权
+	 * @param patterns 所有自定义授权的路径
+	 * @param maxSize  缓存的最大数量
+	 * @param ttl      缓存的存活时间，单位为秒
+	 */
+	public CachingCustomResourceProvider(CustomResourceProvider delegate, Collection<String> patterns, int maxSize,
+			int ttl) {
+		Assert.notNull(delegate, "被包装的自定义授权不能为空");
+		Assert.isTrue(maxSize > 0, "缓存的最大数量必须大于0");
+		this.delegate = delegate;
+		this.patterns = new PathPatternIndex<String>().addAll(patterns, null);
+		this.maxSize = maxSize;
+		this.ttl = ttl * 1000L;
+	}
+
+	@Override
+	public boolean hasPermission(HttpServletRequest request, Authentication auth) {
+		String pattern = patterns.matchPattern(getRequestPath(request));
+		if (null == pattern) {
+			// 不是通过配置的路径进入的请求，无法确定缓存的键
+			return delegate.hasPermission(request, auth);
+		}
+		Set<String> authorities = authorities(auth);
+		String key = request.getMethod() + ' ' + pattern + ' ' + String.join(",", authorities);
+		long now = System.currentTimeMillis();
+		Decision decision = decisions.get(key);
+		if (null != decision && decision.expireAt > now) {
+			hitCount.increment();
+			return decision.permitted;
+		}
+		missCount.increment();
+		boolean permitted = delegate.hasPermission(request, auth);
+		if (decisions.size() >= maxSize) {
+			this.evict(now);
+		}
+		decisions.put(key, new Decision(permitted, authorities, now + ttl));
+		return permitted;
+	}
+
+	/**
+	 * 删除包含任意一个指定权限的缓存
+	 *
+	 * @param authorities 发生变化的权限(角色)名称，为空时删除全部缓存
+	 */
+	public void invalidate(Collection<String> authorities) {
+		if (null == authorities || authorities.isEmpty()) {
+			this.invalidateAll();
+			return;
+		}
+		decisions.values().removeIf(decision -> !Collections.disjoint(decision.authorities, authorities));
+	}
+
+	/**
+	 * 删除全部缓存
+	 */
+	public void invalidateAll() {
+		decisions.clear();
+	}
+
+	@Override
+	public void onApplicationEvent(CustomAuthorityChangeEvent event) {
+		log.debug("【自定义授权】权限 {} 发生变化，删除对应的授权结果缓存", event.getAuthorities());
+		this.invalidate(event.getAuthorities());
+	}
+
+	/**
+	 * 获取排好序的权限集合，相同的权限组合得到相同的键
+	 *
+	 * @param auth 认证信息
+	 * @return 权限集合
+	 */
+	private static Set<String> authorities(Authentication auth) {
+		if (null == auth || null == auth.getAuthorities() || auth.getAuthorities().isEmpty()) {
+			return Collections.emptySet();
+		}
+		Set<String> authorities = new TreeSet<>();
+		for (GrantedAuthority authority : auth.getAuthorities()) {
+			if (null != authority.getAuthority()) {
+				authorities.add(authority.getAuthority());
+			}
+		}
+		return authorities;
+	}
+
+	/**
+	 * 获取请求路径，与 antMatchers 使用的路径一致，不包含项目名
+	 *
+	 * @param request 请求
+	 * @return 请求路径
+	 */
+	private static String getRequestPath(HttpServletRequest request) {
+		String url = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		return null == pathInfo ? url : url + pathInfo;
+	}
+
+	/**
+	 * 缓存数量达到上限时腾出空间<br/>
+	 * 先删除所有已经过期的缓存，空间仍然不足时再按遍历顺序删除十分之一的缓存
+	 *
+	 * @param now 当前时间
+	 */
+	private void evict(long now) {
+		decisions.values().removeIf(decision -> decision.expireAt <= now);
+		int overflow = decisions.size() - maxSize + Math.max(1, maxSize / 10);
+		Iterator<String> iterator = decisions.keySet().iterator();
+		while (overflow-- > 0 && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * 获取缓存命中次数
+	 *
+	 * @return 缓存命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 获取缓存未命中次数
+	 *
+	 * @return 缓存未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * 获取当前缓存的数量
+	 *
+	 * @return 当前缓存的数量
+	 */
+	public int size() {
+		return decisions.size();
+	}
+
+	public CustomResourceProvider getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * 缓存的判断结果
+	 *
+	 * @author yishui
+	 * @date 2019年11月25日
+	 * @version 1.0.0
+	 */
+	private static class Decision {
+
+		private final boolean permitted;
+
+		private final Set<String> authorities;
+
+		private final long expireAt;
+
+		Decision(boolean permitted, Set<String> authorities, long expireAt) {
+			this.permitted = permitted;
+			this.authorities = authorities;
+			this.expireAt = expireAt;
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.yishuifengxiao.common.security.authorize.custom;
+
+import org.springframework.security.access.ConfigAttribute;
+
+/**
+ * 表示需要由 CustomAuthorityVoter 进行自定义授权的配置属性
+ *
+ * @author yishui
+ * @date 2019年11月26日
+ * @version 1.0.0
+ */
+public final class CustomAuthorityAttribute implements ConfigAttribute {
+
+	private static final long serialVersionUID = 3418032762294951806L;
+
+	/**
+	 * 唯一的实例
+	 */
+	public final static CustomAuthorityAttribute INSTANCE = new CustomAuthorityAttribute();
+
+	private CustomAuthorityAttribute() {
+
+	}
+
+	/**
+	 * 不能用字符串表示，返回null
+	 */
+	@Override
+	public String getAttribute() {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "customAuthority";
+	}
+
+	private Object readResolve() {
+		return INSTANCE;
+	}
+
+}
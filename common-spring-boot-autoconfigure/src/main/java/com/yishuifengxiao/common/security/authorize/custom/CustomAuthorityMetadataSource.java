@@ -0,0 +1,68 @@
+package com.yishuifengxiao.common.security.authorize.custom;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.intercept.FilterInvocationSecurityMetadataSource;
+import org.springframework.util.Assert;
+
+/**
+ * 将自定义授权的表达式替换为 CustomAuthorityAttribute 的权限元数据<br/>
+ * 自定义授权的路径仍然以表达式的形式注册，保持与其他授权规则之间的先后顺序不变；
+ * 匹配到这些路径时返回 CustomAuthorityAttribute ，由 CustomAuthorityVoter 直接判断，不再对表达式求值
+ *
+ * @author yishui
+ * @date 2019年11月26日
+ * @version 1.0.0
+ */
+public class CustomAuthorityMetadataSource implements FilterInvocationSecurityMetadataSource {
+
+	private final static Collection<ConfigAttribute> CUSTOM_ATTRIBUTES = Collections
+			.singletonList(CustomAuthorityAttribute.INSTANCE);
+
+	/**
+	 * 原始的权限元数据
+	 */
+	private final FilterInvocationSecurityMetadataSource delegate;
+
+	/**
+	 * 自定义授权的表达式
+	 */
+	private final String expression;
+
+	/**
+	 *
+	 * @param delegate   原始的权限元数据
+	 * @param expression 自定义授权的表达式
+	 */
+	public CustomAuthorityMetadataSource(FilterInvocationSecurityMetadataSource delegate, String expression) {
+		Assert.notNull(delegate, "原始的权限元数据不能为空");
+		Assert.hasText(expression, "自定义授权的表达式不能为空");
+		this.delegate = delegate;
+		this.expression = expression;
+	}
+
+	@Override
+	public Collection<ConfigAttribute> getAttributes(Object object) throws IllegalArgumentException {
+		Collection<ConfigAttribute> attributes = delegate.getAttributes(object);
+		if (null != attributes && attributes.size() == 1
+				&& expression.equals(String.valueOf(attributes.iterator().next()))) {
+			// 表达式类型的配置属性的 getAttribute 固定返回null，只能通过 toString 获取表达式
+			return CUSTOM_ATTRIBUTES;
+		}
+		return attributes;
+	}
+
+	@Override
+	public Collection<ConfigAttribute> getAllConfigAttributes() {
+		return delegate.getAllConfigAttributes();
+	}
+
+	@Override
+	public boolean supports(Class<?> clazz) {
+		return FilterInvocation.class.isAssignableFrom(clazz);
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.yishuifengxiao.common.security.authorize.custom;
+
+import java.util.Collection;
+
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.util.Assert;
+
+/**
+ * 自定义授权投票器<br/>
+ * 直接调用 CustomResourceProvider 判断是否有权访问，不经过SpEL表达式的解析、求值和bean查找。<br/>
+ * 只处理 CustomAuthorityAttribute ，其他的配置属性一律弃权
+ *
+ * @author yishui
+ * @date 2019年11月26日
+ * @version 1.0.0
+ */
+public class CustomAuthorityVoter implements AccessDecisionVoter<FilterInvocation> {
+
+	private final CustomResourceProvider customAuthority;
+
+	/**
+	 *
+	 * @param customAuthority 自定义授权
+	 */
+	public CustomAuthorityVoter(CustomResourceProvider customAuthority) {
+		Assert.notNull(customAuthority, "自定义授权不能为空");
+		this.customAuthority = customAuthority;
+	}
+
+	@Override
+	public boolean supports(ConfigAttribute attribute) {
+		return attribute instanceof CustomAuthorityAttribute;
+	}
+
+	@Override
+	public boolean supports(Class<?> clazz) {
+		return FilterInvocation.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	public int vote(Authentication authentication, FilterInvocation fi, Collection<ConfigAttribute> attributes) {
+		for (ConfigAttribute attribute : attributes) {
+			if (attribute instanceof CustomAuthorityAttribute) {
+				return customAuthority.hasPermission(fi.getRequest(), authentication) ? ACCESS_GRANTED
+						: ACCESS_DENIED;
+			}
+		}
+		return ACCESS_ABSTAIN;
+	}
+
+	public CustomResourceProvider getCustomAuthority() {
+		return customAuthority;
+	}
+
+}
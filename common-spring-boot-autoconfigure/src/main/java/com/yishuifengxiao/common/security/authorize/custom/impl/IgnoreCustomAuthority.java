@@ -12,12 +12,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
-import org.springframework.util.AntPathMatcher;
 
 import com.yishuifengxiao.common.security.authorize.custom.CustomResourceProvider;
+import com.yishuifengxiao.common.security.matcher.PathPatternIndex;
 
 /**
- * 默认的授权表达式实现
+ * 默认的授权表达式实现<br/>
+ * 需要忽视的路径(包括加上前缀之后的路径)在设置时编译为不区分大小写的 PathPatternIndex，
+ * 直接修改 getUrls() 返回的集合之后需要重新调用 setUrls 使其生效
  * 
  * @author yishui
  * @date 2019年1月24日
@@ -29,35 +31,26 @@ public class IgnoreCustomAuthority implements CustomResourceProvider {
 	 * 请求路径前缀(防止设置了项目名)
 	 */
 	private String prefix = "";
-	/**
-	 * 路径匹配器
-	 */
-	private AntPathMatcher matcher = new AntPathMatcher();
 	/**
 	 * 需要忽视的路径
 	 */
 	private Set<String> urls = new HashSet<>();
+	/**
+	 * 由需要忽视的路径编译而成的路径索引
+	 */
+	private volatile PathPatternIndex<String> index = new PathPatternIndex<>(false);
 
 	@Override
 	public boolean hasPermission(HttpServletRequest request, Authentication auth) {
 		boolean isMatch = false;
-		matcher.setCaseSensitive(false);
-		log.debug("【授权管理】所有需要忽视的目录为 {}", urls);
 		// 获取到请求的uri
 		String path = request.getRequestURI();
 
 		if (auth == null || auth.getPrincipal() == null
 				|| StringUtils.endsWithIgnoreCase(auth.getPrincipal().toString(), "anonymousUser")) {
-			for (String url : urls) {
-				boolean orinal = matcher.match(url.trim(), path);
-				log.debug("> 1) 当前请求路径为{},匹配路径为{},匹配结果为{}", path, url, orinal);
-				boolean preOrinal = matcher.match(prefix.trim() + url.trim(), path);
-				log.debug("> 2) 当前请求路径为{},匹配路径为{},匹配结果为{}", path, prefix.trim() + url.trim(), preOrinal);
-				if (orinal || preOrinal) {
-					isMatch = true;
-					break;
-				}
-			}
+			String pattern = index.matchPattern(path);
+			log.debug("【授权管理】当前请求路径为{},匹配的忽视路径为{}", path, pattern);
+			isMatch = null != pattern;
 		} else {
 			isMatch = true;
 		}
@@ -71,6 +64,7 @@ public class IgnoreCustomAuthority implements CustomResourceProvider {
 
 	public void setUrls(Set<String> urls) {
 		this.urls = urls;
+		this.compile();
 	}
 
 	public String getPrefix() {
@@ -79,6 +73,28 @@ public class IgnoreCustomAuthority implements CustomResourceProvider {
 
 	public void setPrefix(String prefix) {
 		this.prefix = prefix;
+		this.compile();
+	}
+
+	/**
+	 * 将需要忽视的路径及加上前缀之后的路径编译为路径索引
+	 */
+	private void compile() {
+		PathPatternIndex<String> index = new PathPatternIndex<>(false);
+		String pre = null == prefix ? "" : prefix.trim();
+		if (null != urls) {
+			for (String url : urls) {
+				if (StringUtils.isBlank(url)) {
+					continue;
+				}
+				index.add(url.trim(), url);
+				if (StringUtils.isNotEmpty(pre)) {
+					index.add(pre + url.trim(), url);
+				}
+			}
+		}
+		log.debug("【授权管理】所有需要忽视的目录为 {}，前缀为 {}", urls, pre);
+		this.index = index;
 	}
 
 	public IgnoreCustomAuthority() {
@@ -88,6 +104,7 @@ public class IgnoreCustomAuthority implements CustomResourceProvider {
 	public IgnoreCustomAuthority(String prefix, Set<String> urls) {
 		this.prefix = prefix;
 		this.urls = urls;
+		this.compile();
 	}
 
 }
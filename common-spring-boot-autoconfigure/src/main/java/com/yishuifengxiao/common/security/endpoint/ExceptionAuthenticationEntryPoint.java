@@ -22,9 +22,12 @@ import org.springframework.security.web.savedrequest.SavedRequest;
 import com.yishuifengxiao.common.constant.SessionConstant;
 import com.yishuifengxiao.common.properties.SecurityProperties;
 import com.yishuifengxiao.common.security.context.SecurityHolder;
+import com.yishuifengxiao.common.security.entity.ResultSnapshot;
 import com.yishuifengxiao.common.security.eunm.HandleEnum;
 import com.yishuifengxiao.common.security.event.ExceptionAuthenticationEntryPointEvent;
 import com.yishuifengxiao.common.security.processor.ProcessHandler;
+import com.yishuifengxiao.common.security.session.HttpSessionSecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
 import com.yishuifengxiao.common.tool.entity.Response;
 import com.yishuifengxiao.common.utils.HttpUtil;
 
@@ -58,6 +61,11 @@ public class ExceptionAuthenticationEntryPoint extends Http403ForbiddenEntryPoin
 	 */
 	private RequestCache cache = new HttpSessionRequestCache();
 
+	/**
+	 * 处理器之间传递信息的存储方式
+	 */
+	private SecurityAttributeStore attributeStore = new HttpSessionSecurityAttributeStore();
+
 	@Override
 	public void commence(HttpServletRequest request, HttpServletResponse response,
 			AuthenticationException authException) throws IOException, ServletException {
@@ -66,10 +74,12 @@ public class ExceptionAuthenticationEntryPoint extends Http403ForbiddenEntryPoin
 		// 引起跳转的uri
 		SavedRequest savedRequest = cache.getRequest(request, response);
 		String url = savedRequest != null ? savedRequest.getRedirectUrl() : request.getRequestURL().toString();
-		// 存储消息到session中
-		request.getSession().setAttribute(SessionConstant.EXCEPTION_MSG, authException);
-		// 将被拦截的url存放到session中
-		request.getSession().setAttribute(SessionConstant.EXCEPTION_URL, url);
+		String msg = extractMsg(authException);
+		// 存储消息，只保存处理结果快照，不保存异常对象
+		attributeStore.setAttribute(request, response, SessionConstant.EXCEPTION_MSG,
+				new ResultSnapshot(Response.Const.CODE_UNAUTHORIZED, msg, url));
+		// 存储被拦截的url
+		attributeStore.setAttribute(request, response, SessionConstant.EXCEPTION_URL, url);
 		// 存储异常信息
 		SecurityHolder.getContext().setSecurityExcepion(request, authException);
 
@@ -88,7 +98,7 @@ public class ExceptionAuthenticationEntryPoint extends Http403ForbiddenEntryPoin
 
 		customHandle.handle(request, response, type == HandleEnum.REDIRECT,
 				securityProperties.getHandler().getException().getRedirectUrl(),
-				new Response<>(Response.Const.CODE_UNAUTHORIZED, extractMsg(authException), authException));
+				new Response<>(Response.Const.CODE_UNAUTHORIZED, msg, authException));
 
 	}
 
@@ -148,4 +158,13 @@ public class ExceptionAuthenticationEntryPoint extends Http403ForbiddenEntryPoin
 		this.context = context;
 	}
 
+
+	public SecurityAttributeStore getAttributeStore() {
+		return attributeStore;
+	}
+
+	public void setAttributeStore(SecurityAttributeStore attributeStore) {
+		this.attributeStore = attributeStore;
+	}
+
 }
@@ -19,6 +19,11 @@ public class CustomToken implements Serializable {
 	 */
 	private static final long serialVersionUID = 5927640198972638101L;
 
+	/**
+	 * token的唯一标识，保证相同用户在同一时刻生成的token也不相同
+	 */
+	private String id;
+
 	/**
 	 * 登录用户的用户名
 	 */
@@ -47,6 +52,24 @@ public class CustomToken implements Serializable {
 	 */
 	private Integer expiresIn;
 
+	/**
+	 * 获取token的唯一标识
+	 * 
+	 * @return
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * 设置token的唯一标识
+	 * 
+	 * @param id
+	 */
+	public void setId(String id) {
+		this.id = id;
+	}
+
 	/**
 	 * 获取登录用户的用户名
 	 * 
@@ -177,7 +200,7 @@ public class CustomToken implements Serializable {
 
 	@Override
 	public String toString() {
-		return new StringBuffer("{\"username\":\"").append(username).append("\",\"clientId\":\"").append(clientId)
+		return new StringBuffer("{\"id\":\"").append(id).append("\",\"username\":\"").append(username).append("\",\"clientId\":\"").append(clientId)
 				.append("\",\"grantType\":\"").append(grantType).append("\",\"date\":\"").append(date)
 				.append("\",\"expiresIn\":\"").append(expiresIn).append("\"}").toString();
 	}
@@ -0,0 +1,169 @@
+package com.yishuifengxiao.common.security.entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.provider.ClientDetails;
+
+/**
+ * 不可变的终端信息<br/>
+ * 终端信息在启动或者重新加载时一次性解析完成，其中终端密码为已经加密后的值，查询时直接返回，不再做任何计算
+ *
+ * @author yishui
+ * @date 2019年11月15日
+ * @version 1.0.0
+ */
+public final class ImmutableClientDetails implements ClientDetails {
+
+	private static final long serialVersionUID = 2743187540126413470L;
+
+	private final String clientId;
+
+	private final String clientSecret;
+
+	private final Set<String> resourceIds;
+
+	private final Set<String> scope;
+
+	private final Set<String> authorizedGrantTypes;
+
+	private final Set<String> registeredRedirectUri;
+
+	private final Collection<GrantedAuthority> authorities;
+
+	private final Set<String> autoApproveScopes;
+
+	private final Integer accessTokenValiditySeconds;
+
+	private final Integer refreshTokenValiditySeconds;
+
+	private final Map<String, Object> additionalInformation;
+
+	public ImmutableClientDetails(String clientId, String clientSecret, Collection<String> resourceIds,
+			Collection<String> scope, Collection<String> authorizedGrantTypes, Collection<String> registeredRedirectUri,
+			Collection<? extends GrantedAuthority> authorities, Collection<String> autoApproveScopes,
+			Integer accessTokenValiditySeconds, Integer refreshTokenValiditySeconds) {
+		this.clientId = clientId;
+		this.clientSecret = clientSecret;
+		this.resourceIds = unmodifiable(resourceIds);
+		this.scope = unmodifiable(scope);
+		this.authorizedGrantTypes = unmodifiable(authorizedGrantTypes);
+		this.registeredRedirectUri = unmodifiable(registeredRedirectUri);
+		this.authorities = null == authorities ? Collections.<GrantedAuthority>emptyList()
+				: Collections.unmodifiableList(new ArrayList<GrantedAuthority>(authorities));
+		this.autoApproveScopes = unmodifiable(autoApproveScopes);
+		this.accessTokenValiditySeconds = accessTokenValiditySeconds;
+		this.refreshTokenValiditySeconds = refreshTokenValiditySeconds;
+		this.additionalInformation = Collections.emptyMap();
+	}
+
+	/**
+	 * 以一个已有的终端信息为模板生成一个新的终端信息，除clientId外其他信息均共享模板中的数据
+	 *
+	 * @param clientId 新的终端id
+	 * @param template 模板终端信息
+	 */
+	public ImmutableClientDetails(String clientId, ImmutableClientDetails template) {
+		this.clientId = clientId;
+		this.clientSecret = template.clientSecret;
+		this.resourceIds = template.resourceIds;
+		this.scope = template.scope;
+		this.authorizedGrantTypes = template.authorizedGrantTypes;
+		this.registeredRedirectUri = template.registeredRedirectUri;
+		this.authorities = template.authorities;
+		this.autoApproveScopes = template.autoApproveScopes;
+		this.accessTokenValiditySeconds = template.accessTokenValiditySeconds;
+		this.refreshTokenValiditySeconds = template.refreshTokenValiditySeconds;
+		this.additionalInformation = template.additionalInformation;
+	}
+
+	private static Set<String> unmodifiable(Collection<String> values) {
+		if (null == values || values.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(new LinkedHashSet<>(values));
+	}
+
+	@Override
+	public String getClientId() {
+		return clientId;
+	}
+
+	@Override
+	public Set<String> getResourceIds() {
+		return resourceIds;
+	}
+
+	@Override
+	public boolean isSecretRequired() {
+		return null != clientSecret;
+	}
+
+	@Override
+	public String getClientSecret() {
+		return clientSecret;
+	}
+
+	@Override
+	public boolean isScoped() {
+		return !scope.isEmpty();
+	}
+
+	@Override
+	public Set<String> getScope() {
+		return scope;
+	}
+
+	@Override
+	public Set<String> getAuthorizedGrantTypes() {
+		return authorizedGrantTypes;
+	}
+
+	@Override
+	public Set<String> getRegisteredRedirectUri() {
+		return registeredRedirectUri;
+	}
+
+	@Override
+	public Collection<GrantedAuthority> getAuthorities() {
+		return authorities;
+	}
+
+	@Override
+	public Integer getAccessTokenValiditySeconds() {
+		return accessTokenValiditySeconds;
+	}
+
+	@Override
+	public Integer getRefreshTokenValiditySeconds() {
+		return refreshTokenValiditySeconds;
+	}
+
+	@Override
+	public boolean isAutoApprove(String scope) {
+		for (String auto : autoApproveScopes) {
+			if ("true".equals(auto) || (null != scope && scope.matches(auto))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Map<String, Object> getAdditionalInformation() {
+		return additionalInformation;
+	}
+
+	@Override
+	public String toString() {
+		return "ImmutableClientDetails [clientId=" + clientId + ", scope=" + scope + ", authorizedGrantTypes="
+				+ authorizedGrantTypes + ", accessTokenValiditySeconds=" + accessTokenValiditySeconds
+				+ ", refreshTokenValiditySeconds=" + refreshTokenValiditySeconds + "]";
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.yishuifengxiao.common.security.entity;
+
+import java.io.Serializable;
+
+/**
+ * 处理器之间传递的处理结果快照(例如认证失败、权限拒绝或者重定向前的处理结果)<br/>
+ * 只包含响应码、提示信息、引起跳转的url和发生时间，不可变。<br/>
+ * 代替完整的异常对象保存到session中，避免序列化异常堆栈和原因链，减小session的体积和session存储的写入量
+ *
+ * @author yishui
+ * @date 2019年11月24日
+ * @version 1.0.0
+ */
+public final class ResultSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 6412740395871304563L;
+
+	/**
+	 * 编码时各个字段之间的分隔符
+	 */
+	private final static char SEPARATOR = '\n';
+
+	/**
+	 * 响应码
+	 */
+	private final int code;
+
+	/**
+	 * 提示信息
+	 */
+	private final String msg;
+
+	/**
+	 * 引起跳转的url
+	 */
+	private final String url;
+
+	/**
+	 * 发生时间的毫秒数
+	 */
+	private final long timestamp;
+
+	/**
+	 *
+	 * @param code 响应码
+	 * @param msg  提示信息
+	 * @param url  引起跳转的url
+	 */
+	public ResultSnapshot(int code, String msg, String url) {
+		this(code, msg, url, System.currentTimeMillis());
+	}
+
+	/**
+	 *
+	 * @param code      响应码
+	 * @param msg       提示信息
+	 * @param url       引起跳转的url
+	 * @param timestamp 发生时间的毫秒数
+	 */
+	public ResultSnapshot(int code, String msg, String url, long timestamp) {
+		this.code = code;
+		this.msg = msg;
+		this.url = url;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * 编码为紧凑的字符串，用于保存到cookie等只能存储字符串的地方
+	 *
+	 * @return 编码后的字符串
+	 */
+	public String encode() {
+		StringBuilder builder = new StringBuilder(32 + (null == url ? 0 : url.length())
+				+ (null == msg ? 0 : msg.length()));
+		builder.append(code).append(SEPARATOR).append(timestamp).append(SEPARATOR);
+		builder.append(null == url ? "" : url).append(SEPARATOR);
+		// 提示信息中可能包含分隔符，放在最后
+		builder.append(null == msg ? "" : msg);
+		return builder.toString();
+	}
+
+	/**
+	 * 从 encode 生成的字符串中还原快照
+	 *
+	 * @param value 编码后的字符串
+	 * @return 处理结果快照，格式不正确时返回null
+	 */
+	public static ResultSnapshot decode(String value) {
+		if (null == value) {
+			return null;
+		}
+		String[] parts = value.split(String.valueOf(SEPARATOR), 4);
+		if (parts.length != 4) {
+			return null;
+		}
+		try {
+			return new ResultSnapshot(Integer.parseInt(parts[0]), parts[3].isEmpty() ? null : parts[3],
+					parts[2].isEmpty() ? null : parts[2], Long.parseLong(parts[1]));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 响应码
+	 *
+	 * @return 响应码
+	 */
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * 提示信息
+	 *
+	 * @return 提示信息
+	 */
+	public String getMsg() {
+		return msg;
+	}
+
+	/**
+	 * 引起跳转的url
+	 *
+	 * @return 引起跳转的url
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * 发生时间的毫秒数
+	 *
+	 * @return 发生时间的毫秒数
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultSnapshot [code=" + code + ", msg=" + msg + ", url=" + url + ", timestamp=" + timestamp + "]";
+	}
+
+}
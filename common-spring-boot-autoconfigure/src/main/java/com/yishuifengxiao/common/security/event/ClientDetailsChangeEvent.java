@@ -0,0 +1,57 @@
+package com.yishuifengxiao.common.security.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 终端信息发生变化时的事件<br/>
+ * 终端信息重新加载或者修改之后发布此事件，终端信息缓存会删除受影响的缓存。<br/>
+ * 没有指定终端时表示所有的终端都可能发生了变化，会删除全部缓存
+ *
+ * @author yishui
+ * @date 2019年11月29日
+ * @version 1.0.0
+ */
+public class ClientDetailsChangeEvent extends ApplicationEvent {
+
+	private static final long serialVersionUID = 6094582837021736715L;
+
+	/**
+	 * 发生变化的终端id，为空时表示全部
+	 */
+	private final Set<String> clientIds;
+
+	/**
+	 * 所有的终端都可能发生了变化
+	 *
+	 * @param source 事件源
+	 */
+	public ClientDetailsChangeEvent(Object source) {
+		this(source, null);
+	}
+
+	/**
+	 *
+	 * @param source    事件源
+	 * @param clientIds 发生变化的终端id，为空时表示全部
+	 */
+	public ClientDetailsChangeEvent(Object source, Collection<String> clientIds) {
+		super(source);
+		this.clientIds = null == clientIds ? Collections.emptySet()
+				: Collections.unmodifiableSet(new LinkedHashSet<>(clientIds));
+	}
+
+	/**
+	 * 获取发生变化的终端id
+	 *
+	 * @return 发生变化的终端id，为空时表示全部
+	 */
+	public Set<String> getClientIds() {
+		return clientIds;
+	}
+
+}
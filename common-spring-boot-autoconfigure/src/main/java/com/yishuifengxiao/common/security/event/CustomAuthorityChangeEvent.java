@@ -0,0 +1,57 @@
+package com.yishuifengxiao.common.security.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 自定义授权的权限数据发生变化时的事件<br/>
+ * 修改了权限数据之后发布此事件，自定义授权的结果缓存会删除受影响的缓存。<br/>
+ * 没有指定权限时表示所有的权限都可能发生了变化，会删除全部缓存
+ *
+ * @author yishui
+ * @date 2019年11月25日
+ * @version 1.0.0
+ */
+public class CustomAuthorityChangeEvent extends ApplicationEvent {
+
+	private static final long serialVersionUID = -2618254386017427159L;
+
+	/**
+	 * 发生变化的权限(角色)名称，为空时表示全部
+	 */
+	private final Set<String> authorities;
+
+	/**
+	 * 所有的权限都可能发生了变化
+	 *
+	 * @param source 事件源
+	 */
+	public CustomAuthorityChangeEvent(Object source) {
+		this(source, null);
+	}
+
+	/**
+	 *
+	 * @param source      事件源
+	 * @param authorities 发生变化的权限(角色)名称，为空时表示全部
+	 */
+	public CustomAuthorityChangeEvent(Object source, Collection<String> authorities) {
+		super(source);
+		this.authorities = null == authorities ? Collections.emptySet()
+				: Collections.unmodifiableSet(new LinkedHashSet<>(authorities));
+	}
+
+	/**
+	 * 获取发生变化的权限(角色)名称
+	 *
+	 * @return 发生变化的权限名称，为空时表示全部
+	 */
+	public Set<String> getAuthorities() {
+		return authorities;
+	}
+
+}
@@ -1,9 +1,16 @@
 package com.yishuifengxiao.common.security.event;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 import org.springframework.context.ApplicationEvent;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.util.Assert;
 /**
- * 删除oauth2 token时的事件信息
+ * 删除oauth2 token时的事件信息<br/>
+ * 批量删除token时只会发布一个事件，此时事件源为第一个被删除的token，所有被删除的token通过 getTokens 获取
  * @author yishui
  * @date 2019年10月31日
  * @version 1.0.0
@@ -15,14 +22,50 @@ public class TokenRemoveEvent extends ApplicationEvent {
 	 */
 	private static final long serialVersionUID = 6710651173868223306L;
 
+	/**
+	 * 所有被删除的token
+	 */
+	private final transient List<OAuth2AccessToken> tokens;
+
 	public TokenRemoveEvent(OAuth2AccessToken oAuth2AccessToken) {
 		super(oAuth2AccessToken);
+		this.tokens = Collections.singletonList(oAuth2AccessToken);
+	}
+
+	/**
+	 * 批量删除token时的事件
+	 * 
+	 * @param oAuth2AccessTokens 所有被删除的token，不能为空
+	 */
+	public TokenRemoveEvent(Collection<OAuth2AccessToken> oAuth2AccessTokens) {
+		super(first(oAuth2AccessTokens));
+		this.tokens = Collections.unmodifiableList(new ArrayList<>(oAuth2AccessTokens));
+	}
+
+	/**
+	 * 获取第一个被删除的token作为事件源
+	 * 
+	 * @param oAuth2AccessTokens 所有被删除的token
+	 * @return 第一个被删除的token
+	 */
+	private static OAuth2AccessToken first(Collection<OAuth2AccessToken> oAuth2AccessTokens) {
+		Assert.notEmpty(oAuth2AccessTokens, "被删除的token不能为空");
+		return oAuth2AccessTokens.iterator().next();
 	}
 
 	@Override
 	public OAuth2AccessToken getSource() {
 		return (OAuth2AccessToken) super.getSource();
 	}
+
+	/**
+	 * 获取所有被删除的token
+	 * 
+	 * @return 所有被删除的token
+	 */
+	public List<OAuth2AccessToken> getTokens() {
+		return tokens;
+	}
 	
 	
 
@@ -26,6 +26,8 @@ import org.springframework.security.oauth2.provider.authentication.TokenExtracto
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 
 import com.yishuifengxiao.common.constant.SessionConstant;
+import com.yishuifengxiao.common.security.session.HttpSessionSecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
 
 /**
  * {@link TokenExtractor} that strips the authenticator from a bearer token request (with an Authorization header in the
@@ -39,6 +41,11 @@ public class CustomTokenExtractor implements TokenExtractor {
 
 	private final static Log logger = LogFactory.getLog(CustomTokenExtractor.class);
 
+	/**
+	 * 最后一种提取方式使用的存储，读取时不会创建session
+	 */
+	private SecurityAttributeStore attributeStore = new HttpSessionSecurityAttributeStore();
+
 	@Override
 	public Authentication extract(HttpServletRequest request) {
 		String tokenValue = extractToken(request);
@@ -59,7 +66,7 @@ public class CustomTokenExtractor implements TokenExtractor {
 			token = request.getParameter(OAuth2AccessToken.ACCESS_TOKEN);
 			if (token == null) {
 				logger.debug("Token not found in request parameters. Trying session parameters.  ");
-				 token = (String) request.getSession().getAttribute(SessionConstant.SESSION_TOKEN_KEY);
+				 token = (String) attributeStore.getAttribute(request, SessionConstant.SESSION_TOKEN_KEY);
 				 if(token == null) {
 						logger.debug("Token not found in session by key {}. Not an OAuth2 request."); 
 				 }
@@ -98,4 +105,13 @@ public class CustomTokenExtractor implements TokenExtractor {
 		return null;
 	}
 
+
+	public SecurityAttributeStore getAttributeStore() {
+		return attributeStore;
+	}
+
+	public void setAttributeStore(SecurityAttributeStore attributeStore) {
+		this.attributeStore = attributeStore;
+	}
+
 }
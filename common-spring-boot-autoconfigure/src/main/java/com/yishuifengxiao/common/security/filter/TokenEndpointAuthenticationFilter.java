@@ -45,21 +45,25 @@ public class TokenEndpointAuthenticationFilter extends OncePerRequestFilter impl
 
 	private PasswordEncoder passwordEncoder;
 
+	/**
+	 * 是否为无状态模式，无状态模式下不会创建session
+	 */
+	private boolean stateless = false;
+
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
 			throws ServletException, IOException {
-		HttpServletRequest httpServletRequest = (HttpServletRequest) request;
-		
-		String username = request.getParameter("username");
-
-		HttpSession session = httpServletRequest.getSession();
-		String sessionId = session.getId();
 		String header = request.getHeader("Authorization");
 
 		if (header == null || !header.toLowerCase().startsWith(BASIC)) {
 			chain.doFilter(request, response);
 			return;
 		}
+		String username = request.getParameter("username");
+
+		// 只有通过basic认证的请求才需要session id，无状态模式下只读取已经存在的session
+		HttpSession session = stateless ? request.getSession(false) : request.getSession();
+		String sessionId = null == session ? null : session.getId();
 		String[] tokens = extractAndDecodeHeader(header, request);
 
 		String clientId = tokens[0];
@@ -158,6 +162,14 @@ public class TokenEndpointAuthenticationFilter extends OncePerRequestFilter impl
 		this.passwordEncoder = passwordEncoder;
 	}
 
+	public boolean isStateless() {
+		return stateless;
+	}
+
+	public void setStateless(boolean stateless) {
+		this.stateless = stateless;
+	}
+
 	public TokenEndpointAuthenticationFilter() {
 
 	}
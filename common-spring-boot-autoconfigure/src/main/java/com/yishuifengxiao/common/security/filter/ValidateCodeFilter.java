@@ -1,9 +1,8 @@
 package com.yishuifengxiao.common.security.filter;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -16,11 +15,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.yishuifengxiao.common.properties.SecurityProperties;
+import com.yishuifengxiao.common.security.matcher.PathPatternIndex;
 import com.yishuifengxiao.common.tool.exception.ValidateException;
 import com.yishuifengxiao.common.validation.CodeProcessorHolder;
 import com.yishuifengxiao.common.validation.eunm.CodeType;
@@ -44,14 +43,14 @@ public class ValidateCodeFilter extends OncePerRequestFilter implements Initiali
 	/**
 	 * 存放所有需要校验验证码的url【即表明什么样的URL需要用到什么样的验证码】
 	 */
-	private Map<String, CodeType> urlMap = new HashMap<>();
+	private Map<String, CodeType> urlMap = new LinkedHashMap<>();
 
 	private CodeProcessorHolder codeProcessorHolder;
 
 	/**
-	 * 用于定义路由规则，因为下面的路径里有统配符，验证请求的URL与配置的URL是否匹配的类
+	 * 由所有需要校验验证码的url编译而成的路径索引，避免每次请求都逐个匹配所有的url
 	 */
-	private AntPathMatcher antPathMatcher = new AntPathMatcher();
+	private volatile PathPatternIndex<CodeType> urlIndex = new PathPatternIndex<>();
 
 	private SecurityProperties securityProperties;
 
@@ -77,6 +76,10 @@ public class ValidateCodeFilter extends OncePerRequestFilter implements Initiali
 			for (String url : urls) {
 				urlMap.put(url, validateCodeType);
 			}
+			// 重新编译路径索引，同一个url以最后一次设置的验证码类型为准
+			PathPatternIndex<CodeType> index = new PathPatternIndex<>();
+			urlMap.forEach(index::add);
+			this.urlIndex = index;
 		}
 
 	}
@@ -110,22 +113,12 @@ public class ValidateCodeFilter extends OncePerRequestFilter implements Initiali
 	 * @return
 	 */
 	private CodeType getValidateCodeType(HttpServletRequest request) {
-		CodeType result = null;
-
 		if (!securityProperties.getCode().getIsFilterGet()
 				&& StringUtils.equalsIgnoreCase(request.getMethod(), "get")) {
 			return null;
 		}
 		// 根据请求url获取拦截器类型
-		Set<String> urls = urlMap.keySet();
-		for (String url : urls) {
-			if (antPathMatcher.match(url, request.getRequestURI())) {
-				result = urlMap.get(url);
-				break;
-			}
-		}
-
-		return result;
+		return urlIndex.match(request.getRequestURI());
 	}
 
 	public AuthenticationFailureHandler getAuthenticationFailureHandler() {
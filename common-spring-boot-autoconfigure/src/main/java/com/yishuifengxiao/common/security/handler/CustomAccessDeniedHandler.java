@@ -18,9 +18,12 @@ import org.springframework.security.web.savedrequest.SavedRequest;
 import com.yishuifengxiao.common.constant.SessionConstant;
 import com.yishuifengxiao.common.properties.SecurityProperties;
 import com.yishuifengxiao.common.security.context.SecurityHolder;
+import com.yishuifengxiao.common.security.entity.ResultSnapshot;
 import com.yishuifengxiao.common.security.eunm.HandleEnum;
 import com.yishuifengxiao.common.security.event.AccessDeniedEvent;
 import com.yishuifengxiao.common.security.processor.ProcessHandler;
+import com.yishuifengxiao.common.security.session.HttpSessionSecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
 import com.yishuifengxiao.common.tool.entity.Response;
 import com.yishuifengxiao.common.tool.utils.RegexUtil;
 import com.yishuifengxiao.common.utils.HttpUtil;
@@ -52,6 +55,11 @@ public class CustomAccessDeniedHandler extends AccessDeniedHandlerImpl {
 
 	private ApplicationContext context;
 
+	/**
+	 * 处理器之间传递信息的存储方式
+	 */
+	private SecurityAttributeStore attributeStore = new HttpSessionSecurityAttributeStore();
+
 	@Override
 	public void handle(HttpServletRequest request, HttpServletResponse response,
 			AccessDeniedException accessDeniedException) throws IOException, ServletException {
@@ -60,10 +68,15 @@ public class CustomAccessDeniedHandler extends AccessDeniedHandlerImpl {
 		// 引起跳转的uri
 		SavedRequest savedRequest= cache.getRequest(request, response);
 		String url = savedRequest!=null?savedRequest.getRedirectUrl():request.getRequestURL().toString();
-		// 存储消息到session中
-		request.getSession().setAttribute(SessionConstant.DENIE_MSG, accessDeniedException);
-		// 将被拦截的url存放到session中
-		request.getSession().setAttribute(SessionConstant.DENIE_URL, url);
+		String msg = Response.Const.MSG_UNAUTHORIZED;
+		if (RegexUtil.containChinese(accessDeniedException.getMessage())) {
+			msg = accessDeniedException.getMessage();
+		}
+		// 存储消息，只保存处理结果快照，不保存异常对象
+		attributeStore.setAttribute(request, response, SessionConstant.DENIE_MSG,
+				new ResultSnapshot(Response.Const.CODE_FORBIDDEN, msg, url));
+		// 存储被拦截的url
+		attributeStore.setAttribute(request, response, SessionConstant.DENIE_URL, url);
 		// 存储异常信息
 		SecurityHolder.getContext().setSecurityExcepion(request,accessDeniedException);
 		// 获取系统的处理方式
@@ -77,10 +90,6 @@ public class CustomAccessDeniedHandler extends AccessDeniedHandlerImpl {
 			super.handle(request, response, accessDeniedException);
 			return;
 		}
-		String msg = Response.Const.MSG_UNAUTHORIZED;
-		if (RegexUtil.containChinese(accessDeniedException.getMessage())) {
-			msg = accessDeniedException.getMessage();
-		}
 
 		customProcessor.handle(request, response, type == HandleEnum.REDIRECT,
 				securityProperties.getHandler().getDenie().getRedirectUrl(),
@@ -121,4 +130,13 @@ public class CustomAccessDeniedHandler extends AccessDeniedHandlerImpl {
 		this.context = context;
 	}
 
+
+	public SecurityAttributeStore getAttributeStore() {
+		return attributeStore;
+	}
+
+	public void setAttributeStore(SecurityAttributeStore attributeStore) {
+		this.attributeStore = attributeStore;
+	}
+
 }
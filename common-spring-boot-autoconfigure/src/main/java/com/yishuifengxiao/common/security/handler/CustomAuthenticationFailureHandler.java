@@ -15,9 +15,12 @@ import org.springframework.security.web.authentication.SimpleUrlAuthenticationFa
 import com.yishuifengxiao.common.constant.SessionConstant;
 import com.yishuifengxiao.common.properties.SecurityProperties;
 import com.yishuifengxiao.common.security.context.SecurityHolder;
+import com.yishuifengxiao.common.security.entity.ResultSnapshot;
 import com.yishuifengxiao.common.security.eunm.HandleEnum;
 import com.yishuifengxiao.common.security.event.AuthenticationFailureEvent;
 import com.yishuifengxiao.common.security.processor.ProcessHandler;
+import com.yishuifengxiao.common.security.session.HttpSessionSecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
 import com.yishuifengxiao.common.tool.entity.Response;
 import com.yishuifengxiao.common.tool.utils.RegexUtil;
 import com.yishuifengxiao.common.utils.HttpUtil;
@@ -44,6 +47,11 @@ public class CustomAuthenticationFailureHandler extends SimpleUrlAuthenticationF
 
 	private ApplicationContext context;
 
+	/**
+	 * 处理器之间传递信息的存储方式
+	 */
+	private SecurityAttributeStore attributeStore = new HttpSessionSecurityAttributeStore();
+
 	@Override
 	public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
 			AuthenticationException exception) throws IOException, ServletException {
@@ -51,8 +59,13 @@ public class CustomAuthenticationFailureHandler extends SimpleUrlAuthenticationF
 		// 发布事件
 		context.publishEvent(new AuthenticationFailureEvent(exception, request));
 
-		//存储消息到session中
-		request.getSession().setAttribute(SessionConstant.FAIL_MSG, exception);
+		String msg = "用户名或密码不正确";
+		if (RegexUtil.containChinese(exception.getMessage())) {
+			msg = exception.getMessage();
+		}
+		//存储消息，只保存处理结果快照，不保存异常对象
+		attributeStore.setAttribute(request, response, SessionConstant.FAIL_MSG,
+				new ResultSnapshot(Response.Const.CODE_INTERNAL_SERVER_ERROR, msg, request.getRequestURI()));
 		// 存储异常信息
 		SecurityHolder.getContext().setSecurityExcepion(request,exception);
 		
@@ -67,10 +80,6 @@ public class CustomAuthenticationFailureHandler extends SimpleUrlAuthenticationF
 			super.onAuthenticationFailure(request, response, exception);
 			return;
 		}
-		String msg = "用户名或密码不正确";
-		if (RegexUtil.containChinese(exception.getMessage())) {
-			msg = exception.getMessage();
-		}
 
 		customProcessor.handle(request, response, type == HandleEnum.REDIRECT,
 				securityProperties.getHandler().getFail().getRedirectUrl(),
@@ -119,4 +128,12 @@ public class CustomAuthenticationFailureHandler extends SimpleUrlAuthenticationF
 		this.context = context;
 	}
 
+	public SecurityAttributeStore getAttributeStore() {
+		return attributeStore;
+	}
+
+	public void setAttributeStore(SecurityAttributeStore attributeStore) {
+		this.attributeStore = attributeStore;
+	}
+
 }
\ No newline at end of file
@@ -21,6 +21,8 @@ import com.yishuifengxiao.common.properties.SecurityProperties;
 import com.yishuifengxiao.common.security.eunm.HandleEnum;
 import com.yishuifengxiao.common.security.event.AuthenticationSuccessEvent;
 import com.yishuifengxiao.common.security.processor.ProcessHandler;
+import com.yishuifengxiao.common.security.session.HttpSessionSecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
 import com.yishuifengxiao.common.tool.entity.Response;
 import com.yishuifengxiao.common.utils.HttpUtil;
 
@@ -58,15 +60,24 @@ public class CustomAuthenticationSuccessHandler extends SavedRequestAwareAuthent
 
 	private ApplicationContext context;
 
+	/**
+	 * 处理器之间传递信息的存储方式
+	 */
+	private SecurityAttributeStore attributeStore = new HttpSessionSecurityAttributeStore();
+
 	@Override
 	public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
 			Authentication authentication) throws IOException, ServletException {
 
 		// 发布事件
 		context.publishEvent(new AuthenticationSuccessEvent(authentication, request));
+		// 登录成功后之前的失败消息不再需要展示
+		attributeStore.removeAttribute(request, response, SessionConstant.FAIL_MSG);
+		attributeStore.removeAttribute(request, response, SessionConstant.EXCEPTION_MSG);
+		attributeStore.removeAttribute(request, response, SessionConstant.DENIE_MSG);
 		// 引起跳转的url
 		String url = request.getRequestURI();
-		String historyUrl = match(request);
+		String historyUrl = match(request, response);
 		if (null != historyUrl) {
 			//如果是 /oauth/authorize 请求，就直接跳转
 			redirectStrategy.sendRedirect(request, response, historyUrl);
@@ -96,16 +107,15 @@ public class CustomAuthenticationSuccessHandler extends SavedRequestAwareAuthent
 	 * 判断当前请求是否时符合跳转要求
 	 * 
 	 * @param request
+	 * @param response
 	 * @return
 	 */
-	private String match(HttpServletRequest request) {
-		// 获取到上次请求失败的url的路径
-		String historyUrl = (String) request.getSession().getAttribute(SessionConstant.EXCEPTION_URL);
+	private String match(HttpServletRequest request, HttpServletResponse response) {
+		// 获取到上次请求失败的url的路径，只使用一次
+		String historyUrl = (String) attributeStore.consumeAttribute(request, response, SessionConstant.EXCEPTION_URL);
 		if (StringUtils.isNotBlank(historyUrl)) {
 			if (matcher.match(AUTHORIZE_URL, historyUrl)
 					|| matcher.match(AUTHORIZE_URL, request.getContextPath() + historyUrl)) {
-				// 去掉历史记录
-				request.getSession().setAttribute(SessionConstant.EXCEPTION_URL, null);
 				return historyUrl;
 			}
 
@@ -153,4 +163,12 @@ public class CustomAuthenticationSuccessHandler extends SavedRequestAwareAuthent
 		this.context = context;
 	}
 
+	public SecurityAttributeStore getAttributeStore() {
+		return attributeStore;
+	}
+
+	public void setAttributeStore(SecurityAttributeStore attributeStore) {
+		this.attributeStore = attributeStore;
+	}
+
 }
\ No newline at end of file
@@ -6,14 +6,14 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
 /**
  * 排除路径匹配器<br/>
  * 如果路径在目标路径匹配范围之内,则返回为true<br/>
  * 
- * 如 /demo/**表示除了/demo/**之外的路径都能匹配
+ * 如 /demo/**表示除了/demo/**之外的路径都能匹配<br/>
+ * 所有的路径在构建时编译为 PathPatternIndex，匹配时只遍历一次请求路径，不再为每个路径创建 AntPathRequestMatcher
  * 
  * @author yishui
  * @date 2019年7月22日
@@ -26,6 +26,16 @@ public class ExcludeRequestMatcher implements RequestMatcher {
 
 	private List<String> patterns = new ArrayList<>();
 
+	/**
+	 * 编译后的路径索引
+	 */
+	private final PathPatternIndex<Boolean> index;
+
+	/**
+	 * 是否包含匹配所有路径的 /** 或 **
+	 */
+	private final boolean matchAll;
+
 	public ExcludeRequestMatcher(List<String> patterns) {
 		this(null, true, patterns);
 	}
@@ -41,24 +51,40 @@ public class ExcludeRequestMatcher implements RequestMatcher {
 		this.httpMethod = httpMethod;
 		this.caseSensitive = caseSensitive;
 		this.patterns = patterns;
+		this.index = new PathPatternIndex<>(caseSensitive);
+		boolean all = false;
+		for (String pattern : patterns) {
+			if (StringUtils.equalsAny(pattern, "/**", "**")) {
+				all = true;
+			}
+			index.add(pattern, Boolean.TRUE);
+		}
+		this.matchAll = all;
 	}
 
 	@Override
 	public boolean matches(HttpServletRequest request) {
-
-		boolean matche = true;
-
-		for (String pattern : this.patterns) {
-			if (StringUtils.isBlank(pattern)) {
-				continue;
-			}
-			if (new AntPathRequestMatcher(pattern, this.httpMethod, this.caseSensitive).matches(request)) {
-				matche = false;
-				break;
-			}
+		if (StringUtils.isNotBlank(this.httpMethod) && StringUtils.isNotBlank(request.getMethod())
+				&& !StringUtils.equals(this.httpMethod, request.getMethod())) {
+			// 请求方法不一致时所有的排除路径都不生效
+			return true;
 		}
+		if (this.matchAll) {
+			return false;
+		}
+		return !index.matches(getRequestPath(request));
+	}
 
-		return matche;
+	/**
+	 * 获取请求路径，与 AntPathRequestMatcher 一致，不包含项目名
+	 * 
+	 * @param request 请求
+	 * @return 请求路径
+	 */
+	private String getRequestPath(HttpServletRequest request) {
+		String url = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		return null == pathInfo ? url : url + pathInfo;
 	}
 
 }
@@ -0,0 +1,61 @@
+package com.yishuifengxiao.common.security.matcher;
+
+import java.util.Collection;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * 基于 PathPatternIndex 的多路径匹配器<br/>
+ * 请求路径与任意一个路径匹配时返回true，代替为每个路径分别注册 antMatchers 和 mvcMatchers，
+ * 所有路径只占用一个匹配规则，每次请求只遍历一次请求路径。<br/>
+ * 与 mvcMatchers 的默认行为一致，以 / 结尾的请求路径去掉结尾的 / 之后再匹配一次
+ *
+ * @author yishui
+ * @date 2019年11月26日
+ * @version 1.0.0
+ */
+public class IndexedPathRequestMatcher implements RequestMatcher {
+
+	private final PathPatternIndex<Boolean> index;
+
+	/**
+	 *
+	 * @param patterns ant风格的路径
+	 */
+	public IndexedPathRequestMatcher(Collection<String> patterns) {
+		this(patterns, true);
+	}
+
+	/**
+	 *
+	 * @param patterns      ant风格的路径
+	 * @param caseSensitive 是否区分大小写
+	 */
+	public IndexedPathRequestMatcher(Collection<String> patterns, boolean caseSensitive) {
+		if (patterns == null) {
+			throw new IllegalArgumentException("匹配路径不能为空");
+		}
+		this.index = new PathPatternIndex<Boolean>(caseSensitive).addAll(patterns, Boolean.TRUE);
+	}
+
+	@Override
+	public boolean matches(HttpServletRequest request) {
+		String path = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		if (null != pathInfo) {
+			path = path + pathInfo;
+		}
+		if (index.matches(path)) {
+			return true;
+		}
+		return path.length() > 1 && path.endsWith("/") && index.matches(path.substring(0, path.length() - 1));
+	}
+
+	@Override
+	public String toString() {
+		return "IndexedPathRequestMatcher [patterns=" + index.size() + "]";
+	}
+
+}
@@ -0,0 +1,295 @@
+package com.yishuifengxiao.common.security.matcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * 预先编译的路径匹配索引<br/>
+ * 启动时将所有的ant风格路径按照开头的字面量段(不含 * ? { 的段)构建成一棵按段划分的前缀树，
+ * 匹配时只需要沿着请求路径的各个段遍历一次前缀树，只有字面量前缀与请求路径一致的含通配符的路径才会交给
+ * AntPathMatcher 做最终的匹配；完全是字面量的路径直接在前缀树的节点上比较，不再经过 AntPathMatcher。<br/>
+ * 匹配结果与逐个调用 AntPathMatcher.match 一致，多个路径都能匹配时返回最先加入的路径对应的值。<br/>
+ * 所有路径都应该在开始匹配之前加入，开始匹配之后只读，可以被多个线程同时使用
+ *
+ * @param <T> 路径对应的值的类型
+ * @author yishui
+ * @date 2019年11月25日
+ * @version 1.0.0
+ */
+public class PathPatternIndex<T> {
+
+	private final static String SEPARATOR = "/";
+
+	/**
+	 * 是否区分大小写
+	 */
+	private final boolean caseSensitive;
+
+	/**
+	 * 含通配符的路径的最终匹配器
+	 */
+	private final AntPathMatcher matcher;
+
+	/**
+	 * 前缀树的根节点
+	 */
+	private final Node<T> root = new Node<>();
+
+	/**
+	 * 已经加入的路径的数量，同时作为路径的优先级
+	 */
+	private int size = 0;
+
+	/**
+	 * 构建一个区分大小写的路径索引
+	 */
+	public PathPatternIndex() {
+		this(true);
+	}
+
+	/**
+	 *
+	 * @param caseSensitive 是否区分大小写
+	 */
+	public PathPatternIndex(boolean caseSensitive) {
+		this.caseSensitive = caseSensitive;
+		this.matcher = new AntPathMatcher();
+		this.matcher.setCaseSensitive(caseSensitive);
+	}
+
+	/**
+	 * 加入一个需要匹配的路径，空白的路径会被忽略
+	 *
+	 * @param pattern ant风格的路径
+	 * @param value   路径对应的值
+	 * @return 当前路径索引
+	 */
+	public PathPatternIndex<T> add(String pattern, T value) {
+		if (StringUtils.isBlank(pattern)) {
+			return this;
+		}
+		Entry<T> entry = new Entry<>(pattern, value, size++);
+		Node<T> node = root;
+		boolean literal = true;
+		for (String token : tokenize(pattern)) {
+			if (isWildcard(token)) {
+				literal = false;
+				break;
+			}
+			node = node.child(normalize(token));
+		}
+		if (literal) {
+			node.exacts.add(entry);
+		} else {
+			node.wildcards.add(entry);
+		}
+		return this;
+	}
+
+	/**
+	 * 加入多个需要匹配的路径
+	 *
+	 * @param patterns ant风格的路径
+	 * @param value    这些路径对应的值
+	 * @return 当前路径索引
+	 */
+	public PathPatternIndex<T> addAll(Iterable<String> patterns, T value) {
+		if (null != patterns) {
+			for (String pattern : patterns) {
+				this.add(pattern, value);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * 查找与请求路径匹配的路径对应的值
+	 *
+	 * @param path 请求路径
+	 * @return 最先加入的匹配路径对应的值，没有匹配的路径时返回null
+	 */
+	public T match(String path) {
+		Entry<T> entry = this.lookup(path);
+		return null == entry ? null : entry.value;
+	}
+
+	/**
+	 * 查找与请求路径匹配的路径
+	 *
+	 * @param path 请求路径
+	 * @return 最先加入的匹配路径，没有匹配的路径时返回null
+	 */
+	public String matchPattern(String path) {
+		Entry<T> entry = this.lookup(path);
+		return null == entry ? null : entry.pattern;
+	}
+
+	/**
+	 * 请求路径是否与任意一个路径匹配
+	 *
+	 * @param path 请求路径
+	 * @return 匹配时返回true
+	 */
+	public boolean matches(String path) {
+		return null != this.lookup(path);
+	}
+
+	/**
+	 * 已经加入的路径的数量
+	 *
+	 * @return 路径的数量
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 是否还没有加入任何路径
+	 *
+	 * @return 没有加入任何路径时返回true
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private Entry<T> lookup(String path) {
+		if (null == path || size == 0) {
+			return null;
+		}
+		Entry<T> best = null;
+		Node<T> node = root;
+		int length = path.length();
+		int start = 0;
+		while (null != node) {
+			best = this.matchWildcards(node, path, best);
+			// 跳过连续的分隔符，与 AntPathMatcher 忽略空段的行为一致
+			while (start < length && path.charAt(start) == '/') {
+				start++;
+			}
+			if (start >= length) {
+				return this.matchExacts(node, path, best);
+			}
+			if (node.children.isEmpty()) {
+				return best;
+			}
+			int end = path.indexOf('/', start);
+			if (end < 0) {
+				end = length;
+			}
+			node = node.children.get(normalize(path.substring(start, end)));
+			start = end;
+		}
+		return best;
+	}
+
+	private Entry<T> matchWildcards(Node<T> node, String path, Entry<T> best) {
+		for (Entry<T> entry : node.wildcards) {
+			if (null != best && best.order < entry.order) {
+				// 同一个节点上的路径按照加入的顺序排列，后面的优先级更低
+				break;
+			}
+			if (matcher.match(entry.pattern, path)) {
+				return entry;
+			}
+		}
+		return best;
+	}
+
+	private Entry<T> matchExacts(Node<T> node, String path, Entry<T> best) {
+		boolean leading = path.startsWith(SEPARATOR);
+		boolean trailing = path.endsWith(SEPARATOR);
+		for (Entry<T> entry : node.exacts) {
+			if (null != best && best.order < entry.order) {
+				break;
+			}
+			if (entry.leading == leading && entry.trailing == trailing) {
+				return entry;
+			}
+		}
+		return best;
+	}
+
+	private String normalize(String token) {
+		return caseSensitive ? token : token.toLowerCase();
+	}
+
+	private static boolean isWildcard(String token) {
+		return token.indexOf('*') >= 0 || token.indexOf('?') >= 0 || token.indexOf('{') >= 0;
+	}
+
+	private static List<String> tokenize(String pattern) {
+		List<String> tokens = new ArrayList<>();
+		for (String token : StringUtils.split(pattern, SEPARATOR)) {
+			tokens.add(token);
+		}
+		return tokens;
+	}
+
+	/**
+	 * 前缀树的节点
+	 */
+	private static class Node<T> {
+
+		/**
+		 * 下一个字面量段对应的子节点
+		 */
+		private Map<String, Node<T>> children = Collections.emptyMap();
+
+		/**
+		 * 字面量前缀到此为止的含通配符的路径
+		 */
+		private final List<Entry<T>> wildcards = new ArrayList<>(0);
+
+		/**
+		 * 到此为止的完全是字面量的路径
+		 */
+		private final List<Entry<T>> exacts = new ArrayList<>(0);
+
+		private Node<T> child(String token) {
+			if (children.isEmpty()) {
+				children = new HashMap<>(4);
+			}
+			return children.computeIfAbsent(token, key -> new Node<>());
+		}
+	}
+
+	/**
+	 * 加入索引的路径
+	 */
+	private static class Entry<T> {
+
+		private final String pattern;
+
+		private final T value;
+
+		/**
+		 * 加入的顺序，越小优先级越高
+		 */
+		private final int order;
+
+		/**
+		 * 路径是否以分隔符开头
+		 */
+		private final boolean leading;
+
+		/**
+		 * 路径是否以分隔符结尾
+		 */
+		private final boolean trailing;
+
+		private Entry(String pattern, T value, int order) {
+			this.pattern = pattern;
+			this.value = value;
+			this.order = order;
+			this.leading = pattern.startsWith(SEPARATOR);
+			this.trailing = pattern.endsWith(SEPARATOR);
+		}
+	}
+
+}
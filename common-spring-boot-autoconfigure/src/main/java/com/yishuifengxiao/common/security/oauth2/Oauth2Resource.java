@@ -9,11 +9,14 @@ import org.springframework.security.oauth2.provider.authentication.BearerTokenEx
 import org.springframework.security.oauth2.provider.authentication.TokenExtractor;
 import org.springframework.security.oauth2.provider.error.OAuth2AuthenticationEntryPoint;
 import org.springframework.security.oauth2.provider.error.WebResponseExceptionTranslator;
+import org.springframework.security.oauth2.provider.token.AuthorizationServerTokenServices;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
 
 import com.yishuifengxiao.common.properties.Oauth2Properties;
+import com.yishuifengxiao.common.properties.SecurityProperties;
 import com.yishuifengxiao.common.security.authorize.intercept.AuthorizeResourceProvider;
 import com.yishuifengxiao.common.security.manager.authorize.AuthorizeConfigManager;
 /**
@@ -27,6 +30,9 @@ public class Oauth2Resource extends ResourceServerConfigurerAdapter {
 	@Autowired
 	private Oauth2Properties oauth2Properties;
 
+	@Autowired
+	private SecurityProperties securityProperties;
+
 	/**
 	 * 定义在security-core包中
 	 */
@@ -57,6 +63,20 @@ public class Oauth2Resource extends ResourceServerConfigurerAdapter {
 	@Qualifier("auth2ResponseExceptionTranslator")
 	private  WebResponseExceptionTranslator auth2ResponseExceptionTranslator;
 
+	/**
+	 * 与授权服务器分开部署时通过授权服务器校验token，配置了 check-token-uri 时才存在
+	 */
+	@Autowired(required = false)
+	@Qualifier("remoteTokenServices")
+	private ResourceServerTokenServices remoteTokenServices;
+
+	/**
+	 * 与授权服务器部署在一起时直接使用授权服务器的token服务校验token
+	 */
+	@Autowired(required = false)
+	@Qualifier("authorizationServerTokenServices")
+	private AuthorizationServerTokenServices authorizationServerTokenServices;
+
 	@Override
 	public void configure(ResourceServerSecurityConfigurer resources) {
 
@@ -71,12 +91,31 @@ public class Oauth2Resource extends ResourceServerConfigurerAdapter {
 		resources.tokenExtractor(tokenExtractor);
 		// 权限拒绝处理器
 		resources.accessDeniedHandler(customAccessDeniedHandler);
-		resources.stateless(false);
+		// 无状态模式下资源只允许通过token访问
+		resources.stateless(Boolean.TRUE.equals(securityProperties.getSession().getStateless()));
 		// 不然自定义权限表达式不生效
 		resources.expressionHandler(expressionHandler);
 		resources.resourceId(this.oauth2Properties.getRealm());
-		// token的验证和读取策略
-		// resources.tokenServices(tokenServices);
+		// token的验证和读取策略，必须明确指定，否则存在多个token服务时会退回到直接读取tokenStore
+		ResourceServerTokenServices tokenServices = this.resourceServerTokenServices();
+		if (null != tokenServices) {
+			resources.tokenServices(tokenServices);
+		}
+	}
+
+	/**
+	 * 获取资源服务器校验token使用的token服务，优先使用远程token服务
+	 * 
+	 * @return 资源服务器校验token使用的token服务
+	 */
+	private ResourceServerTokenServices resourceServerTokenServices() {
+		if (null != remoteTokenServices) {
+			return remoteTokenServices;
+		}
+		if (authorizationServerTokenServices instanceof ResourceServerTokenServices) {
+			return (ResourceServerTokenServices) authorizationServerTokenServices;
+		}
+		return null;
 	}
 
 	@Override
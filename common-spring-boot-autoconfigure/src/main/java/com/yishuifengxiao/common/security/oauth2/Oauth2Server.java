@@ -64,11 +64,11 @@ public class Oauth2Server extends AuthorizationServerConfigurerAdapter {
 	private AuthenticationEntryPoint exceptionAuthenticationEntryPoint;
 
 	/**
-	 * 决定是否授权
+	 * 决定是否授权【带缓存功能】
 	 */
 	@Autowired
-	@Qualifier("customClientDetailsService")
-	private ClientDetailsService customClientDetailsService;
+	@Qualifier("cachingClientDetailsService")
+	private ClientDetailsService cachingClientDetailsService;
 
 	/**
 	 * token生成器，负责token的生成或获取
@@ -85,7 +85,7 @@ public class Oauth2Server extends AuthorizationServerConfigurerAdapter {
 	@Override
 	public void configure(ClientDetailsServiceConfigurer clients) throws Exception {
 
-		clients.withClientDetails(customClientDetailsService);
+		clients.withClientDetails(cachingClientDetailsService);
 	}
 
 	@Override
@@ -1,31 +1,40 @@
 package com.yishuifengxiao.common.security.oauth2.enhancer;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Base64;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.DESKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
-import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
-import org.springframework.security.oauth2.common.OAuth2RefreshToken;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.token.TokenEnhancer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.yishuifengxiao.common.security.entity.CustomToken;
 import com.yishuifengxiao.common.tool.encoder.DES;
-import com.yishuifengxiao.common.tool.random.UID;
 
 /**
- * 自定义token生成器
+ * 自定义token生成器<br/>
+ * 把token的相关信息序列化为json后加密作为token的值，refresh token保持token服务生成的值不变。<br/>
+ * 未设置密钥时使用 DES 工具的默认密钥加密；设置密钥后每个线程复用自己的 Cipher 实例，加密结果使用不带填充的URL安全的Base64编码
  * 
  * @author yishui
  * @date 2019年4月1日
@@ -38,32 +47,75 @@ public class CustomeTokenEnhancer implements TokenEnhancer {
 	/**
 	 * 时间格式化的形式
 	 */
-	private final static String PATTERN = "yyyy-MM-dd HH:mm:ss";
+	private final static DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 	/**
 	 * 时区
 	 */
-	private final static String ZONE_ID = "Asia/Shanghai";
+	private final static ZoneId ZONE_ID = ZoneId.of("Asia/Shanghai");
+
+	/**
+	 * 加密算法
+	 */
+	private final static String TRANSFORMATION = "DES/ECB/PKCS5Padding";
+
+	private final static ObjectWriter WRITER = new ObjectMapper().writerFor(CustomToken.class);
+
+	private final static Map<String, Object> ADDITIONAL_INFORMATION = Collections.singletonMap("developer",
+			"yishuifengxiao");
+
+	/**
+	 * 加密使用的密钥，为null时使用 DES 工具的默认密钥
+	 */
+	private SecretKey secretKey;
+
+	private ThreadLocal<Cipher> encryptors;
+
+	private ThreadLocal<Cipher> decryptors;
 
-	private ObjectMapper om = new ObjectMapper();
+	public CustomeTokenEnhancer() {
+
+	}
+
+	/**
+	 * 
+	 * @param secretKey 加密使用的密钥，为空时使用 DES 工具的默认密钥
+	 */
+	public CustomeTokenEnhancer(String secretKey) {
+		this.setSecretKey(secretKey);
+	}
 
 	@Override
 	public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
-		log.debug("自定义token生成器中得到的初始化token为 {} ,初始化认证信息为 {}", accessToken, authentication);
+		if (log.isDebugEnabled()) {
+			log.debug("自定义token生成器中得到的初始化token为 {} ,初始化认证信息为 {}", accessToken, authentication);
+		}
 		if (accessToken instanceof DefaultOAuth2AccessToken) {
 			DefaultOAuth2AccessToken token = ((DefaultOAuth2AccessToken) accessToken);
 			token.setValue(getNewToken(accessToken, authentication));
-			OAuth2RefreshToken refreshToken = token.getRefreshToken();
-			if (refreshToken instanceof DefaultOAuth2RefreshToken) {
-				token.setRefreshToken(new DefaultOAuth2RefreshToken(UID.uuid()));
-			}
-			Map<String, Object> additionalInformation = new HashMap<String, Object>(1);
-			additionalInformation.put("developer", "yishuifengxiao");
-			token.setAdditionalInformation(additionalInformation);
+			token.setAdditionalInformation(ADDITIONAL_INFORMATION);
 			return token;
 		}
 		return accessToken;
 	}
 
+	/**
+	 * 解密token的值，仅在设置了密钥时可用
+	 * 
+	 * @param tokenValue token的值
+	 * @return token中包含的json信息
+	 */
+	public String decrypt(String tokenValue) {
+		if (null == decryptors) {
+			return DES.decrypt(tokenValue);
+		}
+		try {
+			return new String(decryptors.get().doFinal(Base64.getUrlDecoder().decode(tokenValue)),
+					StandardCharsets.UTF_8);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalArgumentException("token的值无法解密", e);
+		}
+	}
+
 	/**
 	 * 自定义token生成方式
 	 * 
@@ -82,18 +134,66 @@ public class CustomeTokenEnhancer implements TokenEnhancer {
 		// 授权模式
 		String grantType = authentication.getOAuth2Request().getGrantType();
 		// 生成token的时间
-		String time = LocalDateTime.now(ZoneId.of(ZONE_ID)).format(DateTimeFormatter.ofPattern(PATTERN));
+		String time = LocalDateTime.now(ZONE_ID).format(FORMATTER);
 
 		CustomToken customToken = new CustomToken(username, clientId, list, grantType, time,
 				accessToken.getExpiresIn());
-		String token = customToken.toString();
+		// token服务生成的随机值作为唯一标识
+		customToken.setId(accessToken.getValue());
+		String token;
 		try {
-			token = om.writeValueAsString(customToken);
+			token = WRITER.writeValueAsString(customToken);
 		} catch (JsonProcessingException e) {
+			token = customToken.toString();
+		}
 
+		return this.encrypt(token);
+	}
+
+	private String encrypt(String token) {
+		if (null == encryptors) {
+			return DES.encrypt(token);
 		}
+		try {
+			return Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(encryptors.get().doFinal(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("token的值加密失败", e);
+		}
+	}
 
-		return DES.encrypt(token);
+	private Cipher cipher(int mode) {
+		try {
+			Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+			cipher.init(mode, secretKey);
+			return cipher;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("无法初始化token加密工具", e);
+		}
+	}
+
+	/**
+	 * 设置加密使用的密钥，为空时使用 DES 工具的默认密钥
+	 * 
+	 * @param secretKey 加密使用的密钥，至少8个字符
+	 */
+	public void setSecretKey(String secretKey) {
+		if (StringUtils.isBlank(secretKey)) {
+			this.secretKey = null;
+			this.encryptors = null;
+			this.decryptors = null;
+			return;
+		}
+		try {
+			this.secretKey = SecretKeyFactory.getInstance("DES")
+					.generateSecret(new DESKeySpec(secretKey.getBytes(StandardCharsets.UTF_8)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalArgumentException("token加密密钥不合法，密钥至少需要8个字符", e);
+		}
+		// 先初始化一次，尽早暴露配置问题
+		this.cipher(Cipher.ENCRYPT_MODE);
+		this.encryptors = ThreadLocal.withInitial(() -> this.cipher(Cipher.ENCRYPT_MODE));
+		this.decryptors = ThreadLocal.withInitial(() -> this.cipher(Cipher.DECRYPT_MODE));
 	}
 
 }
@@ -0,0 +1,45 @@
+package com.yishuifengxiao.common.security.oauth2.enhancer;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenEnhancer;
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.security.oauth2.token.JwsTokenCodec;
+
+/**
+ * 签名token生成器<br/>
+ * 把token服务生成的随机值作为唯一标识，与认证信息一起签名后作为token的值，资源服务器可以直接校验token而不需要访问token存储
+ * 
+ * @author yishui
+ * @date 2019年11月20日
+ * @version 1.0.0
+ */
+public class JwsTokenEnhancer implements TokenEnhancer {
+
+	private final static Map<String, Object> ADDITIONAL_INFORMATION = Collections.singletonMap("developer",
+			"yishuifengxiao");
+
+	private final JwsTokenCodec codec;
+
+	public JwsTokenEnhancer(JwsTokenCodec codec) {
+		Assert.notNull(codec, "签名token编解码工具不能为空");
+		this.codec = codec;
+	}
+
+	@Override
+	public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+		if (accessToken instanceof DefaultOAuth2AccessToken) {
+			DefaultOAuth2AccessToken token = ((DefaultOAuth2AccessToken) accessToken);
+			token.setValue(codec.encode(accessToken, authentication));
+			token.setAdditionalInformation(ADDITIONAL_INFORMATION);
+			return token;
+		}
+		return accessToken;
+	}
+
+}
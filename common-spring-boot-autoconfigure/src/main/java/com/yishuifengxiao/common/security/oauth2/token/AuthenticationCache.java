@@ -0,0 +1,291 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.security.event.TokenRemoveEvent;
+
+/**
+ * 认证信息本地缓存<br/>
+ * 以token的值为键缓存根据token解析出的认证信息，缓存的存活时间不会超过token的剩余有效时间。<br/>
+ * token被删除时(包括收到 TokenRemoveEvent 事件)会删除对应的缓存，并通过 TokenInvalidationBroadcaster
+ * 通知其他节点删除缓存
+ *
+ * @author yishui
+ * @date 2019年11月16日
+ * @version 1.0.0
+ */
+public class AuthenticationCache implements ApplicationListener<TokenRemoveEvent> {
+
+	private final static Logger log = LoggerFactory.getLogger(AuthenticationCache.class);
+
+	/**
+	 * 缓存的最大数量
+	 */
+	private final int maxSize;
+
+	/**
+	 * 缓存的存活时间，单位为毫秒
+	 */
+	private final long ttl;
+
+	/**
+	 * 缓存的认证信息，键为access token的值
+	 */
+	private final Map<String, CachedAuthentication> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * refresh token的值与access token的值的对应关系
+	 */
+	private final Map<String, String> refreshIndex = new ConcurrentHashMap<>();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * 通知其他节点删除缓存的工具，为null时表示只删除本地缓存
+	 */
+	private volatile TokenInvalidationBroadcaster broadcaster;
+
+	/**
+	 *
+	 * @param maxSize 缓存的最大数量
+	 * @param ttl     缓存的存活时间，单位为秒
+	 */
+	public AuthenticationCache(int maxSize, int ttl) {
+		Assert.isTrue(maxSize > 0, "缓存的最大数量必须大于0");
+		this.maxSize = maxSize;
+		this.ttl = ttl * 1000L;
+	}
+
+	/**
+	 * 根据token的值获取缓存的认证信息
+	 *
+	 * @param tokenValue access token的值
+	 * @return 缓存的认证信息，不存在或已过期时返回为null
+	 */
+	public OAuth2Authentication get(String tokenValue) {
+		if (null == tokenValue) {
+			return null;
+		}
+		CachedAuthentication cached = entries.get(tokenValue);
+		if (null == cached) {
+			missCount.increment();
+			return null;
+		}
+		if (cached.expireAt <= System.currentTimeMillis()) {
+			this.remove(tokenValue);
+			missCount.increment();
+			return null;
+		}
+		hitCount.increment();
+		return cached.authentication;
+	}
+
+	/**
+	 * 缓存认证信息
+	 *
+	 * @param accessToken    access token
+	 * @param authentication 认证信息
+	 */
+	public void put(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+		if (null == accessToken || null == authentication) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long expireAt = now + ttl;
+		if (null != accessToken.getExpiration()) {
+			expireAt = Math.min(expireAt, accessToken.getExpiration().getTime());
+		}
+		if (expireAt <= now) {
+			return;
+		}
+		if (entries.size() >= maxSize) {
+			this.evict(now);
+		}
+		String refreshTokenValue = null == accessToken.getRefreshToken() ? null
+				: accessToken.getRefreshToken().getValue();
+		entries.put(accessToken.getValue(), new CachedAuthentication(authentication, refreshTokenValue, expireAt));
+		if (null != refreshTokenValue) {
+			refreshIndex.put(refreshTokenValue, accessToken.getValue());
+		}
+	}
+
+	/**
+	 * 删除本地缓存并通知其他节点删除缓存
+	 *
+	 * @param tokenValue access token的值
+	 */
+	public void invalidate(String tokenValue) {
+		this.invalidateLocal(tokenValue);
+		TokenInvalidationBroadcaster broadcaster = this.broadcaster;
+		if (null != broadcaster && null != tokenValue) {
+			broadcaster.broadcastAccessToken(tokenValue);
+		}
+	}
+
+	/**
+	 * 删除refresh token对应的access token的本地缓存并通知其他节点删除缓存
+	 *
+	 * @param refreshTokenValue refresh token的值
+	 */
+	public void invalidateByRefreshToken(String refreshTokenValue) {
+		this.invalidateLocalByRefreshToken(refreshTokenValue);
+		TokenInvalidationBroadcaster broadcaster = this.broadcaster;
+		if (null != broadcaster && null != refreshTokenValue) {
+			broadcaster.broadcastRefreshToken(refreshTokenValue);
+		}
+	}
+
+	/**
+	 * 只删除本地缓存
+	 *
+	 * @param tokenValue access token的值
+	 */
+	public void invalidateLocal(String tokenValue) {
+		if (null != tokenValue) {
+			this.remove(tokenValue);
+		}
+	}
+
+	/**
+	 * 只删除refresh token对应的access token的本地缓存
+	 *
+	 * @param refreshTokenValue refresh token的值
+	 */
+	public void invalidateLocalByRefreshToken(String refreshTokenValue) {
+		if (null == refreshTokenValue) {
+			return;
+		}
+		String tokenValue = refreshIndex.remove(refreshTokenValue);
+		if (null != tokenValue) {
+			entries.remove(tokenValue);
+		}
+	}
+
+	/**
+	 * 删除所有的本地缓存
+	 */
+	public void invalidateAll() {
+		entries.clear();
+		refreshIndex.clear();
+	}
+
+	@Override
+	public void onApplicationEvent(TokenRemoveEvent event) {
+		List<OAuth2AccessToken> accessTokens = event.getTokens();
+		if (accessTokens.size() == 1) {
+			log.debug("token {} 已被删除，删除对应的认证信息缓存", accessTokens.get(0).getValue());
+			this.invalidate(accessTokens.get(0).getValue());
+			return;
+		}
+		log.debug("{} 个token已被删除，删除对应的认证信息缓存", accessTokens.size());
+		List<String> tokenValues = new ArrayList<>(accessTokens.size());
+		for (OAuth2AccessToken accessToken : accessTokens) {
+			this.invalidateLocal(accessToken.getValue());
+			tokenValues.add(accessToken.getValue());
+		}
+		TokenInvalidationBroadcaster broadcaster = this.broadcaster;
+		if (null != broadcaster) {
+			broadcaster.broadcastAccessTokens(tokenValues);
+		}
+	}
+
+	private void remove(String tokenValue) {
+		CachedAuthentication cached = entries.remove(tokenValue);
+		if (null != cached && null != cached.refreshTokenValue) {
+			refreshIndex.remove(cached.refreshTokenValue, tokenValue);
+		}
+	}
+
+	/**
+	 * 缓存数量达到上限时腾出空间<br/>
+	 * 先删除所有已经过期的缓存，空间仍然不足时再按遍历顺序删除十分之一的缓存，避免每次写入都遍历一次
+	 *
+	 * @param now 当前时间
+	 */
+	private void evict(long now) {
+		Iterator<Map.Entry<String, CachedAuthentication>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, CachedAuthentication> entry = iterator.next();
+			if (entry.getValue().expireAt <= now) {
+				this.remove(entry.getKey());
+			}
+		}
+		int overflow = entries.size() - maxSize + Math.max(1, maxSize / 10);
+		iterator = entries.entrySet().iterator();
+		while (overflow-- > 0 && iterator.hasNext()) {
+			this.remove(iterator.next().getKey());
+		}
+	}
+
+	/**
+	 * 获取缓存命中次数
+	 *
+	 * @return 缓存命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 获取缓存未命中次数
+	 *
+	 * @return 缓存未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * 获取当前缓存的数量
+	 *
+	 * @return 当前缓存的数量
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	public TokenInvalidationBroadcaster getBroadcaster() {
+		return broadcaster;
+	}
+
+	public void setBroadcaster(TokenInvalidationBroadcaster broadcaster) {
+		this.broadcaster = broadcaster;
+	}
+
+	/**
+	 * 缓存的认证信息
+	 *
+	 * @author yishui
+	 * @date 2019年11月16日
+	 * @version 1.0.0
+	 */
+	private static class CachedAuthentication {
+
+		private final OAuth2Authentication authentication;
+
+		private final String refreshTokenValue;
+
+		private final long expireAt;
+
+		CachedAuthentication(OAuth2Authentication authentication, String refreshTokenValue, long expireAt) {
+			this.authentication = authentication;
+			this.refreshTokenValue = refreshTokenValue;
+			this.expireAt = expireAt;
+		}
+	}
+
+}
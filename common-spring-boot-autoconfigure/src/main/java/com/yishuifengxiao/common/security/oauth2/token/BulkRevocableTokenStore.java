@@ -0,0 +1,44 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.Collection;
+
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+/**
+ * 支持批量删除token的存储<br/>
+ * 存储内部维护了按用户和按终端的索引，可以一次性删除某个用户或者某个终端的所有token(包括对应的refresh token)，
+ * 不需要先查询出所有的token再逐个删除
+ *
+ * @author yishui
+ * @date 2019年11月19日
+ * @version 1.0.0
+ */
+public interface BulkRevocableTokenStore extends TokenStore {
+
+	/**
+	 * 删除某个用户在所有终端上的token
+	 *
+	 * @param userName 用户名
+	 * @return 被删除的access token
+	 */
+	Collection<OAuth2AccessToken> removeTokensByUserName(String userName);
+
+	/**
+	 * 删除某个用户在指定终端上的token
+	 *
+	 * @param clientId 终端id
+	 * @param userName 用户名
+	 * @return 被删除的access token
+	 */
+	Collection<OAuth2AccessToken> removeTokensByClientIdAndUserName(String clientId, String userName);
+
+	/**
+	 * 删除某个终端的所有token
+	 *
+	 * @param clientId 终端id
+	 * @return 被删除的access token
+	 */
+	Collection<OAuth2AccessToken> removeTokensByClientId(String clientId);
+
+}
@@ -0,0 +1,388 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * 带缓存的远程token校验服务<br/>
+ * 用于与授权服务器分开部署的资源服务器，通过授权服务器的 /oauth/check_token 端点校验token：
+ * <ul>
+ * <li>校验结果按token缓存，存活时间不超过token的剩余有效时间，缓存数量有上限</li>
+ * <li>无效的token同样缓存一段较短的时间，避免重复请求授权服务器</li>
+ * <li>同一时刻相同token的校验请求只会向授权服务器发出一次</li>
+ * <li>存在 apache httpclient 时使用连接池，否则使用jdk自带的连接，均设置了超时时间</li>
+ * </ul>
+ * 设置了token吊销列表时，已经被吊销的token即使命中缓存也会被拒绝
+ *
+ * @author yishui
+ * @date 2019年11月21日
+ * @version 1.0.0
+ */
+public class CachingRemoteTokenServices implements ResourceServerTokenServices, InitializingBean {
+
+	private final static Logger log = LoggerFactory.getLogger(CachingRemoteTokenServices.class);
+
+	private final static ParameterizedTypeReference<Map<String, Object>> MAP_TYPE = new ParameterizedTypeReference<Map<String, Object>>() {
+	};
+
+	private final static boolean HTTP_CLIENT_PRESENT = ClassUtils.isPresent("org.apache.http.client.HttpClient",
+			CachingRemoteTokenServices.class.getClassLoader());
+
+	/**
+	 * 授权服务器的token校验地址
+	 */
+	private final String checkTokenEndpointUrl;
+
+	/**
+	 * 访问token校验地址时使用的认证头
+	 */
+	private final String authorization;
+
+	/**
+	 * 校验结果的缓存，键为token的值
+	 */
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private RestOperations restTemplate;
+
+	private AccessTokenConverter tokenConverter = new DefaultAccessTokenConverter();
+
+	/**
+	 * 合并相同token的并发校验请求
+	 */
+	private TokenLock tokenLock = new SingleFlightTokenLock();
+
+	/**
+	 * token吊销列表，为null时不检查
+	 */
+	private TokenRevocationList revocationList;
+
+	/**
+	 * 最多缓存的校验结果的数量
+	 */
+	private int maxSize = 10000;
+
+	/**
+	 * 有效token的校验结果的缓存时间，单位为秒
+	 */
+	private int ttl = 30;
+
+	/**
+	 * 无效token的校验结果的缓存时间，单位为秒，小于等于0时不缓存
+	 */
+	private int negativeTtl = 5;
+
+	/**
+	 *
+	 * @param checkTokenEndpointUrl 授权服务器的token校验地址
+	 * @param clientId              访问token校验地址时使用的终端id
+	 * @param clientSecret          访问token校验地址时使用的终端密码
+	 */
+	public CachingRemoteTokenServices(String checkTokenEndpointUrl, String clientId, String clientSecret) {
+		Assert.hasText(checkTokenEndpointUrl, "token校验地址不能为空");
+		this.checkTokenEndpointUrl = checkTokenEndpointUrl;
+		this.authorization = null == clientId ? null
+				: "Basic " + Base64.getEncoder().encodeToString(
+						(clientId + ":" + (null == clientSecret ? "" : clientSecret)).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public OAuth2Authentication loadAuthentication(String accessToken)
+			throws AuthenticationException, InvalidTokenException {
+		if (null != revocationList && revocationList.isRevoked(accessToken)) {
+			throw new InvalidTokenException("Access token revoked: " + accessToken);
+		}
+		Entry entry = this.getEntry(accessToken);
+		if (null == entry) {
+			missCount.increment();
+			entry = tokenLock.execute("check_token:" + accessToken, () -> {
+				// 等待期间其他线程可能已经完成了校验
+				Entry cached = this.getEntry(accessToken);
+				return null != cached ? cached : this.check(accessToken);
+			});
+		} else {
+			hitCount.increment();
+		}
+		if (null == entry.authentication) {
+			throw new InvalidTokenException(accessToken);
+		}
+		return entry.authentication;
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String accessToken) {
+		throw new UnsupportedOperationException("Not supported: read access token");
+	}
+
+	/**
+	 * 删除token的缓存
+	 *
+	 * @param accessToken access token的值
+	 */
+	public void invalidate(String accessToken) {
+		if (null != accessToken) {
+			entries.remove(accessToken);
+		}
+	}
+
+	/**
+	 * 向授权服务器校验token并缓存校验结果
+	 *
+	 * @param accessToken access token的值
+	 * @return 校验结果
+	 */
+	private Entry check(String accessToken) {
+		Map<String, Object> map = this.postForMap(accessToken);
+		long now = System.currentTimeMillis();
+		Entry entry;
+		if (null == map || map.containsKey("error") || !Boolean.TRUE.equals(map.get("active"))) {
+			log.debug("token {} 校验失败，校验结果为 {}", accessToken, map);
+			entry = new Entry(null, now + negativeTtl * 1000L);
+			if (negativeTtl <= 0) {
+				return entry;
+			}
+		} else {
+			long expireAt = now + ttl * 1000L;
+			Object exp = map.get(AccessTokenConverter.EXP);
+			if (exp instanceof Number) {
+				expireAt = Math.min(expireAt, ((Number) exp).longValue() * 1000L);
+			}
+			entry = new Entry(tokenConverter.extractAuthentication(map), expireAt);
+			if (expireAt <= now) {
+				return entry;
+			}
+		}
+		if (entries.size() >= maxSize) {
+			this.evict(now);
+		}
+		entries.put(accessToken, entry);
+		return entry;
+	}
+
+	private Map<String, Object> postForMap(String accessToken) {
+		MultiValueMap<String, String> formData = new LinkedMultiValueMap<>(1);
+		formData.add("token", accessToken);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+		headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+		if (null != authorization) {
+			headers.set(HttpHeaders.AUTHORIZATION, authorization);
+		}
+		return restTemplate
+				.exchange(checkTokenEndpointUrl, HttpMethod.POST, new HttpEntity<>(formData, headers), MAP_TYPE)
+				.getBody();
+	}
+
+	private Entry getEntry(String accessToken) {
+		Entry entry = entries.get(accessToken);
+		if (null == entry) {
+			return null;
+		}
+		if (entry.expireAt <= System.currentTimeMillis()) {
+			entries.remove(accessToken, entry);
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * 缓存数量达到上限时腾出空间<br/>
+	 * 先删除所有已经过期的缓存，空间仍然不足时再按遍历顺序删除十分之一的缓存
+	 *
+	 * @param now 当前时间
+	 */
+	private void evict(long now) {
+		entries.values().removeIf(entry -> entry.expireAt <= now);
+		int overflow = entries.size() - maxSize + Math.max(1, maxSize / 10);
+		Iterator<String> iterator = entries.keySet().iterator();
+		while (overflow-- > 0 && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (null == restTemplate) {
+			restTemplate = createRestTemplate(2000, 5000, 200, 50);
+		}
+	}
+
+	/**
+	 * 创建访问授权服务器使用的 RestTemplate ，存在 apache httpclient 时使用连接池
+	 *
+	 * @param connectTimeout         连接超时时间，单位为毫秒
+	 * @param readTimeout            读取超时时间，单位为毫秒
+	 * @param maxConnections         连接池的最大连接数
+	 * @param maxConnectionsPerRoute 连接池中每个地址的最大连接数
+	 * @return RestTemplate
+	 */
+	public static RestTemplate createRestTemplate(int connectTimeout, int readTimeout, int maxConnections,
+			int maxConnectionsPerRoute) {
+		ClientHttpRequestFactory requestFactory;
+		if (HTTP_CLIENT_PRESENT) {
+			requestFactory = HttpComponentsFactory.create(connectTimeout, readTimeout, maxConnections,
+					maxConnectionsPerRoute);
+		} else {
+			SimpleClientHttpRequestFactory simple = new SimpleClientHttpRequestFactory();
+			simple.setConnectTimeout(connectTimeout);
+			simple.setReadTimeout(readTimeout);
+			requestFactory = simple;
+		}
+		RestTemplate restTemplate = new RestTemplate(requestFactory);
+		restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public void handleError(ClientHttpResponse response) throws IOException {
+				// 授权服务器对无效的token返回400，由调用者根据响应内容处理
+				if (response.getRawStatusCode() != 400) {
+					super.handleError(response);
+				}
+			}
+		});
+		return restTemplate;
+	}
+
+	/**
+	 * 获取缓存命中次数
+	 *
+	 * @return 缓存命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 获取缓存未命中次数
+	 *
+	 * @return 缓存未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * 获取当前缓存的数量
+	 *
+	 * @return 当前缓存的数量
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	public void setRestTemplate(RestOperations restTemplate) {
+		this.restTemplate = restTemplate;
+	}
+
+	public void setTokenConverter(AccessTokenConverter tokenConverter) {
+		this.tokenConverter = tokenConverter;
+	}
+
+	public void setTokenLock(TokenLock tokenLock) {
+		this.tokenLock = tokenLock;
+	}
+
+	public void setRevocationList(TokenRevocationList revocationList) {
+		this.revocationList = revocationList;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public int getTtl() {
+		return ttl;
+	}
+
+	public void setTtl(int ttl) {
+		this.ttl = ttl;
+	}
+
+	public int getNegativeTtl() {
+		return negativeTtl;
+	}
+
+	public void setNegativeTtl(int negativeTtl) {
+		this.negativeTtl = negativeTtl;
+	}
+
+	private static class Entry {
+
+		/**
+		 * 认证信息，token无效时为null
+		 */
+		private final OAuth2Authentication authentication;
+
+		private final long expireAt;
+
+		Entry(OAuth2Authentication authentication, long expireAt) {
+			this.authentication = authentication;
+			this.expireAt = expireAt;
+		}
+	}
+
+	/**
+	 * 基于 apache httpclient 连接池的请求工厂，只在 httpclient 存在时加载
+	 *
+	 * @author yishui
+	 * @date 2019年11月21日
+	 * @version 1.0.0
+	 */
+	private static class HttpComponentsFactory {
+
+		static ClientHttpRequestFactory create(int connectTimeout, int readTimeout, int maxConnections,
+				int maxConnectionsPerRoute) {
+			PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+			connectionManager.setMaxTotal(maxConnections);
+			connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+			RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout)
+					.setSocketTimeout(readTimeout).setConnectionRequestTimeout(connectTimeout).build();
+			return new HttpComponentsClientHttpRequestFactory(HttpClientBuilder.create()
+					.setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig).build());
+		}
+	}
+
+}
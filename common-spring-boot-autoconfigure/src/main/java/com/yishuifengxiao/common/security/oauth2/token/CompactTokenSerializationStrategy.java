@@ -0,0 +1,482 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.TokenRequest;
+import org.springframework.security.oauth2.provider.token.store.redis.RedisTokenStoreSerializationStrategy;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * 紧凑的token序列化策略<br/>
+ * access token、refresh token和认证信息按字段写入二进制流，不再使用java序列化保存完整的对象图，序列化后的数据更小，速度更快。<br/>
+ * 认证信息中只有常见的类型(UsernamePasswordAuthenticationToken、User、SimpleGrantedAuthority)按字段写入，
+ * 其他无法识别的类型仍然使用java序列化，保证任意的认证信息都能被正确保存。<br/>
+ * 既可以用于 PipelinedRedisTokenStore ，也可以通过 RedisTokenStore.setSerializationStrategy 用于默认的 RedisTokenStore
+ *
+ * @author yishui
+ * @date 2019年11月18日
+ * @version 1.0.0
+ */
+public class CompactTokenSerializationStrategy implements RedisTokenStoreSerializationStrategy {
+
+	private final static byte[] EMPTY_ARRAY = new byte[0];
+
+	/**
+	 * 数据格式的版本
+	 */
+	private final static byte VERSION = 1;
+
+	private final static byte TYPE_ACCESS_TOKEN = 'A';
+
+	private final static byte TYPE_REFRESH_TOKEN = 'R';
+
+	private final static byte TYPE_AUTHENTICATION = 'U';
+
+	/**
+	 * 其他类型，使用java序列化
+	 */
+	private final static byte TYPE_SERIALIZED = 'S';
+
+	private final static byte NONE = 0;
+
+	private final static byte REFRESH_PLAIN = 1;
+
+	private final static byte REFRESH_EXPIRING = 2;
+
+	private final static byte VALUE_STRING = 1;
+
+	private final static byte VALUE_SERIALIZED = 2;
+
+	private final static byte USER_DETAILS = 1;
+
+	private final static byte USER_NAME = 2;
+
+	private final static byte USER_SERIALIZED = 3;
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T deserialize(byte[] bytes, Class<T> clazz) {
+		if (null == bytes || bytes.length == 0) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			byte type = in.readByte();
+			if (TYPE_SERIALIZED == type) {
+				return (T) SerializationUtils.deserialize(readBytes(in));
+			}
+			in.readByte();
+			switch (type) {
+			case TYPE_ACCESS_TOKEN:
+				return (T) readAccessToken(in);
+			case TYPE_REFRESH_TOKEN:
+				return (T) readRefreshToken(in);
+			case TYPE_AUTHENTICATION:
+				return (T) readAuthentication(in);
+			default:
+				throw new IllegalArgumentException("无法识别的数据类型 " + type);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("反序列化token信息时出现问题", e);
+		}
+	}
+
+	@Override
+	public String deserializeString(byte[] bytes) {
+		if (null == bytes || bytes.length == 0) {
+			return null;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public byte[] serialize(Object object) {
+		if (null == object) {
+			return EMPTY_ARRAY;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			if (object instanceof OAuth2AccessToken) {
+				header(out, TYPE_ACCESS_TOKEN);
+				writeAccessToken(out, (OAuth2AccessToken) object);
+			} else if (object instanceof OAuth2RefreshToken) {
+				header(out, TYPE_REFRESH_TOKEN);
+				writeRefreshToken(out, (OAuth2RefreshToken) object);
+			} else if (object instanceof OAuth2Authentication && isCompact((OAuth2Authentication) object)) {
+				header(out, TYPE_AUTHENTICATION);
+				writeAuthentication(out, (OAuth2Authentication) object);
+			} else {
+				out.writeByte(TYPE_SERIALIZED);
+				writeBytes(out, SerializationUtils.serialize(object));
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("序列化token信息时出现问题", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public byte[] serialize(String data) {
+		if (null == data) {
+			return EMPTY_ARRAY;
+		}
+		return data.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void header(DataOutputStream out, byte type) throws IOException {
+		out.writeByte(type);
+		out.writeByte(VERSION);
+	}
+
+	// ------------------------------------------- access token
+
+	private static void writeAccessToken(DataOutputStream out, OAuth2AccessToken token) throws IOException {
+		writeString(out, token.getValue());
+		writeString(out, token.getTokenType());
+		writeDate(out, token.getExpiration());
+		writeStrings(out, token.getScope());
+		writeRefreshToken(out, token.getRefreshToken());
+		Map<String, Object> information = token.getAdditionalInformation();
+		out.writeInt(null == information ? 0 : information.size());
+		if (null != information) {
+			for (Map.Entry<String, Object> entry : information.entrySet()) {
+				writeString(out, entry.getKey());
+				writeValue(out, entry.getValue());
+			}
+		}
+	}
+
+	private static OAuth2AccessToken readAccessToken(DataInputStream in) throws IOException {
+		DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(readString(in));
+		token.setTokenType(readString(in));
+		token.setExpiration(readDate(in));
+		token.setScope(readStrings(in));
+		token.setRefreshToken(readRefreshToken(in));
+		int size = in.readInt();
+		Map<String, Object> information = new LinkedHashMap<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			information.put(readString(in), readValue(in));
+		}
+		token.setAdditionalInformation(information);
+		return token;
+	}
+
+	// ------------------------------------------- refresh token
+
+	private static void writeRefreshToken(DataOutputStream out, OAuth2RefreshToken token) throws IOException {
+		if (null == token) {
+			out.writeByte(NONE);
+			return;
+		}
+		if (token instanceof ExpiringOAuth2RefreshToken) {
+			out.writeByte(REFRESH_EXPIRING);
+			writeString(out, token.getValue());
+			writeDate(out, ((ExpiringOAuth2RefreshToken) token).getExpiration());
+		} else {
+			out.writeByte(REFRESH_PLAIN);
+			writeString(out, token.getValue());
+		}
+	}
+
+	private static OAuth2RefreshToken readRefreshToken(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		if (REFRESH_EXPIRING == kind) {
+			return new DefaultExpiringOAuth2RefreshToken(readString(in), readDate(in));
+		}
+		if (REFRESH_PLAIN == kind) {
+			return new DefaultOAuth2RefreshToken(readString(in));
+		}
+		return null;
+	}
+
+	// ------------------------------------------- authentication
+
+	/**
+	 * 判断认证信息能否按字段写入
+	 *
+	 * @param authentication 认证信息
+	 * @return 能按字段写入时返回为true
+	 */
+	private static boolean isCompact(OAuth2Authentication authentication) {
+		OAuth2Request request = authentication.getOAuth2Request();
+		if (null == request || !isSimple(request.getAuthorities())) {
+			return false;
+		}
+		return null == request.getExtensions() || request.getExtensions().isEmpty();
+	}
+
+	private static boolean isSimple(Collection<? extends GrantedAuthority> authorities) {
+		if (null != authorities) {
+			for (GrantedAuthority authority : authorities) {
+				if (null == authority || authority.getClass() != SimpleGrantedAuthority.class) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static void writeAuthentication(DataOutputStream out, OAuth2Authentication authentication)
+			throws IOException {
+		OAuth2Request request = authentication.getOAuth2Request();
+		writeString(out, request.getClientId());
+		writeStrings(out, request.getScope());
+		writeAuthorities(out, request.getAuthorities());
+		out.writeBoolean(request.isApproved());
+		writeStrings(out, request.getResourceIds());
+		writeString(out, request.getRedirectUri());
+		writeStrings(out, request.getResponseTypes());
+		writeMap(out, request.getRequestParameters());
+		TokenRequest refresh = request.getRefreshTokenRequest();
+		out.writeBoolean(null != refresh);
+		if (null != refresh) {
+			writeString(out, refresh.getClientId());
+			writeStrings(out, refresh.getScope());
+			writeString(out, refresh.getGrantType());
+			writeMap(out, refresh.getRequestParameters());
+		}
+		writeUserAuthentication(out, authentication.getUserAuthentication());
+		writeValue(out, authentication.getDetails());
+	}
+
+	private static OAuth2Authentication readAuthentication(DataInputStream in) throws IOException {
+		String clientId = readString(in);
+		Set<String> scope = readStrings(in);
+		List<GrantedAuthority> authorities = readAuthorities(in);
+		boolean approved = in.readBoolean();
+		Set<String> resourceIds = readStrings(in);
+		String redirectUri = readString(in);
+		Set<String> responseTypes = readStrings(in);
+		Map<String, String> requestParameters = readMap(in);
+		OAuth2Request request = new OAuth2Request(requestParameters, clientId, authorities, approved, scope,
+				resourceIds, redirectUri, responseTypes, new HashMap<String, Serializable>(0));
+		if (in.readBoolean()) {
+			String refreshClientId = readString(in);
+			Set<String> refreshScope = readStrings(in);
+			String grantType = readString(in);
+			Map<String, String> refreshParameters = readMap(in);
+			request = request.refresh(new TokenRequest(refreshParameters, refreshClientId, refreshScope, grantType));
+		}
+		Authentication userAuthentication = readUserAuthentication(in);
+		OAuth2Authentication authentication = new OAuth2Authentication(request, userAuthentication);
+		authentication.setDetails(readValue(in));
+		return authentication;
+	}
+
+	private static void writeUserAuthentication(DataOutputStream out, Authentication authentication)
+			throws IOException {
+		if (null == authentication) {
+			out.writeByte(NONE);
+			return;
+		}
+		Object principal = authentication.getPrincipal();
+		boolean compact = authentication.getClass() == UsernamePasswordAuthenticationToken.class
+				&& authentication.isAuthenticated() && null == authentication.getCredentials()
+				&& isSimple(authentication.getAuthorities());
+		if (compact && null != principal && principal.getClass() == User.class
+				&& isSimple(((User) principal).getAuthorities())) {
+			User user = (User) principal;
+			out.writeByte(USER_DETAILS);
+			writeString(out, user.getUsername());
+			writeString(out, user.getPassword());
+			out.writeBoolean(user.isEnabled());
+			out.writeBoolean(user.isAccountNonExpired());
+			out.writeBoolean(user.isCredentialsNonExpired());
+			out.writeBoolean(user.isAccountNonLocked());
+			writeAuthorities(out, user.getAuthorities());
+		} else if (compact && principal instanceof String) {
+			out.writeByte(USER_NAME);
+			writeString(out, (String) principal);
+		} else {
+			out.writeByte(USER_SERIALIZED);
+			writeBytes(out, SerializationUtils.serialize(authentication));
+			return;
+		}
+		writeAuthorities(out, authentication.getAuthorities());
+		writeValue(out, authentication.getDetails());
+	}
+
+	private static Authentication readUserAuthentication(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		Object principal;
+		switch (kind) {
+		case NONE:
+			return null;
+		case USER_SERIALIZED:
+			return (Authentication) SerializationUtils.deserialize(readBytes(in));
+		case USER_DETAILS:
+			String username = readString(in);
+			String password = readString(in);
+			boolean enabled = in.readBoolean();
+			boolean accountNonExpired = in.readBoolean();
+			boolean credentialsNonExpired = in.readBoolean();
+			boolean accountNonLocked = in.readBoolean();
+			User user = new User(username, null == password ? "" : password, enabled, accountNonExpired,
+					credentialsNonExpired, accountNonLocked, readAuthorities(in));
+			if (null == password) {
+				user.eraseCredentials();
+			}
+			principal = user;
+			break;
+		default:
+			principal = readString(in);
+			break;
+		}
+		UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null,
+				readAuthorities(in));
+		authentication.setDetails(readValue(in));
+		return authentication;
+	}
+
+	// ------------------------------------------- primitives
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (null == value) {
+			out.writeInt(-1);
+			return;
+		}
+		writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = readBytes(in);
+		return null == bytes ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void writeDate(DataOutputStream out, Date date) throws IOException {
+		out.writeLong(null == date ? -1L : date.getTime());
+	}
+
+	private static Date readDate(DataInputStream in) throws IOException {
+		long time = in.readLong();
+		return time < 0 ? null : new Date(time);
+	}
+
+	private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+		out.writeInt(null == values ? -1 : values.size());
+		if (null != values) {
+			for (String value : values) {
+				writeString(out, value);
+			}
+		}
+	}
+
+	private static Set<String> readStrings(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+		Set<String> values = new LinkedHashSet<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			values.add(readString(in));
+		}
+		return values;
+	}
+
+	private static void writeAuthorities(DataOutputStream out, Collection<? extends GrantedAuthority> authorities)
+			throws IOException {
+		out.writeInt(null == authorities ? 0 : authorities.size());
+		if (null != authorities) {
+			for (GrantedAuthority authority : authorities) {
+				writeString(out, authority.getAuthority());
+			}
+		}
+	}
+
+	private static List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		List<GrantedAuthority> authorities = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			authorities.add(new SimpleGrantedAuthority(readString(in)));
+		}
+		return authorities;
+	}
+
+	private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+		out.writeInt(null == map ? 0 : map.size());
+		if (null != map) {
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue());
+			}
+		}
+	}
+
+	private static Map<String, String> readMap(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Map<String, String> map = new HashMap<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			map.put(readString(in), readString(in));
+		}
+		return map;
+	}
+
+	/**
+	 * 写入任意的值，字符串直接写入，其他类型使用java序列化
+	 */
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (null == value) {
+			out.writeByte(NONE);
+		} else if (value instanceof String) {
+			out.writeByte(VALUE_STRING);
+			writeString(out, (String) value);
+		} else {
+			out.writeByte(VALUE_SERIALIZED);
+			writeBytes(out, SerializationUtils.serialize(value));
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		if (VALUE_STRING == kind) {
+			return readString(in);
+		}
+		if (VALUE_SERIALIZED == kind) {
+			return SerializationUtils.deserialize(readBytes(in));
+		}
+		return null;
+	}
+
+}
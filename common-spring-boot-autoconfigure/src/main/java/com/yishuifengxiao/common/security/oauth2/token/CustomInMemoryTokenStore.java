@@ -0,0 +1,663 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+
+import com.yishuifengxiao.common.security.event.TokenRemoveEvent;
+import com.yishuifengxiao.common.utils.TimingWheel;
+
+/**
+ * 基于内存的token存储<br/>
+ * 与 InMemoryTokenStore 保存的数据相同，区别如下：
+ * <ul>
+ * <li>每个token只保存一条紧凑的记录，过期时间使用long保存，终端id、token类型、scope和附加信息在所有token之间共享同一个实例，
+ * 认证信息使用 CompactTokenSerializationStrategy 序列化为字节数组保存，第一次读取时重新构建，
+ * 构建结果通过软引用缓存在记录中，之后的读取直接返回，内存不足时由GC回收后再重新构建</li>
+ * <li>终端索引和用户索引中只保存token的值，删除token时不再需要遍历索引</li>
+ * <li>额外维护按用户名的索引，支持批量删除某个用户或者某个终端的所有token</li>
+ * <li>后台线程通过时间轮定期清理已经过期的access token和refresh token，每次最多清理固定数量的token，
+ * 清理access token后发布一个包含所有被清理的token的 TokenRemoveEvent 事件</li>
+ * </ul>
+ * 每次读取返回的都是新构建的token，调用者修改返回的token不会影响存储中的数据；
+ * 读取access token的认证信息时返回的是缓存的实例，与 InMemoryTokenStore 一样由所有调用者共享
+ *
+ * @author yishui
+ * @date 2019年11月19日
+ * @version 1.0.0
+ */
+public class CustomInMemoryTokenStore implements BulkRevocableTokenStore, ApplicationEventPublisherAware,
+		InitializingBean, DisposableBean {
+
+	private final static Logger log = LoggerFactory.getLogger(CustomInMemoryTokenStore.class);
+
+	/**
+	 * 时间轮每一格的时间跨度，单位为毫秒
+	 */
+	private final static long TICK_DURATION = 1000L;
+
+	/**
+	 * 时间轮的格数，一圈为一个小时
+	 */
+	private final static int WHEEL_SIZE = 3600;
+
+	/**
+	 * 表示没有过期时间
+	 */
+	private final static long NO_EXPIRATION = Long.MIN_VALUE;
+
+	/**
+	 * 共享实例的最大数量，超过后不再共享，避免每个token都不相同的数据占满内存
+	 */
+	private final static int MAX_INTERNED = 4096;
+
+	private final CompactTokenSerializationStrategy serializationStrategy = new CompactTokenSerializationStrategy();
+
+	private final Map<String, AccessTokenRecord> accessTokenStore = new ConcurrentHashMap<>();
+
+	/**
+	 * 认证信息的键与access token的值的对应关系
+	 */
+	private final Map<String, String> authenticationToAccessTokenStore = new ConcurrentHashMap<>();
+
+	private final Map<String, Set<String>> userNameToAccessTokenStore = new ConcurrentHashMap<>();
+
+	private final Map<String, Set<String>> userToAccessTokenStore = new ConcurrentHashMap<>();
+
+	private final Map<String, Set<String>> clientIdToAccessTokenStore = new ConcurrentHashMap<>();
+
+	private final Map<String, RefreshTokenRecord> refreshTokenStore = new ConcurrentHashMap<>();
+
+	private final Map<String, String> refreshTokenToAccessTokenStore = new ConcurrentHashMap<>();
+
+	private final Interner<String> strings = new Interner<>();
+
+	private final Interner<Set<String>> scopes = new Interner<>();
+
+	private final Interner<Map<String, Object>> additionalInformations = new Interner<>();
+
+	private final TimingWheel<String> accessTokenExpiry = new TimingWheel<>(TICK_DURATION, WHEEL_SIZE);
+
+	private final TimingWheel<String> refreshTokenExpiry = new TimingWheel<>(TICK_DURATION, WHEEL_SIZE);
+
+	private AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	/**
+	 * 清理过期token的时间间隔，单位为秒，小于等于0时不清理
+	 */
+	private int reapInterval = 5;
+
+	/**
+	 * 每次最多清理的token数量
+	 */
+	private int reapBatchSize = 2000;
+
+	private ScheduledExecutorService scheduler;
+
+	@Override
+	public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+		return readAuthentication(token.getValue());
+	}
+
+	@Override
+	public OAuth2Authentication readAuthentication(String token) {
+		AccessTokenRecord record = this.accessTokenStore.get(token);
+		return null == record ? null : this.toAuthentication(record);
+	}
+
+	@Override
+	public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+		return readAuthenticationForRefreshToken(token.getValue());
+	}
+
+	public OAuth2Authentication readAuthenticationForRefreshToken(String token) {
+		RefreshTokenRecord record = this.refreshTokenStore.get(token);
+		return null == record ? null : this.toAuthentication(record.authentication);
+	}
+
+	@Override
+	public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+		String tokenValue = token.getValue();
+		if (this.accessTokenStore.containsKey(tokenValue)) {
+			this.removeAccessToken(tokenValue);
+		}
+		AccessTokenRecord record = this.toRecord(token, authentication);
+		this.accessTokenStore.put(tokenValue, record);
+		this.authenticationToAccessTokenStore.put(record.authenticationKey, tokenValue);
+		if (null != record.userName) {
+			addToCollection(this.userNameToAccessTokenStore, getApprovalKey(record.clientId, record.userName),
+					tokenValue);
+			addToCollection(this.userToAccessTokenStore, record.userName, tokenValue);
+		}
+		addToCollection(this.clientIdToAccessTokenStore, record.clientId, tokenValue);
+		if (NO_EXPIRATION != record.expiration) {
+			this.accessTokenExpiry.schedule(tokenValue, record.expiration);
+		}
+		if (null != record.refreshTokenValue) {
+			this.refreshTokenToAccessTokenStore.put(record.refreshTokenValue, tokenValue);
+		}
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String tokenValue) {
+		AccessTokenRecord record = this.accessTokenStore.get(tokenValue);
+		return null == record ? null : record.toAccessToken();
+	}
+
+	@Override
+	public void removeAccessToken(OAuth2AccessToken accessToken) {
+		removeAccessToken(accessToken.getValue());
+	}
+
+	/**
+	 * 删除access token及其相关的数据
+	 *
+	 * @param tokenValue access token的值
+	 * @return 被删除的access token，不存在时返回为null
+	 */
+	public OAuth2AccessToken removeAccessToken(String tokenValue) {
+		AccessTokenRecord record = this.accessTokenStore.remove(tokenValue);
+		if (null == record) {
+			return null;
+		}
+		this.authenticationToAccessTokenStore.remove(record.authenticationKey, tokenValue);
+		if (null != record.userName) {
+			removeFromCollection(this.userNameToAccessTokenStore, getApprovalKey(record.clientId, record.userName),
+					tokenValue);
+			removeFromCollection(this.userToAccessTokenStore, record.userName, tokenValue);
+		}
+		removeFromCollection(this.clientIdToAccessTokenStore, record.clientId, tokenValue);
+		return record.toAccessToken();
+	}
+
+	@Override
+	public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+		long expiration = expirationOf(refreshToken);
+		this.refreshTokenStore.put(refreshToken.getValue(), new RefreshTokenRecord(refreshToken.getValue(),
+				expiration, serializationStrategy.serialize(authentication)));
+		if (NO_EXPIRATION != expiration) {
+			this.refreshTokenExpiry.schedule(refreshToken.getValue(), expiration);
+		}
+	}
+
+	@Override
+	public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+		RefreshTokenRecord record = this.refreshTokenStore.get(tokenValue);
+		return null == record ? null : record.toRefreshToken();
+	}
+
+	@Override
+	public void removeRefreshToken(OAuth2RefreshToken refreshToken) {
+		removeRefreshToken(refreshToken.getValue());
+	}
+
+	/**
+	 * 删除refresh token及其相关的数据
+	 *
+	 * @param tokenValue refresh token的值
+	 */
+	public void removeRefreshToken(String tokenValue) {
+		this.refreshTokenStore.remove(tokenValue);
+		this.refreshTokenToAccessTokenStore.remove(tokenValue);
+	}
+
+	@Override
+	public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+		String accessToken = this.refreshTokenToAccessTokenStore.remove(refreshToken.getValue());
+		if (accessToken != null) {
+			removeAccessToken(accessToken);
+		}
+	}
+
+	@Override
+	public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+		String key = authenticationKeyGenerator.extractKey(authentication);
+		String tokenValue = this.authenticationToAccessTokenStore.get(key);
+		AccessTokenRecord record = null == tokenValue ? null : this.accessTokenStore.get(tokenValue);
+		if (null == record) {
+			return null;
+		}
+		OAuth2AccessToken accessToken = record.toAccessToken();
+		if (!key.equals(record.authenticationKey)) {
+			// Keep the stores consistent (maybe the same user is represented by this
+			// authentication but the details have changed)
+			storeAccessToken(accessToken, authentication);
+		}
+		return accessToken;
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+		return findTokens(this.userNameToAccessTokenStore.get(getApprovalKey(clientId, userName)));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+		return findTokens(this.clientIdToAccessTokenStore.get(clientId));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByUserName(String userName) {
+		return removeTokens(this.userToAccessTokenStore.get(userName));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByClientIdAndUserName(String clientId, String userName) {
+		return removeTokens(this.userNameToAccessTokenStore.get(getApprovalKey(clientId, userName)));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByClientId(String clientId) {
+		return removeTokens(this.clientIdToAccessTokenStore.get(clientId));
+	}
+
+	private Collection<OAuth2AccessToken> findTokens(Set<String> tokenValues) {
+		if (null == tokenValues || tokenValues.isEmpty()) {
+			return Collections.emptySet();
+		}
+		List<OAuth2AccessToken> accessTokens = new ArrayList<>(tokenValues.size());
+		for (String tokenValue : tokenValues) {
+			AccessTokenRecord record = this.accessTokenStore.get(tokenValue);
+			if (null != record) {
+				accessTokens.add(record.toAccessToken());
+			}
+		}
+		return Collections.unmodifiableCollection(accessTokens);
+	}
+
+	/**
+	 * 删除索引中的所有access token及对应的refresh token
+	 *
+	 * @param tokenValues 索引中的token的值
+	 * @return 被删除的access token
+	 */
+	private Collection<OAuth2AccessToken> removeTokens(Set<String> tokenValues) {
+		if (null == tokenValues || tokenValues.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<OAuth2AccessToken> removed = new ArrayList<>(tokenValues.size());
+		for (String tokenValue : new ArrayList<>(tokenValues)) {
+			OAuth2AccessToken accessToken = this.removeAccessToken(tokenValue);
+			if (null != accessToken) {
+				if (null != accessToken.getRefreshToken()) {
+					this.removeRefreshToken(accessToken.getRefreshToken().getValue());
+				}
+				removed.add(accessToken);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * 清理已经过期的token，access token和refresh token每次各自最多清理 reapBatchSize 个
+	 *
+	 * @return 本次清理的access token的数量
+	 */
+	public int reap() {
+		long now = System.currentTimeMillis();
+		List<OAuth2AccessToken> removed = new ArrayList<>();
+		for (String tokenValue : this.accessTokenExpiry.advance(now, reapBatchSize)) {
+			AccessTokenRecord record = this.accessTokenStore.get(tokenValue);
+			// 已经被删除或者重新保存后尚未过期的token不需要清理
+			if (null != record && NO_EXPIRATION != record.expiration && record.expiration <= now) {
+				OAuth2AccessToken accessToken = this.removeAccessToken(tokenValue);
+				if (null != accessToken) {
+					removed.add(accessToken);
+				}
+			}
+		}
+		int refreshTokens = 0;
+		for (String tokenValue : this.refreshTokenExpiry.advance(now, reapBatchSize)) {
+			RefreshTokenRecord record = this.refreshTokenStore.get(tokenValue);
+			if (null != record && NO_EXPIRATION != record.expiration && record.expiration <= now) {
+				this.removeRefreshToken(tokenValue);
+				refreshTokens++;
+			}
+		}
+		if (!removed.isEmpty() && null != applicationEventPublisher) {
+			applicationEventPublisher.publishEvent(new TokenRemoveEvent(removed));
+		}
+		if (!removed.isEmpty() || refreshTokens > 0) {
+			log.debug("清理了 {} 个过期的access token和 {} 个过期的refresh token", removed.size(), refreshTokens);
+		}
+		return removed.size();
+	}
+
+	private void reapQuietly() {
+		try {
+			this.reap();
+		} catch (Exception e) {
+			log.warn("清理过期的token时出现问题，问题为 {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 把token和认证信息转换为紧凑的记录
+	 *
+	 * @param token          access token
+	 * @param authentication 认证信息
+	 * @return 紧凑的记录
+	 */
+	private AccessTokenRecord toRecord(OAuth2AccessToken token, OAuth2Authentication authentication) {
+		OAuth2RefreshToken refreshToken = token.getRefreshToken();
+		String refreshTokenValue = null == refreshToken ? null : refreshToken.getValue();
+		Set<String> scope = null == token.getScope() ? null
+				: scopes.intern(Collections.unmodifiableSet(new LinkedHashSet<>(token.getScope())));
+		Map<String, Object> additionalInformation = null == token.getAdditionalInformation()
+				|| token.getAdditionalInformation().isEmpty() ? Collections.<String, Object>emptyMap()
+						: additionalInformations.intern(
+								Collections.unmodifiableMap(new LinkedHashMap<>(token.getAdditionalInformation())));
+		// @formatter:off
+		return new AccessTokenRecord(token.getValue(),
+				strings.intern(token.getTokenType()),
+				null == token.getExpiration() ? NO_EXPIRATION : token.getExpiration().getTime(),
+				scope,
+				refreshTokenValue,
+				null == refreshTokenValue ? NO_EXPIRATION : expirationOf(refreshToken),
+				additionalInformation,
+				strings.intern(authentication.getOAuth2Request().getClientId()),
+				authentication.isClientOnly() ? null : authentication.getName(),
+				authenticationKeyGenerator.extractKey(authentication),
+				serializationStrategy.serialize(authentication));
+		// @formatter:on
+	}
+
+	/**
+	 * 获取access token对应的认证信息，优先使用记录中缓存的实例
+	 *
+	 * @param record access token的紧凑记录
+	 * @return 认证信息
+	 */
+	private OAuth2Authentication toAuthentication(AccessTokenRecord record) {
+		SoftReference<OAuth2Authentication> cached = record.cachedAuthentication;
+		OAuth2Authentication authentication = null == cached ? null : cached.get();
+		if (null == authentication) {
+			// 并发读取时可能重复构建，结果相同，保留哪一个都可以
+			authentication = this.toAuthentication(record.authentication);
+			record.cachedAuthentication = new SoftReference<>(authentication);
+		}
+		return authentication;
+	}
+
+	private OAuth2Authentication toAuthentication(byte[] authentication) {
+		return serializationStrategy.deserialize(authentication, OAuth2Authentication.class);
+	}
+
+	private static long expirationOf(OAuth2RefreshToken refreshToken) {
+		if (refreshToken instanceof ExpiringOAuth2RefreshToken) {
+			Date expiration = ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration();
+			if (null != expiration) {
+				return expiration.getTime();
+			}
+		}
+		return NO_EXPIRATION;
+	}
+
+	private static OAuth2RefreshToken toRefreshToken(String value, long expiration) {
+		return NO_EXPIRATION == expiration ? new DefaultOAuth2RefreshToken(value)
+				: new DefaultExpiringOAuth2RefreshToken(value, new Date(expiration));
+	}
+
+	private static void addToCollection(Map<String, Set<String>> store, String key, String tokenValue) {
+		store.compute(key, (k, values) -> {
+			Set<String> set = null == values ? ConcurrentHashMap.newKeySet() : values;
+			set.add(tokenValue);
+			return set;
+		});
+	}
+
+	private static void removeFromCollection(Map<String, Set<String>> store, String key, String tokenValue) {
+		store.computeIfPresent(key, (k, values) -> {
+			values.remove(tokenValue);
+			return values.isEmpty() ? null : values;
+		});
+	}
+
+	private static String getApprovalKey(String clientId, String userName) {
+		return clientId + (userName == null ? "" : ":" + userName);
+	}
+
+	/**
+	 * 遍历当前保存的所有access token及对应的认证信息
+	 *
+	 * @param action 处理access token和认证信息的操作
+	 */
+	protected void forEachAccessToken(BiConsumer<OAuth2AccessToken, OAuth2Authentication> action) {
+		this.accessTokenStore.forEach((tokenValue, record) -> action.accept(record.toAccessToken(),
+				this.toAuthentication(record.authentication)));
+	}
+
+	/**
+	 * 遍历当前保存的所有refresh token及对应的认证信息
+	 *
+	 * @param action 处理refresh token和认证信息的操作
+	 */
+	protected void forEachRefreshToken(BiConsumer<OAuth2RefreshToken, OAuth2Authentication> action) {
+		this.refreshTokenStore.forEach((tokenValue, record) -> action.accept(record.toRefreshToken(),
+				this.toAuthentication(record.authentication)));
+	}
+
+	/**
+	 * 获取当前保存的access token的数量
+	 *
+	 * @return access token的数量
+	 */
+	public int getAccessTokenCount() {
+		return accessTokenStore.size();
+	}
+
+	/**
+	 * 获取当前保存的refresh token的数量
+	 *
+	 * @return refresh token的数量
+	 */
+	public int getRefreshTokenCount() {
+		return refreshTokenStore.size();
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (reapInterval > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "oauth2-token-reaper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(this::reapQuietly, reapInterval, reapInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (null != scheduler) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Override
+	public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+
+	public AuthenticationKeyGenerator getAuthenticationKeyGenerator() {
+		return authenticationKeyGenerator;
+	}
+
+	public void setAuthenticationKeyGenerator(AuthenticationKeyGenerator authenticationKeyGenerator) {
+		this.authenticationKeyGenerator = authenticationKeyGenerator;
+	}
+
+	public int getReapInterval() {
+		return reapInterval;
+	}
+
+	public void setReapInterval(int reapInterval) {
+		this.reapInterval = reapInterval;
+	}
+
+	public int getReapBatchSize() {
+		return reapBatchSize;
+	}
+
+	public void setReapBatchSize(int reapBatchSize) {
+		this.reapBatchSize = reapBatchSize;
+	}
+
+	/**
+	 * access token的紧凑记录
+	 *
+	 * @author yishui
+	 * @date 2019年11月20日
+	 * @version 1.0.0
+	 */
+	private static final class AccessTokenRecord {
+
+		private final String value;
+
+		private final String tokenType;
+
+		private final long expiration;
+
+		private final Set<String> scope;
+
+		private final String refreshTokenValue;
+
+		private final long refreshTokenExpiration;
+
+		private final Map<String, Object> additionalInformation;
+
+		private final String clientId;
+
+		/**
+		 * 用户名，仅终端认证时为null
+		 */
+		private final String userName;
+
+		private final String authenticationKey;
+
+		/**
+		 * 序列化后的认证信息
+		 */
+		private final byte[] authentication;
+
+		/**
+		 * 第一次读取时构建的认证信息，只在被读取过的token上占用内存
+		 */
+		private volatile SoftReference<OAuth2Authentication> cachedAuthentication;
+
+		AccessTokenRecord(String value, String tokenType, long expiration, Set<String> scope,
+				String refreshTokenValue, long refreshTokenExpiration, Map<String, Object> additionalInformation,
+				String clientId, String userName, String authenticationKey, byte[] authentication) {
+			this.value = value;
+			this.tokenType = tokenType;
+			this.expiration = expiration;
+			this.scope = scope;
+			this.refreshTokenValue = refreshTokenValue;
+			this.refreshTokenExpiration = refreshTokenExpiration;
+			this.additionalInformation = additionalInformation;
+			this.clientId = clientId;
+			this.userName = userName;
+			this.authenticationKey = authenticationKey;
+			this.authentication = authentication;
+		}
+
+		OAuth2AccessToken toAccessToken() {
+			DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(value);
+			token.setTokenType(tokenType);
+			token.setExpiration(NO_EXPIRATION == expiration ? null : new Date(expiration));
+			token.setScope(scope);
+			token.setAdditionalInformation(additionalInformation);
+			if (null != refreshTokenValue) {
+				token.setRefreshToken(CustomInMemoryTokenStore.toRefreshToken(refreshTokenValue, refreshTokenExpiration));
+			}
+			return token;
+		}
+	}
+
+	/**
+	 * refresh token的紧凑记录
+	 *
+	 * @author yishui
+	 * @date 2019年11月20日
+	 * @version 1.0.0
+	 */
+	private static final class RefreshTokenRecord {
+
+		private final String value;
+
+		private final long expiration;
+
+		/**
+		 * 序列化后的认证信息
+		 */
+		private final byte[] authentication;
+
+		RefreshTokenRecord(String value, long expiration, byte[] authentication) {
+			this.value = value;
+			this.expiration = expiration;
+			this.authentication = authentication;
+		}
+
+		OAuth2RefreshToken toRefreshToken() {
+			return CustomInMemoryTokenStore.toRefreshToken(value, expiration);
+		}
+	}
+
+	/**
+	 * 共享实例表，相等的数据只保留一个实例，数量达到上限后直接返回原始数据
+	 *
+	 * @author yishui
+	 * @date 2019年11月20日
+	 * @version 1.0.0
+	 */
+	private static final class Interner<T> {
+
+		private final Map<T, T> table = new ConcurrentHashMap<>();
+
+		T intern(T value) {
+			if (null == value) {
+				return null;
+			}
+			T interned = table.get(value);
+			if (null != interned) {
+				return interned;
+			}
+			if (table.size() >= MAX_INTERNED) {
+				return value;
+			}
+			interned = table.putIfAbsent(value, value);
+			return null == interned ? value : interned;
+		}
+	}
+
+}
@@ -1,8 +1,13 @@
 package com.yishuifengxiao.common.security.oauth2.token;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Set;
-import java.util.UUID;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
@@ -18,14 +23,17 @@ import org.springframework.security.oauth2.common.OAuth2RefreshToken;
 import org.springframework.security.oauth2.common.exceptions.InvalidGrantException;
 import org.springframework.security.oauth2.common.exceptions.InvalidScopeException;
 import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
 import org.springframework.security.oauth2.provider.ClientDetails;
 import org.springframework.security.oauth2.provider.ClientDetailsService;
 import org.springframework.security.oauth2.provider.ClientRegistrationException;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.OAuth2Request;
 import org.springframework.security.oauth2.provider.TokenRequest;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
 import org.springframework.security.oauth2.provider.token.AuthorizationServerTokenServices;
 import org.springframework.security.oauth2.provider.token.ConsumerTokenServices;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
 import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.security.oauth2.provider.token.TokenEnhancer;
 import org.springframework.security.oauth2.provider.token.TokenStore;
@@ -57,16 +65,66 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 
 	private ApplicationContext context;
 
+	/**
+	 * 认证信息本地缓存，为null时不使用缓存
+	 */
+	private AuthenticationCache authenticationCache;
+
+	/**
+	 * token生成和刷新时的并发控制工具，为null时不做并发控制
+	 */
+	private TokenLock tokenLock;
+
+	private AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+
+	/**
+	 * access token和refresh token的值的生成器
+	 */
+	private TokenValueGenerator tokenValueGenerator = new UuidTokenValueGenerator();
+
+	/**
+	 * 签名token的编解码工具，设置后签名格式的token直接在本地校验，不再访问token存储
+	 */
+	private JwsTokenCodec jwsTokenCodec;
+
+	/**
+	 * token吊销列表，设置后在本地校验token之前先检查token是否已经被吊销
+	 */
+	private TokenRevocationList revocationList;
+
+	/**
+	 * token相关操作的监控指标记录工具
+	 */
+	private TokenMetrics metrics = TokenMetrics.NONE;
+
 	/**
 	 * Initialize these token services. If no random generator is set, one will be
 	 * created.
 	 */
 	public void afterPropertiesSet() throws Exception {
 		Assert.notNull(tokenStore, "tokenStore must be set");
+		// 签名token在本地校验时不会访问token存储，被删除的token只能通过吊销列表拒绝
+		Assert.state(jwsTokenCodec == null || revocationList != null,
+				"revocationList must be set when jwsTokenCodec is set");
 	}
 
 	@Transactional
 	public OAuth2AccessToken createAccessToken(OAuth2Authentication authentication) throws AuthenticationException {
+		OAuth2Request request = authentication.getOAuth2Request();
+		return measure("create", request.getClientId(), request.getGrantType(),
+				() -> lockedCreateAccessToken(authentication));
+	}
+
+	private OAuth2AccessToken lockedCreateAccessToken(OAuth2Authentication authentication) {
+		if (tokenLock == null) {
+			return doCreateAccessToken(authentication);
+		}
+		// 同一用户在同一终端上的并发请求只生成一次token
+		return tokenLock.execute("create:" + authenticationKeyGenerator.extractKey(authentication),
+				() -> doCreateAccessToken(authentication));
+	}
+
+	private OAuth2AccessToken doCreateAccessToken(OAuth2Authentication authentication) {
 
 		OAuth2AccessToken existingAccessToken = tokenStore.getAccessToken(authentication);
 		OAuth2RefreshToken refreshToken = null;
@@ -120,6 +178,37 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 	@Transactional(noRollbackFor = { InvalidTokenException.class, InvalidGrantException.class })
 	public OAuth2AccessToken refreshAccessToken(String refreshTokenValue, TokenRequest tokenRequest)
 			throws AuthenticationException {
+		return measure("refresh", tokenRequest.getClientId(), "refresh_token",
+				() -> lockedRefreshAccessToken(refreshTokenValue, tokenRequest));
+	}
+
+	private OAuth2AccessToken lockedRefreshAccessToken(String refreshTokenValue, TokenRequest tokenRequest) {
+		if (tokenLock == null) {
+			return doRefreshAccessToken(refreshTokenValue, tokenRequest);
+		}
+		// 使用同一个refresh token的并发刷新请求只刷新一次，锁的键可能写入redis，只使用refresh token的摘要
+		Set<String> scope = tokenRequest.getScope() == null ? null : new TreeSet<>(tokenRequest.getScope());
+		return tokenLock.execute(
+				"refresh:" + digest(refreshTokenValue) + ":" + tokenRequest.getClientId() + ":" + scope,
+				() -> doRefreshAccessToken(refreshTokenValue, tokenRequest));
+	}
+
+	/**
+	 * 计算token的值的SHA-256摘要
+	 * 
+	 * @param tokenValue token的值
+	 * @return Base64URL编码的摘要
+	 */
+	private static String digest(String tokenValue) {
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(
+					MessageDigest.getInstance("SHA-256").digest(tokenValue.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("计算token摘要的算法不可用", e);
+		}
+	}
+
+	private OAuth2AccessToken doRefreshAccessToken(String refreshTokenValue, TokenRequest tokenRequest) {
 
 		if (!supportRefreshToken) {
 			throw new InvalidGrantException("Invalid refresh token: " + refreshTokenValue);
@@ -131,6 +220,8 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 		}
 
 		OAuth2Authentication authentication = tokenStore.readAuthenticationForRefreshToken(refreshToken);
+		// 刷新后原来的access token会被删除，需要在删除前找出来发布 TokenRemoveEvent ，否则本地校验的签名token在过期前仍然有效
+		OAuth2AccessToken previousAccessToken = findAccessToken(refreshToken, authentication);
 		if (this.authenticationManager != null && !authentication.isClientOnly()) {
 			// The client has already been authenticated, but the user authentication might
 			// be old now, so give it a
@@ -149,7 +240,13 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 
 		// clear out any access tokens already associated with the refresh
 		// token.
+		if (authenticationCache != null) {
+			authenticationCache.invalidateByRefreshToken(refreshToken.getValue());
+		}
 		tokenStore.removeAccessTokenUsingRefreshToken(refreshToken);
+		if (previousAccessToken != null) {
+			context.publishEvent(new TokenRemoveEvent(previousAccessToken));
+		}
 
 		if (isExpired(refreshToken)) {
 			tokenStore.removeRefreshToken(refreshToken);
@@ -175,6 +272,22 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 		return tokenStore.getAccessToken(authentication);
 	}
 
+	/**
+	 * 查找refresh token当前对应的access token
+	 * 
+	 * @param refreshToken   refresh token
+	 * @param authentication refresh token对应的认证信息
+	 * @return 对应的access token，不存在时返回为null
+	 */
+	private OAuth2AccessToken findAccessToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+		if (authentication == null) {
+			return null;
+		}
+		OAuth2AccessToken accessToken = tokenStore.getAccessToken(authentication);
+		return accessToken != null && accessToken.getRefreshToken() != null
+				&& refreshToken.getValue().equals(accessToken.getRefreshToken().getValue()) ? accessToken : null;
+	}
+
 	/**
 	 * Create a refreshed authentication.
 	 * 
@@ -217,6 +330,55 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 
 	public OAuth2Authentication loadAuthentication(String accessTokenValue)
 			throws AuthenticationException, InvalidTokenException {
+		if (!metrics.isEnabled()) {
+			return doLoadAuthentication(accessTokenValue);
+		}
+		long start = System.nanoTime();
+		String outcome = TokenMetrics.ERROR;
+		String clientId = null;
+		String grantType = null;
+		try {
+			OAuth2Authentication result = doLoadAuthentication(accessTokenValue);
+			clientId = result.getOAuth2Request().getClientId();
+			grantType = result.getOAuth2Request().getGrantType();
+			outcome = TokenMetrics.SUCCESS;
+			return result;
+		} catch (OAuth2Exception | AuthenticationException e) {
+			outcome = TokenMetrics.INVALID;
+			throw e;
+		} finally {
+			metrics.record("load", clientId, grantType, outcome, System.nanoTime() - start);
+		}
+	}
+
+	private OAuth2Authentication doLoadAuthentication(String accessTokenValue) {
+		if (revocationList != null && revocationList.isRevoked(accessTokenValue)) {
+			throw new InvalidTokenException("Access token revoked: " + accessTokenValue);
+		}
+		OAuth2Authentication result = authenticationCache != null ? authenticationCache.get(accessTokenValue) : null;
+		if (result == null) {
+			result = jwsTokenCodec != null && jwsTokenCodec.isSigned(accessTokenValue)
+					? verifyAuthentication(accessTokenValue)
+					: readAuthentication(accessTokenValue);
+		}
+		if (clientDetailsService != null) {
+			String clientId = result.getOAuth2Request().getClientId();
+			try {
+				clientDetailsService.loadClientByClientId(clientId);
+			} catch (ClientRegistrationException e) {
+				throw new InvalidTokenException("Client not valid: " + clientId, e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 从token存储中读取认证信息，读取成功后放入认证信息本地缓存
+	 * 
+	 * @param accessTokenValue access token的值
+	 * @return 认证信息
+	 */
+	private OAuth2Authentication readAuthentication(String accessTokenValue) {
 		OAuth2AccessToken accessToken = tokenStore.readAccessToken(accessTokenValue);
 		if (accessToken == null) {
 			throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
@@ -230,17 +392,27 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 			// in case of race condition
 			throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
 		}
-		if (clientDetailsService != null) {
-			String clientId = result.getOAuth2Request().getClientId();
-			try {
-				clientDetailsService.loadClientByClientId(clientId);
-			} catch (ClientRegistrationException e) {
-				throw new InvalidTokenException("Client not valid: " + clientId, e);
-			}
+		if (authenticationCache != null) {
+			authenticationCache.put(accessToken, result);
 		}
 		return result;
 	}
 
+	/**
+	 * 在本地校验签名token的签名和过期时间，并从token中还原认证信息，校验成功后放入认证信息本地缓存<br/>
+	 * 这里不访问token存储，token是否已经被删除由调用前的吊销列表检查保证，所有删除token的操作都会发布 TokenRemoveEvent
+	 * 
+	 * @param accessTokenValue access token的值
+	 * @return 认证信息
+	 */
+	private OAuth2Authentication verifyAuthentication(String accessTokenValue) {
+		JwsTokenCodec.VerifiedToken verified = jwsTokenCodec.decode(accessTokenValue);
+		if (authenticationCache != null) {
+			authenticationCache.put(verified.getAccessToken(), verified.getAuthentication());
+		}
+		return verified.getAuthentication();
+	}
+
 	public String getClientId(String tokenValue) {
 		OAuth2Authentication authentication = tokenStore.readAuthentication(tokenValue);
 		if (authentication == null) {
@@ -254,24 +426,54 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 	}
 
 	public boolean revokeToken(String tokenValue) {
+		return measure("revoke", null, null, () -> doRevokeToken(tokenValue));
+	}
+
+	private boolean doRevokeToken(String tokenValue) {
+		if (authenticationCache != null) {
+			// 其他节点的缓存通过TokenRemoveEvent通知删除
+			authenticationCache.invalidateLocal(tokenValue);
+		}
 		OAuth2AccessToken accessToken = tokenStore.readAccessToken(tokenValue);
 		if (accessToken == null) {
-			return false;
+			return revokeSignedToken(tokenValue);
 		}
 		if (accessToken.getRefreshToken() != null) {
 			tokenStore.removeRefreshToken(accessToken.getRefreshToken());
 		}
 		tokenStore.removeAccessToken(accessToken);
+		// 吊销列表通过TokenRemoveEvent吊销token
 		context.publishEvent(new TokenRemoveEvent(accessToken));
 		return true;
 	}
 
+	/**
+	 * token存储中不存在的签名token(例如在资源服务器上)只加入吊销列表
+	 * 
+	 * @param tokenValue access token的值
+	 * @return 是否吊销成功
+	 */
+	private boolean revokeSignedToken(String tokenValue) {
+		if (revocationList == null || jwsTokenCodec == null || !jwsTokenCodec.isSigned(tokenValue)) {
+			return false;
+		}
+		OAuth2AccessToken accessToken;
+		try {
+			accessToken = jwsTokenCodec.decode(tokenValue).getAccessToken();
+		} catch (InvalidTokenException e) {
+			return false;
+		}
+		revocationList.revoke(tokenValue,
+				accessToken.getExpiration() == null ? 0L : accessToken.getExpiration().getTime());
+		return true;
+	}
+
 	private OAuth2RefreshToken createRefreshToken(OAuth2Authentication authentication) {
 		if (!isSupportRefreshToken(authentication.getOAuth2Request())) {
 			return null;
 		}
 		int validitySeconds = getRefreshTokenValiditySeconds(authentication.getOAuth2Request());
-		String value = UUID.randomUUID().toString();
+		String value = tokenValueGenerator.generate();
 		if (validitySeconds > 0) {
 			return new DefaultExpiringOAuth2RefreshToken(value,
 					new Date(System.currentTimeMillis() + (validitySeconds * 1000L)));
@@ -280,15 +482,17 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 	}
 
 	private OAuth2AccessToken createAccessToken(OAuth2Authentication authentication, OAuth2RefreshToken refreshToken) {
-		DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+		DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(tokenValueGenerator.generate());
 		int validitySeconds = getAccessTokenValiditySeconds(authentication.getOAuth2Request());
 		if (validitySeconds > 0) {
 			token.setExpiration(new Date(System.currentTimeMillis() + (validitySeconds * 1000L)));
 		}
 		token.setRefreshToken(refreshToken);
 		token.setScope(authentication.getOAuth2Request().getScope());
+		OAuth2Request request = authentication.getOAuth2Request();
 		OAuth2AccessToken oAuth2AccessToken = accessTokenEnhancer != null
-				? accessTokenEnhancer.enhance(token, authentication)
+				? measure("enhance", request.getClientId(), request.getGrantType(),
+						() -> accessTokenEnhancer.enhance(token, authentication))
 				: token;
 		context.publishEvent(new TokenGenerateEvent(oAuth2AccessToken, authentication, false));
 		return oAuth2AccessToken;
@@ -434,4 +638,119 @@ public class CustomTokenServices implements AuthorizationServerTokenServices, Re
 		this.context = context;
 	}
 
+	public TokenLock getTokenLock() {
+		return tokenLock;
+	}
+
+	/**
+	 * token生成和刷新时的并发控制工具，设置后相同的并发请求只会真正执行一次
+	 * 
+	 * @param tokenLock 并发控制工具
+	 */
+	public void setTokenLock(TokenLock tokenLock) {
+		this.tokenLock = tokenLock;
+	}
+
+	/**
+	 * 生成并发控制键值的工具
+	 * 
+	 * @param authenticationKeyGenerator 生成并发控制键值的工具
+	 */
+	public void setAuthenticationKeyGenerator(AuthenticationKeyGenerator authenticationKeyGenerator) {
+		this.authenticationKeyGenerator = authenticationKeyGenerator;
+	}
+
+	public AuthenticationCache getAuthenticationCache() {
+		return authenticationCache;
+	}
+
+	/**
+	 * 认证信息本地缓存，设置后loadAuthentication优先从缓存中获取认证信息
+	 * 
+	 * @param authenticationCache 认证信息本地缓存
+	 */
+	public void setAuthenticationCache(AuthenticationCache authenticationCache) {
+		this.authenticationCache = authenticationCache;
+	}
+
+	public TokenValueGenerator getTokenValueGenerator() {
+		return tokenValueGenerator;
+	}
+
+	/**
+	 * access token和refresh token的值的生成器，默认使用UUID
+	 * 
+	 * @param tokenValueGenerator token值的生成器
+	 */
+	public void setTokenValueGenerator(TokenValueGenerator tokenValueGenerator) {
+		this.tokenValueGenerator = tokenValueGenerator;
+	}
+
+	public JwsTokenCodec getJwsTokenCodec() {
+		return jwsTokenCodec;
+	}
+
+	/**
+	 * 签名token的编解码工具，设置后签名格式的token直接在本地校验，不再访问token存储<br/>
+	 * 设置后必须同时设置token吊销列表，否则被删除的token在过期前仍然有效
+	 * 
+	 * @param jwsTokenCodec 签名token的编解码工具
+	 */
+	public void setJwsTokenCodec(JwsTokenCodec jwsTokenCodec) {
+		this.jwsTokenCodec = jwsTokenCodec;
+	}
+
+	/**
+	 * 记录一次token操作的耗时和结果，未开启监控时直接执行
+	 * 
+	 * @param operation 操作的名称
+	 * @param clientId  终端id
+	 * @param grantType 授权模式
+	 * @param action    需要执行的操作
+	 * @return 操作的结果
+	 */
+	private <T> T measure(String operation, String clientId, String grantType, Supplier<T> action) {
+		if (!metrics.isEnabled()) {
+			return action.get();
+		}
+		long start = System.nanoTime();
+		String outcome = TokenMetrics.ERROR;
+		try {
+			T result = action.get();
+			outcome = TokenMetrics.SUCCESS;
+			return result;
+		} catch (OAuth2Exception | AuthenticationException e) {
+			outcome = TokenMetrics.INVALID;
+			throw e;
+		} finally {
+			metrics.record(operation, clientId, grantType, outcome, System.nanoTime() - start);
+		}
+	}
+
+	public TokenRevocationList getRevocationList() {
+		return revocationList;
+	}
+
+	/**
+	 * token吊销列表，设置后在本地校验token之前先检查token是否已经被吊销
+	 * 
+	 * @param revocationList token吊销列表
+	 */
+	public void setRevocationList(TokenRevocationList revocationList) {
+		this.revocationList = revocationList;
+	}
+
+	public TokenMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * token相关操作的监控指标记录工具，为null时不记录
+	 * 
+	 * @param metrics 监控指标记录工具
+	 */
+	public void setMetrics(TokenMetrics metrics) {
+		this.metrics = metrics == null ? TokenMetrics.NONE : metrics;
+	}
+
 }
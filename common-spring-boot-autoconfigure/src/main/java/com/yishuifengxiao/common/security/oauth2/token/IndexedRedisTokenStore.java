@@ -0,0 +1,136 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.store.redis.RedisTokenStore;
+
+/**
+ * 支持批量删除的 RedisTokenStore <br/>
+ * 保存的数据与 RedisTokenStore 完全相同，额外维护一个按用户名的索引集合 user_to_access:用户名 ，
+ * 集合中保存该用户在所有终端上的access token的值，可以不依赖终端列表删除某个用户的所有token。<br/>
+ * 索引集合的过期时间为其中最晚过期的token的过期时间，单独删除token时不会更新索引，索引中已经失效的token值在批量删除时忽略
+ *
+ * @author yishui
+ * @date 2019年11月30日
+ * @version 1.0.0
+ */
+public class IndexedRedisTokenStore extends RedisTokenStore implements BulkRevocableTokenStore {
+
+	private final static String USER_TO_ACCESS = "user_to_access:";
+
+	private final RedisConnectionFactory connectionFactory;
+
+	/**
+	 * 键名的前缀
+	 */
+	private String prefix = "";
+
+	public IndexedRedisTokenStore(RedisConnectionFactory connectionFactory) {
+		super(connectionFactory);
+		this.connectionFactory = connectionFactory;
+	}
+
+	@Override
+	public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+		super.storeAccessToken(token, authentication);
+		if (authentication.isClientOnly()) {
+			return;
+		}
+		byte[] userKey = key(authentication.getName());
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			Long ttl = connection.keyCommands().ttl(userKey);
+			connection.setCommands().sAdd(userKey, bytes(token.getValue()));
+			if (token.getExpiration() == null) {
+				connection.keyCommands().persist(userKey);
+			} else if (null == ttl || ttl == -2L || (ttl >= 0 && ttl < token.getExpiresIn())) {
+				// 索引只能延长过期时间，不能早于其中已有的token过期
+				connection.keyCommands().expire(userKey, token.getExpiresIn());
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByUserName(String userName) {
+		byte[] userKey = key(userName);
+		Set<byte[]> members;
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			members = connection.setCommands().sMembers(userKey);
+		} finally {
+			connection.close();
+		}
+		if (null == members || members.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<OAuth2AccessToken> accessTokens = new ArrayList<>(members.size());
+		for (byte[] member : members) {
+			OAuth2AccessToken accessToken = readAccessToken(new String(member, StandardCharsets.UTF_8));
+			if (null != accessToken) {
+				accessTokens.add(accessToken);
+			}
+		}
+		List<OAuth2AccessToken> removed = removeTokens(accessTokens);
+		connection = connectionFactory.getConnection();
+		try {
+			connection.keyCommands().del(userKey);
+		} finally {
+			connection.close();
+		}
+		return removed;
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByClientIdAndUserName(String clientId, String userName) {
+		return removeTokens(findTokensByClientIdAndUserName(clientId, userName));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByClientId(String clientId) {
+		return removeTokens(findTokensByClientId(clientId));
+	}
+
+	/**
+	 * 逐个删除token及对应的refresh token
+	 *
+	 * @param accessTokens 需要删除的token
+	 * @return 被删除的token
+	 */
+	private List<OAuth2AccessToken> removeTokens(Collection<OAuth2AccessToken> accessTokens) {
+		List<OAuth2AccessToken> removed = new ArrayList<>(accessTokens.size());
+		for (OAuth2AccessToken accessToken : accessTokens) {
+			if (accessToken.getRefreshToken() != null) {
+				removeRefreshToken(accessToken.getRefreshToken());
+			}
+			removeAccessToken(accessToken);
+			removed.add(accessToken);
+		}
+		return removed;
+	}
+
+	private byte[] key(String userName) {
+		return bytes(prefix + USER_TO_ACCESS + userName);
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void setPrefix(String prefix) {
+		super.setPrefix(prefix);
+		this.prefix = null == prefix ? "" : prefix;
+	}
+
+}
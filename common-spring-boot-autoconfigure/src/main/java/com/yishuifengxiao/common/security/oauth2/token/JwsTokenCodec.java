@@ -0,0 +1,299 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.OAuth2Utils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 使用 HS256 签名的自包含token的编解码工具<br/>
+ * token的格式为 JWS 紧凑序列化格式，头部中的 kid 指明签名使用的密钥，负载中包含用户名、终端id、授权模式、scope、资源id、角色和过期时间。<br/>
+ * 资源服务器只需要校验签名和过期时间即可从token中还原认证信息，不需要访问token存储。<br/>
+ * 密钥轮换：先在所有节点的密钥集合中加入新密钥，再把新密钥设为当前签名密钥，旧密钥在其签发的token全部过期后再删除
+ *
+ * @author yishui
+ * @date 2019年11月20日
+ * @version 1.0.0
+ */
+public class JwsTokenCodec {
+
+	private final static String ALGORITHM = "HmacSHA256";
+
+	/**
+	 * 密钥的最小字节数
+	 */
+	private final static int MIN_KEY_LENGTH = 32;
+
+	private final static ObjectMapper MAPPER = new ObjectMapper();
+
+	private final static TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+	};
+
+	private final static Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final static Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	/**
+	 * 所有可用于校验签名的密钥，键为 kid
+	 */
+	private final Map<String, SecretKeySpec> keys;
+
+	/**
+	 * 当前签名使用的密钥的 kid
+	 */
+	private final String activeKid;
+
+	/**
+	 * 当前签名使用的编码后的头部
+	 */
+	private final String activeHeader;
+
+	/**
+	 * 每个线程独立的签名工具，键为 kid
+	 */
+	private final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(HashMap::new);
+
+	/**
+	 *
+	 * @param keys      所有可用于校验签名的密钥，键为 kid，值为密钥，每个密钥至少32个字节
+	 * @param activeKid 当前签名使用的密钥的 kid
+	 */
+	public JwsTokenCodec(Map<String, String> keys, String activeKid) {
+		Assert.notEmpty(keys, "签名密钥不能为空");
+		Assert.isTrue(keys.containsKey(activeKid), "当前签名密钥 " + activeKid + " 不在密钥集合中");
+		Map<String, SecretKeySpec> specs = new HashMap<>(keys.size());
+		keys.forEach((kid, secret) -> {
+			byte[] bytes = null == secret ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+			Assert.isTrue(bytes.length >= MIN_KEY_LENGTH, "签名密钥 " + kid + " 的长度不能小于" + MIN_KEY_LENGTH + "个字节");
+			specs.put(kid, new SecretKeySpec(bytes, ALGORITHM));
+		});
+		this.keys = Collections.unmodifiableMap(specs);
+		this.activeKid = activeKid;
+		Map<String, Object> header = new LinkedHashMap<>(3);
+		header.put("alg", "HS256");
+		header.put("typ", "JWT");
+		header.put("kid", activeKid);
+		this.activeHeader = ENCODER.encodeToString(this.toJson(header));
+	}
+
+	/**
+	 * 生成签名后的token的值
+	 *
+	 * @param accessToken    原始的access token，其值作为token的唯一标识
+	 * @param authentication 认证信息
+	 * @return 签名后的token的值
+	 */
+	public String encode(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+		OAuth2Request request = authentication.getOAuth2Request();
+		Map<String, Object> claims = new LinkedHashMap<>();
+		claims.put("jti", accessToken.getValue());
+		if (!authentication.isClientOnly()) {
+			claims.put("sub", authentication.getName());
+		}
+		claims.put("client_id", request.getClientId());
+		if (null != request.getGrantType()) {
+			claims.put("grant_type", request.getGrantType());
+		}
+		if (null != accessToken.getScope() && !accessToken.getScope().isEmpty()) {
+			claims.put("scope", accessToken.getScope());
+		}
+		if (null != request.getResourceIds() && !request.getResourceIds().isEmpty()) {
+			claims.put("aud", request.getResourceIds());
+		}
+		List<String> authorities = new ArrayList<>(authentication.getAuthorities().size());
+		for (GrantedAuthority authority : authentication.getAuthorities()) {
+			authorities.add(authority.getAuthority());
+		}
+		claims.put("authorities", authorities);
+		claims.put("iat", System.currentTimeMillis() / 1000L);
+		if (null != accessToken.getExpiration()) {
+			claims.put("exp", accessToken.getExpiration().getTime() / 1000L);
+		}
+		String content = activeHeader + "." + ENCODER.encodeToString(this.toJson(claims));
+		return content + "." + ENCODER.encodeToString(this.sign(activeKid, content));
+	}
+
+	/**
+	 * 判断token的值是否为签名格式
+	 *
+	 * @param tokenValue token的值
+	 * @return 是否为签名格式
+	 */
+	public boolean isSigned(String tokenValue) {
+		if (null == tokenValue) {
+			return false;
+		}
+		int first = tokenValue.indexOf('.');
+		int last = tokenValue.lastIndexOf('.');
+		// 紧凑序列化格式中只有两个分隔符
+		return first > 0 && last > first + 1 && tokenValue.indexOf('.', first + 1) == last;
+	}
+
+	/**
+	 * 校验token的签名和过期时间，并从中还原token和认证信息
+	 *
+	 * @param tokenValue token的值
+	 * @return 校验通过的token和认证信息
+	 * @throws InvalidTokenException 签名不正确、token已过期或格式不正确
+	 */
+	public VerifiedToken decode(String tokenValue) throws InvalidTokenException {
+		int first = tokenValue.indexOf('.');
+		int last = tokenValue.lastIndexOf('.');
+		if (first <= 0 || last <= first) {
+			throw new InvalidTokenException("Invalid access token: " + tokenValue);
+		}
+		Map<String, Object> header = this.parse(tokenValue, tokenValue.substring(0, first));
+		Object kid = header.get("kid");
+		if (!"HS256".equals(header.get("alg")) || !(kid instanceof String) || !keys.containsKey(kid)) {
+			throw new InvalidTokenException("Invalid access token: " + tokenValue);
+		}
+		byte[] signature;
+		try {
+			signature = DECODER.decode(tokenValue.substring(last + 1));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidTokenException("Invalid access token: " + tokenValue);
+		}
+		if (!MessageDigest.isEqual(signature, this.sign((String) kid, tokenValue.substring(0, last)))) {
+			throw new InvalidTokenException("Invalid access token: " + tokenValue);
+		}
+		Map<String, Object> claims = this.parse(tokenValue, tokenValue.substring(first + 1, last));
+		Object exp = claims.get("exp");
+		Date expiration = exp instanceof Number ? new Date(((Number) exp).longValue() * 1000L) : null;
+		if (null != expiration && expiration.getTime() <= System.currentTimeMillis()) {
+			throw new InvalidTokenException("Access token expired: " + tokenValue);
+		}
+		return new VerifiedToken(this.toAccessToken(tokenValue, expiration, claims), this.toAuthentication(claims));
+	}
+
+	private OAuth2AccessToken toAccessToken(String tokenValue, Date expiration, Map<String, Object> claims) {
+		DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(tokenValue);
+		accessToken.setExpiration(expiration);
+		accessToken.setScope(toSet(claims.get("scope")));
+		return accessToken;
+	}
+
+	private OAuth2Authentication toAuthentication(Map<String, Object> claims) {
+		Set<String> names = toSet(claims.get("authorities"));
+		List<GrantedAuthority> authorities = new ArrayList<>(names.size());
+		for (String name : names) {
+			authorities.add(new SimpleGrantedAuthority(name));
+		}
+		String clientId = (String) claims.get("client_id");
+		Map<String, String> parameters = new HashMap<>(2);
+		parameters.put(OAuth2Utils.CLIENT_ID, clientId);
+		if (claims.get("grant_type") instanceof String) {
+			parameters.put(OAuth2Utils.GRANT_TYPE, (String) claims.get("grant_type"));
+		}
+		OAuth2Request request = new OAuth2Request(parameters, clientId, authorities, true, toSet(claims.get("scope")),
+				toSet(claims.get("aud")), null, null, null);
+		Authentication userAuthentication = null;
+		Object subject = claims.get("sub");
+		if (subject instanceof String) {
+			userAuthentication = new UsernamePasswordAuthenticationToken(new User((String) subject, "", authorities),
+					null, authorities);
+		}
+		return new OAuth2Authentication(request, userAuthentication);
+	}
+
+	private static Set<String> toSet(Object value) {
+		if (!(value instanceof Collection)) {
+			return Collections.emptySet();
+		}
+		Set<String> set = new LinkedHashSet<>();
+		for (Object item : (Collection<?>) value) {
+			set.add(String.valueOf(item));
+		}
+		return set;
+	}
+
+	private byte[] sign(String kid, String content) {
+		Mac mac = macs.get().computeIfAbsent(kid, k -> {
+			try {
+				Mac instance = Mac.getInstance(ALGORITHM);
+				instance.init(keys.get(k));
+				return instance;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("无法初始化token签名工具", e);
+			}
+		});
+		return mac.doFinal(content.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private Map<String, Object> parse(String tokenValue, String part) {
+		try {
+			return MAPPER.readValue(DECODER.decode(part), MAP_TYPE);
+		} catch (IOException | IllegalArgumentException e) {
+			throw new InvalidTokenException("Invalid access token: " + tokenValue);
+		}
+	}
+
+	private byte[] toJson(Map<String, Object> value) {
+		try {
+			return MAPPER.writeValueAsBytes(value);
+		} catch (IOException e) {
+			throw new IllegalStateException("token信息序列化失败", e);
+		}
+	}
+
+	public String getActiveKid() {
+		return activeKid;
+	}
+
+	/**
+	 * 校验通过的token和认证信息
+	 *
+	 * @author yishui
+	 * @date 2019年11月20日
+	 * @version 1.0.0
+	 */
+	public static class VerifiedToken {
+
+		private final OAuth2AccessToken accessToken;
+
+		private final OAuth2Authentication authentication;
+
+		VerifiedToken(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+			this.accessToken = accessToken;
+			this.authentication = authentication;
+		}
+
+		public OAuth2AccessToken getAccessToken() {
+			return accessToken;
+		}
+
+		public OAuth2Authentication getAuthentication() {
+			return authentication;
+		}
+	}
+
+}
@@ -0,0 +1,531 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.util.Assert;
+
+/**
+ * 基于本地文件的token存储<br/>
+ * 所有数据仍然保存在内存中，读取速度与 CustomInMemoryTokenStore 相同，每一次修改都会追加写入内存映射的日志文件中，重启后通过重放日志恢复数据。
+ * <ul>
+ * <li>日志按固定大小分段，当前段写满后创建新的段</li>
+ * <li>每条记录的格式为 长度(4字节) + 类型(1字节) + 内容 + CRC32校验码(4字节)，校验失败时忽略该段中剩余的记录</li>
+ * <li>token和认证信息使用 CompactTokenSerializationStrategy 序列化</li>
+ * <li>已经写满的段的数量达到阈值时进行压缩，把当前所有有效的token写入新的段后删除旧的段</li>
+ * <li>重放日志时跳过已经过期的token</li>
+ * <li>日志中的token为明文，在支持POSIX文件权限的系统上，新建的日志目录和日志段只有所有者可以读写</li>
+ * </ul>
+ *
+ * @author yishui
+ * @date 2019年11月20日
+ * @version 1.0.0
+ */
+public class MappedFileTokenStore extends CustomInMemoryTokenStore {
+
+	private final static Logger log = LoggerFactory.getLogger(MappedFileTokenStore.class);
+
+	private final static String SUFFIX = ".seg";
+
+	private final static byte STORE_ACCESS_TOKEN = 1;
+
+	private final static byte REMOVE_ACCESS_TOKEN = 2;
+
+	private final static byte STORE_REFRESH_TOKEN = 3;
+
+	private final static byte REMOVE_REFRESH_TOKEN = 4;
+
+	/**
+	 * 日志中保存的是明文的token，日志目录和日志段只允许所有者访问
+	 */
+	private final static String DIRECTORY_PERMISSIONS = "rwx------";
+
+	private final static String FILE_PERMISSIONS = "rw-------";
+
+	/**
+	 * 长度、类型和校验码占用的字节数
+	 */
+	private final static int OVERHEAD = 4 + 1 + 4;
+
+	private final CompactTokenSerializationStrategy serializationStrategy = new CompactTokenSerializationStrategy();
+
+	/**
+	 * 日志文件所在的目录
+	 */
+	private final File directory;
+
+	/**
+	 * 每一段日志文件的大小，单位为字节
+	 */
+	private int segmentSize = 32 * 1024 * 1024;
+
+	/**
+	 * 触发压缩的已写满的段的数量
+	 */
+	private int compactThreshold = 4;
+
+	/**
+	 * 刷盘和检查是否需要压缩的时间间隔，单位为秒
+	 */
+	private int maintainInterval = 60;
+
+	/**
+	 * 已经写满的段
+	 */
+	private final List<File> sealedSegments = new ArrayList<>();
+
+	private File activeSegment;
+
+	private FileChannel activeChannel;
+
+	private MappedByteBuffer activeBuffer;
+
+	private long nextSequence;
+
+	/**
+	 * 是否正在重放日志，重放时不再写入日志
+	 */
+	private volatile boolean replaying;
+
+	private ScheduledExecutorService maintainer;
+
+	/**
+	 *
+	 * @param directory 日志文件所在的目录
+	 */
+	public MappedFileTokenStore(File directory) {
+		Assert.notNull(directory, "日志文件目录不能为空");
+		this.directory = directory;
+	}
+
+	/**
+	 * 内存中的修改和日志的追加在同一个锁内完成，保证日志中记录的顺序与内存中修改的顺序一致，
+	 * 否则并发的存储和删除可能在日志中被记录为先删除后存储，重放后已经删除的token会重新生效
+	 */
+	@Override
+	public synchronized void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+		super.storeAccessToken(token, authentication);
+		if (!replaying) {
+			this.append(STORE_ACCESS_TOKEN, join(serializationStrategy.serialize(token),
+					serializationStrategy.serialize(authentication)));
+		}
+	}
+
+	@Override
+	public synchronized OAuth2AccessToken removeAccessToken(String tokenValue) {
+		OAuth2AccessToken removed = super.removeAccessToken(tokenValue);
+		if (!replaying && null != removed) {
+			this.append(REMOVE_ACCESS_TOKEN, tokenValue.getBytes(StandardCharsets.UTF_8));
+		}
+		return removed;
+	}
+
+	@Override
+	public synchronized void storeRefreshToken(OAuth2RefreshToken refreshToken,
+			OAuth2Authentication authentication) {
+		super.storeRefreshToken(refreshToken, authentication);
+		if (!replaying) {
+			this.append(STORE_REFRESH_TOKEN, join(serializationStrategy.serialize(refreshToken),
+					serializationStrategy.serialize(authentication)));
+		}
+	}
+
+	@Override
+	public synchronized void removeRefreshToken(String tokenValue) {
+		super.removeRefreshToken(tokenValue);
+		if (!replaying) {
+			this.append(REMOVE_REFRESH_TOKEN, tokenValue.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	// ------------------------------------------- log
+
+	/**
+	 * 追加一条记录，当前段的剩余空间不足时创建新的段<br/>
+	 * 写入失败时只记录日志，内存中的数据仍然有效
+	 *
+	 * @param type    记录的类型
+	 * @param payload 记录的内容
+	 */
+	private synchronized void append(byte type, byte[] payload) {
+		try {
+			this.write(type, payload);
+		} catch (IOException e) {
+			log.error("写入token日志时出现问题，该记录不会被持久化，问题为 {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 写入一条记录，当前段的剩余空间不足时创建新的段
+	 *
+	 * @param type    记录的类型
+	 * @param payload 记录的内容
+	 * @throws IOException 记录的大小超过了日志段的大小或者写入失败
+	 */
+	private void write(byte type, byte[] payload) throws IOException {
+		int size = OVERHEAD + payload.length;
+		if (size > segmentSize) {
+			throw new IOException("token记录的大小 " + size + " 超过了日志段的大小 " + segmentSize);
+		}
+		if (null == activeBuffer || activeBuffer.remaining() < size) {
+			this.roll();
+		}
+		activeBuffer.putInt(payload.length);
+		activeBuffer.put(type);
+		activeBuffer.put(payload);
+		activeBuffer.putInt(checksum(type, payload));
+	}
+
+	/**
+	 * 封存当前段并创建一个新的段
+	 *
+	 * @throws IOException
+	 */
+	private void roll() throws IOException {
+		if (null != activeBuffer) {
+			this.closeActiveSegment();
+			sealedSegments.add(activeSegment);
+		}
+		activeSegment = new File(directory, String.format("%020d%s", nextSequence++, SUFFIX));
+		Set<OpenOption> options = EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		activeChannel = posix() ? FileChannel.open(activeSegment.toPath(), options, ownerOnly(FILE_PERMISSIONS))
+				: FileChannel.open(activeSegment.toPath(), options);
+		activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+	}
+
+	private void closeActiveSegment() throws IOException {
+		if (null != activeBuffer) {
+			activeBuffer.force();
+			activeBuffer = null;
+		}
+		if (null != activeChannel) {
+			activeChannel.close();
+			activeChannel = null;
+		}
+	}
+
+	/**
+	 * 重放所有的日志段，重建内存中的数据
+	 */
+	private void replay() {
+		File[] segments = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+		if (null == segments || segments.length == 0) {
+			return;
+		}
+		Arrays.sort(segments);
+		long start = System.currentTimeMillis();
+		replaying = true;
+		try {
+			for (File segment : segments) {
+				this.replay(segment);
+				sealedSegments.add(segment);
+				String name = segment.getName();
+				try {
+					nextSequence = Math.max(nextSequence,
+							Long.parseLong(name.substring(0, name.length() - SUFFIX.length())) + 1);
+				} catch (NumberFormatException e) {
+					log.warn("无法识别的日志段文件名 {}", name);
+				}
+			}
+		} finally {
+			replaying = false;
+		}
+		log.info("重放了 {} 个token日志段，恢复了 {} 个access token和 {} 个refresh token，耗时 {} 毫秒", segments.length,
+				getAccessTokenCount(), getRefreshTokenCount(), System.currentTimeMillis() - start);
+	}
+
+	private void replay(File segment) {
+		try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			while (buffer.remaining() >= OVERHEAD) {
+				int length = buffer.getInt();
+				if (length <= 0 || buffer.remaining() < length + OVERHEAD - 4) {
+					break;
+				}
+				byte type = buffer.get();
+				byte[] payload = new byte[length];
+				buffer.get(payload);
+				if (buffer.getInt() != checksum(type, payload)) {
+					log.warn("token日志段 {} 中的记录校验失败，忽略该段中剩余的记录", segment.getName());
+					break;
+				}
+				try {
+					this.apply(type, payload);
+				} catch (Exception e) {
+					log.warn("重放token日志段 {} 中的记录时出现问题，问题为 {}", segment.getName(), e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			log.error("读取token日志段 {} 时出现问题，问题为 {}", segment.getName(), e.getMessage());
+		}
+	}
+
+	private void apply(byte type, byte[] payload) {
+		switch (type) {
+		case STORE_ACCESS_TOKEN:
+			OAuth2AccessToken accessToken = serializationStrategy.deserialize(first(payload), OAuth2AccessToken.class);
+			if (!accessToken.isExpired()) {
+				this.storeAccessToken(accessToken,
+						serializationStrategy.deserialize(second(payload), OAuth2Authentication.class));
+			}
+			break;
+		case REMOVE_ACCESS_TOKEN:
+			this.removeAccessToken(new String(payload, StandardCharsets.UTF_8));
+			break;
+		case STORE_REFRESH_TOKEN:
+			OAuth2RefreshToken refreshToken = serializationStrategy.deserialize(first(payload),
+					OAuth2RefreshToken.class);
+			if (!isExpired(refreshToken)) {
+				this.storeRefreshToken(refreshToken,
+						serializationStrategy.deserialize(second(payload), OAuth2Authentication.class));
+			}
+			break;
+		case REMOVE_REFRESH_TOKEN:
+			this.removeRefreshToken(new String(payload, StandardCharsets.UTF_8));
+			break;
+		default:
+			log.warn("无法识别的token日志记录类型 {}", type);
+		}
+	}
+
+	/**
+	 * 压缩日志，把当前所有有效的token写入新的段后删除旧的段<br/>
+	 * 只有所有的记录都写入新的段并且刷盘之后才会删除旧的段，任意一条记录写入失败时删除新的段并保留旧的段<br/>
+	 * 压缩期间其他线程的写入会等待压缩完成，内存中的读取不受影响
+	 */
+	public synchronized void compact() {
+		long start = System.currentTimeMillis();
+		List<File> obsolete = new ArrayList<>(sealedSegments);
+		try {
+			if (null != activeSegment) {
+				this.closeActiveSegment();
+				obsolete.add(activeSegment);
+			}
+		} catch (IOException e) {
+			log.error("压缩token日志时出现问题，保留原来的日志段，问题为 {}", e.getMessage());
+			return;
+		}
+		sealedSegments.clear();
+		activeSegment = null;
+		try {
+			this.roll();
+			forEachAccessToken((accessToken, authentication) -> {
+				if (!accessToken.isExpired()) {
+					this.rewrite(STORE_ACCESS_TOKEN, join(serializationStrategy.serialize(accessToken),
+							serializationStrategy.serialize(authentication)));
+				}
+			});
+			forEachRefreshToken((refreshToken, authentication) -> {
+				if (!isExpired(refreshToken)) {
+					this.rewrite(STORE_REFRESH_TOKEN, join(serializationStrategy.serialize(refreshToken),
+							serializationStrategy.serialize(authentication)));
+				}
+			});
+			// 写满的新段在封存时已经刷盘
+			activeBuffer.force();
+		} catch (IOException | UncheckedIOException e) {
+			log.error("压缩token日志时出现问题，保留原来的日志段，问题为 {}", e.getMessage());
+			this.discardCompaction(obsolete);
+			return;
+		}
+		for (File segment : obsolete) {
+			if (!segment.delete()) {
+				log.warn("删除旧的token日志段 {} 失败", segment.getName());
+			}
+		}
+		log.info("token日志压缩完成，删除了 {} 个旧的日志段，耗时 {} 毫秒", obsolete.size(), System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * 压缩时写入一条记录，写入失败时抛出异常终止压缩
+	 */
+	private void rewrite(byte type, byte[] payload) {
+		try {
+			this.write(type, payload);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 放弃压缩，删除压缩过程中创建的段并恢复原来的段，之后的写入会创建新的段
+	 *
+	 * @param obsolete 压缩前的所有段
+	 */
+	private void discardCompaction(List<File> obsolete) {
+		List<File> created = new ArrayList<>(sealedSegments);
+		if (null != activeSegment) {
+			created.add(activeSegment);
+		}
+		try {
+			this.closeActiveSegment();
+		} catch (IOException e) {
+			log.warn("关闭压缩产生的token日志段时出现问题，问题为 {}", e.getMessage());
+		}
+		activeSegment = null;
+		for (File segment : created) {
+			if (!segment.delete()) {
+				log.warn("删除压缩产生的token日志段 {} 失败", segment.getName());
+			}
+		}
+		sealedSegments.clear();
+		sealedSegments.addAll(obsolete);
+	}
+
+	private void maintain() {
+		try {
+			synchronized (this) {
+				if (null != activeBuffer) {
+					activeBuffer.force();
+				}
+				if (sealedSegments.size() >= compactThreshold) {
+					this.compact();
+				}
+			}
+		} catch (Exception e) {
+			log.warn("维护token日志时出现问题，问题为 {}", e.getMessage());
+		}
+	}
+
+	// ------------------------------------------- helpers
+
+	private static boolean isExpired(OAuth2RefreshToken refreshToken) {
+		if (refreshToken instanceof ExpiringOAuth2RefreshToken) {
+			Date expiration = ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration();
+			return null != expiration && expiration.getTime() <= System.currentTimeMillis();
+		}
+		return false;
+	}
+
+	/**
+	 * 当前文件系统是否支持POSIX文件权限
+	 */
+	private boolean posix() {
+		return directory.toPath().getFileSystem().supportedFileAttributeViews().contains("posix");
+	}
+
+	private static FileAttribute<Set<PosixFilePermission>> ownerOnly(String permissions) {
+		return PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions));
+	}
+
+	private static int checksum(byte type, byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(payload, 0, payload.length);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * 把两段数据合并为一段，格式为 第一段的长度(4字节) + 第一段 + 第二段
+	 */
+	private static byte[] join(byte[] first, byte[] second) {
+		return ByteBuffer.allocate(4 + first.length + second.length).putInt(first.length).put(first).put(second)
+				.array();
+	}
+
+	private static byte[] first(byte[] payload) {
+		int length = ByteBuffer.wrap(payload).getInt();
+		return Arrays.copyOfRange(payload, 4, 4 + length);
+	}
+
+	private static byte[] second(byte[] payload) {
+		int length = ByteBuffer.wrap(payload).getInt();
+		return Arrays.copyOfRange(payload, 4 + length, payload.length);
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (!directory.exists()) {
+			try {
+				if (posix()) {
+					Files.createDirectories(directory.toPath(), ownerOnly(DIRECTORY_PERMISSIONS));
+				} else {
+					Files.createDirectories(directory.toPath());
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("无法创建token日志目录 " + directory.getAbsolutePath(), e);
+			}
+		}
+		this.replay();
+		synchronized (this) {
+			this.roll();
+		}
+		super.afterPropertiesSet();
+		if (maintainInterval > 0) {
+			maintainer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "oauth2-token-log-maintainer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			maintainer.scheduleWithFixedDelay(this::maintain, maintainInterval, maintainInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		super.destroy();
+		if (null != maintainer) {
+			maintainer.shutdownNow();
+		}
+		synchronized (this) {
+			this.closeActiveSegment();
+		}
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	public void setSegmentSize(int segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	public int getCompactThreshold() {
+		return compactThreshold;
+	}
+
+	public void setCompactThreshold(int compactThreshold) {
+		this.compactThreshold = compactThreshold;
+	}
+
+	public int getMaintainInterval() {
+		return maintainInterval;
+	}
+
+	public void setMaintainInterval(int maintainInterval) {
+		this.maintainInterval = maintainInterval;
+	}
+
+}
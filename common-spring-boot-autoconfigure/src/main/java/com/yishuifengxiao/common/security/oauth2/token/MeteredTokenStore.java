@@ -0,0 +1,132 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.util.Assert;
+
+/**
+ * 记录每个方法耗时的token存储<br/>
+ * 所有的调用都委托给实际的token存储，调用结束后通过 TokenMetrics 记录方法名、结果和耗时
+ *
+ * @author yishui
+ * @date 2019年11月22日
+ * @version 1.0.0
+ */
+public class MeteredTokenStore implements TokenStore {
+
+	private final TokenStore delegate;
+
+	private final TokenMetrics metrics;
+
+	public MeteredTokenStore(TokenStore delegate, TokenMetrics metrics) {
+		Assert.notNull(delegate, "token存储不能为空");
+		Assert.notNull(metrics, "监控指标记录工具不能为空");
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+		return this.time("readAuthentication", () -> delegate.readAuthentication(token));
+	}
+
+	@Override
+	public OAuth2Authentication readAuthentication(String token) {
+		return this.time("readAuthentication", () -> delegate.readAuthentication(token));
+	}
+
+	@Override
+	public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+		this.run("storeAccessToken", () -> delegate.storeAccessToken(token, authentication));
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String tokenValue) {
+		return this.time("readAccessToken", () -> delegate.readAccessToken(tokenValue));
+	}
+
+	@Override
+	public void removeAccessToken(OAuth2AccessToken token) {
+		this.run("removeAccessToken", () -> delegate.removeAccessToken(token));
+	}
+
+	@Override
+	public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+		this.run("storeRefreshToken", () -> delegate.storeRefreshToken(refreshToken, authentication));
+	}
+
+	@Override
+	public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+		return this.time("readRefreshToken", () -> delegate.readRefreshToken(tokenValue));
+	}
+
+	@Override
+	public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+		return this.time("readAuthenticationForRefreshToken", () -> delegate.readAuthenticationForRefreshToken(token));
+	}
+
+	@Override
+	public void removeRefreshToken(OAuth2RefreshToken token) {
+		this.run("removeRefreshToken", () -> delegate.removeRefreshToken(token));
+	}
+
+	@Override
+	public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+		this.run("removeAccessTokenUsingRefreshToken",
+				() -> delegate.removeAccessTokenUsingRefreshToken(refreshToken));
+	}
+
+	@Override
+	public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+		return this.time("getAccessToken", () -> delegate.getAccessToken(authentication));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+		return this.time("findTokensByClientIdAndUserName",
+				() -> delegate.findTokensByClientIdAndUserName(clientId, userName));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+		return this.time("findTokensByClientId", () -> delegate.findTokensByClientId(clientId));
+	}
+
+	/**
+	 * 获取实际的token存储
+	 *
+	 * @return 实际的token存储
+	 */
+	public TokenStore getDelegate() {
+		return delegate;
+	}
+
+	private <T> T time(String method, Supplier<T> call) {
+		long start = System.nanoTime();
+		String outcome = TokenMetrics.ERROR;
+		try {
+			T result = call.get();
+			outcome = TokenMetrics.SUCCESS;
+			return result;
+		} catch (OAuth2Exception e) {
+			outcome = TokenMetrics.INVALID;
+			throw e;
+		} finally {
+			metrics.recordStore(method, outcome, System.nanoTime() - start);
+		}
+	}
+
+	private void run(String method, Runnable call) {
+		this.time(method, () -> {
+			call.run();
+			return null;
+		});
+	}
+
+}
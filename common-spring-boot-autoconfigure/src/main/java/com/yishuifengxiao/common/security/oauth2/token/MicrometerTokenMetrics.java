@@ -0,0 +1,98 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import com.yishuifengxiao.common.security.event.TokenGenerateEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 基于 micrometer 的token监控指标记录工具<br/>
+ * 记录的指标如下：
+ * <ul>
+ * <li>yishuifengxiao.oauth2.token.operation ：token服务各个操作的耗时，标签为 operation、client_id、grant_type 和 outcome</li>
+ * <li>yishuifengxiao.oauth2.token.store ：token存储各个方法的耗时，标签为 method 和 outcome</li>
+ * <li>yishuifengxiao.oauth2.token.issued ：发放的token的数量，标签为 client_id、grant_type 和 reused ，根据 TokenGenerateEvent 事件统计</li>
+ * </ul>
+ * 相同标签的计时器和计数器只创建一次
+ *
+ * @author yishui
+ * @date 2019年11月22日
+ * @version 1.0.0
+ */
+public class MicrometerTokenMetrics implements TokenMetrics, ApplicationListener<TokenGenerateEvent> {
+
+	private final static String NONE_TAG = "none";
+
+	private final MeterRegistry registry;
+
+	private final Map<String, Timer> operationTimers = new ConcurrentHashMap<>();
+
+	private final Map<String, Timer> storeTimers = new ConcurrentHashMap<>();
+
+	private final Map<String, Counter> issuedCounters = new ConcurrentHashMap<>();
+
+	public MicrometerTokenMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void record(String operation, String clientId, String grantType, String outcome, long nanos) {
+		String client = tag(clientId);
+		String grant = tag(grantType);
+		String key = operation + ':' + client + ':' + grant + ':' + outcome;
+		Timer timer = operationTimers.get(key);
+		if (null == timer) {
+			timer = operationTimers.computeIfAbsent(key,
+					k -> Timer.builder("yishuifengxiao.oauth2.token.operation").tag("operation", operation)
+							.tag("client_id", client).tag("grant_type", grant).tag("outcome", outcome)
+							.description("token服务各个操作的耗时").register(registry));
+		}
+		timer.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordStore(String method, String outcome, long nanos) {
+		String key = method + ':' + outcome;
+		Timer timer = storeTimers.get(key);
+		if (null == timer) {
+			timer = storeTimers.computeIfAbsent(key, k -> Timer.builder("yishuifengxiao.oauth2.token.store")
+					.tag("method", method).tag("outcome", outcome).description("token存储各个方法的耗时").register(registry));
+		}
+		timer.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void onApplicationEvent(TokenGenerateEvent event) {
+		OAuth2Authentication authentication = event.getAuthentication();
+		String client = null == authentication ? NONE_TAG : tag(authentication.getOAuth2Request().getClientId());
+		String grant = null == authentication ? NONE_TAG : tag(authentication.getOAuth2Request().getGrantType());
+		String reused = String.valueOf(event.isExisting());
+		String key = client + ':' + grant + ':' + reused;
+		Counter counter = issuedCounters.get(key);
+		if (null == counter) {
+			counter = issuedCounters.computeIfAbsent(key,
+					k -> Counter.builder("yishuifengxiao.oauth2.token.issued").tag("client_id", client)
+							.tag("grant_type", grant).tag("reused", reused).description("发放的token的数量，reused表示是否复用了已有的token")
+							.register(registry));
+		}
+		counter.increment();
+	}
+
+	private static String tag(String value) {
+		return null == value ? NONE_TAG : value;
+	}
+
+}
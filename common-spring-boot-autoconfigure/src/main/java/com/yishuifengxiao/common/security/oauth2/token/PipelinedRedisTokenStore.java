@@ -0,0 +1,493 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.store.redis.RedisTokenStoreSerializationStrategy;
+import org.springframework.util.Assert;
+
+/**
+ * 批量写入的redis token存储<br/>
+ * 与 RedisTokenStore 保存的数据相同，区别如下：
+ * <ul>
+ * <li>一次操作涉及的所有命令通过管道一次性发送，保存一个token只需要一次网络往返</li>
+ * <li>键名使用hash tag，同一个token的相关数据在redis集群中位于同一个槽位</li>
+ * <li>默认使用 CompactTokenSerializationStrategy 序列化，不再使用java序列化</li>
+ * <li>终端索引和用户索引中只保存token的值，不再保存完整的token</li>
+ * <li>额外维护按用户名的索引，支持批量删除某个用户或者某个终端的所有token</li>
+ * </ul>
+ * 集群连接不支持管道，此时命令会逐条发送
+ *
+ * @author yishui
+ * @date 2019年11月18日
+ * @version 1.0.0
+ */
+public class PipelinedRedisTokenStore implements BulkRevocableTokenStore {
+
+	private final static String ACCESS = "access:";
+	private final static String AUTH = "auth:";
+	private final static String ACCESS_TO_REFRESH = "access_to_refresh:";
+	private final static String AUTH_TO_ACCESS = "auth_to_access:";
+	private final static String REFRESH = "refresh:";
+	private final static String REFRESH_AUTH = "refresh_auth:";
+	private final static String REFRESH_TO_ACCESS = "refresh_to_access:";
+	private final static String CLIENT_ID_TO_ACCESS = "client_id_to_access:";
+	private final static String UNAME_TO_ACCESS = "uname_to_access:";
+	private final static String USER_TO_ACCESS = "user_to_access:";
+
+	/**
+	 * 批量删除时每一批处理的token数量
+	 */
+	private final static int BATCH_SIZE = 1000;
+
+	private final RedisConnectionFactory connectionFactory;
+
+	private AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+
+	private RedisTokenStoreSerializationStrategy serializationStrategy = new CompactTokenSerializationStrategy();
+
+	/**
+	 * 键名的前缀
+	 */
+	private String prefix = "";
+
+	public PipelinedRedisTokenStore(RedisConnectionFactory connectionFactory) {
+		Assert.notNull(connectionFactory, "redis连接工厂不能为空");
+		this.connectionFactory = connectionFactory;
+	}
+
+	@Override
+	public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+		return readAuthentication(token.getValue());
+	}
+
+	@Override
+	public OAuth2Authentication readAuthentication(String token) {
+		return serializationStrategy.deserialize(get(key(AUTH, token)), OAuth2Authentication.class);
+	}
+
+	@Override
+	public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+		String tokenValue = token.getValue();
+		byte[] serializedAccessToken = serializationStrategy.serialize(token);
+		byte[] serializedAuth = serializationStrategy.serialize(authentication);
+		byte[] serializedValue = serializationStrategy.serialize(tokenValue);
+
+		byte[] accessKey = key(ACCESS, tokenValue);
+		byte[] authKey = key(AUTH, tokenValue);
+		byte[] authToAccessKey = key(AUTH_TO_ACCESS, authenticationKeyGenerator.extractKey(authentication));
+		byte[] approvalKey = key(UNAME_TO_ACCESS, getApprovalKey(authentication));
+		byte[] clientId = key(CLIENT_ID_TO_ACCESS, authentication.getOAuth2Request().getClientId());
+		byte[] userKey = authentication.isClientOnly() ? null : key(USER_TO_ACCESS, authentication.getName());
+
+		List<Function<RedisConnection, Object>> commands = new ArrayList<>(16);
+		commands.add(c -> c.stringCommands().set(accessKey, serializedAccessToken));
+		commands.add(c -> c.stringCommands().set(authKey, serializedAuth));
+		commands.add(c -> c.stringCommands().set(authToAccessKey, serializedAccessToken));
+		if (!authentication.isClientOnly()) {
+			commands.add(c -> c.setCommands().sAdd(approvalKey, serializedValue));
+			commands.add(c -> c.setCommands().sAdd(userKey, serializedValue));
+		}
+		commands.add(c -> c.setCommands().sAdd(clientId, serializedValue));
+		if (token.getExpiration() != null) {
+			int seconds = token.getExpiresIn();
+			commands.add(c -> c.keyCommands().expire(accessKey, seconds));
+			commands.add(c -> c.keyCommands().expire(authKey, seconds));
+			commands.add(c -> c.keyCommands().expire(authToAccessKey, seconds));
+			commands.add(c -> c.keyCommands().expire(clientId, seconds));
+			commands.add(c -> c.keyCommands().expire(approvalKey, seconds));
+			if (null != userKey) {
+				commands.add(c -> c.keyCommands().expire(userKey, seconds));
+			}
+		}
+		OAuth2RefreshToken refreshToken = token.getRefreshToken();
+		if (refreshToken != null && refreshToken.getValue() != null) {
+			byte[] serializedRefresh = serializationStrategy.serialize(refreshToken.getValue());
+			byte[] refreshToAccessKey = key(REFRESH_TO_ACCESS, refreshToken.getValue());
+			byte[] accessToRefreshKey = key(ACCESS_TO_REFRESH, tokenValue);
+			commands.add(c -> c.stringCommands().set(refreshToAccessKey, serializedValue));
+			commands.add(c -> c.stringCommands().set(accessToRefreshKey, serializedRefresh));
+			Integer seconds = expiresIn(refreshToken);
+			if (null != seconds) {
+				commands.add(c -> c.keyCommands().expire(refreshToAccessKey, seconds));
+				commands.add(c -> c.keyCommands().expire(accessToRefreshKey, seconds));
+			}
+		}
+		pipeline(commands);
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String tokenValue) {
+		return serializationStrategy.deserialize(get(key(ACCESS, tokenValue)), OAuth2AccessToken.class);
+	}
+
+	@Override
+	public void removeAccessToken(OAuth2AccessToken accessToken) {
+		removeAccessToken(accessToken.getValue());
+	}
+
+	/**
+	 * 删除access token及其相关的数据
+	 *
+	 * @param tokenValue access token的值
+	 */
+	public void removeAccessToken(String tokenValue) {
+		removeAccessTokens(Collections.singletonList(tokenValue), false);
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByUserName(String userName) {
+		return removeTokens(key(USER_TO_ACCESS, userName));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByClientIdAndUserName(String clientId, String userName) {
+		return removeTokens(key(UNAME_TO_ACCESS, getApprovalKey(clientId, userName)));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> removeTokensByClientId(String clientId) {
+		return removeTokens(key(CLIENT_ID_TO_ACCESS, clientId));
+	}
+
+	/**
+	 * 删除索引中的所有token及对应的refresh token，最后删除索引本身
+	 *
+	 * @param indexKey 索引的键
+	 * @return 被删除的access token
+	 */
+	private Collection<OAuth2AccessToken> removeTokens(byte[] indexKey) {
+		Set<byte[]> members = execute(connection -> connection.setCommands().sMembers(indexKey));
+		if (null == members || members.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> tokenValues = new ArrayList<>(members.size());
+		for (byte[] member : members) {
+			tokenValues.add(serializationStrategy.deserializeString(member));
+		}
+		List<OAuth2AccessToken> removed = new ArrayList<>(tokenValues.size());
+		for (int from = 0; from < tokenValues.size(); from += BATCH_SIZE) {
+			removed.addAll(removeAccessTokens(
+					tokenValues.subList(from, Math.min(from + BATCH_SIZE, tokenValues.size())), true));
+		}
+		execute(connection -> connection.keyCommands().del(indexKey));
+		return removed;
+	}
+
+	/**
+	 * 批量删除access token及其相关的数据，第一次往返读取所有需要的数据，第二次往返删除所有的数据
+	 *
+	 * @param tokenValues        access token的值
+	 * @param removeRefreshToken 是否同时删除对应的refresh token
+	 * @return 被删除的access token
+	 */
+	private List<OAuth2AccessToken> removeAccessTokens(List<String> tokenValues, boolean removeRefreshToken) {
+		List<Function<RedisConnection, Object>> commands = new ArrayList<>(tokenValues.size() * 3);
+		for (String tokenValue : tokenValues) {
+			byte[] accessKey = key(ACCESS, tokenValue);
+			byte[] authKey = key(AUTH, tokenValue);
+			byte[] accessToRefreshKey = key(ACCESS_TO_REFRESH, tokenValue);
+			commands.add(c -> c.stringCommands().get(accessKey));
+			commands.add(c -> c.stringCommands().get(authKey));
+			commands.add(c -> c.stringCommands().get(accessToRefreshKey));
+		}
+		List<Object> results = pipeline(commands);
+
+		commands.clear();
+		List<OAuth2AccessToken> removed = new ArrayList<>(tokenValues.size());
+		for (int i = 0; i < tokenValues.size(); i++) {
+			String tokenValue = tokenValues.get(i);
+			OAuth2AccessToken accessToken = serializationStrategy.deserialize((byte[]) results.get(i * 3),
+					OAuth2AccessToken.class);
+			OAuth2Authentication authentication = serializationStrategy
+					.deserialize((byte[]) results.get(i * 3 + 1), OAuth2Authentication.class);
+			String refreshToken = serializationStrategy.deserializeString((byte[]) results.get(i * 3 + 2));
+			if (null != accessToken) {
+				removed.add(accessToken);
+			}
+
+			byte[] accessKey = key(ACCESS, tokenValue);
+			byte[] authKey = key(AUTH, tokenValue);
+			byte[] accessToRefreshKey = key(ACCESS_TO_REFRESH, tokenValue);
+			commands.add(c -> c.keyCommands().del(accessKey, authKey, accessToRefreshKey));
+			if (null != authentication) {
+				byte[] serializedValue = serializationStrategy.serialize(tokenValue);
+				byte[] authToAccessKey = key(AUTH_TO_ACCESS, authenticationKeyGenerator.extractKey(authentication));
+				byte[] approvalKey = key(UNAME_TO_ACCESS, getApprovalKey(authentication));
+				byte[] clientId = key(CLIENT_ID_TO_ACCESS, authentication.getOAuth2Request().getClientId());
+				commands.add(c -> c.keyCommands().del(authToAccessKey));
+				commands.add(c -> c.setCommands().sRem(approvalKey, serializedValue));
+				commands.add(c -> c.setCommands().sRem(clientId, serializedValue));
+				if (!authentication.isClientOnly()) {
+					byte[] userKey = key(USER_TO_ACCESS, authentication.getName());
+					commands.add(c -> c.setCommands().sRem(userKey, serializedValue));
+				}
+			}
+			if (removeRefreshToken && null != refreshToken) {
+				byte[] refreshKey = key(REFRESH, refreshToken);
+				byte[] refreshAuthKey = key(REFRESH_AUTH, refreshToken);
+				byte[] refreshToAccessKey = key(REFRESH_TO_ACCESS, refreshToken);
+				commands.add(c -> c.keyCommands().del(refreshKey, refreshAuthKey, refreshToAccessKey));
+			}
+		}
+		pipeline(commands);
+		return removed;
+	}
+
+	@Override
+	public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+		byte[] refreshKey = key(REFRESH, refreshToken.getValue());
+		byte[] refreshAuthKey = key(REFRESH_AUTH, refreshToken.getValue());
+		byte[] serializedRefreshToken = serializationStrategy.serialize(refreshToken);
+		byte[] serializedAuth = serializationStrategy.serialize(authentication);
+		List<Function<RedisConnection, Object>> commands = new ArrayList<>(4);
+		commands.add(c -> c.stringCommands().set(refreshKey, serializedRefreshToken));
+		commands.add(c -> c.stringCommands().set(refreshAuthKey, serializedAuth));
+		Integer seconds = expiresIn(refreshToken);
+		if (null != seconds) {
+			commands.add(c -> c.keyCommands().expire(refreshKey, seconds));
+			commands.add(c -> c.keyCommands().expire(refreshAuthKey, seconds));
+		}
+		pipeline(commands);
+	}
+
+	@Override
+	public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+		return serializationStrategy.deserialize(get(key(REFRESH, tokenValue)), OAuth2RefreshToken.class);
+	}
+
+	@Override
+	public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+		return readAuthenticationForRefreshToken(token.getValue());
+	}
+
+	/**
+	 * 根据refresh token的值读取认证信息
+	 *
+	 * @param token refresh token的值
+	 * @return 认证信息
+	 */
+	public OAuth2Authentication readAuthenticationForRefreshToken(String token) {
+		return serializationStrategy.deserialize(get(key(REFRESH_AUTH, token)), OAuth2Authentication.class);
+	}
+
+	@Override
+	public void removeRefreshToken(OAuth2RefreshToken refreshToken) {
+		removeRefreshToken(refreshToken.getValue());
+	}
+
+	/**
+	 * 删除refresh token及其相关的数据
+	 *
+	 * @param tokenValue refresh token的值
+	 */
+	public void removeRefreshToken(String tokenValue) {
+		byte[] refreshKey = key(REFRESH, tokenValue);
+		byte[] refreshAuthKey = key(REFRESH_AUTH, tokenValue);
+		byte[] refreshToAccessKey = key(REFRESH_TO_ACCESS, tokenValue);
+		pipeline(Collections.singletonList(c -> c.keyCommands().del(refreshKey, refreshAuthKey, refreshToAccessKey)));
+	}
+
+	@Override
+	public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+		removeAccessTokenUsingRefreshToken(refreshToken.getValue());
+	}
+
+	private void removeAccessTokenUsingRefreshToken(String refreshToken) {
+		byte[] refreshToAccessKey = key(REFRESH_TO_ACCESS, refreshToken);
+		List<Function<RedisConnection, Object>> commands = new ArrayList<>(2);
+		commands.add(c -> c.stringCommands().get(refreshToAccessKey));
+		commands.add(c -> c.keyCommands().del(refreshToAccessKey));
+		List<Object> results = pipeline(commands);
+		String accessToken = serializationStrategy.deserializeString((byte[]) results.get(0));
+		if (accessToken != null) {
+			removeAccessToken(accessToken);
+		}
+	}
+
+	@Override
+	public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+		String key = authenticationKeyGenerator.extractKey(authentication);
+		OAuth2AccessToken accessToken = serializationStrategy.deserialize(get(key(AUTH_TO_ACCESS, key)),
+				OAuth2AccessToken.class);
+		if (accessToken != null) {
+			OAuth2Authentication storedAuthentication = readAuthentication(accessToken.getValue());
+			if ((storedAuthentication == null
+					|| !key.equals(authenticationKeyGenerator.extractKey(storedAuthentication)))) {
+				// Keep the stores consistent (maybe the same user is
+				// represented by this authentication but the details have
+				// changed)
+				storeAccessToken(accessToken, authentication);
+			}
+		}
+		return accessToken;
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+		return findTokens(key(UNAME_TO_ACCESS, getApprovalKey(clientId, userName)));
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+		return findTokens(key(CLIENT_ID_TO_ACCESS, clientId));
+	}
+
+	/**
+	 * 根据索引读取所有的access token，索引中已经失效的token值会被顺带清除
+	 *
+	 * @param indexKey 索引的键
+	 * @return access token
+	 */
+	private Collection<OAuth2AccessToken> findTokens(byte[] indexKey) {
+		Set<byte[]> members = execute(connection -> connection.setCommands().sMembers(indexKey));
+		if (null == members || members.isEmpty()) {
+			return Collections.emptySet();
+		}
+		List<byte[]> values = new ArrayList<>(members);
+		List<Function<RedisConnection, Object>> commands = new ArrayList<>(values.size());
+		for (byte[] value : values) {
+			byte[] accessKey = key(ACCESS, serializationStrategy.deserializeString(value));
+			commands.add(c -> c.stringCommands().get(accessKey));
+		}
+		List<Object> results = pipeline(commands);
+		List<OAuth2AccessToken> accessTokens = new ArrayList<>(values.size());
+		List<byte[]> stale = new ArrayList<>();
+		for (int i = 0; i < values.size(); i++) {
+			OAuth2AccessToken accessToken = serializationStrategy.deserialize((byte[]) results.get(i),
+					OAuth2AccessToken.class);
+			if (null == accessToken) {
+				stale.add(values.get(i));
+			} else {
+				accessTokens.add(accessToken);
+			}
+		}
+		if (!stale.isEmpty()) {
+			byte[][] staleValues = stale.toArray(new byte[stale.size()][]);
+			execute(connection -> connection.setCommands().sRem(indexKey, staleValues));
+		}
+		return Collections.unmodifiableCollection(accessTokens);
+	}
+
+	/**
+	 * 执行一组命令，非集群连接时通过管道一次性发送
+	 *
+	 * @param commands 需要执行的命令
+	 * @return 每条命令的执行结果，顺序与命令的顺序一致
+	 */
+	private List<Object> pipeline(List<Function<RedisConnection, Object>> commands) {
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			if (connection instanceof RedisClusterConnection) {
+				List<Object> results = new ArrayList<>(commands.size());
+				for (Function<RedisConnection, Object> command : commands) {
+					results.add(command.apply(connection));
+				}
+				return results;
+			}
+			connection.openPipeline();
+			for (Function<RedisConnection, Object> command : commands) {
+				command.apply(connection);
+			}
+			return connection.closePipeline();
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * 执行一条命令
+	 *
+	 * @param command 需要执行的命令
+	 * @return 命令的执行结果
+	 */
+	private <T> T execute(Function<RedisConnection, T> command) {
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			return command.apply(connection);
+		} finally {
+			connection.close();
+		}
+	}
+
+	private byte[] get(byte[] key) {
+		return execute(connection -> connection.stringCommands().get(key));
+	}
+
+	/**
+	 * 生成键名，标识部分使用hash tag包裹
+	 *
+	 * @param type 键的类型
+	 * @param id   标识
+	 * @return 键名
+	 */
+	private byte[] key(String type, String id) {
+		return serializationStrategy.serialize(new StringBuilder(prefix.length() + type.length() + id.length() + 2)
+				.append(prefix).append(type).append('{').append(id).append('}').toString());
+	}
+
+	/**
+	 * 计算refresh token的剩余有效时间
+	 *
+	 * @param refreshToken refresh token
+	 * @return 剩余有效时间，单位为秒，永不过期时返回为null
+	 */
+	private static Integer expiresIn(OAuth2RefreshToken refreshToken) {
+		if (refreshToken instanceof ExpiringOAuth2RefreshToken) {
+			Date expiration = ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration();
+			if (expiration != null) {
+				return Long.valueOf((expiration.getTime() - System.currentTimeMillis()) / 1000L).intValue();
+			}
+		}
+		return null;
+	}
+
+	private static String getApprovalKey(OAuth2Authentication authentication) {
+		String userName = authentication.getUserAuthentication() == null ? ""
+				: authentication.getUserAuthentication().getName();
+		return getApprovalKey(authentication.getOAuth2Request().getClientId(), userName);
+	}
+
+	private static String getApprovalKey(String clientId, String userName) {
+		return clientId + (userName == null ? "" : ":" + userName);
+	}
+
+	public AuthenticationKeyGenerator getAuthenticationKeyGenerator() {
+		return authenticationKeyGenerator;
+	}
+
+	public void setAuthenticationKeyGenerator(AuthenticationKeyGenerator authenticationKeyGenerator) {
+		this.authenticationKeyGenerator = authenticationKeyGenerator;
+	}
+
+	public RedisTokenStoreSerializationStrategy getSerializationStrategy() {
+		return serializationStrategy;
+	}
+
+	public void setSerializationStrategy(RedisTokenStoreSerializationStrategy serializationStrategy) {
+		this.serializationStrategy = serializationStrategy;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public void setPrefix(String prefix) {
+		this.prefix = null == prefix ? "" : prefix;
+	}
+
+}
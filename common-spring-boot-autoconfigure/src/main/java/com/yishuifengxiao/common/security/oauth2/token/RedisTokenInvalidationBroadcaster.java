@@ -0,0 +1,103 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 基于redis发布/订阅功能的token失效通知工具<br/>
+ * 消息的格式为 类型:token的值 ，其中类型 a 表示access token，r 表示refresh token，批量通知时多个token的值之间使用换行符分隔。<br/>
+ * 收到消息后只删除本节点的缓存，不会再次发布消息
+ *
+ * @author yishui
+ * @date 2019年11月16日
+ * @version 1.0.0
+ */
+public class RedisTokenInvalidationBroadcaster implements TokenInvalidationBroadcaster, MessageListener {
+
+	private final static Logger log = LoggerFactory.getLogger(RedisTokenInvalidationBroadcaster.class);
+
+	private final static String ACCESS_PREFIX = "a:";
+
+	private final static String REFRESH_PREFIX = "r:";
+
+	private final static char SEPARATOR = '\n';
+
+	/**
+	 * 批量通知时每条消息中最多包含的token数量
+	 */
+	private final static int BATCH_SIZE = 1000;
+
+	private final StringRedisTemplate redisTemplate;
+
+	private final String channel;
+
+	private final AuthenticationCache authenticationCache;
+
+	public RedisTokenInvalidationBroadcaster(StringRedisTemplate redisTemplate, String channel,
+			AuthenticationCache authenticationCache) {
+		this.redisTemplate = redisTemplate;
+		this.channel = channel;
+		this.authenticationCache = authenticationCache;
+	}
+
+	@Override
+	public void broadcastAccessToken(String tokenValue) {
+		this.publish(ACCESS_PREFIX + tokenValue);
+	}
+
+	@Override
+	public void broadcastAccessTokens(Collection<String> tokenValues) {
+		StringBuilder message = new StringBuilder(ACCESS_PREFIX);
+		int count = 0;
+		for (String tokenValue : tokenValues) {
+			if (count > 0) {
+				message.append(SEPARATOR);
+			}
+			message.append(tokenValue);
+			if (++count == BATCH_SIZE) {
+				this.publish(message.toString());
+				message.setLength(ACCESS_PREFIX.length());
+				count = 0;
+			}
+		}
+		if (count > 0) {
+			this.publish(message.toString());
+		}
+	}
+
+	@Override
+	public void broadcastRefreshToken(String refreshTokenValue) {
+		this.publish(REFRESH_PREFIX + refreshTokenValue);
+	}
+
+	private void publish(String message) {
+		try {
+			redisTemplate.convertAndSend(channel, message);
+		} catch (Exception e) {
+			log.warn("发布token失效消息时出现问题，其他节点的缓存将在过期后失效，问题为 {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		if (body.startsWith(ACCESS_PREFIX)) {
+			int from = ACCESS_PREFIX.length();
+			int to;
+			while ((to = body.indexOf(SEPARATOR, from)) >= 0) {
+				authenticationCache.invalidateLocal(body.substring(from, to));
+				from = to + 1;
+			}
+			authenticationCache.invalidateLocal(body.substring(from));
+		} else if (body.startsWith(REFRESH_PREFIX)) {
+			authenticationCache.invalidateLocalByRefreshToken(body.substring(REFRESH_PREFIX.length()));
+		}
+	}
+
+}
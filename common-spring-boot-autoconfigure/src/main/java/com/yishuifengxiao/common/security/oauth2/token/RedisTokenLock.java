@@ -0,0 +1,105 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 基于redis分布式锁的并发控制工具<br/>
+ * 本节点内相同键值的操作先在本地合并，合并后的操作再通过redis分布式锁与其他节点互斥执行。<br/>
+ * 在指定时间内获取不到分布式锁时不再等待，直接执行操作，保证服务可用
+ *
+ * @author yishui
+ * @date 2019年11月17日
+ * @version 1.0.0
+ */
+public class RedisTokenLock extends SingleFlightTokenLock {
+
+	private final static Logger log = LoggerFactory.getLogger(RedisTokenLock.class);
+
+	/**
+	 * 只释放自己持有的锁
+	 */
+	private final static RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+			Long.class);
+
+	/**
+	 * 获取锁失败时的重试间隔，单位为毫秒
+	 */
+	private final static long RETRY_INTERVAL = 20L;
+
+	private final StringRedisTemplate redisTemplate;
+
+	/**
+	 * 锁的键的前缀
+	 */
+	private final String keyPrefix;
+
+	/**
+	 * 锁的最长持有时间，单位为毫秒
+	 */
+	private final long lockTime;
+
+	/**
+	 * 获取锁的最长等待时间，单位为毫秒
+	 */
+	private final long waitTime;
+
+	public RedisTokenLock(StringRedisTemplate redisTemplate, String keyPrefix, long lockTime, long waitTime) {
+		this.redisTemplate = redisTemplate;
+		this.keyPrefix = keyPrefix;
+		this.lockTime = lockTime;
+		this.waitTime = waitTime;
+	}
+
+	@Override
+	protected <T> T invoke(String key, Supplier<T> action) {
+		String lockKey = keyPrefix + key;
+		String owner = UUID.randomUUID().toString();
+		boolean locked = this.lock(lockKey, owner);
+		try {
+			return action.get();
+		} finally {
+			if (locked) {
+				this.unlock(lockKey, owner);
+			}
+		}
+	}
+
+	private boolean lock(String lockKey, String owner) {
+		long deadline = System.currentTimeMillis() + waitTime;
+		try {
+			do {
+				Boolean locked = redisTemplate.opsForValue().setIfAbsent(lockKey, owner, lockTime,
+						TimeUnit.MILLISECONDS);
+				if (Boolean.TRUE.equals(locked)) {
+					return true;
+				}
+				Thread.sleep(RETRY_INTERVAL);
+			} while (System.currentTimeMillis() < deadline);
+			log.warn("在 {} 毫秒内未能获取到分布式锁 {} ，不再等待", waitTime, lockKey);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.warn("获取分布式锁 {} 时出现问题，问题为 {}", lockKey, e.getMessage());
+		}
+		return false;
+	}
+
+	private void unlock(String lockKey, String owner) {
+		try {
+			redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(lockKey), owner);
+		} catch (Exception e) {
+			log.warn("释放分布式锁 {} 时出现问题，锁将在超时后自动释放，问题为 {}", lockKey, e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+/**
+ * 基于redis的token吊销列表同步工具<br/>
+ * 新增的吊销记录同时写入redis的有序集合(成员为十六进制的指纹，分值为以秒为单位的过期时间)并通过发布/订阅功能通知其他节点；<br/>
+ * 消息的格式为 指纹:过期时间 ，多条记录之间使用换行符分隔。<br/>
+ * 发布/订阅的消息可能丢失，因此定期从有序集合中加载全量快照，同时删除快照中已经过期的记录
+ *
+ * @author yishui
+ * @date 2019年11月21日
+ * @version 1.0.0
+ */
+public class RedisTokenRevocationSynchronizer implements TokenRevocationSynchronizer, MessageListener {
+
+	private final static Logger log = LoggerFactory.getLogger(RedisTokenRevocationSynchronizer.class);
+
+	private final static char SEPARATOR = '\n';
+
+	/**
+	 * 每条消息中最多包含的记录数量，也是加载快照时每次遍历的数量
+	 */
+	private final static int BATCH_SIZE = 1000;
+
+	private final StringRedisTemplate redisTemplate;
+
+	private final String channel;
+
+	/**
+	 * 保存全量快照的有序集合的键
+	 */
+	private final String key;
+
+	private final TokenRevocationList revocationList;
+
+	public RedisTokenRevocationSynchronizer(StringRedisTemplate redisTemplate, String channel, String key,
+			TokenRevocationList revocationList) {
+		this.redisTemplate = redisTemplate;
+		this.channel = channel;
+		this.key = key;
+		this.revocationList = revocationList;
+	}
+
+	@Override
+	public void publish(long[] fingerprints, long[] expireAts) {
+		try {
+			for (int from = 0; from < fingerprints.length; from += BATCH_SIZE) {
+				int to = Math.min(fingerprints.length, from + BATCH_SIZE);
+				Set<TypedTuple<String>> tuples = new HashSet<>(to - from);
+				StringBuilder message = new StringBuilder((to - from) * 28);
+				for (int i = from; i < to; i++) {
+					String member = Long.toHexString(fingerprints[i]);
+					long expireAt = expireAts[i] / 1000L;
+					tuples.add(new DefaultTypedTuple<>(member, (double) expireAt));
+					if (i > from) {
+						message.append(SEPARATOR);
+					}
+					message.append(member).append(':').append(expireAt);
+				}
+				redisTemplate.opsForZSet().add(key, tuples);
+				redisTemplate.convertAndSend(channel, message.toString());
+			}
+		} catch (Exception e) {
+			log.warn("发布token吊销记录时出现问题，其他节点将在下一次同步快照时更新，问题为 {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public void synchronize() {
+		long now = System.currentTimeMillis() / 1000L;
+		redisTemplate.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, now);
+		int loaded = 0;
+		// ZSCAN按游标遍历，全量加载的代价与记录数量成正比；遍历期间变化的记录可能重复返回，重复应用不影响结果
+		try (Cursor<TypedTuple<String>> cursor = redisTemplate.opsForZSet().scan(key,
+				ScanOptions.scanOptions().count(BATCH_SIZE).build())) {
+			while (cursor.hasNext()) {
+				TypedTuple<String> tuple = cursor.next();
+				if (null != tuple.getValue() && null != tuple.getScore() && tuple.getScore() >= now) {
+					this.apply(tuple.getValue(), tuple.getScore().longValue());
+					loaded++;
+				}
+			}
+		} catch (IOException e) {
+			log.warn("关闭token吊销记录的遍历游标时出现问题，问题为 {}", e.getMessage());
+		}
+		log.debug("从快照中同步了 {} 条token吊销记录", loaded);
+	}
+
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		int from = 0;
+		while (from < body.length()) {
+			int to = body.indexOf(SEPARATOR, from);
+			if (to < 0) {
+				to = body.length();
+			}
+			int colon = body.indexOf(':', from);
+			if (colon > from && colon < to) {
+				try {
+					this.apply(body.substring(from, colon), Long.parseLong(body.substring(colon + 1, to)));
+				} catch (NumberFormatException e) {
+					log.warn("收到格式不正确的token吊销记录 {}", body.substring(from, to));
+				}
+			}
+			from = to + 1;
+		}
+	}
+
+	private void apply(String member, long expireAt) {
+		revocationList.apply(Long.parseUnsignedLong(member, 16), expireAt * 1000L + 999L);
+	}
+
+}
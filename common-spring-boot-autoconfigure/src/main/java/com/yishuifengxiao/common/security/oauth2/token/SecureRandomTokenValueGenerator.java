@@ -0,0 +1,96 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import org.springframework.util.Assert;
+
+/**
+ * 基于线程独立随机数生成器的token值生成器<br/>
+ * 每个线程持有一个独立的 SHA1PRNG 实例，线程之间不会竞争同一把锁；<br/>
+ * 每个实例的种子从系统的非阻塞随机源中读取，并在生成一定数量的值之后重新播种。<br/>
+ * 生成的值使用不带填充的URL安全的Base64编码
+ *
+ * @author yishui
+ * @date 2019年11月20日
+ * @version 1.0.0
+ */
+public class SecureRandomTokenValueGenerator implements TokenValueGenerator {
+
+	/**
+	 * 播种使用的字节数
+	 */
+	private final static int SEED_LENGTH = 32;
+
+	/**
+	 * 重新播种前每个线程最多生成的值的数量
+	 */
+	private final static int RESEED_INTERVAL = 1 << 20;
+
+	/**
+	 * 系统的随机源，仅用于播种
+	 */
+	private final static SecureRandom SEED_SOURCE = new SecureRandom();
+
+	private final static Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final ThreadLocal<Generator> generators = ThreadLocal.withInitial(Generator::new);
+
+	/**
+	 * 生成的值的随机字节数
+	 */
+	private final int length;
+
+	public SecureRandomTokenValueGenerator() {
+		this(20);
+	}
+
+	/**
+	 *
+	 * @param length 生成的值的随机字节数，至少为16
+	 */
+	public SecureRandomTokenValueGenerator(int length) {
+		Assert.isTrue(length >= 16, "token值的随机字节数不能小于16");
+		this.length = length;
+	}
+
+	@Override
+	public String generate() {
+		byte[] bytes = new byte[length];
+		generators.get().nextBytes(bytes);
+		return ENCODER.encodeToString(bytes);
+	}
+
+	private static class Generator {
+
+		private final SecureRandom random;
+
+		private int count;
+
+		Generator() {
+			try {
+				this.random = SecureRandom.getInstance("SHA1PRNG");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("当前环境不支持 SHA1PRNG 随机数生成器", e);
+			}
+			this.reseed();
+		}
+
+		void nextBytes(byte[] bytes) {
+			if (++count >= RESEED_INTERVAL) {
+				this.reseed();
+			}
+			random.nextBytes(bytes);
+		}
+
+		private void reseed() {
+			byte[] seed = new byte[SEED_LENGTH];
+			SEED_SOURCE.nextBytes(seed);
+			// 首次调用 nextBytes 之前设置种子时 SHA1PRNG 只使用给定的种子，不会读取可能阻塞的系统种子源
+			random.setSeed(seed);
+			count = 0;
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 基于本地内存的并发控制工具<br/>
+ * 同一时刻键值相同的操作只有第一个调用者会真正执行，其他调用者等待第一个调用者执行完成后直接使用其结果(包括异常)
+ *
+ * @author yishui
+ * @date 2019年11月17日
+ * @version 1.0.0
+ */
+public class SingleFlightTokenLock implements TokenLock {
+
+	/**
+	 * 正在执行中的操作
+	 */
+	private final Map<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T execute(String key, Supplier<T> action) {
+		CompletableFuture<Object> flight = new CompletableFuture<>();
+		CompletableFuture<Object> existing = flights.putIfAbsent(key, flight);
+		if (null != existing) {
+			return (T) this.await(existing);
+		}
+		try {
+			T result = this.invoke(key, action);
+			flight.complete(result);
+			return result;
+		} catch (RuntimeException e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} catch (Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			flights.remove(key, flight);
+		}
+	}
+
+	/**
+	 * 真正执行操作，子类可以在此增加额外的并发控制
+	 *
+	 * @param key    并发控制的键值
+	 * @param action 需要执行的操作
+	 * @return 操作的执行结果
+	 */
+	protected <T> T invoke(String key, Supplier<T> action) {
+		return action.get();
+	}
+
+	/**
+	 * 等待正在执行中的操作完成
+	 *
+	 * @param flight 正在执行中的操作
+	 * @return 操作的执行结果
+	 */
+	private Object await(CompletableFuture<Object> flight) {
+		try {
+			return flight.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("等待token操作完成时被中断", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.Collection;
+
+/**
+ * token失效通知工具<br/>
+ * 用于在集群环境下通知其他节点删除本地缓存的token相关信息
+ *
+ * @author yishui
+ * @date 2019年11月16日
+ * @version 1.0.0
+ */
+public interface TokenInvalidationBroadcaster {
+
+	/**
+	 * 通知其他节点access token已经失效
+	 *
+	 * @param tokenValue access token的值
+	 */
+	void broadcastAccessToken(String tokenValue);
+
+	/**
+	 * 批量通知其他节点access token已经失效
+	 *
+	 * @param tokenValues access token的值
+	 */
+	default void broadcastAccessTokens(Collection<String> tokenValues) {
+		for (String tokenValue : tokenValues) {
+			broadcastAccessToken(tokenValue);
+		}
+	}
+
+	/**
+	 * 通知其他节点refresh token对应的access token已经失效
+	 *
+	 * @param refreshTokenValue refresh token的值
+	 */
+	void broadcastRefreshToken(String refreshTokenValue);
+
+}
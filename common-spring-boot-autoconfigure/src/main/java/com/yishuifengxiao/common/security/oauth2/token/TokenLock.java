@@ -0,0 +1,24 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.function.Supplier;
+
+/**
+ * token操作的并发控制工具<br/>
+ * 相同键值的并发操作只会真正执行一次，其他的调用者等待并共享执行结果
+ *
+ * @author yishui
+ * @date 2019年11月17日
+ * @version 1.0.0
+ */
+public interface TokenLock {
+
+	/**
+	 * 在并发控制下执行操作
+	 *
+	 * @param key    并发控制的键值，键值相同的操作会被合并
+	 * @param action 需要执行的操作
+	 * @return 操作的执行结果
+	 */
+	<T> T execute(String key, Supplier<T> action);
+
+}
@@ -0,0 +1,76 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+/**
+ * token相关操作的监控指标记录工具<br/>
+ * 未开启监控时使用 NONE ，调用者在 isEnabled 返回false时不需要计时
+ *
+ * @author yishui
+ * @date 2019年11月22日
+ * @version 1.0.0
+ */
+public interface TokenMetrics {
+
+	/**
+	 * 操作成功
+	 */
+	String SUCCESS = "success";
+
+	/**
+	 * token或授权信息无效导致操作被拒绝
+	 */
+	String INVALID = "invalid";
+
+	/**
+	 * 出现其他异常
+	 */
+	String ERROR = "error";
+
+	/**
+	 * 不记录任何指标
+	 */
+	TokenMetrics NONE = new TokenMetrics() {
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public void record(String operation, String clientId, String grantType, String outcome, long nanos) {
+
+		}
+
+		@Override
+		public void recordStore(String method, String outcome, long nanos) {
+
+		}
+	};
+
+	/**
+	 * 是否需要记录指标
+	 *
+	 * @return 是否需要记录指标
+	 */
+	boolean isEnabled();
+
+	/**
+	 * 记录一次token服务的操作
+	 *
+	 * @param operation 操作的名称
+	 * @param clientId  终端id，未知时为null
+	 * @param grantType 授权模式，未知时为null
+	 * @param outcome   操作的结果
+	 * @param nanos     操作的耗时，单位为纳秒
+	 */
+	void record(String operation, String clientId, String grantType, String outcome, long nanos);
+
+	/**
+	 * 记录一次token存储的操作
+	 *
+	 * @param method  token存储的方法名
+	 * @param outcome 操作的结果
+	 * @param nanos   操作的耗时，单位为纳秒
+	 */
+	void recordStore(String method, String outcome, long nanos);
+
+}
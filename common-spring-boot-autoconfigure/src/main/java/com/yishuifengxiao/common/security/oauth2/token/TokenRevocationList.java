@@ -0,0 +1,445 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.security.event.TokenRemoveEvent;
+import com.yishuifengxiao.common.utils.BloomFilter;
+
+/**
+ * token吊销列表<br/>
+ * 记录已经被删除但尚未过期的access token，用于拒绝在本地校验(签名token或认证信息本地缓存)时仍然有效的token。<br/>
+ * 每条记录只保存token的64位指纹和过期时间：
+ * <ul>
+ * <li>布隆过滤器保存所有的指纹，绝大多数未吊销的token只需要计算一次指纹和几次位运算即可判定</li>
+ * <li>布隆过滤器判定可能存在时才查询精确的指纹表，指纹表使用开放寻址的基本类型数组，每条记录约占16个字节</li>
+ * <li>记录在token原本的过期时间之后由后台线程清理，清理时重建布隆过滤器</li>
+ * </ul>
+ * 收到 TokenRemoveEvent 事件时吊销其中的token，并通过 TokenRevocationSynchronizer 通知其他节点
+ *
+ * @author yishui
+ * @date 2019年11月21日
+ * @version 1.0.0
+ */
+public class TokenRevocationList implements ApplicationListener<TokenRemoveEvent>, InitializingBean, DisposableBean {
+
+	private final static Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+	/**
+	 * 预期的吊销记录数量
+	 */
+	private final long expectedInsertions;
+
+	/**
+	 * 布隆过滤器的误判率
+	 */
+	private final double fpp;
+
+	private final FingerprintTable table = new FingerprintTable();
+
+	private volatile BloomFilter filter;
+
+	/**
+	 * 同步吊销记录的工具，为null时只在本节点生效
+	 */
+	private volatile TokenRevocationSynchronizer synchronizer;
+
+	/**
+	 * 没有过期时间的token的吊销记录的保留时间，单位为秒
+	 */
+	private int defaultTtl = 60 * 60 * 12;
+
+	/**
+	 * 清理过期记录的时间间隔，单位为秒
+	 */
+	private int purgeInterval = 60;
+
+	/**
+	 * 从全量快照同步的时间间隔，单位为秒，小于等于0时不同步
+	 */
+	private int syncInterval = 300;
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 *
+	 * @param expectedInsertions 预期的吊销记录数量
+	 * @param fpp                布隆过滤器的误判率
+	 */
+	public TokenRevocationList(long expectedInsertions, double fpp) {
+		Assert.isTrue(expectedInsertions > 0, "预期的吊销记录数量必须大于0");
+		this.expectedInsertions = expectedInsertions;
+		this.fpp = fpp;
+		this.filter = new BloomFilter(expectedInsertions, fpp);
+	}
+
+	/**
+	 * 判断token是否已经被吊销
+	 *
+	 * @param tokenValue access token的值
+	 * @return token是否已经被吊销
+	 */
+	public boolean isRevoked(String tokenValue) {
+		if (null == tokenValue) {
+			return false;
+		}
+		long fingerprint = fingerprint(tokenValue);
+		if (!filter.mightContain(fingerprint)) {
+			return false;
+		}
+		return table.contains(fingerprint, System.currentTimeMillis());
+	}
+
+	/**
+	 * 吊销token并通知其他节点
+	 *
+	 * @param tokenValue access token的值
+	 * @param expireAt   token的过期时间，单位为毫秒，小于等于0时使用默认的保留时间
+	 */
+	public void revoke(String tokenValue, long expireAt) {
+		long expiration = expireAt > 0 ? expireAt : System.currentTimeMillis() + defaultTtl * 1000L;
+		long fingerprint = fingerprint(tokenValue);
+		if (this.apply(fingerprint, expiration)) {
+			this.publish(new long[] { fingerprint }, new long[] { expiration });
+		}
+	}
+
+	/**
+	 * 添加一条吊销记录，不通知其他节点
+	 *
+	 * @param fingerprint token的指纹
+	 * @param expireAt    吊销记录的过期时间，单位为毫秒
+	 * @return 是否为有效的记录
+	 */
+	public synchronized boolean apply(long fingerprint, long expireAt) {
+		if (expireAt <= System.currentTimeMillis() || 0 == fingerprint) {
+			return false;
+		}
+		table.put(fingerprint, expireAt);
+		if (table.size() > filter.capacity()) {
+			// 记录数量超过布隆过滤器的预期数量时扩容，避免误判率上升
+			this.rebuild();
+		} else {
+			filter.put(fingerprint);
+		}
+		return true;
+	}
+
+	/**
+	 * 清理已经过期的吊销记录并重建布隆过滤器
+	 *
+	 * @return 清理的记录数量
+	 */
+	public synchronized int purge() {
+		int removed = table.purge(System.currentTimeMillis());
+		if (removed > 0) {
+			this.rebuild();
+		}
+		return removed;
+	}
+
+	private void rebuild() {
+		BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, table.size() * 2L), fpp);
+		table.forEach(rebuilt::put);
+		this.filter = rebuilt;
+	}
+
+	@Override
+	public void onApplicationEvent(TokenRemoveEvent event) {
+		List<OAuth2AccessToken> accessTokens = event.getTokens();
+		long[] fingerprints = new long[accessTokens.size()];
+		long[] expireAts = new long[accessTokens.size()];
+		int count = 0;
+		long now = System.currentTimeMillis();
+		for (OAuth2AccessToken accessToken : accessTokens) {
+			long expireAt = null == accessToken.getExpiration() ? now + defaultTtl * 1000L
+					: accessToken.getExpiration().getTime();
+			long fingerprint = fingerprint(accessToken.getValue());
+			if (this.apply(fingerprint, expireAt)) {
+				fingerprints[count] = fingerprint;
+				expireAts[count] = expireAt;
+				count++;
+			}
+		}
+		if (count > 0) {
+			log.debug("吊销了 {} 个token", count);
+			this.publish(count == fingerprints.length ? fingerprints : Arrays.copyOf(fingerprints, count),
+					count == expireAts.length ? expireAts : Arrays.copyOf(expireAts, count));
+		}
+	}
+
+	private void publish(long[] fingerprints, long[] expireAts) {
+		TokenRevocationSynchronizer synchronizer = this.synchronizer;
+		if (null != synchronizer) {
+			synchronizer.publish(fingerprints, expireAts);
+		}
+	}
+
+	private void maintain() {
+		try {
+			int removed = this.purge();
+			if (removed > 0) {
+				log.debug("清理了 {} 条过期的token吊销记录", removed);
+			}
+		} catch (Exception e) {
+			log.warn("清理过期的token吊销记录时出现问题，问题为 {}", e.getMessage());
+		}
+	}
+
+	private void synchronizeQuietly() {
+		TokenRevocationSynchronizer synchronizer = this.synchronizer;
+		if (null == synchronizer) {
+			return;
+		}
+		try {
+			synchronizer.synchronize();
+		} catch (Exception e) {
+			log.warn("同步token吊销记录时出现问题，问题为 {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 计算token的64位指纹
+	 *
+	 * @param tokenValue token的值
+	 * @return token的指纹
+	 */
+	public static long fingerprint(String tokenValue) {
+		int length = tokenValue.length();
+		long hash = 0x9E3779B97F4A7C15L ^ length;
+		int i = 0;
+		// 每次处理4个字符
+		for (; i + 4 <= length; i += 4) {
+			long k = tokenValue.charAt(i) | (long) tokenValue.charAt(i + 1) << 16
+					| (long) tokenValue.charAt(i + 2) << 32 | (long) tokenValue.charAt(i + 3) << 48;
+			hash ^= Long.rotateLeft(k * 0x87c37b91114253d5L, 31) * 0x4cf5ad432745937fL;
+			hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+		}
+		for (; i < length; i++) {
+			hash ^= tokenValue.charAt(i) * 0x87c37b91114253d5L;
+			hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		// 指纹表使用0表示空位
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * 获取当前的吊销记录数量
+	 *
+	 * @return 吊销记录数量
+	 */
+	public int size() {
+		return table.size();
+	}
+
+	/**
+	 * 获取吊销列表占用的内存的估算值
+	 *
+	 * @return 占用的内存，单位为字节
+	 */
+	public long getMemoryUsage() {
+		return filter.bitSize() / 8 + table.capacity() * 12L;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "oauth2-token-revocation-maintainer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (purgeInterval > 0) {
+			scheduler.scheduleWithFixedDelay(this::maintain, purgeInterval, purgeInterval, TimeUnit.SECONDS);
+		}
+		if (syncInterval > 0) {
+			scheduler.scheduleWithFixedDelay(this::synchronizeQuietly, syncInterval, syncInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (null != scheduler) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	public TokenRevocationSynchronizer getSynchronizer() {
+		return synchronizer;
+	}
+
+	/**
+	 * 设置同步吊销记录的工具，设置后立即从全量快照加载一次
+	 *
+	 * @param synchronizer 同步吊销记录的工具
+	 */
+	public void setSynchronizer(TokenRevocationSynchronizer synchronizer) {
+		this.synchronizer = synchronizer;
+		this.synchronizeQuietly();
+	}
+
+	public int getDefaultTtl() {
+		return defaultTtl;
+	}
+
+	public void setDefaultTtl(int defaultTtl) {
+		this.defaultTtl = defaultTtl;
+	}
+
+	public int getPurgeInterval() {
+		return purgeInterval;
+	}
+
+	public void setPurgeInterval(int purgeInterval) {
+		this.purgeInterval = purgeInterval;
+	}
+
+	public int getSyncInterval() {
+		return syncInterval;
+	}
+
+	public void setSyncInterval(int syncInterval) {
+		this.syncInterval = syncInterval;
+	}
+
+	/**
+	 * 指纹表<br/>
+	 * 使用线性探测的开放寻址表保存指纹和过期时间，指纹为0的位置表示空位。<br/>
+	 * 过期时间以秒为单位保存为相对于创建时间的int值
+	 *
+	 * @author yishui
+	 * @date 2019年11月21日
+	 * @version 1.0.0
+	 */
+	private static final class FingerprintTable {
+
+		private final static int INITIAL_CAPACITY = 1024;
+
+		private final long base = System.currentTimeMillis() / 1000L;
+
+		private long[] keys = new long[INITIAL_CAPACITY];
+
+		private int[] expiries = new int[INITIAL_CAPACITY];
+
+		private int size;
+
+		synchronized boolean contains(long key, long now) {
+			int mask = keys.length - 1;
+			for (int i = index(key, mask);; i = (i + 1) & mask) {
+				if (keys[i] == 0) {
+					return false;
+				}
+				if (keys[i] == key) {
+					return expiries[i] > this.toSeconds(now);
+				}
+			}
+		}
+
+		synchronized void put(long key, long expireAt) {
+			if ((size + 1) * 4 > keys.length * 3) {
+				this.resize(keys.length * 2, Long.MIN_VALUE);
+			}
+			this.insert(key, this.toSeconds(expireAt) + 1);
+		}
+
+		/**
+		 * 删除过期的记录，存在过期的记录时重新构建整个表
+		 *
+		 * @param now 当前时间
+		 * @return 删除的记录数量
+		 */
+		synchronized int purge(long now) {
+			int nowSeconds = this.toSeconds(now);
+			int live = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != 0 && expiries[i] > nowSeconds) {
+					live++;
+				}
+			}
+			int removed = size - live;
+			if (removed > 0) {
+				int capacity = INITIAL_CAPACITY;
+				while (live * 8 > capacity * 3) {
+					capacity <<= 1;
+				}
+				this.resize(capacity, now);
+			}
+			return removed;
+		}
+
+		synchronized void forEach(LongConsumer action) {
+			for (long key : keys) {
+				if (key != 0) {
+					action.accept(key);
+				}
+			}
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized int capacity() {
+			return keys.length;
+		}
+
+		private void insert(long key, int expiry) {
+			int mask = keys.length - 1;
+			for (int i = index(key, mask);; i = (i + 1) & mask) {
+				if (keys[i] == 0) {
+					keys[i] = key;
+					expiries[i] = expiry;
+					size++;
+					return;
+				}
+				if (keys[i] == key) {
+					expiries[i] = Math.max(expiries[i], expiry);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * 按新的容量重新构建表，丢弃在指定时间之前过期的记录
+		 */
+		private void resize(int capacity, long now) {
+			int nowSeconds = Long.MIN_VALUE == now ? Integer.MIN_VALUE : this.toSeconds(now);
+			long[] oldKeys = keys;
+			int[] oldExpiries = expiries;
+			keys = new long[capacity];
+			expiries = new int[capacity];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0 && oldExpiries[i] > nowSeconds) {
+					this.insert(oldKeys[i], oldExpiries[i]);
+				}
+			}
+		}
+
+		private int toSeconds(long millis) {
+			long seconds = millis / 1000L - base;
+			return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, seconds));
+		}
+
+		private static int index(long key, int mask) {
+			return (int) (key ^ (key >>> 32)) & mask;
+		}
+	}
+
+}
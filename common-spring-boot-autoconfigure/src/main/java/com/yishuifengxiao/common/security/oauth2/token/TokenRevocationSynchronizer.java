@@ -0,0 +1,28 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+/**
+ * token吊销列表同步工具<br/>
+ * 用于在集群环境下把本节点新增的吊销记录通知其他节点，并在增量消息丢失时通过全量快照补齐
+ *
+ * @author yishui
+ * @date 2019年11月21日
+ * @version 1.0.0
+ */
+public interface TokenRevocationSynchronizer {
+
+	/**
+	 * 把本节点新增的吊销记录通知其他节点
+	 *
+	 * @param fingerprints token的指纹
+	 * @param expireAts    吊销记录的过期时间，与指纹一一对应，单位为毫秒
+	 */
+	void publish(long[] fingerprints, long[] expireAts);
+
+	/**
+	 * 从全量快照中加载其他节点的吊销记录
+	 */
+	default void synchronize() {
+
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+/**
+ * token值生成器<br/>
+ * 用于生成access token和refresh token的原始值，生成的值必须足够随机且不可预测
+ *
+ * @author yishui
+ * @date 2019年11月20日
+ * @version 1.0.0
+ */
+public interface TokenValueGenerator {
+
+	/**
+	 * 生成一个新的token值
+	 *
+	 * @return token值
+	 */
+	String generate();
+
+}
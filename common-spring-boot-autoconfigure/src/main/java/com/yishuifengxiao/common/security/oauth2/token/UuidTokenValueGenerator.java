@@ -0,0 +1,20 @@
+package com.yishuifengxiao.common.security.oauth2.token;
+
+import java.util.UUID;
+
+/**
+ * 基于UUID的token值生成器<br/>
+ * 与 spring security oauth2 默认的生成方式相同，所有线程共享同一个 SecureRandom，高并发时会产生竞争
+ *
+ * @author yishui
+ * @date 2019年11月20日
+ * @version 1.0.0
+ */
+public class UuidTokenValueGenerator implements TokenValueGenerator {
+
+	@Override
+	public String generate() {
+		return UUID.randomUUID().toString();
+	}
+
+}
@@ -15,8 +15,12 @@ import org.springframework.security.web.RedirectStrategy;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yishuifengxiao.common.constant.SessionConstant;
 import com.yishuifengxiao.common.properties.SecurityProperties;
+import com.yishuifengxiao.common.security.entity.ResultSnapshot;
 import com.yishuifengxiao.common.security.processor.ProcessHandler;
+import com.yishuifengxiao.common.security.session.HttpSessionSecurityAttributeStore;
+import com.yishuifengxiao.common.security.session.SecurityAttributeStore;
 import com.yishuifengxiao.common.tool.entity.Response;
 
 /**
@@ -34,6 +38,11 @@ public class DefaultProcessHandler implements ProcessHandler, InitializingBean {
 
 	private SecurityProperties securityProperties;
 
+	/**
+	 * 重定向时传递信息的存储方式
+	 */
+	private SecurityAttributeStore attributeStore = new HttpSessionSecurityAttributeStore();
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public void handle(HttpServletRequest request, HttpServletResponse response, Boolean isRedict, String url,
@@ -82,7 +91,9 @@ public class DefaultProcessHandler implements ProcessHandler, InitializingBean {
 	private void redirect(HttpServletRequest request, HttpServletResponse response, String url, Response result)
 			throws IOException {
 		log.debug("【协助处理器】最终处理方式为 Redirect ,目标url为{}", url);
-		request.getSession().setAttribute("info", result);
+		// 只保存响应码和提示信息，不保存响应中的数据(可能是异常或认证信息)
+		attributeStore.setAttribute(request, response, SessionConstant.RESULT_MSG, new ResultSnapshot(result.getCode(),
+				result.getMsg(), request.getRequestURI()));
 		redirectStrategy.sendRedirect(request, response, url);
 	}
 
@@ -127,4 +138,13 @@ public class DefaultProcessHandler implements ProcessHandler, InitializingBean {
 		this.securityProperties = securityProperties;
 	}
 
+
+	public SecurityAttributeStore getAttributeStore() {
+		return attributeStore;
+	}
+
+	public void setAttributeStore(SecurityAttributeStore attributeStore) {
+		this.attributeStore = attributeStore;
+	}
+
 }
@@ -1,17 +1,32 @@
 package com.yishuifengxiao.common.security.provider.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDecisionManager;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.vote.AffirmativeBased;
+import org.springframework.security.config.annotation.ObjectPostProcessor;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
 
 import com.yishuifengxiao.common.properties.SecurityProperties;
+import com.yishuifengxiao.common.security.authorize.custom.CustomAuthorityMetadataSource;
+import com.yishuifengxiao.common.security.authorize.custom.CustomAuthorityVoter;
 import com.yishuifengxiao.common.security.authorize.custom.CustomResourceProvider;
+import com.yishuifengxiao.common.security.matcher.IndexedPathRequestMatcher;
 import com.yishuifengxiao.common.security.provider.AuthorizeProvider;
 
 /**
  * 自定义授权配置 <br/>
- * 【注意】必须在spring上下文中注入一个名为 customAuthority 的对象
+ * 【注意】必须在spring上下文中注入一个名为 customAuthority 的对象<br/>
+ * 开启自定义授权结果缓存时由名为 cachingCustomAuthority 的对象包装 customAuthority 进行判断<br/>
+ * 所有自定义授权的路径只注册为一个匹配规则，默认由 CustomAuthorityVoter 直接调用 customAuthority 判断，
+ * 不再对SpEL表达式求值；授权决策管理器不是 AffirmativeBased 时仍然使用表达式
  * 
  * @author yishui
  * @date 2019年1月8日
@@ -29,17 +44,61 @@ public class CustomAuthorizeProvider implements AuthorizeProvider {
      * 实例的名字必须为 <code>customAuthority</code>
      */
 	private CustomResourceProvider customAuthority;
+	/**
+	 * 授权表达式中使用的实例的名字，默认为 <code>customAuthority</code>
+	 */
+	private String authorityBeanName = "customAuthority";
+	/**
+	 * 是否由 CustomAuthorityVoter 直接判断，为false时使用SpEL表达式
+	 */
+	private boolean directVote = true;
 
 	@Override
 	public void config(ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry expressionInterceptUrlRegistry)
 			throws Exception {
 		log.debug("【自定义权限】需要自定义权限的路径为 {}", securityProperties.getCustom().getAll());
-		for (String path : securityProperties.getCustom().getAll()) {
-			// 自定义权限
-			expressionInterceptUrlRegistry.antMatchers(path).access("@customAuthority.hasPermission(request, authentication)");
-			expressionInterceptUrlRegistry.mvcMatchers(path).access("@customAuthority.hasPermission(request, authentication)");
+		List<String> paths = securityProperties.getCustom().getAll().stream().distinct()
+				.collect(Collectors.toList());
+		if (paths.isEmpty()) {
+			return;
 		}
+		String expression = "@" + authorityBeanName + ".hasPermission(request, authentication)";
+		// 自定义权限，所有路径只占用一个匹配规则
+		expressionInterceptUrlRegistry.requestMatchers(new IndexedPathRequestMatcher(paths)).access(expression);
+		if (directVote && null != customAuthority) {
+			expressionInterceptUrlRegistry.withObjectPostProcessor(new ObjectPostProcessor<FilterSecurityInterceptor>() {
 
+				@Override
+				public <O extends FilterSecurityInterceptor> O postProcess(O interceptor) {
+					applyVoter(interceptor, expression);
+					return interceptor;
+				}
+			});
+		}
+
+	}
+
+	/**
+	 * 将自定义授权的表达式替换为 CustomAuthorityVoter 直接判断
+	 * 
+	 * @param interceptor 授权拦截器
+	 * @param expression  自定义授权的表达式
+	 */
+	private void applyVoter(FilterSecurityInterceptor interceptor, String expression) {
+		AccessDecisionManager accessDecisionManager = interceptor.getAccessDecisionManager();
+		if (!(accessDecisionManager instanceof AffirmativeBased)) {
+			log.debug("【自定义权限】授权决策管理器 {} 不是 AffirmativeBased，继续使用表达式 {}", accessDecisionManager, expression);
+			return;
+		}
+		AffirmativeBased affirmativeBased = (AffirmativeBased) accessDecisionManager;
+		List<AccessDecisionVoter<? extends Object>> voters = new ArrayList<>();
+		voters.add(new CustomAuthorityVoter(customAuthority));
+		voters.addAll(affirmativeBased.getDecisionVoters());
+		AffirmativeBased manager = new AffirmativeBased(voters);
+		manager.setAllowIfAllAbstainDecisions(affirmativeBased.isAllowIfAllAbstainDecisions());
+		interceptor.setAccessDecisionManager(manager);
+		interceptor.setSecurityMetadataSource(
+				new CustomAuthorityMetadataSource(interceptor.getSecurityMetadataSource(), expression));
 	}
 
 	@Override
@@ -63,4 +122,20 @@ public class CustomAuthorizeProvider implements AuthorizeProvider {
 		this.customAuthority = customAuthority;
 	}
 
+	public boolean isDirectVote() {
+		return directVote;
+	}
+
+	public void setDirectVote(boolean directVote) {
+		this.directVote = directVote;
+	}
+
+	public String getAuthorityBeanName() {
+		return authorityBeanName;
+	}
+
+	public void setAuthorityBeanName(String authorityBeanName) {
+		this.authorityBeanName = authorityBeanName;
+	}
+
 }
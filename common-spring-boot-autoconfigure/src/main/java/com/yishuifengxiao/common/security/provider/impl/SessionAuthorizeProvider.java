@@ -37,6 +37,12 @@ public class SessionAuthorizeProvider implements AuthorizeProvider {
 	@Override
 	public void config(ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry expressionInterceptUrlRegistry)
 			throws Exception {
+		if (Boolean.TRUE.equals(securityProperties.getSession().getStateless())) {
+			// 无状态模式下不创建session，也不会保存请求缓存和认证信息到session中，并发登录控制不再生效
+			expressionInterceptUrlRegistry.and().sessionManagement()
+					.sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+			return;
+		}
 		//@formatter:off 
 		expressionInterceptUrlRegistry
 		.and()
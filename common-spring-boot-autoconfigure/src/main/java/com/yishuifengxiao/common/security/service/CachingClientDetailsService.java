@@ -0,0 +1,267 @@
+package com.yishuifengxiao.common.security.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.oauth2.provider.ClientDetails;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationException;
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.yishuifengxiao.common.security.event.ClientDetailsChangeEvent;
+
+/**
+ * 带缓存功能的终端信息查询服务<br/>
+ * 在真实的终端信息查询服务之前增加一层本地缓存，主要功能如下：
+ * <ul>
+ * <li>缓存的数量有上限，超过上限时优先淘汰已过期的数据，然后淘汰最早过期的数据</li>
+ * <li>每一条缓存都有存活时间，过期后重新从真实的服务中加载</li>
+ * <li>支持根据clientId主动使缓存失效</li>
+ * <li>记录缓存的命中次数和未命中次数</li>
+ * <li>在同一个请求内终端信息只会解析一次</li>
+ * <li>收到 ClientDetailsChangeEvent 时删除对应的缓存，终端信息重新加载后立即生效</li>
+ * </ul>
+ *
+ * @author yishui
+ * @date 2019年11月14日
+ * @version 1.0.0
+ */
+public class CachingClientDetailsService
+		implements ClientDetailsService, ApplicationListener<ClientDetailsChangeEvent> {
+
+	private final static Logger log = LoggerFactory.getLogger(CachingClientDetailsService.class);
+
+	/**
+	 * 在请求中保存已解析的终端信息的属性名称
+	 */
+	private final static String REQUEST_MEMO_KEY = CachingClientDetailsService.class.getName() + ".MEMO";
+
+	/**
+	 * 真实的终端信息查询服务
+	 */
+	private final ClientDetailsService delegate;
+
+	/**
+	 * 缓存的最大数量
+	 */
+	private final int maxSize;
+
+	/**
+	 * 缓存的存活时间，单位为毫秒
+	 */
+	private final long ttl;
+
+	private final Map<String, CachedClient> cache = new ConcurrentHashMap<>();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 *
+	 * @param delegate 真实的终端信息查询服务
+	 * @param maxSize  缓存的最大数量
+	 * @param ttl      缓存的存活时间，单位为秒
+	 */
+	public CachingClientDetailsService(ClientDetailsService delegate, int maxSize, int ttl) {
+		Assert.notNull(delegate, "终端信息查询服务不能为空");
+		Assert.isTrue(maxSize > 0, "缓存的最大数量必须大于0");
+		this.delegate = delegate;
+		this.maxSize = maxSize;
+		this.ttl = ttl * 1000L;
+	}
+
+	@Override
+	public ClientDetails loadClientByClientId(String clientId) throws ClientRegistrationException {
+		if (null == clientId) {
+			return delegate.loadClientByClientId(clientId);
+		}
+		Map<String, ClientDetails> memo = this.memo();
+		if (null != memo) {
+			ClientDetails clientDetails = memo.get(clientId);
+			if (null != clientDetails) {
+				return clientDetails;
+			}
+		}
+		ClientDetails clientDetails = this.load(clientId);
+		if (null != memo && null != clientDetails) {
+			memo.put(clientId, clientDetails);
+		}
+		return clientDetails;
+	}
+
+	/**
+	 * 从缓存中获取终端信息，缓存不存在或已过期时从真实的服务中加载
+	 *
+	 * @param clientId 终端id
+	 * @return 终端信息
+	 */
+	private ClientDetails load(String clientId) {
+		long now = System.currentTimeMillis();
+		CachedClient cached = cache.get(clientId);
+		if (null != cached && cached.expireAt > now) {
+			hitCount.increment();
+			return cached.clientDetails;
+		}
+		missCount.increment();
+		ClientDetails clientDetails = delegate.loadClientByClientId(clientId);
+		if (null != clientDetails) {
+			if (cache.size() >= maxSize && !cache.containsKey(clientId)) {
+				this.evict(now);
+			}
+			cache.put(clientId, new CachedClient(clientDetails, now + ttl));
+		}
+		return clientDetails;
+	}
+
+	/**
+	 * 缓存数量达到上限时腾出空间<br/>
+	 * 优先淘汰所有已经过期的数据，没有过期的数据时淘汰最早过期的一条数据
+	 *
+	 * @param now 当前时间
+	 */
+	private void evict(long now) {
+		String eldest = null;
+		long eldestExpireAt = Long.MAX_VALUE;
+		boolean removed = false;
+		Iterator<Map.Entry<String, CachedClient>> iterator = cache.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, CachedClient> entry = iterator.next();
+			if (entry.getValue().expireAt <= now) {
+				iterator.remove();
+				evictionCount.increment();
+				removed = true;
+			} else if (entry.getValue().expireAt < eldestExpireAt) {
+				eldest = entry.getKey();
+				eldestExpireAt = entry.getValue().expireAt;
+			}
+		}
+		if (!removed && null != eldest && null != cache.remove(eldest)) {
+			evictionCount.increment();
+		}
+	}
+
+	/**
+	 * 获取当前请求中的终端信息备忘录，不在请求线程中时返回为null
+	 *
+	 * @return 终端信息备忘录
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, ClientDetails> memo() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (null == attributes) {
+			return null;
+		}
+		Map<String, ClientDetails> memo = (Map<String, ClientDetails>) attributes.getAttribute(REQUEST_MEMO_KEY,
+				RequestAttributes.SCOPE_REQUEST);
+		if (null == memo) {
+			memo = new HashMap<>(4);
+			attributes.setAttribute(REQUEST_MEMO_KEY, memo, RequestAttributes.SCOPE_REQUEST);
+		}
+		return memo;
+	}
+
+	/**
+	 * 根据clientId使缓存失效
+	 *
+	 * @param clientId 终端id
+	 */
+	public void invalidate(String clientId) {
+		if (null != clientId) {
+			cache.remove(clientId);
+			log.debug("终端 {} 的缓存信息已失效", clientId);
+		}
+	}
+
+	/**
+	 * 使所有的缓存失效
+	 */
+	public void invalidateAll() {
+		cache.clear();
+		log.debug("所有终端的缓存信息已失效");
+	}
+
+	@Override
+	public void onApplicationEvent(ClientDetailsChangeEvent event) {
+		if (event.getClientIds().isEmpty()) {
+			this.invalidateAll();
+			return;
+		}
+		event.getClientIds().forEach(this::invalidate);
+	}
+
+	/**
+	 * 获取缓存命中次数
+	 *
+	 * @return 缓存命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 获取缓存未命中次数
+	 *
+	 * @return 缓存未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * 获取缓存被淘汰的次数
+	 *
+	 * @return 缓存被淘汰的次数
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * 获取当前缓存的数量
+	 *
+	 * @return 当前缓存的数量
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * 获取真实的终端信息查询服务
+	 *
+	 * @return 真实的终端信息查询服务
+	 */
+	public ClientDetailsService getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * 缓存的终端信息
+	 *
+	 * @author yishui
+	 * @date 2019年11月14日
+	 * @version 1.0.0
+	 */
+	private static class CachedClient {
+
+		private final ClientDetails clientDetails;
+
+		private final long expireAt;
+
+		CachedClient(ClientDetails clientDetails, long expireAt) {
+			this.clientDetails = clientDetails;
+			this.expireAt = expireAt;
+		}
+	}
+
+}
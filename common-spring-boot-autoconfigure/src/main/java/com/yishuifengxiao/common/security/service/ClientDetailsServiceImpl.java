@@ -1,17 +1,59 @@
 package com.yishuifengxiao.common.security.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.provider.ClientDetails;
 import org.springframework.security.oauth2.provider.ClientDetailsService;
 import org.springframework.security.oauth2.provider.ClientRegistrationException;
-import org.springframework.security.oauth2.provider.client.BaseClientDetails;
+import org.springframework.security.oauth2.provider.NoSuchClientException;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yishuifengxiao.common.properties.Oauth2Properties;
+import com.yishuifengxiao.common.properties.Oauth2Properties.ClientProperties;
+import com.yishuifengxiao.common.security.entity.ImmutableClientDetails;
+import com.yishuifengxiao.common.security.event.ClientDetailsChangeEvent;
+
+/**
+ * 默认的终端信息查询服务<br/>
+ * 终端信息来源于配置属性 yishuifengxiao.security.oauth2.clients 或者终端信息文件，启动时一次性解析为不可变的终端信息，
+ * 终端密码在解析时完成加密，查询时直接从map中读取，不再做任何计算。<br/>
+ * 终端信息文件变化时会重新解析，解析完成后整体替换原来的终端信息，并发布 ClientDetailsChangeEvent 使终端信息缓存失效。<br/>
+ * 没有配置任何终端并且没有配置终端信息文件时，任意的clientId均使用默认的终端信息；配置了终端信息文件时不会使用默认的终端信息，
+ * 启动时终端信息文件不存在或者无法解析会导致启动失败
+ *
+ * @author yishui
+ * @date 2019年11月15日
+ * @version 1.0.0
+ */
+public class ClientDetailsServiceImpl
+		implements ClientDetailsService, InitializingBean, DisposableBean, ApplicationEventPublisherAware {
+
+	private final static Logger log = LoggerFactory.getLogger(ClientDetailsServiceImpl.class);
 
-public class ClientDetailsServiceImpl implements ClientDetailsService {
 	/**
 	 * 默认的允许的认证类型
 	 */
@@ -32,101 +74,239 @@ public class ClientDetailsServiceImpl implements ClientDetailsService {
 	 * 默认同意的自动授权域
 	 */
 	private final static String DEFAULT_APPROVE_SCOPE = "true";
+
+	private final static String DEFAULT_URL = "http://localhost:8080/";
+
 	/**
-	 * 默认的授权机构
+	 * 默认的终端密码
 	 */
-	// private final static String DEFAULT_AUTHORITY =
-	// "ROLE_CLIENT,ROLE_TRUSTED_CLIENT";
+	private final static String DEFAULT_SECRET = "12345678";
 
-	private final static String DEFAULT_URL = "http://localhost:8080/";
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
 	private PasswordEncoder passwordEncoder;
 
+	private Oauth2Properties oauth2Properties;
+
+	/**
+	 * 当前生效的终端信息，每次重新加载时整体替换
+	 */
+	private volatile Map<String, ClientDetails> clients = Collections.emptyMap();
+
+	/**
+	 * 没有配置任何终端时使用的默认终端信息
+	 */
+	private volatile ImmutableClientDetails defaultClient;
+
+	/**
+	 * 终端信息文件上一次的修改时间
+	 */
+	private volatile long lastModified = -1L;
+
+	private ScheduledExecutorService scheduler;
+
+	private ApplicationEventPublisher applicationEventPublisher;
+
 	@Override
 	public ClientDetails loadClientByClientId(String clientId) throws ClientRegistrationException {
-		// 查询出客户端
-		BaseClientDetails clientDetails = new BaseClientDetails();
-
-		// @formatter:off
-
-		// 用于唯一标识每一个客户端(client); 在注册时必须填写(也可由服务端自动生成).
-		// 对于不同的grant_type,该字段都是必须的. 在实际应用中的另一个名称叫appKey,与client_id是同一个概念.
-		clientDetails.setClientId(clientId);
-
-		// 用于指定客户端(client)的访问密匙; 在注册时必须填写(也可由服务端自动生成).
-		// 对于不同的grant_type,该字段都是必须的. 在实际应用中的另一个名称叫appSecret,与client_secret是同一个概念.
-		clientDetails.setClientSecret(passwordEncoder.encode("12345678"));// 这里是加密后的密码
-
-		// 指定客户端支持的grant_type,可选值包括authorization_code,password,refresh_token,implicit,client_credentials,
-		// 若支持多个grant_type用逗号(,)分隔,如: "authorization_code,password".
-		// 在实际应用中,当注册时,该字段是一般由服务器端指定的,而不是由申请者去选择的,最常用的grant_type组合有:
-		// "authorization_code,refresh_token"(针对通过浏览器访问的客户端);
-		// "password,refresh_token"(针对移动设备的客户端).
-		// implicit与client_credentials在实际中很少使用.
-		clientDetails.setAuthorizedGrantTypes(
-				new HashSet<String>(Arrays.asList(StringUtils.splitByWholeSeparatorPreserveAllTokens(DEFAULT_GRANT_TYPE,
-						","))));
-
-		// 客户端的重定向URI,可为空, 当grant_type为authorization_code或implicit时,
-		// 在Oauth的流程中会使用并检查与注册时填写的redirect_uri是否一致
-		String[] urls = { DEFAULT_URL };
-		
-		
-		clientDetails.setRegisteredRedirectUri(new HashSet<String>(Arrays.asList(urls)));
-
-		// 指定客户端所拥有的Spring Security的权限值,可选, 若有多个权限值,用逗号(,)分隔, 如: "ROLE_UNITY,ROLE_USER".
-		// 对于是否要设置该字段的值,要根据不同的grant_type来判断,
-		// 若客户端在Oauth流程中需要用户的用户名(username)与密码(password)的(authorization_code,password),
-		// 则该字段可以不需要设置值,因为服务端将根据用户在服务端所拥有的权限来判断是否有权限访问对应的API.
-		// 但如果客户端在Oauth流程中不需要用户信息的(implicit,client_credentials),
-		// 则该字段必须要设置对应的权限值, 因为服务端将根据该字段值的权限来判断是否有权限访问对应的API.
-		//clientDetails.setAuthorities(AuthorityUtils.createAuthorityList(
-		//		StringUtils.isBlank(client.getAuthorities()) ? DEFAULT_AUTHORITY : client.getAuthorities()));
-		clientDetails.setAuthorities(AuthorityUtils.createAuthorityList("ROLE_USER"));
-
-		// 指定客户端申请的权限范围,可选值包括read,write,trust;若有多个权限范围用逗号(,)分隔,如: "read,write".
-		// scope的值与security.xml中配置的‹intercept-url的access属性有关系. 如‹intercept-url的配置为
-		// ‹intercept-url pattern="/m/**" access="ROLE_MOBILE,SCOPE_READ"/>
-		// 则说明访问该URL时的客户端必须有read权限范围. write的配置值为SCOPE_WRITE, trust的配置值为SCOPE_TRUST.
-		// 在实际应该中, 该值一般由服务端指定, 常用的值为read,write.
-		clientDetails.setScope(Arrays.asList(StringUtils.splitByWholeSeparatorPreserveAllTokens(DEFAULT_SCOPE,",")));
-
-		// 设置用户是否自动Approval操作, 默认值为 'false', 可选值包括 'true','false', 'read','write'.
-		// 该字段只适用于grant_type="authorization_code"的情况,当用户登录成功后,若该值为'true'或支持的scope值,则会跳过用户Approve的页面,
-		// 直接授权.
-		// 该字段与 trusted 有类似的功能, 是 spring-security-oauth2 的 2.0 版本后添加的新属性.
-		clientDetails.setAutoApproveScopes(new HashSet<String>(Arrays.asList(DEFAULT_APPROVE_SCOPE)));
-
-		// 设定客户端的refresh_token的有效时间值(单位:秒),可选, 若不设定值则使用默认的有效时间值(60 * 60 * 24 * 30, 30天).
-		// 若客户端的grant_type不包括refresh_token,则不用关心该字段 在项目中,
-		// 可具体参考DefaultTokenServices.java中属性refreshTokenValiditySeconds.
-
-		// 在实际应用中, 该值一般是由服务端处理的, 不需要客户端自定义.
-		clientDetails.setRefreshTokenValiditySeconds(TOKEN_VALID_TIME);
-
-		// 设定客户端的access_token的有效时间值(单位:秒),可选, 若不设定值则使用默认的有效时间值(60 * 60 * 12, 12小时).
-		// 在服务端获取的access_token JSON数据中的expires_in字段的值即为当前access_token的有效时间值.
-		// 在项目中, 可具体参考DefaultTokenServices.java中属性accessTokenValiditySeconds
-		clientDetails.setAccessTokenValiditySeconds(TOKEN_REDRESH_TIME);
-
-		/*
-		 * 
-		 * clientDetails.setClientId("client");
-		 * clientDetails.setClientSecret(passwordEncoder.encode("123456"));
-		 * clientDetails.setAuthorizedGrantTypes(new
-		 * HashSet<String>(Arrays.asList("password", "authorization_code",
-		 * "refresh_token", "implicit","client_credentials")));
-		 * clientDetails.setRegisteredRedirectUri(new
-		 * HashSet<String>(Arrays.asList("http://localhost:8888/login")));
-		 * clientDetails.setAuthorities(AuthorityUtils
-		 * .createAuthorityList("ROLE_CLIENT", "ROLE_TRUSTED_CLIENT"));
-		 * clientDetails.setScope(Arrays.asList("read", "write", "trust"));
-		 * clientDetails.setRefreshTokenValiditySeconds(6000);
-		 * clientDetails.setAccessTokenValiditySeconds(600);
-		 * 
-		 */
-		// @formatter:on
-		return clientDetails;
+		ClientDetails clientDetails = clients.get(clientId);
+		if (null != clientDetails) {
+			return clientDetails;
+		}
+		if (!clients.isEmpty() || this.hasClientsLocation()) {
+			throw new NoSuchClientException("No client with requested id: " + clientId);
+		}
+		return new ImmutableClientDetails(clientId, defaultClient());
+	}
+
+	/**
+	 * 重新加载所有的终端信息，加载成功后整体替换原来的终端信息，加载失败时保留原来的终端信息
+	 */
+	public synchronized void reload() {
+		try {
+			this.apply(this.load());
+		} catch (Exception e) {
+			log.error("加载终端信息文件 {} 时出现问题，继续使用原来的终端信息，问题为 {}", this.resource(), e.getMessage());
+		}
+	}
+
+	/**
+	 * 解析配置属性和终端信息文件中的所有终端信息
+	 *
+	 * @return 所有的终端信息
+	 * @throws IOException 终端信息文件不存在或者无法解析
+	 */
+	private Map<String, ClientDetails> load() throws IOException {
+		Map<String, ClientProperties> sources = new HashMap<>();
+		if (null != oauth2Properties && null != oauth2Properties.getClients()) {
+			sources.putAll(oauth2Properties.getClients());
+		}
+		Resource resource = this.resource();
+		if (null != resource) {
+			try (InputStream in = resource.getInputStream()) {
+				Map<String, ClientProperties> fileClients = objectMapper.readValue(in,
+						new TypeReference<Map<String, ClientProperties>>() {
+						});
+				if (null != fileClients) {
+					sources.putAll(fileClients);
+				}
+			}
+		}
+		Map<String, ClientDetails> snapshot = new HashMap<>(sources.size() * 2);
+		sources.forEach((clientId, client) -> {
+			if (StringUtils.isNotBlank(clientId) && null != client) {
+				snapshot.put(clientId.trim(), this.build(clientId.trim(), client));
+			}
+		});
+		return snapshot;
+	}
+
+	/**
+	 * 整体替换当前生效的终端信息
+	 *
+	 * @param snapshot 新的终端信息
+	 */
+	private synchronized void apply(Map<String, ClientDetails> snapshot) {
+		this.clients = Collections.unmodifiableMap(snapshot);
+		log.info("终端信息加载完成，共加载 {} 个终端", snapshot.size());
+		if (null != applicationEventPublisher) {
+			// 终端可能被删除或修改，删除全部的终端信息缓存
+			applicationEventPublisher.publishEvent(new ClientDetailsChangeEvent(this));
+		}
+	}
+
+	/**
+	 * 根据配置生成不可变的终端信息
+	 *
+	 * @param clientId 终端id
+	 * @param client   终端配置
+	 * @return 不可变的终端信息
+	 */
+	private ImmutableClientDetails build(String clientId, ClientProperties client) {
+		String secret = null == client.getSecret() ? null : passwordEncoder.encode(client.getSecret());
+		return new ImmutableClientDetails(clientId, secret, split(client.getResourceIds()), split(client.getScopes()),
+				split(client.getGrantTypes()), split(client.getRedirectUris()),
+				AuthorityUtils.createAuthorityList(split(client.getAuthorities()).toArray(new String[] {})),
+				split(client.getAutoApprove()), client.getAccessTokenValiditySeconds(),
+				client.getRefreshTokenValiditySeconds());
+	}
+
+	/**
+	 * 获取默认的终端信息，默认终端的密码只会加密一次
+	 *
+	 * @return 默认的终端信息
+	 */
+	private ImmutableClientDetails defaultClient() {
+		ImmutableClientDetails client = this.defaultClient;
+		if (null == client) {
+			synchronized (this) {
+				client = this.defaultClient;
+				if (null == client) {
+					// @formatter:off
+					client = new ImmutableClientDetails(null,
+							passwordEncoder.encode(DEFAULT_SECRET),
+							null,
+							split(DEFAULT_SCOPE),
+							split(DEFAULT_GRANT_TYPE),
+							Arrays.asList(DEFAULT_URL),
+							AuthorityUtils.createAuthorityList("ROLE_USER"),
+							split(DEFAULT_APPROVE_SCOPE),
+							TOKEN_REDRESH_TIME,
+							TOKEN_VALID_TIME);
+					// @formatter:on
+					this.defaultClient = client;
+				}
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * 检查终端信息文件是否发生变化，发生变化时重新加载
+	 */
+	private void refreshIfModified() {
+		Resource resource = this.resource();
+		if (null == resource) {
+			return;
+		}
+		try {
+			long modified = resource.lastModified();
+			if (modified != lastModified) {
+				lastModified = modified;
+				this.reload();
+			}
+		} catch (Exception e) {
+			log.debug("检查终端信息文件 {} 是否变化时出现问题，问题为 {}", resource, e.getMessage());
+		}
+	}
+
+	private Resource resource() {
+		if (!this.hasClientsLocation()) {
+			return null;
+		}
+		return new DefaultResourceLoader().getResource(oauth2Properties.getClientsLocation().trim());
+	}
+
+	private boolean hasClientsLocation() {
+		return null != oauth2Properties && StringUtils.isNotBlank(oauth2Properties.getClientsLocation());
+	}
+
+	private static List<String> split(String value) {
+		if (StringUtils.isBlank(value)) {
+			return Collections.emptyList();
+		}
+		return Arrays.asList(StringUtils.stripAll(StringUtils.split(value, ",")));
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(passwordEncoder, "passwordEncoder不能为空");
+		Resource resource = this.resource();
+		if (null != resource) {
+			try {
+				this.lastModified = resource.lastModified();
+			} catch (Exception e) {
+				log.debug("获取终端信息文件 {} 的修改时间时出现问题，问题为 {}", resource, e.getMessage());
+			}
+		}
+		try {
+			this.apply(this.load());
+		} catch (IOException e) {
+			// 配置了终端信息文件时不能退回到默认的终端信息
+			throw new IllegalStateException("加载终端信息文件 " + resource + " 失败", e);
+		}
+		Integer interval = null == oauth2Properties ? null : oauth2Properties.getClientsRefreshInterval();
+		if (null != resource && null != interval && interval > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "oauth2-client-reloader");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(this::refreshIfModified, interval, interval, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (null != scheduler) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * 获取当前配置的所有终端的id<br/>
+	 * 没有配置任何终端时返回空集合
+	 *
+	 * @return 所有终端的id
+	 */
+	public Set<String> getClientIds() {
+		return clients.keySet();
+	}
+
+	@Override
+	public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	public PasswordEncoder getPasswordEncoder() {
@@ -137,4 +317,12 @@ public class ClientDetailsServiceImpl implements ClientDetailsService {
 		this.passwordEncoder = passwordEncoder;
 	}
 
-}
\ No newline at end of file
+	public Oauth2Properties getOauth2Properties() {
+		return oauth2Properties;
+	}
+
+	public void setOauth2Properties(Oauth2Properties oauth2Properties) {
+		this.oauth2Properties = oauth2Properties;
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.yishuifengxiao.common.security.session;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.security.entity.ResultSnapshot;
+
+/**
+ * 基于session的属性存储方式<br/>
+ * 只有保存属性时才会创建session，读取和删除属性时不会创建session。<br/>
+ * 处理结果快照与无状态模式下的签名cookie一样只在 maxAge 秒内有效，过期的快照在读取时删除
+ *
+ * @author yishui
+ * @date 2019年11月24日
+ * @version 1.0.0
+ */
+public class HttpSessionSecurityAttributeStore implements SecurityAttributeStore {
+
+	/**
+	 * 处理结果快照的有效时间，单位为秒
+	 */
+	private int maxAge = 300;
+
+	@Override
+	public void setAttribute(HttpServletRequest request, HttpServletResponse response, String name, Object value) {
+		request.getSession().setAttribute(name, value);
+	}
+
+	@Override
+	public Object getAttribute(HttpServletRequest request, String name) {
+		HttpSession session = request.getSession(false);
+		Object value = null == session ? null : session.getAttribute(name);
+		if (value instanceof ResultSnapshot
+				&& ((ResultSnapshot) value).getTimestamp() + maxAge * 1000L < System.currentTimeMillis()) {
+			session.removeAttribute(name);
+			return null;
+		}
+		return value;
+	}
+
+	@Override
+	public void removeAttribute(HttpServletRequest request, HttpServletResponse response, String name) {
+		HttpSession session = request.getSession(false);
+		if (null != session) {
+			session.removeAttribute(name);
+		}
+	}
+
+	public int getMaxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * 处理结果快照的有效时间，单位为秒
+	 *
+	 * @param maxAge 处理结果快照的有效时间
+	 */
+	public void setMaxAge(int maxAge) {
+		Assert.isTrue(maxAge > 0, "有效时间必须大于0");
+		this.maxAge = maxAge;
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.yishuifengxiao.common.security.session;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 安全处理器之间传递信息(例如引起跳转的url、失败原因)的存储方式<br/>
+ * 默认存储在session中，无状态模式下存储在请求属性和签名cookie中，不会创建session。<br/>
+ * 失败提示等只需要展示一次的消息应该通过 consumeAttribute 读取
+ *
+ * @author yishui
+ * @date 2019年11月24日
+ * @version 1.0.0
+ */
+public interface SecurityAttributeStore {
+
+	/**
+	 * 保存一个属性
+	 *
+	 * @param request  HttpServletRequest
+	 * @param response HttpServletResponse
+	 * @param name     属性的名字
+	 * @param value    属性的值
+	 */
+	void setAttribute(HttpServletRequest request, HttpServletResponse response, String name, Object value);
+
+	/**
+	 * 读取一个属性，不会创建session
+	 *
+	 * @param request HttpServletRequest
+	 * @param name    属性的名字
+	 * @return 属性的值，不存在时返回null
+	 */
+	Object getAttribute(HttpServletRequest request, String name);
+
+	/**
+	 * 删除一个属性，不会创建session
+	 *
+	 * @param request  HttpServletRequest
+	 * @param response HttpServletResponse
+	 * @param name     属性的名字
+	 */
+	void removeAttribute(HttpServletRequest request, HttpServletResponse response, String name);
+
+	/**
+	 * 读取一个属性并立即删除，用于只需要读取一次的信息(例如登录失败的提示)
+	 *
+	 * @param request  HttpServletRequest
+	 * @param response HttpServletResponse
+	 * @param name     属性的名字
+	 * @return 属性的值，不存在时返回null
+	 */
+	default Object consumeAttribute(HttpServletRequest request, HttpServletResponse response, String name) {
+		Object value = this.getAttribute(request, name);
+		if (null != value) {
+			this.removeAttribute(request, response, name);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,193 @@
+package com.yishuifengxiao.common.security.session;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.security.entity.ResultSnapshot;
+
+/**
+ * 无状态模式下的属性存储方式，任何情况下都不会创建session<br/>
+ * 所有属性都保存在请求属性中，只在当前请求内有效；字符串和 ResultSnapshot 类型的属性(例如引起跳转的url、失败提示)
+ * 还会写入一个 HMAC-SHA256 签名的cookie，使其在重定向之后的请求中仍然可以读取。<br/>
+ * cookie的值格式为 base64url(类型:值).过期时间(秒).base64url(签名)，签名覆盖属性名、值和过期时间，篡改或过期的cookie会被忽略
+ *
+ * @author yishui
+ * @date 2019年11月24日
+ * @version 1.0.0
+ */
+public class StatelessSecurityAttributeStore implements SecurityAttributeStore {
+
+	private final static String ALGORITHM = "HmacSHA256";
+
+	private final static Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final static Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	/**
+	 * cookie中字符串类型的值的前缀
+	 */
+	private final static String STRING_TYPE = "s:";
+
+	/**
+	 * cookie中处理结果快照类型的值的前缀
+	 */
+	private final static String SNAPSHOT_TYPE = "f:";
+
+	/**
+	 * 签名使用的密钥
+	 */
+	private final SecretKeySpec key;
+
+	/**
+	 * 每个线程独立的签名工具
+	 */
+	private final ThreadLocal<Mac> macs;
+
+	/**
+	 * cookie的有效时间，单位为秒
+	 */
+	private int cookieMaxAge = 300;
+
+	/**
+	 *
+	 * @param secret 签名使用的密钥，至少16个字节
+	 */
+	public StatelessSecurityAttributeStore(byte[] secret) {
+		Assert.isTrue(null != secret && secret.length >= 16, "签名密钥的长度不能小于16个字节");
+		this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+		this.macs = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(ALGORITHM);
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("无法初始化cookie签名工具", e);
+			}
+		});
+	}
+
+	@Override
+	public void setAttribute(HttpServletRequest request, HttpServletResponse response, String name, Object value) {
+		request.setAttribute(name, value);
+		String text = value instanceof String ? STRING_TYPE + value
+				: value instanceof ResultSnapshot ? SNAPSHOT_TYPE + ((ResultSnapshot) value).encode() : null;
+		if (null != text && null != response) {
+			long expireAt = System.currentTimeMillis() / 1000L + cookieMaxAge;
+			String payload = ENCODER.encodeToString(text.getBytes(StandardCharsets.UTF_8));
+			String content = payload + "." + expireAt;
+			response.addCookie(this.cookie(request, name, content + "." + this.sign(name, content), cookieMaxAge));
+		}
+	}
+
+	@Override
+	public Object getAttribute(HttpServletRequest request, String name) {
+		Object value = request.getAttribute(name);
+		if (null != value) {
+			return value;
+		}
+		Cookie[] cookies = request.getCookies();
+		if (null == cookies) {
+			return null;
+		}
+		for (Cookie cookie : cookies) {
+			if (name.equals(cookie.getName())) {
+				return this.verify(name, cookie.getValue());
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void removeAttribute(HttpServletRequest request, HttpServletResponse response, String name) {
+		request.removeAttribute(name);
+		Cookie[] cookies = request.getCookies();
+		if (null == cookies || null == response) {
+			return;
+		}
+		for (Cookie cookie : cookies) {
+			if (name.equals(cookie.getName())) {
+				response.addCookie(this.cookie(request, name, "", 0));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 校验cookie的签名和过期时间
+	 *
+	 * @param name  属性的名字
+	 * @param value cookie的值
+	 * @return 属性的值，校验失败时返回null
+	 */
+	private Object verify(String name, String value) {
+		if (null == value) {
+			return null;
+		}
+		int last = value.lastIndexOf('.');
+		int first = value.indexOf('.');
+		if (first <= 0 || last <= first) {
+			return null;
+		}
+		String content = value.substring(0, last);
+		byte[] expected = this.sign(name, content).getBytes(StandardCharsets.US_ASCII);
+		if (!MessageDigest.isEqual(expected, value.substring(last + 1).getBytes(StandardCharsets.US_ASCII))) {
+			return null;
+		}
+		try {
+			long expireAt = Long.parseLong(content.substring(first + 1));
+			if (expireAt < System.currentTimeMillis() / 1000L) {
+				return null;
+			}
+			String text = new String(DECODER.decode(content.substring(0, first)), StandardCharsets.UTF_8);
+			if (text.startsWith(STRING_TYPE)) {
+				return text.substring(STRING_TYPE.length());
+			}
+			return text.startsWith(SNAPSHOT_TYPE) ? ResultSnapshot.decode(text.substring(SNAPSHOT_TYPE.length()))
+					: null;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private String sign(String name, String content) {
+		Mac mac = macs.get();
+		mac.update(name.getBytes(StandardCharsets.UTF_8));
+		mac.update((byte) 0);
+		return ENCODER.encodeToString(mac.doFinal(content.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	private Cookie cookie(HttpServletRequest request, String name, String value, int maxAge) {
+		Cookie cookie = new Cookie(name, value);
+		String path = request.getContextPath();
+		cookie.setPath(null == path || path.isEmpty() ? "/" : path);
+		cookie.setHttpOnly(true);
+		cookie.setSecure(request.isSecure());
+		cookie.setMaxAge(maxAge);
+		return cookie;
+	}
+
+	public int getCookieMaxAge() {
+		return cookieMaxAge;
+	}
+
+	/**
+	 * 签名cookie的有效时间，单位为秒
+	 *
+	 * @param cookieMaxAge 签名cookie的有效时间
+	 */
+	public void setCookieMaxAge(int cookieMaxAge) {
+		Assert.isTrue(cookieMaxAge > 0, "cookie的有效时间必须大于0");
+		this.cookieMaxAge = cookieMaxAge;
+	}
+
+}
@@ -2,12 +2,18 @@ package com.yishuifengxiao.common.security.utils;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationContext;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -18,15 +24,22 @@ import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.common.exceptions.UnapprovedClientAuthenticationException;
 import org.springframework.security.oauth2.provider.ClientDetails;
 import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationService;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.OAuth2Request;
 import org.springframework.security.oauth2.provider.TokenRequest;
 import org.springframework.security.oauth2.provider.authentication.TokenExtractor;
 import org.springframework.security.oauth2.provider.token.AuthorizationServerTokenServices;
 import org.springframework.security.oauth2.provider.token.ConsumerTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.Assert;
 
+import com.yishuifengxiao.common.security.event.TokenRemoveEvent;
+import com.yishuifengxiao.common.security.oauth2.token.BulkRevocableTokenStore;
+import com.yishuifengxiao.common.security.service.CachingClientDetailsService;
+import com.yishuifengxiao.common.security.service.ClientDetailsServiceImpl;
+
 /**
  * 在oauth2的情况下，根据spring security的认证信息生成token
  * 
@@ -48,6 +61,10 @@ public class TokenUtils {
 
 	private TokenExtractor tokenExtractor;
 
+	private TokenStore tokenStore;
+
+	private ApplicationContext context;
+
 	/**
 	 * 根据token的值移除存储的登录token
 	 * 
@@ -73,6 +90,118 @@ public class TokenUtils {
 		return removeToken(token);
 	}
 
+	/**
+	 * 移除某个用户在所有终端上的登录token(包括对应的refresh token)<br/>
+	 * 所有的token删除完成后只会发布一个 TokenRemoveEvent 事件<br/>
+	 * token存储为 BulkRevocableTokenStore 时直接按用户批量删除，否则逐个查询所有已配置的终端上该用户的token并删除。<br/>
+	 * <b>对于不支持批量删除的token存储，没有配置任何终端(所有的clientId均使用默认终端信息)时无法枚举终端，
+	 * 此时抛出异常，需要使用 removeTokensByUsername(clientId, username) 逐个终端删除</b>
+	 * 
+	 * @param username 用户名
+	 * @return 移除的token的数量
+	 * @throws IllegalStateException token存储不支持批量删除并且无法获取所有的终端id
+	 */
+	public int removeTokensByUsername(String username) {
+		Assert.notNull(username, "用户名不能为空");
+		if (tokenStore instanceof BulkRevocableTokenStore) {
+			return this.publish(((BulkRevocableTokenStore) tokenStore).removeTokensByUserName(username));
+		}
+		Collection<String> clientIds = this.clientIds();
+		if (clientIds.isEmpty()) {
+			throw new IllegalStateException("当前的token存储 " + tokenStore.getClass().getName()
+					+ " 不支持批量删除并且无法获取所有的终端id，请使用 removeTokensByUsername(clientId, username)");
+		}
+		List<OAuth2AccessToken> removed = new ArrayList<>();
+		for (String clientId : clientIds) {
+			removed.addAll(this.removeTokens(tokenStore.findTokensByClientIdAndUserName(clientId, username)));
+		}
+		return this.publish(removed);
+	}
+
+	/**
+	 * 移除某个用户在指定终端上的登录token(包括对应的refresh token)<br/>
+	 * 所有的token删除完成后只会发布一个 TokenRemoveEvent 事件
+	 * 
+	 * @param clientId 终端id
+	 * @param username 用户名
+	 * @return 移除的token的数量
+	 */
+	public int removeTokensByUsername(String clientId, String username) {
+		Assert.notNull(clientId, "终端id不能为空");
+		Assert.notNull(username, "用户名不能为空");
+		if (tokenStore instanceof BulkRevocableTokenStore) {
+			return this.publish(
+					((BulkRevocableTokenStore) tokenStore).removeTokensByClientIdAndUserName(clientId, username));
+		}
+		return this.publish(this.removeTokens(tokenStore.findTokensByClientIdAndUserName(clientId, username)));
+	}
+
+	/**
+	 * 移除某个终端的所有登录token(包括对应的refresh token)<br/>
+	 * 所有的token删除完成后只会发布一个 TokenRemoveEvent 事件
+	 * 
+	 * @param clientId 终端id
+	 * @return 移除的token的数量
+	 */
+	public int removeTokensByClientId(String clientId) {
+		Assert.notNull(clientId, "终端id不能为空");
+		if (tokenStore instanceof BulkRevocableTokenStore) {
+			return this.publish(((BulkRevocableTokenStore) tokenStore).removeTokensByClientId(clientId));
+		}
+		return this.publish(this.removeTokens(tokenStore.findTokensByClientId(clientId)));
+	}
+
+	/**
+	 * 逐个删除token，用于不支持批量删除的token存储
+	 * 
+	 * @param accessTokens 需要删除的token
+	 * @return 被删除的token
+	 */
+	private List<OAuth2AccessToken> removeTokens(Collection<OAuth2AccessToken> accessTokens) {
+		List<OAuth2AccessToken> removed = new ArrayList<>(accessTokens.size());
+		for (OAuth2AccessToken accessToken : accessTokens) {
+			if (accessToken.getRefreshToken() != null) {
+				tokenStore.removeRefreshToken(accessToken.getRefreshToken());
+			}
+			tokenStore.removeAccessToken(accessToken);
+			removed.add(accessToken);
+		}
+		return removed;
+	}
+
+	/**
+	 * 获取所有已知的终端的id，用于不支持按用户批量删除的token存储
+	 * 
+	 * @return 所有已知的终端的id
+	 */
+	private Collection<String> clientIds() {
+		ClientDetailsService service = clientDetailsService;
+		if (service instanceof CachingClientDetailsService) {
+			service = ((CachingClientDetailsService) service).getDelegate();
+		}
+		if (service instanceof ClientDetailsServiceImpl) {
+			return ((ClientDetailsServiceImpl) service).getClientIds();
+		}
+		if (service instanceof ClientRegistrationService) {
+			return ((ClientRegistrationService) service).listClientDetails().stream().map(ClientDetails::getClientId)
+					.collect(Collectors.toList());
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * 发布一个包含所有被删除的token的事件
+	 * 
+	 * @param removed 被删除的token
+	 * @return 被删除的token的数量
+	 */
+	private int publish(Collection<OAuth2AccessToken> removed) {
+		if (!removed.isEmpty() && null != context) {
+			context.publishEvent(new TokenRemoveEvent(removed));
+		}
+		return removed.size();
+	}
+
 	/**
 	 * 根据认证信息生成token
 	 * 
@@ -320,4 +449,20 @@ public class TokenUtils {
 		this.tokenExtractor = tokenExtractor;
 	}
 
+	public TokenStore getTokenStore() {
+		return tokenStore;
+	}
+
+	public void setTokenStore(TokenStore tokenStore) {
+		this.tokenStore = tokenStore;
+	}
+
+	public ApplicationContext getContext() {
+		return context;
+	}
+
+	public void setContext(ApplicationContext context) {
+		this.context = context;
+	}
+
 }
@@ -0,0 +1,120 @@
+package com.yishuifengxiao.common.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * 基于64位哈希值的布隆过滤器<br/>
+ * 调用者负责计算元素的64位哈希值，过滤器由哈希值派生出所有探测位置；位数组的长度为2的幂，探测时只需要位运算。<br/>
+ * 添加和判断都是线程安全的，不支持删除元素
+ *
+ * @author yishui
+ * @date 2019年11月21日
+ * @version 1.0.0
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray bits;
+
+	/**
+	 * 位数组长度减一，用于计算探测位置
+	 */
+	private final long mask;
+
+	/**
+	 * 每个元素的探测次数
+	 */
+	private final int hashes;
+
+	/**
+	 * 预期的元素数量
+	 */
+	private final long capacity;
+
+	/**
+	 *
+	 * @param expectedInsertions 预期的元素数量
+	 * @param fpp                预期的误判率
+	 */
+	public BloomFilter(long expectedInsertions, double fpp) {
+		Assert.isTrue(expectedInsertions > 0, "预期的元素数量必须大于0");
+		Assert.isTrue(fpp > 0 && fpp < 1, "误判率必须在0和1之间");
+		long optimal = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		long size = Math.max(64L, Long.highestOneBit(Math.max(optimal, 1L) - 1) << 1);
+		Assert.isTrue(size / 64 <= Integer.MAX_VALUE, "预期的元素数量过大");
+		this.bits = new AtomicLongArray((int) (size / 64));
+		this.mask = size - 1;
+		this.hashes = Math.max(1, (int) Math.round((double) size / expectedInsertions * Math.log(2)));
+		this.capacity = expectedInsertions;
+	}
+
+	/**
+	 * 添加一个元素
+	 *
+	 * @param hash 元素的64位哈希值
+	 */
+	public void put(long hash) {
+		long h2 = mix(hash) | 1L;
+		long combined = hash;
+		for (int i = 0; i < hashes; i++) {
+			long index = combined & mask;
+			int word = (int) (index >>> 6);
+			long bit = 1L << index;
+			long current;
+			while (((current = bits.get(word)) & bit) == 0) {
+				if (bits.compareAndSet(word, current, current | bit)) {
+					break;
+				}
+			}
+			combined += h2;
+		}
+	}
+
+	/**
+	 * 判断元素是否可能存在，返回false时元素一定不存在
+	 *
+	 * @param hash 元素的64位哈希值
+	 * @return 元素是否可能存在
+	 */
+	public boolean mightContain(long hash) {
+		long h2 = mix(hash) | 1L;
+		long combined = hash;
+		for (int i = 0; i < hashes; i++) {
+			long index = combined & mask;
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+			combined += h2;
+		}
+		return true;
+	}
+
+	/**
+	 * 获取位数组的长度
+	 *
+	 * @return 位数组的长度
+	 */
+	public long bitSize() {
+		return mask + 1;
+	}
+
+	/**
+	 * 获取预期的元素数量，超过该数量后误判率会上升
+	 *
+	 * @return 预期的元素数量
+	 */
+	public long capacity() {
+		return capacity;
+	}
+
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.yishuifengxiao.common.utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.util.Assert;
+
+/**
+ * 时间轮<br/>
+ * 按照过期时间把元素放入对应的时间格中，到期时只需要检查当前时间之前的时间格，不需要遍历所有的元素。<br/>
+ * 过期时间超过一圈的元素会留在时间格中，等到时间轮转到对应的圈数后再取出。<br/>
+ * 添加元素是线程安全的，取出到期元素的操作只能由一个线程执行
+ *
+ * @author yishui
+ * @date 2019年11月19日
+ * @version 1.0.0
+ * @param <T> 元素的类型
+ */
+public class TimingWheel<T> {
+
+	/**
+	 * 每一格的时间跨度，单位为毫秒
+	 */
+	private final long tickDuration;
+
+	private final Queue<Entry<T>>[] buckets;
+
+	/**
+	 * 已经处理完成的最后一格
+	 */
+	private volatile long lastTick;
+
+	/**
+	 *
+	 * @param tickDuration 每一格的时间跨度，单位为毫秒
+	 * @param wheelSize    时间格的数量
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(long tickDuration, int wheelSize) {
+		Assert.isTrue(tickDuration > 0, "时间跨度必须大于0");
+		Assert.isTrue(wheelSize > 0, "时间格的数量必须大于0");
+		this.tickDuration = tickDuration;
+		this.buckets = new Queue[wheelSize];
+		for (int i = 0; i < wheelSize; i++) {
+			buckets[i] = new ConcurrentLinkedQueue<>();
+		}
+		this.lastTick = System.currentTimeMillis() / tickDuration - 1;
+	}
+
+	/**
+	 * 添加一个元素
+	 *
+	 * @param item     元素
+	 * @param expireAt 过期时间
+	 */
+	public void schedule(T item, long expireAt) {
+		// 已经错过的时间格不会再被检查，放入下一个待检查的时间格
+		long tick = Math.max(expireAt / tickDuration, lastTick + 1);
+		buckets[index(tick)].offer(new Entry<>(item, expireAt));
+	}
+
+	/**
+	 * 取出已经到期的元素，一次最多取出 budget 个，剩余的元素在下一次调用时继续取出
+	 *
+	 * @param now    当前时间
+	 * @param budget 一次最多取出的数量
+	 * @return 已经到期的元素
+	 */
+	public synchronized List<T> advance(long now, int budget) {
+		List<T> expired = new ArrayList<>(Math.min(budget, 64));
+		long currentTick = now / tickDuration;
+		// 落后超过一圈时只需要把所有的时间格检查一遍
+		long tick = Math.max(lastTick + 1, currentTick - buckets.length + 1);
+		for (; tick <= currentTick; tick++) {
+			Iterator<Entry<T>> iterator = buckets[index(tick)].iterator();
+			while (iterator.hasNext()) {
+				Entry<T> entry = iterator.next();
+				if (entry.expireAt > now) {
+					continue;
+				}
+				iterator.remove();
+				expired.add(entry.item);
+				if (expired.size() >= budget) {
+					// 当前格可能还有到期的元素，下一次从当前格继续
+					lastTick = tick - 1;
+					return expired;
+				}
+			}
+		}
+		lastTick = currentTick;
+		return expired;
+	}
+
+	/**
+	 * 提前取出最早到期的元素，用于空间不足时淘汰，从下一个待检查的时间格开始最多检查一圈
+	 *
+	 * @param count 最多取出的数量
+	 * @return 最早到期的元素
+	 */
+	public synchronized List<T> poll(int count) {
+		List<T> polled = new ArrayList<>(Math.min(count, 64));
+		for (long tick = lastTick + 1; tick <= lastTick + buckets.length && polled.size() < count; tick++) {
+			Iterator<Entry<T>> iterator = buckets[index(tick)].iterator();
+			while (iterator.hasNext() && polled.size() < count) {
+				Entry<T> entry = iterator.next();
+				// 超过一圈的元素留到以后的圈数
+				if (entry.expireAt / tickDuration > tick) {
+					continue;
+				}
+				iterator.remove();
+				polled.add(entry.item);
+			}
+		}
+		return polled;
+	}
+
+	/**
+	 * 获取时间轮中元素的数量，包括已经失效但还没有取出的元素
+	 *
+	 * @return 元素的数量
+	 */
+	public int size() {
+		int size = 0;
+		for (Queue<Entry<T>> bucket : buckets) {
+			size += bucket.size();
+		}
+		return size;
+	}
+
+	private int index(long tick) {
+		return (int) (tick % buckets.length);
+	}
+
+	private static class Entry<T> {
+
+		private final T item;
+
+		private final long expireAt;
+
+		Entry(T item, long expireAt) {
+			this.item = item;
+			this.expireAt = expireAt;
+		}
+	}
+
+}
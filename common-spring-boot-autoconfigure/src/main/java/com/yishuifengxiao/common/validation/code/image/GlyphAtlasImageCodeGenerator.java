@@ -0,0 +1,266 @@
+package com.yishuifengxiao.common.validation.code.image;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.yishuifengxiao.common.properties.CodeProperties;
+import com.yishuifengxiao.common.validation.entity.ImageCode;
+
+/**
+ * 基于字形图集的图形验证码生成器<br/>
+ * 创建时用Java2D把所有可能出现的字符各绘制一次，保存为灰度的字形图集；生成验证码时不再调用
+ * Graphics 的 drawString 和 drawLine ，而是直接在图片的 int[] 像素数组上合成：
+ * <ul>
+ * <li>每个字符随机旋转、随机偏移，并且每一行有随机的水平抖动</li>
+ * <li>干扰条纹和噪点直接写入像素</li>
+ * </ul>
+ * Java2D的字体光栅化和字形缓存在多线程下会互相等待，这里生成验证码的过程只访问线程私有的数据和只读的图集，
+ * 吞吐量可以随CPU核数线性增长。<br/>
+ * 生成的验证码的尺寸、长度、字符范围和颜色与 ImageCodeGenerator 相同
+ *
+ * @author yishui
+ * @date 2019年11月27日
+ * @version 1.0.0
+ */
+public class GlyphAtlasImageCodeGenerator extends ImageCodeGenerator {
+
+	/**
+	 * 图集中的数字
+	 */
+	private final static String NUMBERS = "0123456789";
+
+	/**
+	 * 图集中的字母
+	 */
+	private final static String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+	/**
+	 * 字符的最大旋转角度，单位为弧度
+	 */
+	private final static double MAX_ROTATION = 0.35;
+
+	/**
+	 * 字形图集，以字符为下标，创建后只读
+	 */
+	private final Glyph[] atlas;
+
+	public GlyphAtlasImageCodeGenerator(CodeProperties codeProperties) {
+		super(codeProperties);
+		this.atlas = createAtlas(NUMBERS + LETTERS);
+	}
+
+	@Override
+	public ImageCode render(int width, int height) {
+		CodeProperties.ImageCodeProperties properties = this.getCodeProperties().getImage();
+		int length = properties.getLength() > 0 ? properties.getLength() : DEFAULT_LENGTH;
+		boolean fringe = Boolean.TRUE.equals(properties.getFringe());
+		String characters = this.characters(properties.isContainLetter(), properties.isContainNumber());
+		Random random = ThreadLocalRandom.current();
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+		Arrays.fill(pixels, fringe ? randColor(random, 200, 250) : 0xFFFFFF);
+		if (fringe) {
+			int color = randColor(random, 160, 200);
+			for (int i = 0; i < 155; i++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				line(pixels, width, height, x, y, x + random.nextInt(12), y + random.nextInt(12), color);
+			}
+		}
+
+		StringBuilder code = new StringBuilder(length);
+		int baseline = (height - DEFAULT_FONT_SIZE - DEFAULT_Y_PADDING) / 2 + DEFAULT_FONT_SIZE;
+		for (int i = 0; i < length; i++) {
+			char c = characters.charAt(random.nextInt(characters.length()));
+			int x = ((width - DEFAULT_X_PADDING - DEFAULT_X_PADDING) / length) * i + DEFAULT_X_PADDING;
+			int color = randColor(random, 20, 130);
+			this.blit(pixels, width, height, atlas[c], x, baseline, color, random);
+			code.append(c);
+		}
+
+		// 随机噪点
+		for (int i = width * height / 60; i > 0; i--) {
+			pixels[random.nextInt(pixels.length)] = random.nextInt(0x1000000);
+		}
+		return new ImageCode(properties.getExpireIn(), code.toString(), image);
+	}
+
+	/**
+	 * 根据是否包含字母和数字确定可以使用的字符，规则与 ImageCodeGenerator 相同
+	 */
+	private String characters(boolean isContainLetter, boolean isContainNumber) {
+		if (isContainLetter && !isContainNumber) {
+			return LETTERS;
+		}
+		if (isContainNumber && !isContainLetter) {
+			return NUMBERS;
+		}
+		return NUMBERS + LETTERS;
+	}
+
+	/**
+	 * 将字形旋转后按照透明度混合到像素数组中<br/>
+	 * 遍历目标区域的每个像素，反向旋转得到字形中的坐标，再加上这一行的水平抖动
+	 *
+	 * @param pixels   像素数组
+	 * @param width    图片宽度
+	 * @param height   图片高度
+	 * @param glyph    字形
+	 * @param x        字符左侧的x坐标
+	 * @param baseline 基线的y坐标
+	 * @param color    字符的颜色
+	 * @param random   随机数生成器
+	 */
+	private void blit(int[] pixels, int width, int height, Glyph glyph, int x, int baseline, int color,
+			Random random) {
+		double angle = (random.nextDouble() * 2 - 1) * MAX_ROTATION;
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		double cx = glyph.width / 2.0;
+		double cy = glyph.height / 2.0;
+		// 旋转中心在图片中的坐标，带有随机偏移
+		int centerX = x + (int) cx + random.nextInt(3) - 1;
+		int centerY = baseline - glyph.ascent + (int) cy + random.nextInt(5) - 2;
+		int radius = (int) Math.ceil(Math.sqrt(cx * cx + cy * cy));
+		int red = color >> 16 & 0xFF;
+		int green = color >> 8 & 0xFF;
+		int blue = color & 0xFF;
+		for (int dy = -radius; dy <= radius; dy++) {
+			int py = centerY + dy;
+			if (py < 0 || py >= height) {
+				continue;
+			}
+			int jitter = random.nextInt(3) - 1;
+			for (int dx = -radius; dx <= radius; dx++) {
+				int px = centerX + dx;
+				if (px < 0 || px >= width) {
+					continue;
+				}
+				int sx = (int) Math.floor(cos * dx + sin * dy + cx) + jitter;
+				int sy = (int) Math.floor(cos * dy - sin * dx + cy);
+				if (sx < 0 || sx >= glyph.width || sy < 0 || sy >= glyph.height) {
+					continue;
+				}
+				int alpha = glyph.alpha[sy * glyph.width + sx] & 0xFF;
+				if (alpha == 0) {
+					continue;
+				}
+				int index = py * width + px;
+				int background = pixels[index];
+				pixels[index] = blend(background >> 16 & 0xFF, red, alpha) << 16
+						| blend(background >> 8 & 0xFF, green, alpha) << 8 | blend(background & 0xFF, blue, alpha);
+			}
+		}
+	}
+
+	private static int blend(int background, int foreground, int alpha) {
+		return background + (foreground - background) * alpha / 255;
+	}
+
+	/**
+	 * 用Bresenham算法在像素数组中画线
+	 */
+	private static void line(int[] pixels, int width, int height, int x0, int y0, int x1, int y1, int color) {
+		int dx = Math.abs(x1 - x0);
+		int dy = -Math.abs(y1 - y0);
+		int stepX = x0 < x1 ? 1 : -1;
+		int stepY = y0 < y1 ? 1 : -1;
+		int error = dx + dy;
+		while (true) {
+			if (x0 >= 0 && x0 < width && y0 >= 0 && y0 < height) {
+				pixels[y0 * width + x0] = color;
+			}
+			if (x0 == x1 && y0 == y1) {
+				break;
+			}
+			int doubleError = 2 * error;
+			if (doubleError >= dy) {
+				error += dy;
+				x0 += stepX;
+			}
+			if (doubleError <= dx) {
+				error += dx;
+				y0 += stepY;
+			}
+		}
+	}
+
+	private static int randColor(Random random, int fc, int bc) {
+		int r = fc + random.nextInt(bc - fc);
+		int g = fc + random.nextInt(bc - fc);
+		int b = fc + random.nextInt(bc - fc);
+		return r << 16 | g << 8 | b;
+	}
+
+	/**
+	 * 用Java2D把每个字符绘制一次，得到字形图集
+	 *
+	 * @param characters 需要绘制的字符
+	 * @return 字形图集
+	 */
+	private static Glyph[] createAtlas(String characters) {
+		Glyph[] atlas = new Glyph[128];
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY);
+		Graphics2D scratchGraphics = scratch.createGraphics();
+		FontMetrics metrics = scratchGraphics.getFontMetrics(FONT);
+		scratchGraphics.dispose();
+		int ascent = metrics.getAscent();
+		int height = ascent + metrics.getDescent();
+		for (char c : characters.toCharArray()) {
+			// 斜体字符会超出字符宽度，向右多留一些空间
+			int width = metrics.charWidth(c) + DEFAULT_FONT_SIZE / 3;
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+			Graphics2D g = image.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			g.setFont(FONT);
+			g.setColor(Color.WHITE);
+			g.drawString(String.valueOf(c), 0, ascent);
+			g.dispose();
+			byte[] alpha = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+			atlas[c] = new Glyph(width, height, ascent, alpha);
+		}
+		return atlas;
+	}
+
+	/**
+	 * 一个字符的字形
+	 *
+	 * @author yishui
+	 * @date 2019年11月27日
+	 * @version 1.0.0
+	 */
+	private static class Glyph {
+
+		private final int width;
+
+		private final int height;
+
+		/**
+		 * 基线到字形顶部的距离
+		 */
+		private final int ascent;
+
+		/**
+		 * 每个像素的覆盖程度，0为透明，255为完全覆盖
+		 */
+		private final byte[] alpha;
+
+		Glyph(int width, int height, int ascent, byte[] alpha) {
+			this.width = width;
+			this.height = height;
+			this.ascent = ascent;
+			this.alpha = alpha;
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.yishuifengxiao.common.validation.code.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.validation.eunm.ImageFormat;
+
+/**
+ * 图形验证码编码器<br/>
+ * 创建时查找一次对应格式的 ImageWriter ，之后每个线程复用自己的 ImageWriter 实例，
+ * 不再每次输出都经过 ImageIO 的服务查找和创建新的 ImageWriter 。<br/>
+ * 编码在内存中进行，不使用 ImageIO 的磁盘缓存。PNG和GIF格式先按照固定的 6x6x6 调色板转换为索引色，
+ * 不做抖动，相同颜色的像素连成一片，压缩后比JPEG小得多
+ *
+ * @author yishui
+ * @date 2019年11月27日
+ * @version 1.0.0
+ */
+public class ImageCodeEncoder {
+
+	/**
+	 * 索引色使用的调色板，红绿蓝各取6个等级
+	 */
+	private final static IndexColorModel PALETTE;
+
+	static {
+		byte[] r = new byte[216];
+		byte[] g = new byte[216];
+		byte[] b = new byte[216];
+		for (int i = 0; i < 216; i++) {
+			r[i] = (byte) (i / 36 * 51);
+			g[i] = (byte) (i / 6 % 6 * 51);
+			b[i] = (byte) (i % 6 * 51);
+		}
+		PALETTE = new IndexColorModel(8, 216, r, g, b);
+	}
+
+	/**
+	 * 输出格式
+	 */
+	private final ImageFormat format;
+
+	/**
+	 * JPEG格式的压缩质量，取值范围为0到1
+	 */
+	private final float quality;
+
+	/**
+	 * 用于为每个线程创建 ImageWriter
+	 */
+	private final ImageWriterSpi provider;
+
+	/**
+	 * 每个线程复用的 ImageWriter ， ImageWriter 不是线程安全的
+	 */
+	private final ThreadLocal<ImageWriter> writers;
+
+	/**
+	 *
+	 * @param format  输出格式
+	 * @param quality JPEG格式的压缩质量，取值范围为0到1，其他格式忽略此参数
+	 */
+	public ImageCodeEncoder(ImageFormat format, float quality) {
+		Assert.notNull(format, "图形验证码的输出格式不能为空");
+		Assert.isTrue(quality > 0 && quality <= 1, "JPEG格式的压缩质量必须大于0且不大于1");
+		Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName(format.getFormatName());
+		Assert.isTrue(iterator.hasNext(), "当前环境不支持输出 " + format + " 格式的图片");
+		this.format = format;
+		this.quality = quality;
+		this.provider = iterator.next().getOriginatingProvider();
+		this.writers = ThreadLocal.withInitial(this::createWriter);
+	}
+
+	/**
+	 * 将图形验证码编码为字节数组
+	 *
+	 * @param image 图形验证码的图片
+	 * @return 编码后的数据
+	 * @throws IOException 编码失败
+	 */
+	public byte[] encode(BufferedImage image) throws IOException {
+		Assert.notNull(image, "图形验证码的图片不能为空");
+		RenderedImage source = format.isIndexed() ? toIndexed(image) : image;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(format.isIndexed() ? 1024 : 4096);
+		ImageWriter writer = writers.get();
+		boolean success = false;
+		try (ImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+			writer.setOutput(output);
+			writer.write(null, new IIOImage(source, null, null), writeParam(writer));
+			success = true;
+		} finally {
+			if (success) {
+				writer.setOutput(null);
+			} else {
+				// 出错之后的 ImageWriter 状态不确定，不再复用
+				writers.remove();
+				writer.dispose();
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * 获取输出格式对应的 Content-Type
+	 *
+	 * @return Content-Type
+	 */
+	public String getContentType() {
+		return format.getContentType();
+	}
+
+	public ImageFormat getFormat() {
+		return format;
+	}
+
+	public float getQuality() {
+		return quality;
+	}
+
+	private ImageWriteParam writeParam(ImageWriter writer) {
+		if (format != ImageFormat.JPEG) {
+			return null;
+		}
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(quality);
+		return param;
+	}
+
+	private ImageWriter createWriter() {
+		try {
+			return provider.createWriterInstance();
+		} catch (IOException e) {
+			throw new IllegalStateException("创建 " + format + " 格式的 ImageWriter 失败", e);
+		}
+	}
+
+	/**
+	 * 按照调色板转换为索引色图片，每个颜色通道取最接近的等级
+	 *
+	 * @param image 原始图片
+	 * @return 索引色图片
+	 */
+	private static BufferedImage toIndexed(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		BufferedImage indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+		WritableRaster raster = indexed.getRaster();
+		int[] rgb = new int[width];
+		byte[] index = new byte[width];
+		for (int y = 0; y < height; y++) {
+			image.getRGB(0, y, width, 1, rgb, 0, width);
+			for (int x = 0; x < width; x++) {
+				int pixel = rgb[x];
+				index[x] = (byte) (level(pixel >> 16) * 36 + level(pixel >> 8) * 6 + level(pixel));
+			}
+			raster.setDataElements(0, y, width, 1, index);
+		}
+		return indexed;
+	}
+
+	private static int level(int channel) {
+		return ((channel & 0xFF) * 5 + 127) / 255;
+	}
+
+}
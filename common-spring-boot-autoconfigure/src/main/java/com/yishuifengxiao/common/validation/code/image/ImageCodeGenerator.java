@@ -7,7 +7,9 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.time.LocalDateTime;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.RandomUtils;
@@ -20,6 +22,9 @@ import com.yishuifengxiao.common.validation.entity.ImageCode;
 import com.yishuifengxiao.common.validation.generator.CodeGenerator;
 
 /**
+ * 图形验证码生成器<br/>
+ * 存在图形验证码池时优先从池中取出预先生成的验证码，池中没有可用的验证码时在当前线程中生成
+ * 
  * @author yishui
  * @date 2019年1月23日
  * @version 0.0.1
@@ -28,31 +33,78 @@ public class ImageCodeGenerator implements CodeGenerator {
 	/**
 	 * 默认验证码的长度
 	 */
-	private final static int DEFAULT_LENGTH = 4;
+	protected final static int DEFAULT_LENGTH = 4;
 	/**
 	 * x方向上默认的内边距
 	 */
-	private final static int DEFAULT_X_PADDING = 6;
+	protected final static int DEFAULT_X_PADDING = 6;
 
 	/**
 	 * y方向上默认的内边距
 	 */
-	private final static int DEFAULT_Y_PADDING = 8;
+	protected final static int DEFAULT_Y_PADDING = 8;
 
 	/**
 	 * 默认的字体大小
 	 */
-	private final static int DEFAULT_FONT_SIZE = 23;
+	protected final static int DEFAULT_FONT_SIZE = 23;
+
+	/**
+	 * 验证码的字体，Font是不可变的，所有验证码共用一个
+	 */
+	protected final static Font FONT = new Font("Times New Roman", Font.ITALIC, DEFAULT_FONT_SIZE);
+
 	private CodeProperties codeProperties;
 
+	/**
+	 * 图形验证码池，为null时每次都在当前线程中生成
+	 */
+	private ImageCodePool pool;
+
 	@Override
 	public ImageCode generate(ServletWebRequest servletWebRequest) {
 		// 图形验证码的宽度
-		int width = ServletRequestUtils.getIntParameter(servletWebRequest.getRequest(), "width",
-				codeProperties.getImage().getWidth());
+		int width = limit(ServletRequestUtils.getIntParameter(servletWebRequest.getRequest(), "width",
+				codeProperties.getImage().getWidth()), codeProperties.getImage().getWidth(),
+				codeProperties.getImage().getMaxWidth());
 		// 图形验证码的高度
-		int height = ServletRequestUtils.getIntParameter(servletWebRequest.getRequest(), "height",
-				codeProperties.getImage().getHeight());
+		int height = limit(ServletRequestUtils.getIntParameter(servletWebRequest.getRequest(), "height",
+				codeProperties.getImage().getHeight()), codeProperties.getImage().getHeight(),
+				codeProperties.getImage().getMaxHeight());
+		if (null != pool) {
+			ImageCode imageCode = pool.take(width, height);
+			if (null != imageCode) {
+				// 有效期从取出时开始计算
+				imageCode.setExpireTime(LocalDateTime.now().plusSeconds(codeProperties.getImage().getExpireIn()));
+				return imageCode;
+			}
+		}
+		return render(width, height);
+	}
+
+	/**
+	 * 限制请求中的尺寸，不合法时使用配置的尺寸，超过最大值时使用最大值，防止请求绘制任意大小的图片
+	 * 
+	 * @param value        请求中的尺寸
+	 * @param defaultValue 配置的尺寸
+	 * @param max          允许的最大尺寸
+	 * @return 实际使用的尺寸
+	 */
+	private static int limit(int value, int defaultValue, Integer max) {
+		if (value <= 0) {
+			return defaultValue;
+		}
+		return null == max || max <= 0 ? value : Math.min(value, max);
+	}
+
+	/**
+	 * 生成一个指定尺寸的图形验证码
+	 * 
+	 * @param width  图形验证码的宽度
+	 * @param height 图形验证码的高度
+	 * @return 图形验证码
+	 */
+	public ImageCode render(int width, int height) {
 		// 图形验证码的长度
 		int length = codeProperties.getImage().getLength() > 0 ? codeProperties.getImage().getLength() : DEFAULT_LENGTH;
 		// 生成一个图片对象
@@ -60,12 +112,12 @@ public class ImageCodeGenerator implements CodeGenerator {
 
 		Graphics g = image.getGraphics();
 
-		Random random = new Random();
+		Random random = ThreadLocalRandom.current();
 
 		g.setColor(codeProperties.getImage().getFringe() ? getRandColor(200, 250) : Color.WHITE);
 		g.fillRect(0, 0, width, height);
 
-		g.setFont(new Font("Times New Roman", Font.ITALIC, DEFAULT_FONT_SIZE));
+		g.setFont(FONT);
 		// 生成干扰条纹
 		if (codeProperties.getImage().getFringe()) {
 			g.setColor(getRandColor(160, 200));
@@ -79,7 +131,7 @@ public class ImageCodeGenerator implements CodeGenerator {
 		}
 
 		// 生成四位的随机数
-		String sRand = "";
+		StringBuilder sRand = new StringBuilder(length);
 
 		for (int i = 0; i < length; i++) {
 
@@ -88,12 +140,12 @@ public class ImageCodeGenerator implements CodeGenerator {
 			// 绘制文字
 			String rand = generate(xCoordinate, yCoordinate, codeProperties.getImage().isContainLetter(),
 					codeProperties.getImage().isContainNumber(), g);
-			sRand += rand;
+			sRand.append(rand);
 
 		}
 
 		g.dispose();
-		return new ImageCode(codeProperties.getImage().getExpireIn(), sRand, image);
+		return new ImageCode(codeProperties.getImage().getExpireIn(), sRand.toString(), image);
 	}
 
 	/**
@@ -108,7 +160,7 @@ public class ImageCodeGenerator implements CodeGenerator {
 	 */
 	private String generate(int xCoordinate, int yCoordinate, boolean isContainLetter, boolean isContainNumber,
 			Graphics g) {
-		Random random = new Random();
+		Random random = ThreadLocalRandom.current();
 		String rand = "";
 		if (isContainLetter && !isContainNumber) {
 			// 只包含字母
@@ -135,7 +187,7 @@ public class ImageCodeGenerator implements CodeGenerator {
 	 * @return
 	 */
 	private Color getRandColor(int fc, int bc) {
-		Random random = new Random();
+		Random random = ThreadLocalRandom.current();
 		if (fc > 255) {
 			fc = 255;
 		}
@@ -156,6 +208,14 @@ public class ImageCodeGenerator implements CodeGenerator {
 		this.codeProperties = codeProperties;
 	}
 
+	public ImageCodePool getPool() {
+		return pool;
+	}
+
+	public void setPool(ImageCodePool pool) {
+		this.pool = pool;
+	}
+
 	public ImageCodeGenerator(CodeProperties codeProperties) {
 		this.codeProperties = codeProperties;
 	}
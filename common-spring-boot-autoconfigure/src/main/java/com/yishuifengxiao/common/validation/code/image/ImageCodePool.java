@@ -0,0 +1,234 @@
+package com.yishuifengxiao.common.validation.code.image;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.validation.entity.ImageCode;
+
+/**
+ * 图形验证码池<br/>
+ * 后台线程预先生成并编码好图形验证码，放入固定容量的队列中，请求时直接取出一个，
+ * 不需要在请求线程中绘制和编码图片。<br/>
+ * 只预先生成配置的尺寸的验证码，队列在创建时就确定，不会因为请求中的尺寸增加，其他尺寸的请求不使用池。<br/>
+ * 后台线程每隔 refillInterval 毫秒把队列补满，队列为空时 take 返回null，由调用者在当前线程中生成
+ *
+ * @author yishui
+ * @date 2019年11月26日
+ * @version 1.0.0
+ */
+public class ImageCodePool implements InitializingBean, DisposableBean {
+
+	private final static Logger log = LoggerFactory.getLogger(ImageCodePool.class);
+
+	/**
+	 * 用于生成图形验证码的生成器
+	 */
+	private final ImageCodeGenerator renderer;
+
+	/**
+	 * 用于编码图形验证码的编码器
+	 */
+	private final ImageCodeEncoder encoder;
+
+	/**
+	 * 预先生成的验证码的数量
+	 */
+	private final int capacity;
+
+	/**
+	 * 预先生成的验证码的宽度
+	 */
+	private final int width;
+
+	/**
+	 * 预先生成的验证码的高度
+	 */
+	private final int height;
+
+	/**
+	 * 预先生成的验证码
+	 */
+	private final BlockingQueue<ImageCode> queue;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * 补充验证码的时间间隔，单位为毫秒
+	 */
+	private long refillInterval = 100L;
+
+	/**
+	 * 后台生成验证码的线程数
+	 */
+	private int threads = 1;
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 *
+	 * @param renderer      用于生成图形验证码的生成器
+	 * @param encoder       用于编码图形验证码的编码器
+	 * @param capacity 预先生成的验证码的数量
+	 * @param width    预先生成的验证码的宽度
+	 * @param height   预先生成的验证码的高度
+	 */
+	public ImageCodePool(ImageCodeGenerator renderer, ImageCodeEncoder encoder, int capacity, int width,
+			int height) {
+		Assert.notNull(renderer, "图形验证码生成器不能为空");
+		Assert.notNull(encoder, "图形验证码编码器不能为空");
+		Assert.isTrue(capacity > 0, "验证码池的容量必须大于0");
+		Assert.isTrue(width > 0 && height > 0, "验证码池的图片尺寸必须大于0");
+		this.renderer = renderer;
+		this.encoder = encoder;
+		this.capacity = capacity;
+		this.width = width;
+		this.height = height;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * 取出一个指定尺寸的图形验证码
+	 *
+	 * @param width  宽度
+	 * @param height 高度
+	 * @return 图形验证码，尺寸与池的尺寸不同或者池中没有可用的验证码时返回null
+	 */
+	public ImageCode take(int width, int height) {
+		ImageCode imageCode = this.width == width && this.height == height ? queue.poll() : null;
+		if (null == imageCode) {
+			missCount.increment();
+			return null;
+		}
+		hitCount.increment();
+		return imageCode;
+	}
+
+	/**
+	 * 把队列补满
+	 */
+	public void refill() throws IOException {
+		while (!Thread.currentThread().isInterrupted() && queue.remainingCapacity() > 0) {
+			ImageCode imageCode = renderer.render(width, height);
+			imageCode.setData(encoder.encode(imageCode.getImage()));
+			// 只保留编码后的数据，释放图片占用的内存
+			imageCode.setImage(null);
+			if (!queue.offer(imageCode)) {
+				break;
+			}
+		}
+	}
+
+	private void refillQuietly() {
+		try {
+			this.refill();
+		} catch (Exception e) {
+			log.warn("补充图形验证码时出现问题，问题为 {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		scheduler = Executors.newScheduledThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "image-code-pool");
+			thread.setDaemon(true);
+			// 后台生成验证码不应该抢占请求线程的CPU
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		for (int i = 0; i < threads; i++) {
+			scheduler.scheduleWithFixedDelay(this::refillQuietly, 0, refillInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (null != scheduler) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * 获取池中剩余的验证码的数量
+	 *
+	 * @return 剩余的验证码的数量
+	 */
+	public int getDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * 获取从池中取到验证码的次数
+	 *
+	 * @return 取到验证码的次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 获取池中没有可用验证码的次数
+	 *
+	 * @return 没有可用验证码的次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public ImageCodeEncoder getEncoder() {
+		return encoder;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public long getRefillInterval() {
+		return refillInterval;
+	}
+
+	/**
+	 * 补充验证码的时间间隔，单位为毫秒
+	 *
+	 * @param refillInterval 补充验证码的时间间隔
+	 */
+	public void setRefillInterval(long refillInterval) {
+		Assert.isTrue(refillInterval > 0, "补充验证码的时间间隔必须大于0");
+		this.refillInterval = refillInterval;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * 后台生成验证码的线程数
+	 *
+	 * @param threads 后台生成验证码的线程数
+	 */
+	public void setThreads(int threads) {
+		Assert.isTrue(threads > 0, "线程数必须大于0");
+		this.threads = threads;
+	}
+
+}
@@ -1,10 +1,12 @@
 package com.yishuifengxiao.common.validation.code.image;
 
 import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import javax.imageio.ImageIO;
 import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -13,9 +15,11 @@ import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.ServletRequestUtils;
 import org.springframework.web.context.request.ServletWebRequest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yishuifengxiao.common.properties.CodeProperties;
 import com.yishuifengxiao.common.tool.exception.ValidateException;
 import com.yishuifengxiao.common.validation.entity.ImageCode;
+import com.yishuifengxiao.common.validation.eunm.ImageFormat;
 import com.yishuifengxiao.common.validation.generator.CodeGenerator;
 import com.yishuifengxiao.common.validation.processor.AbstractCodeProcessor;
 import com.yishuifengxiao.common.validation.repository.CodeRepository;
@@ -31,11 +35,40 @@ public class ImageCodeProcessor extends AbstractCodeProcessor<ImageCode> {
 	private final static Logger log = LoggerFactory.getLogger(ImageCodeProcessor.class);
 	private final static String COOKIE_NAME = "SESSION";
 
+	/**
+	 * 图形验证码编码器
+	 */
+	private ImageCodeEncoder encoder;
+
+	private ObjectMapper objectMapper;
+
 	@Override
 	protected void send(ServletWebRequest request, ImageCode imageCode) throws ValidateException {
 		// 将图片输出到页面
 		try {
-			ImageIO.write(imageCode.getImage(), "JPEG", request.getResponse().getOutputStream());
+			// 从图形验证码池中取出的验证码已经编码好了
+			byte[] data = null != imageCode.getData() ? imageCode.getData()
+					: this.getEncoder().encode(imageCode.getImage());
+			String contentType = this.getEncoder().getContentType();
+			if (Boolean.TRUE.equals(this.codeProperties.getImage().getBase64())) {
+				// 以json格式输出base64编码的图片，前端不需要再单独请求一次图片
+				Map<String, Object> body = new LinkedHashMap<>();
+				body.put("image", "data:" + contentType + ";base64," + Base64.getEncoder().encodeToString(data));
+				body.put("expireIn", this.codeProperties.getImage().getExpireIn());
+				if (null != this.ticketManager) {
+					// 开启无状态验证码凭证时一并返回凭证
+					String headerName = this.codeProperties.getTicket().getHeaderName();
+					body.put("ticket", request.getResponse().getHeader(headerName));
+				}
+				data = this.getObjectMapper().writeValueAsBytes(body);
+				contentType = "application/json;charset=UTF-8";
+			}
+			HttpServletResponse response = request.getResponse();
+			response.setContentType(contentType);
+			response.setContentLength(data.length);
+			// 每次请求的验证码都不一样，不能被缓存
+			response.setHeader("Cache-Control", "no-store");
+			response.getOutputStream().write(data);
 		} catch (IOException e) {
 			log.info("输出图形验证码失败，失败的原因为 {}", e.getMessage());
 			throw new ValidateException("输出图形验证码失败");
@@ -66,6 +99,14 @@ public class ImageCodeProcessor extends AbstractCodeProcessor<ImageCode> {
 		return key;
 	}
 
+	/**
+	 * 图形验证码的凭证只绑定请求参数中的key，不读取cookie也不创建session
+	 */
+	@Override
+	protected String generateTicketKey(ServletWebRequest request) throws ValidateException {
+		return request.getParameter(this.codeProperties.getImage().getCodeKey());
+	}
+
 	@Override
 	protected String getCodeInRequest(ServletWebRequest request) throws ValidateException {
 
@@ -81,6 +122,28 @@ public class ImageCodeProcessor extends AbstractCodeProcessor<ImageCode> {
 
 	}
 
+	public ImageCodeEncoder getEncoder() {
+		if (null == this.encoder) {
+			this.encoder = new ImageCodeEncoder(ImageFormat.JPEG, 0.75f);
+		}
+		return encoder;
+	}
+
+	public void setEncoder(ImageCodeEncoder encoder) {
+		this.encoder = encoder;
+	}
+
+	public ObjectMapper getObjectMapper() {
+		if (null == this.objectMapper) {
+			this.objectMapper = new ObjectMapper();
+		}
+		return objectMapper;
+	}
+
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
 	public ImageCodeProcessor() {
 
 	}
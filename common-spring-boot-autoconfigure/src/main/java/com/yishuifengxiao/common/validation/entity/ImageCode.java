@@ -25,6 +25,12 @@ public class ImageCode extends ValidateCode {
 	 */
 	@JsonIgnore
 	private transient BufferedImage image;
+
+	/**
+	 * 已经编码好的验证码图片，不为null时直接输出，不需要再对 image 编码
+	 */
+	@JsonIgnore
+	private transient byte[] data;
 	
 	public ImageCode(long expireTimeInSeconds, String code) {
 		super(expireTimeInSeconds, code);
@@ -62,6 +68,16 @@ public class ImageCode extends ValidateCode {
 		this.image = image;
 	}
 
+	@JsonIgnore
+	public byte[] getData() {
+		return data;
+	}
+
+	@JsonIgnore
+	public void setData(byte[] data) {
+		this.data = data;
+	}
+
 	@Override
 	public String toString() {
 		return super.toString();
@@ -0,0 +1,58 @@
+package com.yishuifengxiao.common.validation.eunm;
+
+/**
+ * 图形验证码的输出格式
+ *
+ * @author yishui
+ * @date 2019年11月27日
+ * @version 1.0.0
+ */
+public enum ImageFormat {
+
+	/**
+	 * JPEG格式，与之前的输出保持一致
+	 */
+	JPEG("jpeg", "image/jpeg", false),
+	/**
+	 * 索引色的PNG格式，验证码的颜色很少，通常比JPEG小，而且没有压缩噪点
+	 */
+	PNG("png", "image/png", true),
+	/**
+	 * 索引色的GIF格式
+	 */
+	GIF("gif", "image/gif", true);
+
+	/**
+	 * ImageIO中的格式名称
+	 */
+	private final String formatName;
+
+	/**
+	 * 对应的 Content-Type
+	 */
+	private final String contentType;
+
+	/**
+	 * 是否先转换为索引色再编码
+	 */
+	private final boolean indexed;
+
+	private ImageFormat(String formatName, String contentType, boolean indexed) {
+		this.formatName = formatName;
+		this.contentType = contentType;
+		this.indexed = indexed;
+	}
+
+	public String getFormatName() {
+		return formatName;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.yishuifengxiao.common.validation.eunm;
+
+/**
+ * 图形验证码的绘制方式
+ *
+ * @author yishui
+ * @date 2019年11月27日
+ * @version 1.0.0
+ */
+public enum ImageRenderer {
+
+	/**
+	 * 使用Java2D绘制，即 ImageCodeGenerator
+	 */
+	JAVA2D,
+	/**
+	 * 使用预先绘制好的字形图集直接合成像素，即 GlyphAtlasImageCodeGenerator ，多线程下没有锁竞争
+	 */
+	GLYPH_ATLAS;
+
+}
@@ -3,8 +3,14 @@
  */
 package com.yishuifengxiao.common.validation.processor;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +22,7 @@ import com.yishuifengxiao.common.validation.entity.ValidateCode;
 import com.yishuifengxiao.common.validation.eunm.CodeType;
 import com.yishuifengxiao.common.validation.generator.CodeGenerator;
 import com.yishuifengxiao.common.validation.repository.CodeRepository;
+import com.yishuifengxiao.common.validation.ticket.CodeTicketManager;
 
 /**
  * 抽象验证码处理器
@@ -40,6 +47,11 @@ public abstract class AbstractCodeProcessor<C extends ValidateCode> implements C
 	 */
 	protected CodeProperties codeProperties;
 
+	/**
+	 * 无状态验证码凭证管理器，不为null时不再使用验证码存取工具
+	 */
+	protected CodeTicketManager ticketManager;
+
 	@Override
 	public void create(ServletWebRequest request) throws ValidateException {
 		C validateCode = generate(request);
@@ -88,9 +100,76 @@ public abstract class AbstractCodeProcessor<C extends ValidateCode> implements C
 	 */
 	private void save(ServletWebRequest request, C validateCode) throws ValidateException {
 		log.debug("将验证码存入session时的验证码为 {},类形为 {}", validateCode, getValidateCodeType(request));
+		if (null != ticketManager) {
+			String ticket = ticketManager.issue(getValidateCodeType(request).name(), generateTicketKey(request),
+					validateCode);
+			writeTicket(request, ticket, validateCode);
+			return;
+		}
 		repository.save(request, generateKey(request), validateCode);
 	}
 
+	/**
+	 * 通过响应头和cookie返回验证码凭证
+	 * 
+	 * @param request
+	 * @param ticket
+	 * @param validateCode
+	 */
+	private void writeTicket(ServletWebRequest request, String ticket, C validateCode) {
+		HttpServletResponse response = request.getResponse();
+		CodeProperties.TicketProperties properties = codeProperties.getTicket();
+		response.setHeader(properties.getHeaderName(), ticket);
+		if (Boolean.TRUE.equals(properties.getCookie())) {
+			HttpServletRequest servletRequest = request.getRequest();
+			Cookie cookie = new Cookie(ticketCookieName(request), ticket);
+			cookie.setPath(StringUtils.defaultIfBlank(servletRequest.getContextPath(), "/"));
+			cookie.setHttpOnly(true);
+			cookie.setSecure(servletRequest.isSecure());
+			long maxAge = LocalDateTime.now().until(validateCode.getExpireTime(), ChronoUnit.SECONDS);
+			cookie.setMaxAge((int) Math.max(1, maxAge));
+			response.addCookie(cookie);
+		}
+	}
+
+	/**
+	 * 从请求头或cookie中获取验证码凭证
+	 * 
+	 * @param request
+	 * @return
+	 */
+	private String readTicket(ServletWebRequest request) {
+		String ticket = request.getHeader(codeProperties.getTicket().getHeaderName());
+		if (StringUtils.isNotBlank(ticket) || !Boolean.TRUE.equals(codeProperties.getTicket().getCookie())) {
+			return ticket;
+		}
+		Cookie[] cookies = request.getRequest().getCookies();
+		if (null != cookies) {
+			String cookieName = ticketCookieName(request);
+			for (Cookie cookie : cookies) {
+				if (cookieName.equals(cookie.getName())) {
+					return cookie.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	private String ticketCookieName(ServletWebRequest request) {
+		return "code_ticket_" + getValidateCodeType(request).name().toLowerCase();
+	}
+
+	/**
+	 * 获取签发验证码凭证时绑定的key，默认与验证码存储时的key相同
+	 * 
+	 * @param request
+	 * @return
+	 * @throws ValidateException
+	 */
+	protected String generateTicketKey(ServletWebRequest request) throws ValidateException {
+		return generateKey(request);
+	}
+
 	/**
 	 * 发送校验码，由子类实现
 	 * 
@@ -111,6 +190,11 @@ public abstract class AbstractCodeProcessor<C extends ValidateCode> implements C
 
 	@Override
 	public void validate(ServletWebRequest request) throws ValidateException {
+		if (null != ticketManager) {
+			ticketManager.verify(getValidateCodeType(request).name(), generateTicketKey(request), readTicket(request),
+					getCodeInRequest(request));
+			return;
+		}
 		/**
 		 * 获取到存储的验证码
 		 */
@@ -167,6 +251,14 @@ public abstract class AbstractCodeProcessor<C extends ValidateCode> implements C
 		this.repository = repository;
 	}
 
+	public CodeTicketManager getTicketManager() {
+		return ticketManager;
+	}
+
+	public void setTicketManager(CodeTicketManager ticketManager) {
+		this.ticketManager = ticketManager;
+	}
+
 	public AbstractCodeProcessor(Map<String, CodeGenerator> codeGenerators, CodeRepository repository,
 			CodeProperties codeProperties) {
 		this.codeGenerators = codeGenerators;
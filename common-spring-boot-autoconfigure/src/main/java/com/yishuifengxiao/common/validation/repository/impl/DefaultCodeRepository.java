@@ -3,55 +3,294 @@
  */
 package com.yishuifengxiao.common.validation.repository.impl;
 
+import java.time.ZoneId;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
 import org.springframework.web.context.request.ServletWebRequest;
 
+import com.yishuifengxiao.common.utils.TimingWheel;
 import com.yishuifengxiao.common.validation.entity.ValidateCode;
 import com.yishuifengxiao.common.validation.repository.CodeRepository;
 
 /**
  * 验证码内存管理器<br/>
- * 验证码保存在内存中
- * 
+ * 验证码保存在内存中，数量不会超过 maxSize ，达到上限时先清理已经过期的验证码，仍然不足时按遍历顺序淘汰十分之一。<br/>
+ * 根据验证码的失效时间放入时间轮，由后台线程每隔 reapInterval 秒清理一次到期的验证码；读取时也会检查是否过期，
+ * 过期的验证码不会被返回。<br/>
+ * 读取不加锁，删除只删除指定的键
+ *
  * @author yishui
  * @date 2019年1月23日
  * @version 0.0.1
  */
-public class DefaultCodeRepository implements CodeRepository {
+public class DefaultCodeRepository implements CodeRepository, InitializingBean, DisposableBean {
 	private final static Logger log = LoggerFactory.getLogger(DefaultCodeRepository.class);
 
-	private final static Map<String, ValidateCode> MAP = new ConcurrentHashMap<>();
+	/**
+	 * 时间轮每一格的时间跨度，单位为毫秒
+	 */
+	private final static long TICK_DURATION = 1000L;
+
+	/**
+	 * 时间轮的格数，一圈为一个小时
+	 */
+	private final static int WHEEL_SIZE = 3600;
+
+	/**
+	 * 验证码的最大数量
+	 */
+	private final int maxSize;
+
+	private final Map<String, CodeHolder> codes = new ConcurrentHashMap<>();
+
+	private final TimingWheel<String> expiry = new TimingWheel<>(TICK_DURATION, WHEEL_SIZE);
+
+	/**
+	 * 时间轮中尚未取出的元素的数量，同一个键反复保存时时间轮中会有多个元素，超过上限后不再放入时间轮，只在读取时检查是否过期
+	 */
+	private final AtomicInteger scheduled = new AtomicInteger();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder expirationCount = new LongAdder();
+
+	/**
+	 * 清理过期验证码的时间间隔，单位为秒，小于等于0时不启动后台清理
+	 */
+	private int reapInterval = 1;
+
+	/**
+	 * 每次最多清理的过期验证码的数量
+	 */
+	private int reapBatchSize = 10000;
+
+	private ScheduledExecutorService scheduler;
+
+	public DefaultCodeRepository() {
+		this(100000);
+	}
+
+	/**
+	 *
+	 * @param maxSize 验证码的最大数量
+	 */
+	public DefaultCodeRepository(int maxSize) {
+		Assert.isTrue(maxSize > 0, "验证码的最大数量必须大于0");
+		this.maxSize = maxSize;
+	}
 
 	@Override
 	public void save(ServletWebRequest request, String key, ValidateCode code) {
 		log.debug("验证码存取的默认实现类 保存的键为 {},值为 {}", key, code);
-		MAP.put(key, code);
-
+		if (null == key || null == code || null == code.getExpireTime()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long expireAt = code.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		if (expireAt <= now) {
+			return;
+		}
+		if (codes.size() >= maxSize) {
+			this.evict(now);
+		}
+		codes.put(key, new CodeHolder(code, expireAt));
+		if (scheduled.get() < maxSize * 2) {
+			scheduled.incrementAndGet();
+			expiry.schedule(key, expireAt);
+		}
 	}
 
 	@Override
 	public ValidateCode get(ServletWebRequest request, String key) {
-		ValidateCode code = MAP.get(key);
-		log.debug("验证码存取的默认实现类 获取的键为 {},值为 ", key);
-		return code;
+		CodeHolder holder = null == key ? null : codes.get(key);
+		log.debug("验证码存取的默认实现类 获取的键为 {},值为 {}", key, holder);
+		if (null == holder) {
+			return null;
+		}
+		if (holder.expireAt <= System.currentTimeMillis()) {
+			if (codes.remove(key, holder)) {
+				expirationCount.increment();
+			}
+			return null;
+		}
+		return holder.code;
 	}
 
 	@Override
 	public void remove(ServletWebRequest request, String key) {
-		Iterator<String> it = MAP.keySet().iterator();
-		synchronized (DefaultCodeRepository.class) {
-			while (it.hasNext()) {
-				String currentKey = it.next();
-				MAP.keySet().remove(currentKey);
+		if (null != key) {
+			codes.remove(key);
+		}
+	}
+
+	/**
+	 * 清理已经过期的验证码，每次最多清理 reapBatchSize 个
+	 *
+	 * @return 本次清理的验证码的数量
+	 */
+	public int reap() {
+		long now = System.currentTimeMillis();
+		int removed = 0;
+		int polled = 0;
+		for (String key : expiry.advance(now, reapBatchSize)) {
+			polled++;
+			CodeHolder holder = codes.get(key);
+			// 已经被删除或者重新保存后尚未过期的验证码不需要清理
+			if (null != holder && holder.expireAt <= now && codes.remove(key, holder)) {
+				removed++;
+			}
+		}
+		scheduled.addAndGet(-polled);
+		if (removed > 0) {
+			expirationCount.add(removed);
+			log.debug("清理了 {} 个过期的验证码", removed);
+		}
+		return removed;
+	}
+
+	/**
+	 * 验证码数量达到上限时腾出空间<br/>
+	 * 先清理时间轮中到期的验证码，空间仍然不足时按遍历顺序淘汰十分之一的验证码
+	 *
+	 * @param now 当前时间
+	 */
+	private void evict(long now) {
+		this.reap();
+		int overflow = codes.size() - maxSize + Math.max(1, maxSize / 10);
+		Iterator<CodeHolder> iterator = codes.values().iterator();
+		while (overflow-- > 0 && iterator.hasNext()) {
+			CodeHolder holder = iterator.next();
+			iterator.remove();
+			if (holder.expireAt <= now) {
+				expirationCount.increment();
+			} else {
+				evictionCount.increment();
 			}
+		}
+	}
+
+	private void reapQuietly() {
+		try {
+			this.reap();
+		} catch (Exception e) {
+			log.warn("清理过期的验证码时出现问题，问题为 {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (reapInterval > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "validate-code-reaper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(this::reapQuietly, reapInterval, reapInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (null != scheduler) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * 获取当前保存的验证码的数量
+	 *
+	 * @return 验证码的数量
+	 */
+	public int size() {
+		return codes.size();
+	}
+
+	/**
+	 * 获取因为数量达到上限而被淘汰的未过期验证码的数量
+	 *
+	 * @return 被淘汰的验证码的数量
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
 
+	/**
+	 * 获取因为过期而被清理的验证码的数量
+	 *
+	 * @return 过期的验证码的数量
+	 */
+	public long getExpirationCount() {
+		return expirationCount.sum();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getReapInterval() {
+		return reapInterval;
+	}
+
+	/**
+	 * 清理过期验证码的时间间隔，单位为秒，小于等于0时不启动后台清理
+	 *
+	 * @param reapInterval 清理过期验证码的时间间隔
+	 */
+	public void setReapInterval(int reapInterval) {
+		this.reapInterval = reapInterval;
+	}
+
+	public int getReapBatchSize() {
+		return reapBatchSize;
+	}
+
+	/**
+	 * 每次最多清理的过期验证码的数量
+	 *
+	 * @param reapBatchSize 每次最多清理的过期验证码的数量
+	 */
+	public void setReapBatchSize(int reapBatchSize) {
+		Assert.isTrue(reapBatchSize > 0, "每次清理的数量必须大于0");
+		this.reapBatchSize = reapBatchSize;
+	}
+
+	/**
+	 * 保存的验证码及其失效时间
+	 *
+	 * @author yishui
+	 * @date 2019年11月26日
+	 * @version 1.0.0
+	 */
+	private static class CodeHolder {
+
+		private final ValidateCode code;
+
+		/**
+		 * 失效时间的毫秒数
+		 */
+		private final long expireAt;
+
+		CodeHolder(ValidateCode code, long expireAt) {
+			this.code = code;
+			this.expireAt = expireAt;
 		}
 
+		@Override
+		public String toString() {
+			return String.valueOf(code);
+		}
 	}
 
 }
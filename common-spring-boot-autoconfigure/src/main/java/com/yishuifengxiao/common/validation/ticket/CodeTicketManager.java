@@ -0,0 +1,171 @@
+package com.yishuifengxiao.common.validation.ticket;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.tool.exception.ValidateException;
+import com.yishuifengxiao.common.validation.entity.ValidateCode;
+
+/**
+ * 无状态验证码凭证管理器<br/>
+ * 生成验证码时不保存验证码，而是签发一个凭证交给客户端，凭证的格式为
+ * 类型.失效时间.随机数.验证码摘要.签名 ，失效时间为36进制的毫秒数，其余部分为base64url编码：
+ * <ul>
+ * <li>验证码摘要为 HMAC(随机数.验证码) 的前16个字节，验证码通常只有几位，不带密钥的摘要可以被穷举</li>
+ * <li>签名为 HMAC(类型.失效时间.随机数.验证码摘要.验证码的键) ，验证码的键(例如手机号)不写入凭证，只参与签名，
+ * 凭证不能用于其他的键</li>
+ * </ul>
+ * 校验时在本地检查签名、失效时间和验证码摘要，只有签名有效的凭证才会写入一次 NonceStore ，
+ * 每个凭证只能提交一次，提交错误的验证码也会使凭证失效，防止针对同一个凭证穷举验证码
+ *
+ * @author yishui
+ * @date 2019年11月28日
+ * @version 1.0.0
+ */
+public class CodeTicketManager {
+
+	private final static String ALGORITHM = "HmacSHA256";
+
+	/**
+	 * 验证码摘要的字节数
+	 */
+	private final static int CODE_HASH_LENGTH = 16;
+
+	/**
+	 * 随机数的字节数
+	 */
+	private final static int NONCE_LENGTH = 16;
+
+	private final static Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final static Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final SecureRandom random = new SecureRandom();
+
+	/**
+	 * 每个线程复用的 Mac ， Mac 不是线程安全的
+	 */
+	private final ThreadLocal<Mac> macs;
+
+	/**
+	 * 记录已经使用过的凭证
+	 */
+	private final NonceStore nonceStore;
+
+	/**
+	 *
+	 * @param secret     签名使用的密钥
+	 * @param nonceStore 记录已经使用过的凭证
+	 */
+	public CodeTicketManager(byte[] secret, NonceStore nonceStore) {
+		Assert.isTrue(null != secret && secret.length >= 16, "验证码凭证的密钥不能少于16个字节");
+		Assert.notNull(nonceStore, "随机数管理器不能为空");
+		SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+		this.nonceStore = nonceStore;
+		this.macs = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(ALGORITHM);
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("初始化验证码凭证的签名算法失败", e);
+			}
+		});
+	}
+
+	/**
+	 * 签发验证码凭证
+	 *
+	 * @param type 验证码的类型
+	 * @param key  验证码的键
+	 * @param code 验证码
+	 * @return 验证码凭证
+	 */
+	public String issue(String type, String key, ValidateCode code) {
+		long expireAt = code.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		byte[] bytes = new byte[NONCE_LENGTH];
+		random.nextBytes(bytes);
+		String nonce = ENCODER.encodeToString(bytes);
+		String payload = type + "." + Long.toString(expireAt, 36) + "." + nonce + "."
+				+ codeHash(nonce, code.getCode());
+		return payload + "." + ENCODER.encodeToString(sign(payload, key));
+	}
+
+	/**
+	 * 校验验证码凭证和请求中的验证码
+	 *
+	 * @param type          验证码的类型
+	 * @param key           验证码的键
+	 * @param ticket        验证码凭证
+	 * @param codeInRequest 请求中的验证码
+	 * @throws ValidateException 校验失败
+	 */
+	public void verify(String type, String key, String ticket, String codeInRequest) throws ValidateException {
+		if (StringUtils.isBlank(ticket)) {
+			throw new ValidateException("验证码不存在");
+		}
+		String[] parts = StringUtils.split(ticket, '.');
+		if (parts.length != 5 || !StringUtils.equals(type, parts[0])) {
+			throw new ValidateException("验证码无效");
+		}
+		String payload = ticket.substring(0, ticket.lastIndexOf('.'));
+		byte[] signature;
+		long expireAt;
+		try {
+			signature = DECODER.decode(parts[4]);
+			expireAt = Long.parseLong(parts[1], 36);
+		} catch (IllegalArgumentException e) {
+			throw new ValidateException("验证码无效");
+		}
+		if (!MessageDigest.isEqual(signature, sign(payload, key))) {
+			throw new ValidateException("验证码无效");
+		}
+		if (expireAt <= System.currentTimeMillis()) {
+			throw new ValidateException("验证码已过期");
+		}
+		if (StringUtils.isBlank(codeInRequest)) {
+			throw new ValidateException("验证码的值不能为空");
+		}
+		// 先标记凭证已经使用，再比较验证码，每个凭证只有一次机会
+		if (!nonceStore.consume(parts[2], expireAt)) {
+			throw new ValidateException("验证码已失效");
+		}
+		if (!MessageDigest.isEqual(parts[3].getBytes(StandardCharsets.US_ASCII),
+				codeHash(parts[2], codeInRequest).getBytes(StandardCharsets.US_ASCII))) {
+			throw new ValidateException("验证码不匹配");
+		}
+	}
+
+	/**
+	 * 计算验证码的摘要，验证码不区分大小写
+	 */
+	private String codeHash(String nonce, String code) {
+		byte[] hash = mac("code." + nonce + "." + code.toLowerCase(Locale.ROOT));
+		return ENCODER.encodeToString(Arrays.copyOf(hash, CODE_HASH_LENGTH));
+	}
+
+	private byte[] sign(String payload, String key) {
+		return mac(payload + "." + StringUtils.defaultString(key));
+	}
+
+	private byte[] mac(String content) {
+		return macs.get().doFinal(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public NonceStore getNonceStore() {
+		return nonceStore;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.yishuifengxiao.common.validation.ticket;
+
+/**
+ * 记录已经使用过的验证码凭证的一次性随机数，防止同一个凭证被重复提交
+ *
+ * @author yishui
+ * @date 2019年11月28日
+ * @version 1.0.0
+ */
+public interface NonceStore {
+
+	/**
+	 * 标记一个随机数已经被使用
+	 *
+	 * @param nonce    凭证中的随机数
+	 * @param expireAt 凭证的失效时间的毫秒数，之后不再需要记录这个随机数
+	 * @return 第一次使用时返回true，已经使用过或者无法记录时返回false
+	 */
+	boolean consume(String nonce, long expireAt);
+}
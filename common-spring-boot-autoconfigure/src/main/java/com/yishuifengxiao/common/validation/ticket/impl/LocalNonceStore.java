@@ -0,0 +1,160 @@
+package com.yishuifengxiao.common.validation.ticket.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.yishuifengxiao.common.utils.TimingWheel;
+import com.yishuifengxiao.common.validation.ticket.NonceStore;
+
+/**
+ * 随机数的内存管理器<br/>
+ * 随机数按照凭证的失效时间放入时间轮，凭证失效后随机数也不再需要记录。每秒最多由一个调用线程顺便清理一次，不需要后台线程。<br/>
+ * 数量达到 maxSize 并且清理之后仍然没有空间时，提前淘汰最早失效的百分之一的随机数，新的凭证总是可以校验，
+ * 不会因为有人大量提交凭证而使所有用户无法校验。<br/>
+ * 代价是被淘汰的凭证在失效之前可以再提交一次，提交的速度超过 maxSize / 凭证有效期 时重复提交的保护会变弱，
+ * 通过 getEvictionCount 可以观察到。内存中的记录也不能在多个实例之间共享，生产环境和多实例部署时应该使用 RedisNonceStore
+ *
+ * @author yishui
+ * @date 2019年11月28日
+ * @version 1.0.0
+ */
+public class LocalNonceStore implements NonceStore {
+
+	private final static Logger log = LoggerFactory.getLogger(LocalNonceStore.class);
+
+	/**
+	 * 时间轮每一格的时间跨度，单位为毫秒
+	 */
+	private final static long TICK_DURATION = 1000L;
+
+	/**
+	 * 时间轮的格数，一圈为一个小时
+	 */
+	private final static int WHEEL_SIZE = 3600;
+
+	/**
+	 * 每次最多清理的随机数的数量
+	 */
+	private final static int REAP_BATCH_SIZE = 10000;
+
+	/**
+	 * 随机数的最大数量
+	 */
+	private final int maxSize;
+
+	/**
+	 * 已经使用过的随机数及对应的凭证的失效时间
+	 */
+	private final Map<String, Long> nonces = new ConcurrentHashMap<>();
+
+	private final TimingWheel<String> expiry = new TimingWheel<>(TICK_DURATION, WHEEL_SIZE);
+
+	/**
+	 * 下一次清理的时间
+	 */
+	private final AtomicLong nextReap = new AtomicLong();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder rejectionCount = new LongAdder();
+
+	public LocalNonceStore() {
+		this(100000);
+	}
+
+	/**
+	 *
+	 * @param maxSize 随机数的最大数量
+	 */
+	public LocalNonceStore(int maxSize) {
+		Assert.isTrue(maxSize > 0, "随机数的最大数量必须大于0");
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public boolean consume(String nonce, long expireAt) {
+		long now = System.currentTimeMillis();
+		if (null == nonce || expireAt <= now) {
+			return false;
+		}
+		long next = nextReap.get();
+		if (now >= next && nextReap.compareAndSet(next, now + TICK_DURATION)) {
+			this.reap(now);
+		}
+		if (nonces.size() >= maxSize) {
+			this.reap(now);
+			if (nonces.size() >= maxSize) {
+				this.evict();
+			}
+		}
+		if (null != nonces.putIfAbsent(nonce, expireAt)) {
+			rejectionCount.increment();
+			return false;
+		}
+		expiry.schedule(nonce, expireAt);
+		return true;
+	}
+
+	/**
+	 * 清理对应的凭证已经失效的随机数
+	 *
+	 * @param now 当前时间
+	 */
+	private void reap(long now) {
+		for (String nonce : expiry.advance(now, REAP_BATCH_SIZE)) {
+			nonces.remove(nonce);
+		}
+	}
+
+	/**
+	 * 淘汰最早失效的百分之一的随机数
+	 */
+	private void evict() {
+		List<String> evicted = expiry.poll(Math.max(1, maxSize / 100));
+		for (String nonce : evicted) {
+			nonces.remove(nonce);
+		}
+		evictionCount.add(evicted.size());
+		log.warn("已经使用过的验证码凭证的数量达到上限 {} ，提前淘汰了 {} 个最早失效的凭证，建议使用 RedisNonceStore", maxSize,
+				evicted.size());
+	}
+
+	/**
+	 * 获取当前记录的随机数的数量
+	 *
+	 * @return 随机数的数量
+	 */
+	public int size() {
+		return nonces.size();
+	}
+
+	/**
+	 * 获取因为数量达到上限而在失效之前被淘汰的随机数的数量
+	 *
+	 * @return 被淘汰的随机数的数量
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * 获取因为凭证已经使用过而拒绝的次数
+	 *
+	 * @return 拒绝的次数
+	 */
+	public long getRejectionCount() {
+		return rejectionCount.sum();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+}
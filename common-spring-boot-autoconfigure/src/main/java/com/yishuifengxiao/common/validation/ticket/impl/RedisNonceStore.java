@@ -0,0 +1,52 @@
+package com.yishuifengxiao.common.validation.ticket.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.data.redis.core.RedisTemplate;
+
+import com.yishuifengxiao.common.validation.ticket.NonceStore;
+
+/**
+ * 随机数的redis管理器<br/>
+ * 每个随机数只需要一次 SET NX PX 操作，过期时间与凭证的失效时间相同，由redis自动清理
+ *
+ * @author yishui
+ * @date 2019年11月28日
+ * @version 1.0.0
+ */
+public class RedisNonceStore implements NonceStore {
+
+	/**
+	 * 默认的前缀
+	 */
+	private final static String PREFIX = "validate_code_nonce_";
+
+	private RedisTemplate<String, Object> redisTemplate;
+
+	@Override
+	public boolean consume(String nonce, long expireAt) {
+		long ttl = expireAt - System.currentTimeMillis();
+		if (null == nonce || ttl <= 0) {
+			return false;
+		}
+		return Boolean.TRUE
+				.equals(redisTemplate.opsForValue().setIfAbsent(PREFIX + nonce, 1, ttl, TimeUnit.MILLISECONDS));
+	}
+
+	public RedisTemplate<String, Object> getRedisTemplate() {
+		return redisTemplate;
+	}
+
+	public void setRedisTemplate(RedisTemplate<String, Object> redisTemplate) {
+		this.redisTemplate = redisTemplate;
+	}
+
+	public RedisNonceStore(RedisTemplate<String, Object> redisTemplate) {
+		this.redisTemplate = redisTemplate;
+	}
+
+	public RedisNonceStore() {
+
+	}
+
+}
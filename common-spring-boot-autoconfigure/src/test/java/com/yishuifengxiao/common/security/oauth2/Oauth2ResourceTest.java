@@ -0,0 +1,161 @@
+package com.yishuifengxiao.common.security.oauth2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
+import org.springframework.security.oauth2.provider.authentication.BearerTokenExtractor;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationManager;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationProcessingFilter;
+import org.springframework.security.oauth2.provider.error.DefaultWebResponseExceptionTranslator;
+import org.springframework.security.oauth2.provider.error.OAuth2AccessDeniedHandler;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sun.net.httpserver.HttpServer;
+import com.yishuifengxiao.common.properties.Oauth2Properties;
+import com.yishuifengxiao.common.properties.SecurityProperties;
+import com.yishuifengxiao.common.security.oauth2.token.CachingRemoteTokenServices;
+
+/**
+ * 与授权服务器分开部署的资源服务器的测试<br/>
+ * 使用一个记录请求次数的授权服务器桩，验证资源服务器使用 CachingRemoteTokenServices 校验token，
+ * 并且在缓存时间内使用同一个token的重复请求只会访问一次 /oauth/check_token
+ *
+ * @author yishui
+ * @date 2019年11月29日
+ * @version 1.0.0
+ */
+public class Oauth2ResourceTest {
+
+	private final static String TOKEN = "remote-access-token";
+
+	private final static String USERNAME = "yishui";
+
+	/**
+	 * 校验结果的缓存时间，单位为秒
+	 */
+	private final static int TTL = 1;
+
+	private final AtomicInteger checkTokenCount = new AtomicInteger();
+
+	private HttpServer authorizationServer;
+
+	private CachingRemoteTokenServices remoteTokenServices;
+
+	private ResourceServerTokenServices configuredTokenServices;
+
+	private MockMvc mockMvc;
+
+	@Before
+	public void setUp() throws Exception {
+		authorizationServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		authorizationServer.createContext("/oauth/check_token", exchange -> {
+			checkTokenCount.incrementAndGet();
+			// 读完请求体，保证连接池中的连接可以复用
+			try (InputStream in = exchange.getRequestBody()) {
+				while (in.read() != -1) {
+				}
+			}
+			byte[] body = ("{\"active\":true,\"client_id\":\"resource-client\",\"user_name\":\"" + USERNAME
+					+ "\",\"scope\":[\"read\"],\"authorities\":[\"ROLE_USER\"],\"exp\":"
+					+ (System.currentTimeMillis() / 1000 + 3600) + "}").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		authorizationServer.start();
+
+		remoteTokenServices = new CachingRemoteTokenServices("http://127.0.0.1:"
+				+ authorizationServer.getAddress().getPort() + "/oauth/check_token", "resource-client", "secret");
+		remoteTokenServices.setTtl(TTL);
+		remoteTokenServices.afterPropertiesSet();
+
+		// 与自动配置中一样，只注入远程token服务
+		Oauth2Resource oauth2Resource = new Oauth2Resource();
+		ReflectionTestUtils.setField(oauth2Resource, "oauth2Properties", new Oauth2Properties());
+		ReflectionTestUtils.setField(oauth2Resource, "securityProperties", new SecurityProperties());
+		ReflectionTestUtils.setField(oauth2Resource, "customAccessDeniedHandler", new OAuth2AccessDeniedHandler());
+		ReflectionTestUtils.setField(oauth2Resource, "expressionHandler", new DefaultWebSecurityExpressionHandler());
+		ReflectionTestUtils.setField(oauth2Resource, "tokenExtractor", new BearerTokenExtractor());
+		ReflectionTestUtils.setField(oauth2Resource, "auth2ResponseExceptionTranslator",
+				new DefaultWebResponseExceptionTranslator());
+		ReflectionTestUtils.setField(oauth2Resource, "remoteTokenServices", remoteTokenServices);
+		ResourceServerSecurityConfigurer resources = new ResourceServerSecurityConfigurer();
+		oauth2Resource.configure(resources);
+		configuredTokenServices = (ResourceServerTokenServices) ReflectionTestUtils.getField(resources,
+				"resourceTokenServices");
+
+		// 按照 ResourceServerSecurityConfigurer 的方式使用配置的token服务组装过滤器
+		OAuth2AuthenticationManager authenticationManager = new OAuth2AuthenticationManager();
+		authenticationManager.setTokenServices(configuredTokenServices);
+		OAuth2AuthenticationProcessingFilter filter = new OAuth2AuthenticationProcessingFilter();
+		filter.setAuthenticationManager(authenticationManager);
+		filter.setTokenExtractor(new BearerTokenExtractor());
+		filter.afterPropertiesSet();
+		mockMvc = MockMvcBuilders.standaloneSetup(new ResourceController()).addFilters(filter).build();
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+		if (null != authorizationServer) {
+			authorizationServer.stop(0);
+		}
+	}
+
+	@Test
+	public void resourceServerUsesRemoteTokenServices() {
+		assertSame(remoteTokenServices, configuredTokenServices);
+	}
+
+	@Test
+	public void checkTokenOncePerTtl() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			this.request();
+		}
+		assertEquals(1, checkTokenCount.get());
+
+		Thread.sleep(TTL * 1000L + 200L);
+		for (int i = 0; i < 10; i++) {
+			this.request();
+		}
+		assertEquals(2, checkTokenCount.get());
+	}
+
+	private void request() throws Exception {
+		mockMvc.perform(get("/resource").header("Authorization", "Bearer " + TOKEN)).andExpect(status().isOk())
+				.andExpect(content().string(USERNAME));
+		SecurityContextHolder.clearContext();
+	}
+
+	@RestController
+	public static class ResourceController {
+
+		@GetMapping("/resource")
+		public String resource() {
+			return SecurityContextHolder.getContext().getAuthentication().getName();
+		}
+	}
+
+}
@@ -0,0 +1,291 @@
+package com.yishuifengxiao.common.security.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.config.annotation.configurers.ClientDetailsServiceConfigurer;
+import org.springframework.security.oauth2.config.annotation.web.configuration.AuthorizationServerConfigurerAdapter;
+import org.springframework.security.oauth2.config.annotation.web.configuration.EnableAuthorizationServer;
+import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
+import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerSecurityConfigurer;
+import org.springframework.security.oauth2.provider.client.BaseClientDetails;
+import org.springframework.security.oauth2.provider.client.InMemoryClientDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yishuifengxiao.common.autoconfigure.security.SecurityHandlerAutoConfiguration;
+import com.yishuifengxiao.common.constant.SecurityConstant;
+import com.yishuifengxiao.common.properties.SecurityProperties;
+import com.yishuifengxiao.common.security.filter.TokenEndpointAuthenticationFilter;
+import com.yishuifengxiao.common.security.provider.impl.FormLoginAuthorizeProvider;
+import com.yishuifengxiao.common.security.provider.impl.SessionAuthorizeProvider;
+
+/**
+ * 无状态模式的测试<br/>
+ * 使用与自动配置相同的处理器、表单登录和session配置以及token端点过滤器组装过滤器链，
+ * 在最外层包装请求统计处理过程中创建的session，验证登录成功、登录失败和获取token都不会创建session
+ *
+ * @author yishui
+ * @date 2019年11月29日
+ * @version 1.0.0
+ */
+@RunWith(SpringRunner.class)
+@WebAppConfiguration
+@ContextConfiguration(classes = { StatelessSessionTest.WebSecurityConfig.class,
+		StatelessSessionTest.AuthorizationServerConfig.class })
+public class StatelessSessionTest {
+
+	private final static String USERNAME = "yishui";
+
+	private final static String PASSWORD = "12345678";
+
+	private final static String CLIENT_ID = "stateless-client";
+
+	private final static String CLIENT_SECRET = "stateless-secret";
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private Filter springSecurityFilterChain;
+
+	private final SessionCountingFilter sessionCounter = new SessionCountingFilter();
+
+	private MockMvc mockMvc;
+
+	@Before
+	public void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(sessionCounter, springSecurityFilterChain)
+				.build();
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void loginCreatesNoSession() throws Exception {
+		MvcResult result = mockMvc.perform(post(SecurityConstant.DEFAULT_FORM_ACTION_URL).param("username", USERNAME)
+				.param("pwd", PASSWORD)).andExpect(status().is3xxRedirection()).andReturn();
+		this.assertNoSession(result);
+	}
+
+	@Test
+	public void loginFailureCreatesNoSession() throws Exception {
+		MvcResult result = mockMvc.perform(post(SecurityConstant.DEFAULT_FORM_ACTION_URL).param("username", USERNAME)
+				.param("pwd", "wrong-password")).andExpect(status().is3xxRedirection()).andReturn();
+		this.assertNoSession(result);
+	}
+
+	@Test
+	public void tokenRequestCreatesNoSession() throws Exception {
+		String basic = Base64.getEncoder()
+				.encodeToString((CLIENT_ID + ":" + CLIENT_SECRET).getBytes(StandardCharsets.UTF_8));
+		MvcResult result = mockMvc
+				.perform(post("/oauth/token").header("Authorization", "Basic " + basic).param("grant_type", "password")
+						.param("username", USERNAME).param("password", PASSWORD))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.access_token").exists()).andReturn();
+		this.assertNoSession(result);
+	}
+
+	private void assertNoSession(MvcResult result) {
+		assertEquals("请求处理过程中创建了session", 0, sessionCounter.getCreated());
+		assertNull(result.getRequest().getSession(false));
+	}
+
+	/**
+	 * 统计请求处理过程中创建的session的数量
+	 */
+	private static class SessionCountingFilter extends OncePerRequestFilter {
+
+		private final AtomicInteger created = new AtomicInteger();
+
+		@Override
+		protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+				FilterChain filterChain) throws ServletException, IOException {
+			filterChain.doFilter(new HttpServletRequestWrapper(request) {
+
+				@Override
+				public HttpSession getSession() {
+					return this.getSession(true);
+				}
+
+				@Override
+				public HttpSession getSession(boolean create) {
+					boolean existed = null != super.getSession(false);
+					HttpSession session = super.getSession(create);
+					if (!existed && null != session) {
+						created.incrementAndGet();
+					}
+					return session;
+				}
+			}, response);
+		}
+
+		public int getCreated() {
+			return created.get();
+		}
+	}
+
+	@Configuration
+	@EnableWebMvc
+	@EnableWebSecurity
+	@Import(SecurityHandlerAutoConfiguration.class)
+	static class WebSecurityConfig extends WebSecurityConfigurerAdapter {
+
+		@Autowired
+		private AuthenticationSuccessHandler authenticationSuccessHandler;
+
+		@Autowired
+		private AuthenticationFailureHandler authenticationFailureHandler;
+
+		@Bean
+		public SecurityProperties securityProperties() {
+			SecurityProperties securityProperties = new SecurityProperties();
+			securityProperties.getSession().setStateless(true);
+			securityProperties.setSecretKey("stateless-session-test-secret");
+			return securityProperties;
+		}
+
+		@Bean
+		public ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+
+		@Bean
+		public PasswordEncoder passwordEncoder() {
+			return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+		}
+
+		@Bean
+		@Override
+		public UserDetailsService userDetailsService() {
+			return new InMemoryUserDetailsManager(
+					User.withUsername(USERNAME).password("{noop}" + PASSWORD).roles("USER").build());
+		}
+
+		@Bean
+		@Override
+		public AuthenticationManager authenticationManagerBean() throws Exception {
+			return super.authenticationManagerBean();
+		}
+
+		@Override
+		protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+			auth.userDetailsService(userDetailsService()).passwordEncoder(passwordEncoder());
+		}
+
+		@Override
+		protected void configure(HttpSecurity http) throws Exception {
+			SecurityProperties securityProperties = securityProperties();
+			http.csrf().disable();
+			ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry registry = http
+					.authorizeRequests();
+			new FormLoginAuthorizeProvider(securityProperties, authenticationSuccessHandler,
+					authenticationFailureHandler).config(registry);
+			new SessionAuthorizeProvider(securityProperties, authenticationFailureHandler, null).config(registry);
+			registry.antMatchers(securityProperties.getCore().getRedirectUrl()).permitAll().anyRequest()
+					.authenticated();
+		}
+	}
+
+	@Configuration
+	@EnableAuthorizationServer
+	static class AuthorizationServerConfig extends AuthorizationServerConfigurerAdapter {
+
+		@Autowired
+		private AuthenticationManager authenticationManager;
+
+		@Autowired
+		private PasswordEncoder passwordEncoder;
+
+		@Autowired
+		private SecurityProperties securityProperties;
+
+		@Autowired
+		private ApplicationContext applicationContext;
+
+		private final InMemoryClientDetailsService clientDetailsService = new InMemoryClientDetailsService();
+
+		AuthorizationServerConfig() {
+			BaseClientDetails client = new BaseClientDetails(CLIENT_ID, null, "all", "password,refresh_token",
+					"ROLE_CLIENT");
+			client.setClientSecret("{noop}" + CLIENT_SECRET);
+			clientDetailsService.setClientDetailsStore(Collections.singletonMap(CLIENT_ID, client));
+		}
+
+		@Override
+		public void configure(ClientDetailsServiceConfigurer clients) throws Exception {
+			clients.withClientDetails(clientDetailsService);
+		}
+
+		@Override
+		public void configure(AuthorizationServerEndpointsConfigurer endpoints) throws Exception {
+			endpoints.authenticationManager(authenticationManager);
+		}
+
+		@Override
+		public void configure(AuthorizationServerSecurityConfigurer security) throws Exception {
+			// 与自动配置中的token端点过滤器一致
+			TokenEndpointAuthenticationFilter filter = new TokenEndpointAuthenticationFilter();
+			filter.setClientDetailsService(clientDetailsService);
+			filter.setPasswordEncoder(passwordEncoder);
+			filter.setContentx(applicationContext);
+			filter.setStateless(Boolean.TRUE.equals(securityProperties.getSession().getStateless()));
+			filter.afterPropertiesSet();
+			security.passwordEncoder(passwordEncoder);
+			security.addTokenEndpointAuthenticationFilter(filter);
+			security.allowFormAuthenticationForClients();
+		}
+	}
+
+}
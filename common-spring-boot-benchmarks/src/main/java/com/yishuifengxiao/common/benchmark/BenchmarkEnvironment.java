@@ -0,0 +1,228 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.provider.ClientDetails;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.TokenRequest;
+import org.springframework.security.oauth2.provider.client.BaseClientDetails;
+import org.springframework.security.oauth2.provider.client.InMemoryClientDetailsService;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.oauth2.provider.token.store.InMemoryTokenStore;
+import org.springframework.security.oauth2.provider.token.store.redis.RedisTokenStore;
+
+import com.yishuifengxiao.common.security.oauth2.enhancer.CustomeTokenEnhancer;
+import com.yishuifengxiao.common.security.oauth2.token.CustomInMemoryTokenStore;
+import com.yishuifengxiao.common.security.oauth2.token.CustomTokenServices;
+import com.yishuifengxiao.common.security.oauth2.token.PipelinedRedisTokenStore;
+
+import redis.embedded.RedisServer;
+
+/**
+ * 基准测试使用的公共环境<br/>
+ * 包含一个已刷新的应用上下文(用于发布token事件)、终端信息和token存储。<br/>
+ * 需要redis时，默认在本地随机端口启动一个 embedded-redis 作为替身；设置系统属性 benchmark.redis.host
+ * (以及可选的 benchmark.redis.port)时改为连接已有的redis
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+public class BenchmarkEnvironment implements AutoCloseable {
+
+	/**
+	 * 内存存储
+	 */
+	public final static String MEMORY = "memory";
+
+	/**
+	 * spring security oauth2 自带的内存存储，作为内存存储的对照组
+	 */
+	public final static String IN_MEMORY = "in-memory";
+
+	/**
+	 * spring security oauth2 自带的redis存储
+	 */
+	public final static String REDIS = "redis";
+
+	/**
+	 * 使用管道批量读写的redis存储
+	 */
+	public final static String PIPELINED_REDIS = "pipelined-redis";
+
+	public final static String CLIENT_ID = "benchmark-client";
+
+	public final static String GRANT_TYPE = "password";
+
+	private final static List<GrantedAuthority> AUTHORITIES = AuthorityUtils.createAuthorityList("ROLE_USER");
+
+	private final GenericApplicationContext context;
+
+	private final BaseClientDetails clientDetails;
+
+	private final InMemoryClientDetailsService clientDetailsService;
+
+	private RedisServer redisServer;
+
+	private LettuceConnectionFactory connectionFactory;
+
+	public BenchmarkEnvironment() {
+		this.context = new GenericApplicationContext();
+		this.context.refresh();
+		this.clientDetails = new BaseClientDetails(CLIENT_ID, null, "all", "password,refresh_token,custome",
+				"ROLE_CLIENT");
+		this.clientDetails.setClientSecret("benchmark-secret");
+		this.clientDetailsService = new InMemoryClientDetailsService();
+		this.clientDetailsService.setClientDetailsStore(Collections.singletonMap(CLIENT_ID, clientDetails));
+	}
+
+	/**
+	 * 创建一个空的token存储，redis存储会先清空当前库
+	 *
+	 * @param type token存储的类型
+	 * @return token存储
+	 * @throws Exception 创建失败
+	 */
+	public TokenStore createTokenStore(String type) throws Exception {
+		if (MEMORY.equals(type)) {
+			CustomInMemoryTokenStore tokenStore = new CustomInMemoryTokenStore();
+			tokenStore.setApplicationEventPublisher(context);
+			// 只测量读写本身，不启动后台清理线程
+			tokenStore.setReapInterval(0);
+			tokenStore.afterPropertiesSet();
+			return tokenStore;
+		}
+		if (IN_MEMORY.equals(type)) {
+			return new InMemoryTokenStore();
+		}
+		if (REDIS.equals(type)) {
+			this.flushRedis();
+			return new RedisTokenStore(connectionFactory);
+		}
+		if (PIPELINED_REDIS.equals(type)) {
+			this.flushRedis();
+			return new PipelinedRedisTokenStore(connectionFactory);
+		}
+		throw new IllegalArgumentException("不支持的token存储类型 " + type);
+	}
+
+	/**
+	 * 按照自动配置中的方式创建token服务
+	 *
+	 * @param tokenStore token存储
+	 * @return token服务
+	 * @throws Exception 创建失败
+	 */
+	public CustomTokenServices createTokenServices(TokenStore tokenStore) throws Exception {
+		CustomTokenServices tokenServices = new CustomTokenServices();
+		tokenServices.setTokenStore(tokenStore);
+		tokenServices.setClientDetailsService(clientDetailsService);
+		tokenServices.setTokenEnhancer(new CustomeTokenEnhancer());
+		tokenServices.setSupportRefreshToken(true);
+		tokenServices.setContext(context);
+		tokenServices.afterPropertiesSet();
+		return tokenServices;
+	}
+
+	/**
+	 * 生成一个用户在基准测试终端上的认证信息
+	 *
+	 * @param username 用户名
+	 * @return 认证信息
+	 */
+	public OAuth2Authentication authentication(String username) {
+		TokenRequest tokenRequest = new TokenRequest(Collections.<String, String>emptyMap(), CLIENT_ID,
+				clientDetails.getScope(), GRANT_TYPE);
+		OAuth2Request request = tokenRequest.createOAuth2Request(clientDetails);
+		return new OAuth2Authentication(request, this.userAuthentication(username));
+	}
+
+	/**
+	 * 生成一个用户登录成功后的认证信息
+	 *
+	 * @param username 用户名
+	 * @return 认证信息
+	 */
+	public UsernamePasswordAuthenticationToken userAuthentication(String username) {
+		return new UsernamePasswordAuthenticationToken(new User(username, "", AUTHORITIES), null, AUTHORITIES);
+	}
+
+	/**
+	 * 启动或连接redis，不需要redis的存储类型直接返回
+	 *
+	 * @param type token存储的类型
+	 * @throws IOException 启动失败
+	 */
+	public void startRedis(String type) throws IOException {
+		if (MEMORY.equals(type) || IN_MEMORY.equals(type) || null != connectionFactory) {
+			return;
+		}
+		String host = System.getProperty("benchmark.redis.host");
+		int port;
+		if (null == host) {
+			host = "127.0.0.1";
+			port = freePort();
+			redisServer = RedisServer.builder().port(port).setting("bind 127.0.0.1").setting("save \"\"")
+					.setting("appendonly no").build();
+			redisServer.start();
+		} else {
+			port = Integer.getInteger("benchmark.redis.port", 6379);
+		}
+		connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+		connectionFactory.afterPropertiesSet();
+	}
+
+	private void flushRedis() {
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			connection.flushDb();
+		} finally {
+			connection.close();
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	@Override
+	public void close() {
+		if (null != connectionFactory) {
+			connectionFactory.destroy();
+			connectionFactory = null;
+		}
+		if (null != redisServer) {
+			redisServer.stop();
+			redisServer = null;
+		}
+		context.close();
+	}
+
+	public GenericApplicationContext getContext() {
+		return context;
+	}
+
+	public ClientDetails getClientDetails() {
+		return clientDetails;
+	}
+
+	public ClientDetailsService getClientDetailsService() {
+		return clientDetailsService;
+	}
+
+}
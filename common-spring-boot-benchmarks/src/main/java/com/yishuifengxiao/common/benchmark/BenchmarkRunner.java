@@ -0,0 +1,98 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 按线程数扫描运行所有基准测试，并把全部结果写入一个文件<br/>
+ * 每个线程数单独运行一次JMH，结果中的 threads 字段区分不同的线程数，便于在CI中与基线结果比较。<br/>
+ * 支持的参数：
+ * <ul>
+ * <li>--threads 1,2,4,8 ：需要测试的线程数，默认为从1开始翻倍直到CPU核数</li>
+ * <li>--include 正则表达式 ：需要运行的基准测试，默认为全部</li>
+ * <li>--param 名称=值1,值2 ：覆盖基准测试中 @Param 的取值，可以重复</li>
+ * <li>--result 文件路径 ：结果文件，默认为 target/jmh-result.json</li>
+ * <li>--format json|csv ：结果文件的格式，默认为 json</li>
+ * </ul>
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = BenchmarkRunner.class.getPackage().getName() + ".*Benchmark.*";
+		String result = "target/jmh-result.json";
+		ResultFormatType format = ResultFormatType.JSON;
+		TreeSet<Integer> threads = defaultThreads();
+		Map<String, String[]> params = new LinkedHashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			String name = args[i];
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("参数 " + name + " 缺少值");
+			}
+			String value = args[++i];
+			if ("--threads".equals(name)) {
+				threads = new TreeSet<>();
+				for (String item : value.split(",")) {
+					threads.add(Integer.valueOf(item.trim()));
+				}
+			} else if ("--include".equals(name)) {
+				include = value;
+			} else if ("--param".equals(name)) {
+				int index = value.indexOf('=');
+				if (index <= 0) {
+					throw new IllegalArgumentException("参数 --param 的格式应为 名称=值1,值2");
+				}
+				params.put(value.substring(0, index), value.substring(index + 1).split(","));
+			} else if ("--result".equals(name)) {
+				result = value;
+			} else if ("--format".equals(name)) {
+				format = ResultFormatType.valueOf(value.toUpperCase());
+			} else {
+				throw new IllegalArgumentException("不支持的参数 " + name);
+			}
+		}
+
+		List<RunResult> results = new ArrayList<>();
+		for (int thread : threads) {
+			ChainedOptionsBuilder options = new OptionsBuilder().include(include).threads(thread)
+					.shouldFailOnError(true);
+			params.forEach(options::param);
+			Collection<RunResult> runResults = new Runner(options.build()).run();
+			results.addAll(runResults);
+		}
+
+		File file = new File(result).getAbsoluteFile();
+		if (null != file.getParentFile()) {
+			file.getParentFile().mkdirs();
+		}
+		ResultFormatFactory.getInstance(format, file.getPath()).writeOut(results);
+		System.out.println("基准测试结果已写入 " + file.getPath());
+	}
+
+	private static TreeSet<Integer> defaultThreads() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		TreeSet<Integer> threads = new TreeSet<>();
+		for (int thread = 1; thread < processors; thread <<= 1) {
+			threads.add(thread);
+		}
+		threads.add(processors);
+		return threads;
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDecisionManager;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.access.vote.AffirmativeBased;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.security.web.access.expression.ExpressionBasedFilterInvocationSecurityMetadataSource;
+import org.springframework.security.web.access.expression.WebExpressionVoter;
+import org.springframework.security.web.access.intercept.FilterInvocationSecurityMetadataSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import com.yishuifengxiao.common.security.authorize.custom.CustomAuthorityMetadataSource;
+import com.yishuifengxiao.common.security.authorize.custom.CustomAuthorityVoter;
+import com.yishuifengxiao.common.security.authorize.custom.CustomResourceProvider;
+import com.yishuifengxiao.common.security.matcher.IndexedPathRequestMatcher;
+
+/**
+ * 自定义授权每次请求的开销的基准测试<br/>
+ * 测量 FilterSecurityInterceptor 中获取权限元数据和授权决策两步的耗时，请求命中最后一个自定义授权路径：
+ * <ul>
+ * <li>legacy ：改造之前的方式，每个路径一个 AntPathRequestMatcher ，通过SpEL表达式调用 customAuthority</li>
+ * <li>expression ：所有路径合并为一个匹配规则，仍然通过SpEL表达式调用 customAuthority</li>
+ * <li>voter ：所有路径合并为一个匹配规则，由 CustomAuthorityVoter 直接调用 customAuthority</li>
+ * </ul>
+ * 改造之前每个路径还会注册一个 mvcMatchers ，需要完整的MVC环境，这里没有计入，实际的差距更大
+ *
+ * @author yishui
+ * @date 2019年11月26日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomAuthorizationBenchmark {
+
+	private final static String EXPRESSION = "@customAuthority.hasPermission(request, authentication)";
+
+	@Param({ "legacy", "expression", "voter" })
+	public String route;
+
+	@Param({ "10", "100" })
+	public int patterns;
+
+	private StaticApplicationContext context;
+
+	private FilterInvocationSecurityMetadataSource metadataSource;
+
+	private AccessDecisionManager accessDecisionManager;
+
+	private FilterInvocation filterInvocation;
+
+	private Authentication authentication;
+
+	@Setup
+	public void setUp() {
+		CustomResourceProvider customAuthority = (request, auth) -> null != auth && auth.isAuthenticated();
+		context = new StaticApplicationContext();
+		context.getBeanFactory().registerSingleton("customAuthority", customAuthority);
+		context.refresh();
+		DefaultWebSecurityExpressionHandler expressionHandler = new DefaultWebSecurityExpressionHandler();
+		expressionHandler.setApplicationContext(context);
+
+		List<String> paths = new ArrayList<>(patterns);
+		for (int i = 0; i < patterns; i++) {
+			paths.add("/api/module" + i + "/**");
+		}
+		Collection<ConfigAttribute> attributes = SecurityConfig.createList(EXPRESSION);
+		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap = new LinkedHashMap<>();
+		if ("legacy".equals(route)) {
+			paths.forEach(path -> requestMap.put(new AntPathRequestMatcher(path), attributes));
+		} else {
+			requestMap.put(new IndexedPathRequestMatcher(paths), attributes);
+		}
+		requestMap.put(AntPathRequestMatcher.ANY_REQUEST, SecurityConfig.createList("authenticated"));
+		metadataSource = new ExpressionBasedFilterInvocationSecurityMetadataSource(requestMap, expressionHandler);
+
+		WebExpressionVoter expressionVoter = new WebExpressionVoter();
+		expressionVoter.setExpressionHandler(expressionHandler);
+		List<AccessDecisionVoter<? extends Object>> voters = new ArrayList<>();
+		if ("voter".equals(route)) {
+			voters.add(new CustomAuthorityVoter(customAuthority));
+			metadataSource = new CustomAuthorityMetadataSource(metadataSource, EXPRESSION);
+		}
+		voters.add(expressionVoter);
+		accessDecisionManager = new AffirmativeBased(voters);
+
+		String path = "/api/module" + (patterns - 1) + "/resource";
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.setServletPath(path);
+		filterInvocation = new FilterInvocation(request, new MockHttpServletResponse(), new MockFilterChain());
+		authentication = new UsernamePasswordAuthenticationToken("benchmark-user", null,
+				AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Collection<ConfigAttribute> authorize() {
+		Collection<ConfigAttribute> attributes = metadataSource.getAttributes(filterInvocation);
+		accessDecisionManager.decide(authentication, filterInvocation, attributes);
+		return attributes;
+	}
+
+}
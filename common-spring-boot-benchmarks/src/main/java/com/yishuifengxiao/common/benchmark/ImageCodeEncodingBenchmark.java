@@ -0,0 +1,113 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yishuifengxiao.common.properties.CodeProperties;
+import com.yishuifengxiao.common.validation.code.image.ImageCodeEncoder;
+import com.yishuifengxiao.common.validation.code.image.ImageCodeGenerator;
+import com.yishuifengxiao.common.validation.entity.ImageCode;
+import com.yishuifengxiao.common.validation.eunm.ImageFormat;
+
+/**
+ * 图形验证码编码的基准测试<br/>
+ * 测量每种输出格式编码一张默认尺寸(开启干扰条纹)的图形验证码的耗时，legacy 为改造之前每次调用
+ * ImageIO.write 输出JPEG的方式。<br/>
+ * 每张图片的字节数在每轮测量结束时输出到控制台
+ *
+ * @author yishui
+ * @date 2019年11月27日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ImageCodeEncodingBenchmark {
+
+	/**
+	 * 预先生成的图片的数量，轮流编码，避免每次都编码同一张图片
+	 */
+	private final static int IMAGES = 64;
+
+	@Param({ "legacy", "JPEG", "PNG", "GIF" })
+	public String format;
+
+	private ImageCode[] imageCodes;
+
+	private ImageCodeEncoder encoder;
+
+	private ByteArrayOutputStream out;
+
+	private int index;
+
+	private long images;
+
+	private long bytes;
+
+	@Setup
+	public void setUp() {
+		CodeProperties codeProperties = new CodeProperties();
+		codeProperties.getImage().setFringe(true);
+		ImageCodeGenerator generator = new ImageCodeGenerator(codeProperties);
+		imageCodes = new ImageCode[IMAGES];
+		for (int i = 0; i < IMAGES; i++) {
+			imageCodes[i] = generator.render(codeProperties.getImage().getWidth(),
+					codeProperties.getImage().getHeight());
+		}
+		if ("legacy".equals(format)) {
+			out = new ByteArrayOutputStream(4096);
+		} else {
+			encoder = new ImageCodeEncoder(ImageFormat.valueOf(format), 0.75f);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void resetCounters() {
+		images = 0;
+		bytes = 0;
+	}
+
+	@TearDown(Level.Iteration)
+	public void printSize() {
+		if (images > 0) {
+			System.out.printf("%n%s: %d bytes per image%n", format, bytes / images);
+		}
+	}
+
+	@Benchmark
+	public int encode() throws IOException {
+		ImageCode imageCode = imageCodes[index++ & (IMAGES - 1)];
+		int length;
+		if (null == encoder) {
+			out.reset();
+			ImageIO.write(imageCode.getImage(), "JPEG", out);
+			length = out.size();
+		} else {
+			length = encoder.encode(imageCode.getImage()).length;
+		}
+		images++;
+		bytes += length;
+		return length;
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yishuifengxiao.common.properties.CodeProperties;
+import com.yishuifengxiao.common.validation.code.image.GlyphAtlasImageCodeGenerator;
+import com.yishuifengxiao.common.validation.code.image.ImageCodeGenerator;
+import com.yishuifengxiao.common.validation.entity.ImageCode;
+import com.yishuifengxiao.common.validation.eunm.ImageRenderer;
+
+/**
+ * 图形验证码绘制的基准测试<br/>
+ * 所有线程共用一个生成器，与线上一个 imageCodeGenerator 处理所有请求的情况一致，比较
+ * Java2D 和字形图集两种绘制方式的吞吐量。<br/>
+ * 需要通过 BenchmarkRunner 的 --threads 参数扫描不同的线程数，例如
+ * --include ImageCodeRenderBenchmark --threads 1,2,4,8 ，吞吐量随线程数的变化反映锁竞争的程度
+ *
+ * @author yishui
+ * @date 2019年11月27日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ImageCodeRenderBenchmark {
+
+	@Param({ "JAVA2D", "GLYPH_ATLAS" })
+	public ImageRenderer renderer;
+
+	@Param({ "true" })
+	public boolean fringe;
+
+	private ImageCodeGenerator generator;
+
+	private int width;
+
+	private int height;
+
+	@Setup
+	public void setUp() {
+		CodeProperties codeProperties = new CodeProperties();
+		codeProperties.getImage().setFringe(fringe);
+		width = codeProperties.getImage().getWidth();
+		height = codeProperties.getImage().getHeight();
+		generator = ImageRenderer.GLYPH_ATLAS == renderer ? new GlyphAtlasImageCodeGenerator(codeProperties)
+				: new ImageCodeGenerator(codeProperties);
+	}
+
+	@Benchmark
+	public ImageCode render() {
+		return generator.render(width, height);
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+
+import com.yishuifengxiao.common.security.authorize.custom.impl.IgnoreCustomAuthority;
+import com.yishuifengxiao.common.security.matcher.ExcludeRequestMatcher;
+import com.yishuifengxiao.common.security.matcher.PathPatternIndex;
+
+/**
+ * 每次请求的路径匹配开销的基准测试<br/>
+ * 配置 patterns 个路径(字面量路径、/** 结尾的路径和带通配符的路径各占三分之一)，请求路径 hit 为 true
+ * 时命中最后加入的路径，为 false 时不命中任何路径，这两种情况都需要检查全部的路径。<br/>
+ * antPathMatcher 为改造之前逐个调用 AntPathMatcher.match 的方式，作为比较的基线
+ *
+ * @author yishui
+ * @date 2019年11月25日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PathMatchingBenchmark {
+
+	@Param({ "500", "2000" })
+	public int patterns;
+
+	@Param({ "true", "false" })
+	public boolean hit;
+
+	private List<String> urls;
+
+	private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+	private PathPatternIndex<String> index;
+
+	private ExcludeRequestMatcher excludeRequestMatcher;
+
+	private IgnoreCustomAuthority ignoreCustomAuthority;
+
+	private String path;
+
+	private MockHttpServletRequest request;
+
+	@Setup
+	public void setUp() {
+		urls = new ArrayList<>(patterns);
+		for (int i = 0; i < patterns; i++) {
+			switch (i % 3) {
+			case 0:
+				urls.add("/api/v1/module" + i + "/resource");
+				break;
+			case 1:
+				urls.add("/api/v1/module" + i + "/**");
+				break;
+			default:
+				urls.add("/static/group" + i + "/*.js");
+				break;
+			}
+		}
+		index = new PathPatternIndex<>();
+		urls.forEach(url -> index.add(url, url));
+		excludeRequestMatcher = new ExcludeRequestMatcher(urls);
+		ignoreCustomAuthority = new IgnoreCustomAuthority("/demo", new HashSet<>(urls));
+
+		int last = patterns - 1;
+		path = hit ? urls.get(last).replace("**", "detail/1").replace("*", "app") : "/api/v2/unknown/resource";
+		request = new MockHttpServletRequest("POST", path);
+		request.setServletPath(path);
+	}
+
+	@Benchmark
+	public String antPathMatcher() {
+		for (String url : urls) {
+			if (antPathMatcher.match(url, path)) {
+				return url;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public String pathPatternIndex() {
+		return index.match(path);
+	}
+
+	@Benchmark
+	public boolean excludeRequestMatcher() {
+		return excludeRequestMatcher.matches(request);
+	}
+
+	@Benchmark
+	public boolean ignoreCustomAuthority() {
+		return ignoreCustomAuthority.hasPermission(request, null);
+	}
+
+}
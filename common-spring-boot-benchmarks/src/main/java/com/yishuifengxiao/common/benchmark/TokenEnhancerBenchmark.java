@@ -0,0 +1,148 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenEnhancer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yishuifengxiao.common.security.entity.CustomToken;
+import com.yishuifengxiao.common.security.oauth2.enhancer.CustomeTokenEnhancer;
+import com.yishuifengxiao.common.security.oauth2.token.TokenValueGenerator;
+import com.yishuifengxiao.common.security.oauth2.token.UuidTokenValueGenerator;
+import com.yishuifengxiao.common.tool.encoder.DES;
+import com.yishuifengxiao.common.tool.random.UID;
+
+/**
+ * CustomeTokenEnhancer 的基准测试<br/>
+ * key 为 default 时使用默认的加密方式，为 secret-key 时使用配置的密钥和每个线程独立的加密工具，
+ * legacy 为改造之前的实现(每次调用都创建时间格式化工具和时区、使用未缓存加密工具的 DES 加密、为refresh token重新生成UUID)。<br/>
+ * 每个token都带有refresh token，使各个实现的工作量一致
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenEnhancerBenchmark {
+
+	@Param({ "legacy", "default", "secret-key" })
+	public String key;
+
+	private BenchmarkEnvironment environment;
+
+	private TokenEnhancer enhancer;
+
+	private TokenValueGenerator tokenValueGenerator;
+
+	private OAuth2Authentication authentication;
+
+	private Date expiration;
+
+	private OAuth2RefreshToken refreshToken;
+
+	@Setup
+	public void setUp() {
+		environment = new BenchmarkEnvironment();
+		if ("legacy".equals(key)) {
+			enhancer = new LegacyTokenEnhancer();
+		} else {
+			enhancer = "default".equals(key) ? new CustomeTokenEnhancer()
+					: new CustomeTokenEnhancer("benchmark-secret-key");
+		}
+		tokenValueGenerator = new UuidTokenValueGenerator();
+		authentication = environment.authentication("benchmark-user");
+		expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(12));
+		refreshToken = new DefaultOAuth2RefreshToken(tokenValueGenerator.generate());
+	}
+
+	@TearDown
+	public void tearDown() {
+		environment.close();
+	}
+
+	@Benchmark
+	public OAuth2AccessToken enhance() {
+		// 增强时会修改token的值，每次都使用新的token
+		DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(tokenValueGenerator.generate());
+		accessToken.setExpiration(expiration);
+		accessToken.setRefreshToken(refreshToken);
+		return enhancer.enhance(accessToken, authentication);
+	}
+
+	/**
+	 * 改造之前的 CustomeTokenEnhancer
+	 */
+	private static class LegacyTokenEnhancer implements TokenEnhancer {
+
+		private final static String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+		private final static String ZONE_ID = "Asia/Shanghai";
+
+		private ObjectMapper om = new ObjectMapper();
+
+		@Override
+		public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+			if (accessToken instanceof DefaultOAuth2AccessToken) {
+				DefaultOAuth2AccessToken token = ((DefaultOAuth2AccessToken) accessToken);
+				token.setValue(getNewToken(accessToken, authentication));
+				OAuth2RefreshToken refreshToken = token.getRefreshToken();
+				if (refreshToken instanceof DefaultOAuth2RefreshToken) {
+					token.setRefreshToken(new DefaultOAuth2RefreshToken(UID.uuid()));
+				}
+				Map<String, Object> additionalInformation = new HashMap<String, Object>(1);
+				additionalInformation.put("developer", "yishuifengxiao");
+				token.setAdditionalInformation(additionalInformation);
+				return token;
+			}
+			return accessToken;
+		}
+
+		private String getNewToken(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+			Authentication auth = authentication.getUserAuthentication();
+			String username = auth != null ? auth.getName() : "";
+			String time = LocalDateTime.now(ZoneId.of(ZONE_ID)).format(DateTimeFormatter.ofPattern(PATTERN));
+			CustomToken customToken = new CustomToken(username, authentication.getOAuth2Request().getClientId(),
+					authentication.getAuthorities(), authentication.getOAuth2Request().getGrantType(), time,
+					accessToken.getExpiresIn());
+			String token = customToken.toString();
+			try {
+				token = om.writeValueAsString(customToken);
+			} catch (JsonProcessingException e) {
+
+			}
+			return DES.encrypt(token);
+		}
+
+	}
+
+}
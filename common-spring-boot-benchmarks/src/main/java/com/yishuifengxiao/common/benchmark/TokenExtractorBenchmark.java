@@ -0,0 +1,62 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+import com.yishuifengxiao.common.security.extractor.CustomTokenExtractor;
+
+/**
+ * CustomTokenExtractor.extract 的基准测试<br/>
+ * location 为 header 时token在 Authorization 请求头中，为 parameter 时token在请求参数中<br/>
+ * 每个线程使用自己的请求对象，因为提取时会向请求中写入属性
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenExtractorBenchmark {
+
+	@Param({ "header", "parameter" })
+	public String location;
+
+	private final CustomTokenExtractor extractor = new CustomTokenExtractor();
+
+	private MockHttpServletRequest request;
+
+	@Setup
+	public void setUp() {
+		String token = "2c8b0a3e-5a1f-4a35-9d41-6f0b1f3f6a27";
+		request = new MockHttpServletRequest("GET", "/api/resource");
+		if ("header".equals(location)) {
+			request.addHeader("Authorization", OAuth2AccessToken.BEARER_TYPE + " " + token);
+		} else {
+			request.addParameter(OAuth2AccessToken.ACCESS_TOKEN, token);
+		}
+	}
+
+	@Benchmark
+	public Authentication extract() {
+		return extractor.extract(request);
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yishuifengxiao.common.security.oauth2.token.TokenRevocationList;
+
+/**
+ * token吊销列表的基准测试<br/>
+ * notRevoked 测量绝大多数请求走的路径：token没有被吊销，布隆过滤器直接返回；revoked 测量命中吊销列表的路径
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenRevocationListBenchmark {
+
+	@Param({ "100000" })
+	public int revokedCount;
+
+	private TokenRevocationList revocationList;
+
+	private String[] revoked;
+
+	private String[] active;
+
+	@Setup
+	public void setUp() throws Exception {
+		revocationList = new TokenRevocationList(revokedCount * 2L, 0.001);
+		revocationList.afterPropertiesSet();
+		long expireAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+		revoked = new String[revokedCount];
+		active = new String[revokedCount];
+		for (int i = 0; i < revokedCount; i++) {
+			revoked[i] = UUID.randomUUID().toString();
+			active[i] = UUID.randomUUID().toString();
+			revocationList.revoke(revoked[i], expireAt);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		revocationList.destroy();
+	}
+
+	@Benchmark
+	public boolean notRevoked() {
+		return revocationList.isRevoked(active[ThreadLocalRandom.current().nextInt(revokedCount)]);
+	}
+
+	@Benchmark
+	public boolean revoked() {
+		return revocationList.isRevoked(revoked[ThreadLocalRandom.current().nextInt(revokedCount)]);
+	}
+
+}
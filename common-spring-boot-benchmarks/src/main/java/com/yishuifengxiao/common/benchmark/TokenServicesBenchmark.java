@@ -0,0 +1,104 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import com.yishuifengxiao.common.security.oauth2.token.CustomTokenServices;
+
+/**
+ * CustomTokenServices 签发和校验token的基准测试<br/>
+ * <ul>
+ * <li>createAccessToken ：每次为一个新用户签发token，包含生成、增强和写入存储</li>
+ * <li>reuseAccessToken ：为已登录的用户再次签发token，走复用已有token的路径</li>
+ * <li>loadAuthentication ：随机校验一个已签发的token</li>
+ * </ul>
+ * 每轮迭代开始前都会重建token存储并预先签发 preloaded 个token，避免存储无限增长影响结果。<br/>
+ * in-memory 为 spring security oauth2 自带的 InMemoryTokenStore ，作为 memory 的对照组，
+ * 两者 loadAuthentication 的差异就是读取时重新构建认证信息的代价
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class TokenServicesBenchmark {
+
+	@Param({ BenchmarkEnvironment.IN_MEMORY, BenchmarkEnvironment.MEMORY, BenchmarkEnvironment.REDIS,
+			BenchmarkEnvironment.PIPELINED_REDIS })
+	public String store;
+
+	@Param({ "10000" })
+	public int preloaded;
+
+	private BenchmarkEnvironment environment;
+
+	private CustomTokenServices tokenServices;
+
+	private OAuth2Authentication[] authentications;
+
+	private String[] tokens;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		environment = new BenchmarkEnvironment();
+		environment.startRedis(store);
+		authentications = new OAuth2Authentication[preloaded];
+		for (int i = 0; i < preloaded; i++) {
+			authentications[i] = environment.authentication("preloaded-" + i);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void reset() throws Exception {
+		tokenServices = environment.createTokenServices(environment.createTokenStore(store));
+		tokens = new String[preloaded];
+		for (int i = 0; i < preloaded; i++) {
+			tokens[i] = tokenServices.createAccessToken(authentications[i]).getValue();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		environment.close();
+	}
+
+	@Benchmark
+	public OAuth2AccessToken createAccessToken() {
+		return tokenServices.createAccessToken(environment.authentication("user-" + sequence.incrementAndGet()));
+	}
+
+	@Benchmark
+	public OAuth2AccessToken reuseAccessToken() {
+		return tokenServices.createAccessToken(authentications[ThreadLocalRandom.current().nextInt(preloaded)]);
+	}
+
+	@Benchmark
+	public OAuth2Authentication loadAuthentication() {
+		return tokenServices.loadAuthentication(tokens[ThreadLocalRandom.current().nextInt(preloaded)]);
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import com.yishuifengxiao.common.security.oauth2.token.CustomTokenServices;
+
+/**
+ * 测量内存token存储中每个token占用的堆内存<br/>
+ * 依次使用 spring security oauth2 自带的 InMemoryTokenStore 和 CustomInMemoryTokenStore
+ * 签发指定数量的token(每个token对应一个不同的用户)，比较签发前后GC之后的堆内存使用量，前者作为对照组。
+ * 认证信息在测量期间逐个构建，只有被存储引用的部分计入结果，两种存储承担的对象相同。<br/>
+ * 签发完成后依次读取所有token的认证信息两遍，分别记录第一遍和第二遍每次读取的平均耗时，
+ * 用于比较紧凑存储在读取时重新构建认证信息的代价。<br/>
+ * 参数依次为token的数量(默认为100000)和结果文件(默认为 target/footprint.json)，建议使用 -Xmx2g
+ * 以上并关闭其他程序运行
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+public class TokenStoreFootprint {
+
+	/**
+	 * 依次测量的token存储，第一个为对照组
+	 */
+	private final static String[] STORES = { BenchmarkEnvironment.IN_MEMORY, BenchmarkEnvironment.MEMORY };
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		String result = args.length > 1 ? args[1] : "target/footprint.json";
+
+		try (BenchmarkEnvironment environment = new BenchmarkEnvironment()) {
+			StringBuilder json = new StringBuilder("[");
+			double[] bytesPerToken = new double[STORES.length];
+			for (int i = 0; i < STORES.length; i++) {
+				long[] result = measure(environment, STORES[i], count);
+				bytesPerToken[i] = (double) (result[1] - result[0]) / count;
+				json.append(i == 0 ? "" : ",").append(String.format("%n{\"store\":\"%s\",\"tokens\":%d,"
+						+ "\"heapBefore\":%d,\"heapAfter\":%d,\"bytesPerToken\":%.1f,"
+						+ "\"firstReadNanos\":%.1f,\"repeatedReadNanos\":%.1f}", STORES[i], count, result[0], result[1],
+						bytesPerToken[i], (double) result[2] / count, (double) result[3] / count));
+			}
+			json.append(String.format("%n]%n"));
+
+			File file = new File(result).getAbsoluteFile();
+			if (null != file.getParentFile()) {
+				file.getParentFile().mkdirs();
+			}
+			write(file, json.toString());
+			System.out.print(json);
+			for (int i = 0; i < STORES.length; i++) {
+				System.out.println(STORES[i] + " 每个token占用约 " + Math.round(bytesPerToken[i]) + " 字节");
+			}
+			System.out.println("结果已写入 " + file.getPath());
+		}
+	}
+
+	/**
+	 * 使用一个新的token存储签发所有的token，然后读取所有token的认证信息
+	 *
+	 * @return 签发前和签发后的堆内存使用量，第一遍和第二遍读取的总耗时(纳秒)
+	 */
+	private static long[] measure(BenchmarkEnvironment environment, String store, int count) throws Exception {
+		TokenStore tokenStore = environment.createTokenStore(store);
+		CustomTokenServices tokenServices = environment.createTokenServices(tokenStore);
+		// 预热一次，排除类加载等一次性开销
+		tokenStore.readAuthentication(tokenServices.createAccessToken(environment.authentication("warmup")).getValue());
+		// token的值同时被存储引用，数组本身在测量之前分配，不计入结果
+		String[] tokens = new String[count];
+
+		long before = usedHeap();
+		for (int i = 0; i < count; i++) {
+			// 在测量期间构建认证信息，存储没有引用的部分会被GC回收
+			tokens[i] = tokenServices.createAccessToken(environment.authentication("user-" + i)).getValue();
+		}
+		long after = usedHeap();
+
+		long firstRead = read(tokenStore, tokens);
+		long repeatedRead = read(tokenStore, tokens);
+		// 保证测量期间token存储不会被回收
+		if (null != tokenStore.readAccessToken("")) {
+			throw new IllegalStateException();
+		}
+		return new long[] { before, after, firstRead, repeatedRead };
+	}
+
+	/**
+	 * 依次读取所有token的认证信息
+	 *
+	 * @return 总耗时，单位为纳秒
+	 */
+	private static long read(TokenStore tokenStore, String[] tokens) {
+		long start = System.nanoTime();
+		for (String token : tokens) {
+			if (null == tokenStore.readAuthentication(token)) {
+				throw new IllegalStateException("token " + token + " 不存在");
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long used = Long.MAX_VALUE;
+		// 多次GC取最小值，减少浮动垃圾的影响
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(100);
+			used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+		}
+		return used;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write(content);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import com.yishuifengxiao.common.security.utils.TokenUtils;
+
+/**
+ * TokenUtils.createToken 的基准测试<br/>
+ * 包含根据终端id查询终端信息、构造授权请求以及通过token服务签发token的完整过程
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class TokenUtilsBenchmark {
+
+	@Param({ BenchmarkEnvironment.MEMORY, BenchmarkEnvironment.PIPELINED_REDIS })
+	public String store;
+
+	private BenchmarkEnvironment environment;
+
+	private TokenUtils tokenUtils;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		environment = new BenchmarkEnvironment();
+		environment.startRedis(store);
+	}
+
+	@Setup(Level.Iteration)
+	public void reset() throws Exception {
+		TokenStore tokenStore = environment.createTokenStore(store);
+		tokenUtils = new TokenUtils();
+		tokenUtils.setTokenStore(tokenStore);
+		tokenUtils.setClientDetailsService(environment.getClientDetailsService());
+		tokenUtils.setAuthorizationServerTokenServices(environment.createTokenServices(tokenStore));
+		tokenUtils.setContext(environment.getContext());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		environment.close();
+	}
+
+	@Benchmark
+	public OAuth2AccessToken createToken() {
+		return tokenUtils.createToken(environment.userAuthentication("user-" + sequence.incrementAndGet()),
+				BenchmarkEnvironment.CLIENT_ID, BenchmarkEnvironment.GRANT_TYPE);
+	}
+
+}
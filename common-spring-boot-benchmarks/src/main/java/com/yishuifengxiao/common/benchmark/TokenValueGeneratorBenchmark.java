@@ -0,0 +1,53 @@
+package com.yishuifengxiao.common.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yishuifengxiao.common.security.oauth2.token.SecureRandomTokenValueGenerator;
+import com.yishuifengxiao.common.security.oauth2.token.TokenValueGenerator;
+import com.yishuifengxiao.common.security.oauth2.token.UuidTokenValueGenerator;
+
+/**
+ * token值生成器每秒能生成的token数量<br/>
+ * UUID.randomUUID() 在多线程下共享同一个 SecureRandom ，线程数增加时可以对比两种生成器的伸缩性
+ *
+ * @author yishui
+ * @date 2019年11月23日
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenValueGeneratorBenchmark {
+
+	@Param({ "uuid", "secure-random" })
+	public String generator;
+
+	private TokenValueGenerator tokenValueGenerator;
+
+	@Setup
+	public void setUp() {
+		tokenValueGenerator = "uuid".equals(generator) ? new UuidTokenValueGenerator()
+				: new SecureRandomTokenValueGenerator();
+	}
+
+	@Benchmark
+	public String generate() {
+		return tokenValueGenerator.generate();
+	}
+
+}